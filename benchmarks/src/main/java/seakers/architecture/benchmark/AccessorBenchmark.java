@@ -0,0 +1,184 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import seakers.architecture.Architecture;
+import seakers.architecture.CompactArchitecture;
+import seakers.architecture.DecisionLayout;
+import seakers.architecture.pattern.Assigning;
+import seakers.architecture.pattern.Combining;
+import seakers.architecture.pattern.Connecting;
+import seakers.architecture.pattern.DownSelecting;
+import seakers.architecture.pattern.Permuting;
+
+/**
+ * Throughput of full scans of each decision through the static accessors and
+ * through precomputed decision handles. One operation reads (or writes) every
+ * cell of the decision once, as an evaluator typically does.
+ *
+ * @author nozomihitomi
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccessorBenchmark {
+
+    /**
+     * The number of elements (or nodes) of each decision
+     */
+    @Param({"10", "50"})
+    public int n;
+
+    /**
+     * Flag to use a compact architecture
+     */
+    @Param({"false", "true"})
+    public boolean compact;
+
+    private Architecture arch;
+
+    private Assigning.Handle assigning;
+
+    private Connecting.Handle connecting;
+
+    private DownSelecting.Handle downSelecting;
+
+    private Combining.Handle combining;
+
+    private Permuting.Handle permuting;
+
+    @Setup
+    public void setup() {
+        DecisionLayout layout = new DecisionLayout(Decisions.create(n, false));
+        arch = compact ? new CompactArchitecture(layout, 1, 0) : new Architecture(layout, 1, 0);
+        for (int i = 0; i < n; i += 2) {
+            Assigning.connect(i, (i * 7) % n, arch, Decisions.ASSIGNING);
+            Connecting.connect(i, (i * 3) % n, arch, Decisions.CONNECTING);
+        }
+        assigning = Assigning.handle(layout, Decisions.ASSIGNING);
+        connecting = Connecting.handle(layout, Decisions.CONNECTING);
+        downSelecting = DownSelecting.handle(layout, Decisions.DOWNSELECTING);
+        combining = Combining.handle(layout, Decisions.COMBINING);
+        permuting = Permuting.handle(layout, Decisions.PERMUTING);
+    }
+
+    @Benchmark
+    public int assigningStatic() {
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (Assigning.isConnected(i, j, arch, Decisions.ASSIGNING)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int assigningHandle() {
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (assigning.isConnected(arch, i, j)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int connectingStatic() {
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (Connecting.isConnected(i, j, arch, Decisions.CONNECTING)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int connectingHandle() {
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (connecting.isConnected(arch, i, j)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public Architecture downSelectingStatic() {
+        for (int i = 0; i < n; i++) {
+            DownSelecting.set(i, (i & 1) == 0, arch, Decisions.DOWNSELECTING);
+        }
+        return arch;
+    }
+
+    @Benchmark
+    public Architecture downSelectingHandle() {
+        for (int i = 0; i < n; i++) {
+            downSelecting.set(arch, i, (i & 1) == 0);
+        }
+        return arch;
+    }
+
+    @Benchmark
+    public int combiningStatic() {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += Combining.getValue(i, arch, Decisions.COMBINING);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int combiningHandle() {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += combining.getValue(arch, i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Architecture permutingStatic() {
+        for (int i = 1; i < n; i++) {
+            Permuting.swap(i - 1, i, arch, Decisions.PERMUTING);
+        }
+        return arch;
+    }
+
+    @Benchmark
+    public Architecture permutingHandle() {
+        for (int i = 1; i < n; i++) {
+            permuting.swap(arch, i - 1, i);
+        }
+        return arch;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import seakers.architecture.Architecture;
+import seakers.architecture.CompactArchitecture;
+import seakers.architecture.DecisionLayout;
+import seakers.architecture.pattern.ArchitecturalDecision;
+
+/**
+ * Throughput of creating, copying, hashing and comparing architectures
+ *
+ * @author nozomihitomi
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArchitectureBenchmark {
+
+    /**
+     * The number of elements of each decision
+     */
+    @Param({"5", "20", "50"})
+    public int n;
+
+    /**
+     * Flag to pack the binary decisions into single variables
+     */
+    @Param({"false", "true"})
+    public boolean packed;
+
+    private ArrayList<ArchitecturalDecision> decisions;
+
+    private DecisionLayout layout;
+
+    private Architecture architecture;
+
+    private Architecture other;
+
+    private CompactArchitecture compact;
+
+    @Setup
+    public void setup() {
+        decisions = Decisions.create(n, packed);
+        layout = new DecisionLayout(decisions);
+        architecture = new Architecture(layout, 2, 1);
+        other = architecture.copy();
+        compact = new CompactArchitecture(layout, 2, 1);
+    }
+
+    @Benchmark
+    public Architecture construct() {
+        return new Architecture(2, 1, decisions);
+    }
+
+    @Benchmark
+    public Architecture constructFromLayout() {
+        return new Architecture(layout, 2, 1);
+    }
+
+    @Benchmark
+    public Architecture copy() {
+        return architecture.copy();
+    }
+
+    @Benchmark
+    public Architecture copyCompact() {
+        return compact.copy();
+    }
+
+    @Benchmark
+    public int hashCodeArchitecture() {
+        return architecture.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsArchitecture() {
+        return architecture.equals(other);
+    }
+}
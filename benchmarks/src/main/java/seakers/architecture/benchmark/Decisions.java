@@ -0,0 +1,64 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import seakers.architecture.pattern.ArchitecturalDecision;
+import seakers.architecture.pattern.Assigning;
+import seakers.architecture.pattern.Combining;
+import seakers.architecture.pattern.Connecting;
+import seakers.architecture.pattern.DownSelecting;
+import seakers.architecture.pattern.Partitioning;
+import seakers.architecture.pattern.Permuting;
+
+/**
+ * The decisions shared by the benchmarks. Every pattern appears once so that
+ * the benchmarks exercise a realistic mix of binary and integer variables.
+ *
+ * @author nozomihitomi
+ */
+final class Decisions {
+
+    static final String ASSIGNING = "assigning";
+
+    static final String CONNECTING = "connecting";
+
+    static final String DOWNSELECTING = "downselecting";
+
+    static final String COMBINING = "combining";
+
+    static final String PERMUTING = "permuting";
+
+    static final String PARTITIONING = "partitioning";
+
+    /**
+     * Prevent the creation of this object
+     */
+    private Decisions() {
+
+    }
+
+    /**
+     * Creates one decision of each pattern
+     *
+     * @param n the number of elements (or nodes) of each decision
+     * @param packed flag to pack the binary decisions into single variables
+     * @return the decisions
+     */
+    static ArrayList<ArchitecturalDecision> create(int n, boolean packed) {
+        int[] levels = new int[n];
+        Arrays.fill(levels, 3);
+        ArrayList<ArchitecturalDecision> out = new ArrayList<>();
+        out.add(new Assigning(n, n, ASSIGNING, packed));
+        out.add(new Connecting(n, false, CONNECTING, packed));
+        out.add(new DownSelecting(n, DOWNSELECTING, packed));
+        out.add(new Combining(levels, COMBINING));
+        out.add(new Permuting(n, PERMUTING));
+        out.add(new Partitioning(n, PARTITIONING));
+        return out;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.benchmark;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import seakers.architecture.enumeration.FullFactorial;
+import seakers.architecture.enumeration.PartialConstraint;
+
+/**
+ * Throughput of the full factorial enumerations. The eager enumerations are
+ * compared to the lazy iterators that reuse their output buffer, and the
+ * constrained enumerations that prune partial designs are compared to
+ * filtering the complete designs.
+ *
+ * @author nozomihitomi
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FullFactorialBenchmark {
+
+    /**
+     * The number of elements of each decision. Combining decisions have three
+     * alternatives per element.
+     */
+    @Param({"4", "8", "10"})
+    public int n;
+
+    private int[] levels;
+
+    @Setup
+    public void setup() {
+        levels = new int[n];
+        Arrays.fill(levels, 3);
+    }
+
+    @Benchmark
+    public void combining(Blackhole bh) {
+        bh.consume(FullFactorial.ffCombining(levels));
+    }
+
+    @Benchmark
+    public void combiningIterator(Blackhole bh) {
+        consume(FullFactorial.ffCombiningIterator(levels, true), bh);
+    }
+
+    @Benchmark
+    public void downSelecting(Blackhole bh) {
+        bh.consume(FullFactorial.ffDownSelecting(n));
+    }
+
+    @Benchmark
+    public void downSelectingIterator(Blackhole bh) {
+        consume(FullFactorial.ffDownSelectingIterator(n, true), bh);
+    }
+
+    @Benchmark
+    public void assigning(Blackhole bh) {
+        bh.consume(FullFactorial.ffAssigning(2, n / 2));
+    }
+
+    @Benchmark
+    public void assigningIterator(Blackhole bh) {
+        consume(FullFactorial.ffAssigningIterator(2, n / 2, true), bh);
+    }
+
+    @Benchmark
+    public void orderedPartitioning(Blackhole bh) {
+        bh.consume(FullFactorial.ffOrderedPartitioning(n));
+    }
+
+    @Benchmark
+    public void orderedPartitioningIterator(Blackhole bh) {
+        consume(FullFactorial.ffOrderedPartitioningIterator(n, true), bh);
+    }
+
+    @Benchmark
+    public void permuting(Blackhole bh) {
+        bh.consume(FullFactorial.ffPermuting(n));
+    }
+
+    @Benchmark
+    public void permutingIterator(Blackhole bh) {
+        consume(FullFactorial.ffPermutingIterator(n, true), bh);
+    }
+
+    @Benchmark
+    public void downSelectingFiltered(Blackhole bh) {
+        Iterator<int[]> iter = FullFactorial.ffDownSelectingIterator(n, true);
+        while (iter.hasNext()) {
+            int[] design = iter.next();
+            int count = 0;
+            for (int value : design) {
+                count += value;
+            }
+            if (count <= 2) {
+                bh.consume(design);
+            }
+        }
+    }
+
+    @Benchmark
+    public void downSelectingPruned(Blackhole bh) {
+        consume(FullFactorial.ffDownSelectingIterator(n, true, PartialConstraint.cardinality(0, 2)), bh);
+    }
+
+    @Benchmark
+    public void orderedPartitioningFiltered(Blackhole bh) {
+        Iterator<int[]> iter = FullFactorial.ffOrderedPartitioningIterator(n, true);
+        int[] sizes = new int[n];
+        while (iter.hasNext()) {
+            int[] partition = iter.next();
+            Arrays.fill(sizes, 0);
+            int max = 0;
+            for (int label : partition) {
+                max = Math.max(max, ++sizes[label]);
+            }
+            if (max <= 2) {
+                bh.consume(partition);
+            }
+        }
+    }
+
+    @Benchmark
+    public void orderedPartitioningPruned(Blackhole bh) {
+        consume(FullFactorial.ffOrderedPartitioningIterator(n, true, PartialConstraint.maxBlockSize(2)), bh);
+    }
+
+    private static <T> void consume(Iterator<T> iter, Blackhole bh) {
+        while (iter.hasNext()) {
+            bh.consume(iter.next());
+        }
+    }
+}
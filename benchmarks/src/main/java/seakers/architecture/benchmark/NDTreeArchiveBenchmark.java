@@ -0,0 +1,118 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.moeaframework.core.EpsilonBoxDominanceArchive;
+import org.moeaframework.core.NondominatedPopulation;
+import org.moeaframework.core.Solution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import seakers.architecture.util.NDTreeArchive;
+
+/**
+ * Time to build a non-dominated archive from a stream of solutions near a
+ * spherical front. The ND-tree archive is compared to the list based archives
+ * of the MOEA Framework, with and without epsilon boxes.
+ *
+ * @author nozomihitomi
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NDTreeArchiveBenchmark {
+
+    /**
+     * The number of objectives
+     */
+    @Param({"2", "3", "4", "5", "6"})
+    public int m;
+
+    /**
+     * The number of solutions offered to the archive
+     */
+    @Param({"10000"})
+    public int n;
+
+    /**
+     * The size of the epsilon boxes
+     */
+    private static final double EPSILON = 0.02;
+
+    private Solution[] solutions;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(4);
+        solutions = new Solution[n];
+        for (int i = 0; i < n; i++) {
+            double[] f = new double[m];
+            double norm = 0;
+            for (int k = 0; k < m; k++) {
+                f[k] = random.nextDouble();
+                norm += f[k] * f[k];
+            }
+            //distance from the unit sphere shrinks as the stream goes on
+            double noise = 1 + 0.1 * random.nextDouble() * (n - i) / n;
+            norm = Math.sqrt(norm);
+            for (int k = 0; k < m; k++) {
+                f[k] = f[k] / norm * noise;
+            }
+            solutions[i] = new Solution(0, m);
+            solutions[i].setObjectives(f);
+        }
+    }
+
+    @Benchmark
+    public void ndTree(Blackhole bh) {
+        NDTreeArchive archive = new NDTreeArchive(m);
+        for (Solution solution : solutions) {
+            archive.add(solution);
+        }
+        bh.consume(archive.size());
+    }
+
+    @Benchmark
+    public void nondominatedPopulation(Blackhole bh) {
+        NondominatedPopulation archive = new NondominatedPopulation();
+        for (Solution solution : solutions) {
+            archive.add(solution);
+        }
+        bh.consume(archive.size());
+    }
+
+    @Benchmark
+    public void ndTreeEpsilon(Blackhole bh) {
+        NDTreeArchive archive = new NDTreeArchive(m, new double[]{EPSILON}, Integer.MAX_VALUE);
+        for (Solution solution : solutions) {
+            archive.add(solution);
+        }
+        bh.consume(archive.size());
+    }
+
+    @Benchmark
+    public void epsilonBoxDominanceArchive(Blackhole bh) {
+        EpsilonBoxDominanceArchive archive = new EpsilonBoxDominanceArchive(EPSILON);
+        for (Solution solution : solutions) {
+            archive.add(solution);
+        }
+        bh.consume(archive.size());
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.benchmark;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variation;
+import org.moeaframework.core.variable.Permutation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import seakers.architecture.Architecture;
+import seakers.architecture.DecisionLayout;
+import seakers.architecture.operators.CellCrossover;
+import seakers.architecture.operators.CellMutation;
+import seakers.architecture.operators.CompositeVariation;
+import seakers.architecture.operators.IntegerUM;
+import seakers.architecture.operators.permutation.CycleCrossover;
+import seakers.architecture.operators.permutation.InsertionMutation;
+import seakers.architecture.operators.permutation.InversionMutation;
+import seakers.architecture.operators.permutation.OrderBasedCrossover;
+import seakers.architecture.operators.permutation.SwapMutation;
+import seakers.architecture.operators.permutation.UniformOrderCrossover;
+import seakers.architecture.pattern.DecisionPattern;
+import seakers.architecture.pattern.Permuting;
+
+/**
+ * Throughput of the variation operators. The permutation crossovers are applied
+ * with probability 1 to two solutions holding a single random permutation of n
+ * elements, and to two architectures with a single permuting decision of n
+ * elements together with the permuting mutations. Integer uniform mutation and
+ * the composite operators, which dispatch a cell or permutation operator to
+ * each decision by pattern, are applied to architectures with one decision of
+ * each pattern.
+ *
+ * @author nozomihitomi
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OperatorBenchmark {
+
+    /**
+     * The number of elements of the permutations and decisions
+     */
+    @Param({"10", "100", "1000"})
+    public int n;
+
+    private Solution[] permutations;
+
+    private Solution[] architectures;
+
+    private Variation cycle;
+
+    private Variation orderBased;
+
+    private Variation uniformOrder;
+
+    private Variation integerUM;
+
+    private Solution[] permutingParents;
+
+    private Variation[] permutingOperators;
+
+    private Variation compositeMutation;
+
+    private Variation compositeCrossover;
+
+    @Setup
+    public void setup() {
+        permutations = new Solution[2];
+        for (int i = 0; i < permutations.length; i++) {
+            permutations[i] = new Solution(1, 0);
+            Permutation permutation = new Permutation(n);
+            permutation.randomize();
+            permutations[i].setVariable(0, permutation);
+        }
+        DecisionLayout mixed = new DecisionLayout(Decisions.create(n, true));
+        architectures = new Solution[2];
+        for (int i = 0; i < architectures.length; i++) {
+            architectures[i] = new Architecture(mixed, 2, 0);
+            for (int j = 0; j < architectures[i].getNumberOfVariables(); j++) {
+                architectures[i].getVariable(j).randomize();
+            }
+            Permuting.unrank(PRNG.nextInt(Integer.MAX_VALUE), (Architecture) architectures[i], Decisions.PERMUTING);
+        }
+        cycle = new CycleCrossover(1.0);
+        orderBased = new OrderBasedCrossover(1.0);
+        uniformOrder = new UniformOrderCrossover(1.0);
+        integerUM = new IntegerUM(1.0 / n);
+        compositeMutation = new CompositeVariation(mixed)
+                .setOperator(DecisionPattern.ASSINGING, new CellMutation(1.0 / n))
+                .setOperator(DecisionPattern.CONNECTING, new CellMutation(1.0 / n))
+                .setOperator(DecisionPattern.DOWNSELECTING, new CellMutation(1.0 / n))
+                .setOperator(DecisionPattern.COMBINING, new CellMutation(1.0 / n))
+                .setOperator(DecisionPattern.PARTITIONING, new CellMutation(1.0 / n))
+                .setOperator(DecisionPattern.PERMUTING, new SwapMutation(1.0));
+        compositeCrossover = new CompositeVariation(mixed)
+                .setOperator(DecisionPattern.ASSINGING, new CellCrossover(1.0))
+                .setOperator(DecisionPattern.CONNECTING, new CellCrossover(1.0))
+                .setOperator(DecisionPattern.DOWNSELECTING, new CellCrossover(1.0))
+                .setOperator(DecisionPattern.COMBINING, new CellCrossover(1.0))
+                .setOperator(DecisionPattern.PARTITIONING, new CellCrossover(1.0))
+                .setOperator(DecisionPattern.PERMUTING, new CycleCrossover(1.0));
+
+        DecisionLayout layout = new DecisionLayout(Collections.singletonList(new Permuting(n, Decisions.PERMUTING)));
+        permutingParents = new Solution[2];
+        for (int i = 0; i < permutingParents.length; i++) {
+            permutingParents[i] = new Architecture(layout, 2, 0);
+            Permuting.unrank(PRNG.nextInt(Integer.MAX_VALUE), (Architecture) permutingParents[i], Decisions.PERMUTING);
+        }
+        permutingOperators = new Variation[]{
+            new CycleCrossover(1.0, Decisions.PERMUTING),
+            new OrderBasedCrossover(1.0, Decisions.PERMUTING),
+            new UniformOrderCrossover(1.0, Decisions.PERMUTING),
+            new SwapMutation(1.0, Decisions.PERMUTING),
+            new InsertionMutation(1.0, Decisions.PERMUTING),
+            new InversionMutation(1.0, Decisions.PERMUTING)};
+    }
+
+    @Benchmark
+    public Solution[] cycleCrossover() {
+        return cycle.evolve(permutations);
+    }
+
+    @Benchmark
+    public Solution[] orderBasedCrossover() {
+        return orderBased.evolve(permutations);
+    }
+
+    @Benchmark
+    public Solution[] uniformOrderCrossover() {
+        return uniformOrder.evolve(permutations);
+    }
+
+    @Benchmark
+    public Solution[] integerUniformMutation() {
+        return integerUM.evolve(architectures);
+    }
+
+    @Benchmark
+    public Solution[] compositeMutation() {
+        return compositeMutation.evolve(architectures);
+    }
+
+    @Benchmark
+    public Solution[] compositeCrossover() {
+        return compositeCrossover.evolve(architectures);
+    }
+
+    @Benchmark
+    public Solution[] permutingCycleCrossover() {
+        return permutingOperators[0].evolve(permutingParents);
+    }
+
+    @Benchmark
+    public Solution[] permutingOrderBasedCrossover() {
+        return permutingOperators[1].evolve(permutingParents);
+    }
+
+    @Benchmark
+    public Solution[] permutingUniformOrderCrossover() {
+        return permutingOperators[2].evolve(permutingParents);
+    }
+
+    @Benchmark
+    public Solution[] permutingSwapMutation() {
+        return permutingOperators[3].evolve(permutingParents);
+    }
+
+    @Benchmark
+    public Solution[] permutingInsertionMutation() {
+        return permutingOperators[4].evolve(permutingParents);
+    }
+
+    @Benchmark
+    public Solution[] permutingInversionMutation() {
+        return permutingOperators[5].evolve(permutingParents);
+    }
+}
@@ -6,64 +6,138 @@
 package seakers.architecture;
 
 import seakers.architecture.pattern.ArchitecturalDecision;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
 import org.moeaframework.core.Solution;
 import org.moeaframework.core.Variable;
+import org.moeaframework.core.variable.BinaryVariable;
+import seakers.architecture.pattern.DecisionPattern;
+import seakers.architecture.pattern.Partitioning;
+import seakers.architecture.util.IntegerVariable;
 
 /**
  * The architecture is defined by the types of decisions and the values of those
  * decisions
  *
+ * The architecture records which decisions changed since its last evaluation.
+ * Every write through the cell methods ({@link #setBit} and {@link #setInt}),
+ * and therefore through the static mutators of the decision patterns, their
+ * handles and the variation operators, marks the decision as changed if the
+ * value of the cell changed. The cells that changed can also be recorded by
+ * enabling cell tracking. Copies inherit the changes and the evaluation state
+ * of the original, so an offspring reports exactly the decisions in which it
+ * differs from its evaluated parent. Code that modifies the decision variables
+ * directly, such as the variation operators of the MOEA framework, must call
+ * {@link #markDirty(int)}, or the changes must be found by comparing with the
+ * genotype of the parent (see {@link #markChangesFrom(int[])}), which
+ * {@link seakers.architecture.problem.IncrementalArchitectureProblem} does by
+ * default.
+ *
  * @author nozomihitomi
  */
 public class Architecture extends Solution {
 
-    private static final long serialVersionUID = -2195550924166538032L;
-    
-    private final HashMap<String, Integer> indices;
+    private static final long serialVersionUID = -5424221768512677955L;
+
+    /**
+     * The number of architectures created by copying another architecture
+     */
+    private static final LongAdder COPIES = new LongAdder();
     
-    private final HashMap<String, ArchitecturalDecision> decisions;
+    /**
+     * The layout of the decisions. Shared by all copies of this architecture
+     */
+    private final DecisionLayout layout;
+
+    /**
+     * One bit per slot of the decisions that changed since the last call to
+     * {@link #clearChanges()}
+     */
+    private long[] dirty;
+
+    /**
+     * The cells of each slot that changed since the last call to
+     * {@link #clearChanges()}. Null if cells are not tracked
+     */
+    private BitSet[] touched;
+
+    /**
+     * The state left by the last evaluation of this architecture or of the
+     * architecture it was copied from. Not serialized
+     */
+    private transient Object evaluationState;
     
     public Architecture(int numberOfDecisions, int numberOfObjectives, int numberOfConstraints, ArrayList<ArchitecturalDecision> decisions) {
-        super(numberOfDecisions, numberOfObjectives, numberOfConstraints);
-        
-        this.indices = new HashMap<>();
-        this.decisions = new HashMap<>();
-        
-        int varIndex = 0;
-        for (ArchitecturalDecision decision : decisions) {
-            String tag = decision.getTag();
-            if(indices.put(tag, varIndex) != null){
-                throw new IllegalArgumentException(String.format("Decision %s already exists",tag));
-            }
-            this.decisions.put(tag, decision);
-            ArrayList<Variable> vars = decision.getVariables();
-            for(int j=0; j<vars.size(); j++){
-                setVariable(j + varIndex, vars.get(j));
-            }
-            varIndex += vars.size();
-        }
-        
-        Collections.unmodifiableMap(this.indices);
-        Collections.unmodifiableMap(this.decisions);
+        this(numberOfDecisions, numberOfObjectives, numberOfConstraints, new DecisionLayout(decisions));
+        fillDefaultVariables();
     }
 
     public Architecture(int numberOfObjectives, int numberOfConstraints, ArrayList<ArchitecturalDecision> decisions) {
         this(countVariables(decisions), numberOfObjectives, numberOfConstraints, decisions);
     }
+
+    /**
+     * Creates an architecture with a shared decision layout. All decisions take
+     * their default values.
+     *
+     * @param layout the layout of the decisions
+     * @param numberOfObjectives the number of objectives
+     * @param numberOfConstraints the number of constraints
+     */
+    public Architecture(DecisionLayout layout, int numberOfObjectives, int numberOfConstraints) {
+        this(layout.getNumberOfVariables(), numberOfObjectives, numberOfConstraints, layout);
+        fillDefaultVariables();
+    }
+
+    /**
+     * Creates an architecture with a shared decision layout without creating
+     * any decision variables
+     *
+     * @param numberOfVariables the number of decision variables
+     * @param numberOfObjectives the number of objectives
+     * @param numberOfConstraints the number of constraints
+     * @param layout the layout of the decisions
+     */
+    protected Architecture(int numberOfVariables, int numberOfObjectives, int numberOfConstraints, DecisionLayout layout) {
+        super(numberOfVariables, numberOfObjectives, numberOfConstraints);
+        this.layout = layout;
+        this.dirty = new long[(layout.getNumberOfDecisions() + Long.SIZE - 1) / Long.SIZE];
+    }
     
     protected Architecture(Solution solution){
         super(solution);
         if(!(solution instanceof Architecture)){
             throw new ClassCastException("Solution is not an instance of Architecture");
         }
-        Architecture arch = (Architecture) solution;
-        this.indices = arch.indices;
-        this.decisions = arch.decisions;
+        Architecture other = (Architecture) solution;
+        this.layout = other.layout;
+        this.dirty = other.dirty.clone();
+        if (other.touched != null) {
+            this.touched = new BitSet[other.touched.length];
+            for (int i = 0; i < touched.length; i++) {
+                touched[i] = (BitSet) other.touched[i].clone();
+            }
+        }
+        this.evaluationState = other.evaluationState;
+        COPIES.increment();
+    }
+
+    /**
+     * Gets the number of architectures created by copying another
+     * architecture since the JVM started, including copies made by
+     * {@link #copy()} and by the MOEA framework
+     *
+     * @return the number of copies
+     */
+    public static long getCopyCount() {
+        return COPIES.sum();
     }
     
     private static int countVariables(Collection<ArchitecturalDecision> decisions){
@@ -73,7 +147,57 @@ public class Architecture extends Solution {
         }
         return count;
     }
+
+    /**
+     * Sets the decision variables to the default variables of each decision
+     */
+    private void fillDefaultVariables() {
+        for (int slot = 0; slot < layout.getNumberOfDecisions(); slot++) {
+            ArrayList<Variable> vars = layout.getDecision(slot).getVariables();
+            int offset = layout.getOffset(slot);
+            for (int j = 0; j < vars.size(); j++) {
+                setVariable(j + offset, vars.get(j));
+            }
+        }
+    }
     
+    /**
+     * Replaces a decision variable and marks the decision that owns it as
+     * changed
+     *
+     * @param index the index of the decision variable
+     * @param variable the new decision variable
+     */
+    @Override
+    public void setVariable(int index, Variable variable) {
+        super.setVariable(index, variable);
+        //the copy constructor of Solution sets the variables before the fields are initialized
+        if (dirty != null) {
+            markVariableDirty(index);
+        }
+    }
+
+    /**
+     * Marks the decision that owns a decision variable as changed
+     *
+     * @param index the index of the decision variable
+     */
+    protected void markVariableDirty(int index) {
+        markDirty(layout.getSlotOfVariable(index));
+    }
+
+    /**
+     * Creates a copy of this architecture. The decision variables, the changes
+     * and the evaluation state are copied and the decision layout is shared
+     * with this architecture.
+     *
+     * @return a copy of this architecture
+     */
+    @Override
+    public Architecture copy() {
+        return new Architecture(this);
+    }
+
     /**
      * Checks all the constraint values of the architecture.
      * @return true if the architecture is feasible
@@ -87,13 +211,30 @@ public class Architecture extends Solution {
         return true;
     }
     
+    /**
+     * Gets the layout of the decisions of this architecture
+     * @return the layout of the decisions
+     */
+    public DecisionLayout getLayout(){
+        return layout;
+    }
+    
+    /**
+     * Gets the slot of the selected architectural decision in the decision layout
+     * @param tag the tag of the decision
+     * @return the slot of the decision
+     */
+    public int getDecisionSlot(String tag){
+        return layout.getSlot(tag);
+    }
+    
     /**
      * Gets the decision variable index where the selected architectural decision begins
      * @param tag
      * @return 
      */
     public int getDecisionIndex(String tag){
-        return indices.get(tag);
+        return layout.getOffset(layout.getSlot(tag));
     }
     
     /**
@@ -102,7 +243,16 @@ public class Architecture extends Solution {
      * @return 
      */
     public ArchitecturalDecision getDecision(String tag){
-        return decisions.get(tag);
+        return layout.getDecision(layout.getSlot(tag));
+    }
+    
+    /**
+     * Gets the decision in the given slot of the decision layout
+     * @param slot the slot of the decision
+     * @return the decision
+     */
+    public ArchitecturalDecision getDecision(int slot){
+        return layout.getDecision(slot);
     }
     
     /**
@@ -110,7 +260,339 @@ public class Architecture extends Solution {
      * @return the number of architectural decisions
      */
     public int getNumberOfDecisions(){
-        return decisions.size();
+        return layout.getNumberOfDecisions();
+    }
+
+    /**
+     * Gets the value of a cell of a binary valued decision (assigning,
+     * connecting or downselecting)
+     *
+     * @param slot the slot of the decision
+     * @param cell the index of the cell within the decision
+     * @return the value of the cell
+     * @throws IndexOutOfBoundsException if the decision has no such cell
+     */
+    public boolean getBit(int slot, int cell) {
+        checkCell(slot, cell);
+        int offset = layout.getOffset(slot);
+        if (layout.getEncoding(slot) == DecisionLayout.Encoding.PACKED_BITS) {
+            return ((BinaryVariable) getVariable(offset)).get(cell);
+        }
+        return ((BinaryVariable) getVariable(offset + cell)).get(0);
+    }
+
+    /**
+     * Sets the value of a cell of a binary valued decision (assigning,
+     * connecting or downselecting)
+     *
+     * @param slot the slot of the decision
+     * @param cell the index of the cell within the decision
+     * @param value the new value of the cell
+     * @return the value of the cell before the change
+     * @throws IndexOutOfBoundsException if the decision has no such cell
+     */
+    public boolean setBit(int slot, int cell, boolean value) {
+        checkCell(slot, cell);
+        int offset = layout.getOffset(slot);
+        BinaryVariable var;
+        int bit;
+        if (layout.getEncoding(slot) == DecisionLayout.Encoding.PACKED_BITS) {
+            var = (BinaryVariable) getVariable(offset);
+            bit = cell;
+        } else {
+            var = (BinaryVariable) getVariable(offset + cell);
+            bit = 0;
+        }
+        boolean out = var.get(bit);
+        if (out != value) {
+            var.set(bit, value);
+            markChanged(slot, cell);
+        }
+        return out;
+    }
+
+    /**
+     * Gets the value of a cell of an integer valued decision (combining,
+     * partitioning or permuting)
+     *
+     * @param slot the slot of the decision
+     * @param cell the index of the cell within the decision
+     * @return the value of the cell
+     * @throws IndexOutOfBoundsException if the decision has no such cell
+     */
+    public int getInt(int slot, int cell) {
+        checkCell(slot, cell);
+        return ((IntegerVariable) getVariable(layout.getOffset(slot) + cell)).getValue();
+    }
+
+    /**
+     * Sets the value of a cell of an integer valued decision (combining,
+     * partitioning or permuting)
+     *
+     * @param slot the slot of the decision
+     * @param cell the index of the cell within the decision
+     * @param value the new value of the cell
+     * @return the value of the cell before the change
+     * @throws IndexOutOfBoundsException if the decision has no such cell
+     * @throws IllegalArgumentException if the value is out of the bounds of
+     * the cell
+     */
+    public int setInt(int slot, int cell, int value) {
+        checkCell(slot, cell);
+        IntegerVariable var = (IntegerVariable) getVariable(layout.getOffset(slot) + cell);
+        int out = var.getValue();
+        if (out != value) {
+            var.setValue(value);
+            markChanged(slot, cell);
+        }
+        return out;
+    }
+
+    /**
+     * Checks that a decision has a cell with the given index. Without the
+     * check a cell beyond the decision would read or write the cells of the
+     * next decision
+     *
+     * @param slot the slot of the decision
+     * @param cell the index of the cell within the decision
+     * @throws IndexOutOfBoundsException if the decision has no such cell
+     */
+    protected final void checkCell(int slot, int cell) {
+        int n = layout.getNumberOfCells(slot);
+        if (cell < 0 || cell >= n) {
+            throw new IndexOutOfBoundsException(String.format("Cell %d is out of bounds for decision %d with %d cells", cell, slot, n));
+        }
+    }
+
+    /**
+     * Records that a cell changed
+     *
+     * @param slot the slot of the decision
+     * @param cell the index of the cell within the decision
+     */
+    protected final void markChanged(int slot, int cell) {
+        dirty[slot >>> 6] |= 1L << slot;
+        if (touched != null) {
+            touched[slot].set(cell);
+        }
+    }
+
+    /**
+     * Marks a decision as changed. If cells are tracked, every cell of the
+     * decision is marked as changed.
+     *
+     * @param slot the slot of the decision
+     */
+    public void markDirty(int slot) {
+        dirty[slot >>> 6] |= 1L << slot;
+        if (touched != null) {
+            touched[slot].set(0, layout.getNumberOfCells(slot));
+        }
+    }
+
+    /**
+     * Marks every decision as changed
+     */
+    public void markDirty() {
+        for (int slot = 0; slot < layout.getNumberOfDecisions(); slot++) {
+            markDirty(slot);
+        }
+    }
+
+    /**
+     * Checks if a decision changed since the last call to
+     * {@link #clearChanges()}
+     *
+     * @param slot the slot of the decision
+     * @return true if the decision changed
+     */
+    public boolean isDirty(int slot) {
+        return (dirty[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    /**
+     * Checks if a decision changed since the last call to
+     * {@link #clearChanges()}
+     *
+     * @param tag the tag of the decision
+     * @return true if the decision changed
+     */
+    public boolean isDirty(String tag) {
+        return isDirty(layout.getSlot(tag));
+    }
+
+    /**
+     * Checks if any decision changed since the last call to
+     * {@link #clearChanges()}
+     *
+     * @return true if any decision changed
+     */
+    public boolean hasChanges() {
+        for (long word : dirty) {
+            if (word != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the next changed decision. Iterate over the changed decisions with
+     * {@code for (int s = nextDirtySlot(0); s >= 0; s = nextDirtySlot(s + 1))}
+     *
+     * @param fromSlot the slot to start searching from (inclusive)
+     * @return the slot of the next changed decision or -1 if there is none
+     */
+    public int nextDirtySlot(int fromSlot) {
+        int w = fromSlot >>> 6;
+        if (w >= dirty.length) {
+            return -1;
+        }
+        long word = dirty[w] & (-1L << fromSlot);
+        while (true) {
+            if (word != 0) {
+                return w * Long.SIZE + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == dirty.length) {
+                return -1;
+            }
+            word = dirty[w];
+        }
+    }
+
+    /**
+     * Gets the cells of a decision that changed since the last call to
+     * {@link #clearChanges()}
+     *
+     * @param slot the slot of the decision
+     * @return a copy of the changed cells. Empty if cells are not tracked
+     */
+    public BitSet getTouchedCells(int slot) {
+        if (touched == null) {
+            return new BitSet();
+        }
+        return (BitSet) touched[slot].clone();
+    }
+
+    /**
+     * Forgets all changes. Called after this architecture is evaluated.
+     */
+    public void clearChanges() {
+        Arrays.fill(dirty, 0L);
+        if (touched != null) {
+            for (BitSet cells : touched) {
+                cells.clear();
+            }
+        }
+    }
+
+    /**
+     * Copies the flat genotype of this architecture, with one word per cell of
+     * the integer valued decisions and the bits of the binary valued decisions
+     * packed into words (see {@link DecisionLayout#getWordOffset(int)})
+     *
+     * @param words the array to fill. Must hold
+     * {@link DecisionLayout#getNumberOfWords()} words
+     */
+    public void readGenotype(int[] words) {
+        for (int slot = 0; slot < layout.getNumberOfDecisions(); slot++) {
+            int n = layout.getNumberOfCells(slot);
+            if (layout.getEncoding(slot) == DecisionLayout.Encoding.INTEGERS) {
+                int start = layout.getWordOffset(slot);
+                for (int cell = 0; cell < n; cell++) {
+                    words[start + cell] = getInt(slot, cell);
+                }
+            } else {
+                Arrays.fill(words, layout.getWordOffset(slot), layout.getWordOffset(slot + 1), 0);
+                for (int cell = 0; cell < n; cell++) {
+                    if (getBit(slot, cell)) {
+                        layout.setBit(words, slot, cell, true);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks the cells that differ from a genotype as changed. Finds the
+     * changes made without the cell methods, for instance by operators that
+     * modify the decision variables in place.
+     *
+     * @param words a genotype read by {@link #readGenotype(int[])} from an
+     * architecture with the same layout
+     * @return true if any cell differs
+     */
+    public boolean markChangesFrom(int[] words) {
+        boolean out = false;
+        for (int slot = 0; slot < layout.getNumberOfDecisions(); slot++) {
+            int n = layout.getNumberOfCells(slot);
+            if (layout.getEncoding(slot) == DecisionLayout.Encoding.INTEGERS) {
+                int start = layout.getWordOffset(slot);
+                for (int cell = 0; cell < n; cell++) {
+                    if (getInt(slot, cell) != words[start + cell]) {
+                        markChanged(slot, cell);
+                        out = true;
+                    }
+                }
+            } else {
+                for (int cell = 0; cell < n; cell++) {
+                    if (getBit(slot, cell) != layout.getBit(words, slot, cell)) {
+                        markChanged(slot, cell);
+                        out = true;
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Enables or disables the tracking of the changed cells of each decision.
+     * Cells changed before tracking is enabled are not recorded. Copies inherit
+     * the setting.
+     *
+     * @param enabled true to record the changed cells
+     */
+    public void setCellTracking(boolean enabled) {
+        if (!enabled) {
+            touched = null;
+        } else if (touched == null) {
+            touched = new BitSet[layout.getNumberOfDecisions()];
+            for (int slot = 0; slot < touched.length; slot++) {
+                touched[slot] = new BitSet(layout.getNumberOfCells(slot));
+            }
+        }
+    }
+
+    /**
+     * Checks if the changed cells of each decision are recorded
+     *
+     * @return true if the changed cells are recorded
+     */
+    public boolean isCellTracking() {
+        return touched != null;
+    }
+
+    /**
+     * Gets the state left by the last evaluation of this architecture or of
+     * the architecture it was copied from. The state is shared between copies
+     * and is not serialized.
+     *
+     * @return the evaluation state or null if there is none
+     */
+    public Object getEvaluationState() {
+        return evaluationState;
+    }
+
+    /**
+     * Sets the state left by an evaluation of this architecture, such as the
+     * partial results of each subsystem. The state is shared with all copies
+     * of this architecture, so it must not be modified once set.
+     *
+     * @param evaluationState the evaluation state
+     */
+    public void setEvaluationState(Object evaluationState) {
+        this.evaluationState = evaluationState;
     }
 
     /**
@@ -118,6 +600,23 @@ public class Architecture extends Solution {
      *
      * @return a string with the values of each decision
      */
+    /**
+     * Reads an architecture and checks that it has a decision layout. Streams
+     * written before the layout replaced the maps of tags to decisions have
+     * no layout, and an architecture without one cannot be used.
+     *
+     * @param in the stream to read from
+     * @throws IOException if the stream cannot be read
+     * @throws ClassNotFoundException if a class in the stream is not found
+     * @throws InvalidObjectException if the architecture has no layout
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (layout == null || dirty == null) {
+            throw new InvalidObjectException("Architecture has no decision layout");
+        }
+    }
+
     @Override
     public String toString() {
         String out = "";
@@ -128,15 +627,59 @@ public class Architecture extends Solution {
         return out;
     }
 
+    /**
+     * Hashes the values of the decisions. Partitioning decisions are hashed by
+     * partition, so architectures that only differ in how the subsets of a
+     * partition are numbered have the same hash code.
+     *
+     * @return the hash code of this architecture
+     */
     @Override
     public int hashCode() {
         int hash = 7;
-        for (int i = 0; i < getNumberOfVariables(); i++) {
+        if (!layout.hasPattern(DecisionPattern.PARTITIONING)) {
+            for (int i = 0; i < getNumberOfVariables(); i++) {
+                hash = 67 * hash + Objects.hashCode(this.getVariable(i));
+            }
+            return hash;
+        }
+        for (int slot = 0; slot < layout.getNumberOfDecisions(); slot++) {
+            if (layout.getDecision(slot).getPattern() == DecisionPattern.PARTITIONING) {
+                int[] labels = new int[layout.getNumberOfCells(slot)];
+                Partitioning.readRestrictedGrowth(this, slot, labels);
+                for (int label : labels) {
+                    hash = 67 * hash + label;
+                }
+            } else {
+                hash = hashValues(hash, slot);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Combines the values of a decision into a hash code
+     *
+     * @param hash the hash code of the preceding decisions
+     * @param slot the slot of the decision
+     * @return the combined hash code
+     */
+    protected int hashValues(int hash, int slot) {
+        int offset = layout.getOffset(slot);
+        for (int i = offset; i < offset + layout.getDecision(slot).getNumberOfVariables(); i++) {
             hash = 67 * hash + Objects.hashCode(this.getVariable(i));
         }
         return hash;
     }
 
+    /**
+     * Compares the values of the decisions. Partitioning decisions are equal if
+     * they describe the same partition, regardless of how its subsets are
+     * numbered.
+     *
+     * @param obj the object to compare to
+     * @return true if the decisions of both architectures have equal values
+     */
     @Override
     public boolean equals(Object obj) {
         if (obj == null) {
@@ -146,7 +689,65 @@ public class Architecture extends Solution {
             return false;
         }
         final Architecture other = (Architecture) obj;
-        for (int i = 0; i < getNumberOfVariables(); i++) {
+        if (getNumberOfVariables() != other.getNumberOfVariables()) {
+            return false;
+        }
+        if (!layout.hasPattern(DecisionPattern.PARTITIONING)
+                || (layout != other.layout && !layout.equals(other.layout))) {
+            for (int i = 0; i < getNumberOfVariables(); i++) {
+                if (!this.getVariable(i).equals(other.getVariable(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (int slot = 0; slot < layout.getNumberOfDecisions(); slot++) {
+            if (layout.getDecision(slot).getPattern() == DecisionPattern.PARTITIONING) {
+                if (!samePartition(other, slot)) {
+                    return false;
+                }
+            } else if (!equalValues(other, slot)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a partitioning decision of this and another architecture with
+     * an equal layout describe the same partition
+     *
+     * @param other the other architecture
+     * @param slot the slot of the partitioning decision
+     * @return true if both describe the same partition
+     */
+    private boolean samePartition(Architecture other, int slot) {
+        int n = layout.getNumberOfCells(slot);
+        int i = 0;
+        while (i < n && getInt(slot, i) == other.getInt(slot, i)) {
+            i++;
+        }
+        if (i == n) {
+            return true;
+        }
+        int[] labels = new int[n];
+        int[] otherLabels = new int[n];
+        Partitioning.readRestrictedGrowth(this, slot, labels);
+        Partitioning.readRestrictedGrowth(other, slot, otherLabels);
+        return Arrays.equals(labels, otherLabels);
+    }
+
+    /**
+     * Checks if a decision of this and another architecture with an equal
+     * layout have equal values
+     *
+     * @param other the other architecture
+     * @param slot the slot of the decision
+     * @return true if the values of the decision are equal
+     */
+    protected boolean equalValues(Architecture other, int slot) {
+        int offset = layout.getOffset(slot);
+        for (int i = offset; i < offset + layout.getDecision(slot).getNumberOfVariables(); i++) {
             if (!this.getVariable(i).equals(other.getVariable(i))) {
                 return false;
             }
@@ -0,0 +1,144 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture;
+
+import java.util.Arrays;
+import org.moeaframework.core.Solution;
+import seakers.architecture.util.Genotype;
+
+/**
+ * An architecture that stores the values of all its decisions in a single
+ * {@link Genotype} variable instead of one variable per decision value. The
+ * decision layout is shared by every copy, so copying an architecture only
+ * copies one primitive array and the objective and constraint values. The
+ * pattern accessors (e.g. {@link seakers.architecture.pattern.Assigning#connect})
+ * work unchanged. Operators that work on individual decision variables do not
+ * apply since the architecture has exactly one decision variable, and
+ * {@link #getDecisionIndex(java.lang.String)} refers to the variables of the
+ * equivalent non-compact architecture.
+ *
+ * @author nozomihitomi
+ */
+public class CompactArchitecture extends Architecture {
+
+    private static final long serialVersionUID = 6291307713517452950L;
+
+    /**
+     * Creates an architecture with a shared decision layout. All decisions
+     * take their default values.
+     *
+     * @param layout the layout of the decisions
+     * @param numberOfObjectives the number of objectives
+     * @param numberOfConstraints the number of constraints
+     */
+    public CompactArchitecture(DecisionLayout layout, int numberOfObjectives, int numberOfConstraints) {
+        super(1, numberOfObjectives, numberOfConstraints, layout);
+        setVariable(0, new Genotype(layout));
+    }
+
+    protected CompactArchitecture(Solution solution) {
+        super(solution);
+    }
+
+    /**
+     * Creates a copy of this architecture. The genotype is copied and the
+     * decision layout is shared with this architecture.
+     *
+     * @return a copy of this architecture
+     */
+    @Override
+    public CompactArchitecture copy() {
+        return new CompactArchitecture(this);
+    }
+
+    /**
+     * The genotype holds every decision, so replacing it marks every decision
+     * as changed
+     *
+     * @param index the index of the decision variable
+     */
+    @Override
+    protected void markVariableDirty(int index) {
+        markDirty();
+    }
+
+    /**
+     * Gets the genotype that holds the values of all decisions
+     *
+     * @return the genotype of this architecture
+     */
+    public Genotype getGenotype() {
+        return (Genotype) getVariable(0);
+    }
+
+    @Override
+    public void readGenotype(int[] words) {
+        System.arraycopy(getGenotype().getWords(), 0, words, 0, getLayout().getNumberOfWords());
+    }
+
+    @Override
+    public boolean getBit(int slot, int cell) {
+        checkCell(slot, cell);
+        return getLayout().getBit(getGenotype().getWords(), slot, cell);
+    }
+
+    @Override
+    public boolean setBit(int slot, int cell, boolean value) {
+        checkCell(slot, cell);
+        int[] words = getGenotype().getWords();
+        DecisionLayout layout = getLayout();
+        boolean out = layout.getBit(words, slot, cell);
+        if (out != value) {
+            layout.setBit(words, slot, cell, value);
+            markChanged(slot, cell);
+        }
+        return out;
+    }
+
+    @Override
+    public int getInt(int slot, int cell) {
+        checkCell(slot, cell);
+        return getGenotype().getWords()[getLayout().getWordOffset(slot) + cell];
+    }
+
+    @Override
+    public int setInt(int slot, int cell, int value) {
+        checkCell(slot, cell);
+        DecisionLayout layout = getLayout();
+        int lo = layout.getLowerBound(slot, cell);
+        int hi = layout.getUpperBound(slot, cell);
+        if (value < lo || value > hi) {
+            throw new IllegalArgumentException(String.format("Value %d is out of bounds [%d, %d] for cell %d of decision %d", value, lo, hi, cell, slot));
+        }
+        int[] words = getGenotype().getWords();
+        int index = layout.getWordOffset(slot) + cell;
+        int out = words[index];
+        if (out != value) {
+            words[index] = value;
+            markChanged(slot, cell);
+        }
+        return out;
+    }
+
+    @Override
+    protected int hashValues(int hash, int slot) {
+        int[] words = getGenotype().getWords();
+        DecisionLayout layout = getLayout();
+        for (int i = layout.getWordOffset(slot); i < layout.getWordOffset(slot + 1); i++) {
+            hash = 67 * hash + words[i];
+        }
+        return hash;
+    }
+
+    @Override
+    protected boolean equalValues(Architecture other, int slot) {
+        DecisionLayout layout = getLayout();
+        int from = layout.getWordOffset(slot);
+        int to = layout.getWordOffset(slot + 1);
+        return Arrays.equals(getGenotype().getWords(), from, to,
+                ((CompactArchitecture) other).getGenotype().getWords(), from, to);
+    }
+}
@@ -0,0 +1,554 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Variable;
+import org.moeaframework.core.variable.BinaryVariable;
+import seakers.architecture.pattern.ArchitecturalDecision;
+import seakers.architecture.pattern.Assigning;
+import seakers.architecture.pattern.Connecting;
+import seakers.architecture.pattern.DecisionPattern;
+import seakers.architecture.pattern.DownSelecting;
+import seakers.architecture.util.IntegerVariable;
+
+/**
+ * The immutable layout of the decisions of an architecture. The layout is
+ * built once per problem and shared by every architecture of the problem. Each
+ * decision occupies a slot, numbered in the order the decisions are given,
+ * that records where the values of the decision are stored in the decision
+ * variables of an architecture and in the flat genotype of a
+ * {@link CompactArchitecture}.
+ *
+ * @author nozomihitomi
+ */
+public class DecisionLayout implements Serializable {
+
+    private static final long serialVersionUID = -1719839412007513325L;
+
+    /**
+     * How the values of a decision are encoded in decision variables
+     */
+    public enum Encoding {
+
+        /**
+         * One single-bit binary variable per cell
+         */
+        BITS,
+        /**
+         * One binary variable holding one bit per cell
+         */
+        PACKED_BITS,
+        /**
+         * One integer variable per cell
+         */
+        INTEGERS
+    }
+
+    /**
+     * The ordered decisions
+     */
+    private final List<ArchitecturalDecision> decisions;
+
+    /**
+     * The slot of each decision by tag
+     */
+    private final HashMap<String, Integer> slots;
+
+    /**
+     * The encoding of each decision
+     */
+    private final Encoding[] encodings;
+
+    /**
+     * The decision variable index where each decision begins
+     */
+    private final int[] offsets;
+
+    /**
+     * The number of values (cells) of each decision
+     */
+    private final int[] cells;
+
+    /**
+     * The index in the flat genotype where each decision begins
+     */
+    private final int[] wordOffsets;
+
+    /**
+     * The flat genotype of an architecture with the default values of every
+     * decision
+     */
+    private final int[] defaultWords;
+
+    /**
+     * The inclusive lower bound of each integer word in the flat genotype
+     */
+    private final int[] lowerBounds;
+
+    /**
+     * The inclusive upper bound of each integer word in the flat genotype
+     */
+    private final int[] upperBounds;
+
+    /**
+     * The total number of decision variables
+     */
+    private final int numberOfVariables;
+
+    /**
+     * The patterns of the decisions in this layout
+     */
+    private final EnumSet<DecisionPattern> patterns;
+
+    /**
+     * Creates the layout of the given decisions
+     *
+     * @param decisions the ordered decisions
+     * @throws IllegalArgumentException if two decisions have the same tag
+     */
+    public DecisionLayout(Collection<? extends ArchitecturalDecision> decisions) {
+        this.decisions = Collections.unmodifiableList(new ArrayList<>(decisions));
+        int n = this.decisions.size();
+        this.slots = new HashMap<>();
+        this.encodings = new Encoding[n];
+        this.offsets = new int[n];
+        this.cells = new int[n];
+        this.wordOffsets = new int[n + 1];
+        this.patterns = EnumSet.noneOf(DecisionPattern.class);
+
+        int varIndex = 0;
+        for (int slot = 0; slot < n; slot++) {
+            ArchitecturalDecision decision = this.decisions.get(slot);
+            String tag = decision.getTag();
+            if (slots.put(tag, slot) != null) {
+                throw new IllegalArgumentException(String.format("Decision %s already exists", tag));
+            }
+            patterns.add(decision.getPattern());
+            encodings[slot] = encodingOf(decision);
+            cells[slot] = cellsOf(decision);
+            offsets[slot] = varIndex;
+            varIndex += decision.getNumberOfVariables();
+            wordOffsets[slot + 1] = wordOffsets[slot] + wordsOf(encodings[slot], cells[slot]);
+        }
+        this.numberOfVariables = varIndex;
+
+        //record the default value of each cell in a flat genotype
+        this.defaultWords = new int[wordOffsets[n]];
+        this.lowerBounds = new int[wordOffsets[n]];
+        this.upperBounds = new int[wordOffsets[n]];
+        for (int slot = 0; slot < n; slot++) {
+            ArrayList<Variable> vars = this.decisions.get(slot).getVariables();
+            for (int cell = 0; cell < cells[slot]; cell++) {
+                switch (encodings[slot]) {
+                    case BITS:
+                        setBit(defaultWords, slot, cell, ((BinaryVariable) vars.get(cell)).get(0));
+                        break;
+                    case PACKED_BITS:
+                        setBit(defaultWords, slot, cell, ((BinaryVariable) vars.get(0)).get(cell));
+                        break;
+                    default:
+                        IntegerVariable var = (IntegerVariable) vars.get(cell);
+                        defaultWords[wordOffsets[slot] + cell] = var.getValue();
+                        lowerBounds[wordOffsets[slot] + cell] = var.getLowerBound();
+                        upperBounds[wordOffsets[slot] + cell] = var.getUpperBound();
+                }
+            }
+        }
+    }
+
+    /**
+     * Determines how a decision encodes its values
+     *
+     * @param decision the decision
+     * @return the encoding of the decision
+     */
+    private static Encoding encodingOf(ArchitecturalDecision decision) {
+        switch (decision.getPattern()) {
+            case ASSINGING:
+                return ((Assigning) decision).isPacked() ? Encoding.PACKED_BITS : Encoding.BITS;
+            case CONNECTING:
+                return ((Connecting) decision).isPacked() ? Encoding.PACKED_BITS : Encoding.BITS;
+            case DOWNSELECTING:
+                return ((DownSelecting) decision).isPacked() ? Encoding.PACKED_BITS : Encoding.BITS;
+            default:
+                return Encoding.INTEGERS;
+        }
+    }
+
+    /**
+     * Counts the values (cells) of a decision
+     *
+     * @param decision the decision
+     * @return the number of cells of the decision
+     */
+    private static int cellsOf(ArchitecturalDecision decision) {
+        switch (decision.getPattern()) {
+            case ASSINGING:
+                Assigning assigning = (Assigning) decision;
+                return assigning.getNumberOfLHS() * assigning.getNumberOfRHS();
+            case CONNECTING:
+                return ((Connecting) decision).getNumberOfCells();
+            case DOWNSELECTING:
+                return ((DownSelecting) decision).getNumberOfEntities();
+            default:
+                return decision.getNumberOfVariables();
+        }
+    }
+
+    /**
+     * Counts the words a decision occupies in a flat genotype. Binary cells are
+     * packed 32 to a word. Integer cells take one word each.
+     *
+     * @param encoding the encoding of the decision
+     * @param nCells the number of cells of the decision
+     * @return the number of words
+     */
+    private static int wordsOf(Encoding encoding, int nCells) {
+        if (encoding == Encoding.INTEGERS) {
+            return nCells;
+        }
+        return (nCells + Integer.SIZE - 1) / Integer.SIZE;
+    }
+
+    /**
+     * Gets the ordered decisions of this layout
+     *
+     * @return the ordered decisions of this layout
+     */
+    public List<ArchitecturalDecision> getDecisions() {
+        return decisions;
+    }
+
+    /**
+     * Gets the number of decisions in this layout
+     *
+     * @return the number of decisions in this layout
+     */
+    public int getNumberOfDecisions() {
+        return decisions.size();
+    }
+
+    /**
+     * Gets the total number of decision variables of an architecture with this
+     * layout
+     *
+     * @return the total number of decision variables
+     */
+    public int getNumberOfVariables() {
+        return numberOfVariables;
+    }
+
+    /**
+     * Checks if any decision of this layout follows a pattern
+     *
+     * @param pattern the decision pattern
+     * @return true if a decision of this layout follows the pattern
+     */
+    public boolean hasPattern(DecisionPattern pattern) {
+        return patterns.contains(pattern);
+    }
+
+    /**
+     * Gets the slot of a decision
+     *
+     * @param tag the tag of the decision
+     * @return the slot of the decision
+     * @throws IllegalArgumentException if there is no decision with the tag
+     */
+    public int getSlot(String tag) {
+        Integer slot = slots.get(tag);
+        if (slot == null) {
+            throw new IllegalArgumentException(String.format("Decision %s does not exist", tag));
+        }
+        return slot;
+    }
+
+    /**
+     * Checks if this layout contains a decision
+     *
+     * @param tag the tag of the decision
+     * @return true if this layout contains a decision with the tag
+     */
+    public boolean hasDecision(String tag) {
+        return slots.containsKey(tag);
+    }
+
+    /**
+     * Gets the decision in a slot
+     *
+     * @param slot the slot
+     * @return the decision in the slot
+     */
+    public ArchitecturalDecision getDecision(int slot) {
+        return decisions.get(slot);
+    }
+
+    /**
+     * Gets the encoding of the decision in a slot
+     *
+     * @param slot the slot
+     * @return the encoding of the decision
+     */
+    public Encoding getEncoding(int slot) {
+        return encodings[slot];
+    }
+
+    /**
+     * Gets the decision variable index where the decision in a slot begins
+     *
+     * @param slot the slot
+     * @return the decision variable index where the decision begins
+     */
+    public int getOffset(int slot) {
+        return offsets[slot];
+    }
+
+    /**
+     * Gets the slot of the decision that owns a decision variable
+     *
+     * @param index the index of the decision variable
+     * @return the slot of the decision that owns the variable
+     * @throws IllegalArgumentException if the index is out of bounds
+     */
+    public int getSlotOfVariable(int index) {
+        if (index < 0 || index >= numberOfVariables) {
+            throw new IllegalArgumentException(String.format("Variable index %d is out of bounds", index));
+        }
+        //find the last slot that begins at or before the index
+        int lo = 0;
+        int hi = offsets.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (offsets[mid] <= index) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Gets the number of values (cells) of the decision in a slot
+     *
+     * @param slot the slot
+     * @return the number of cells of the decision
+     */
+    public int getNumberOfCells(int slot) {
+        return cells[slot];
+    }
+
+    /**
+     * Gets the index in the flat genotype where the decision in a slot begins.
+     * The slot after the last decision gives the length of the genotype, so
+     * a decision occupies the words from its offset up to the offset of the
+     * next slot.
+     *
+     * @param slot the slot
+     * @return the index in the flat genotype where the decision begins
+     */
+    public int getWordOffset(int slot) {
+        return wordOffsets[slot];
+    }
+
+    /**
+     * Gets the inclusive lower bound of a cell. Binary cells range over [0,1]
+     *
+     * @param slot the slot of the decision
+     * @param cell the index of the cell within the decision
+     * @return the inclusive lower bound of the cell
+     */
+    public int getLowerBound(int slot, int cell) {
+        if (encodings[slot] != Encoding.INTEGERS) {
+            return 0;
+        }
+        return lowerBounds[wordOffsets[slot] + cell];
+    }
+
+    /**
+     * Gets the inclusive upper bound of a cell. Binary cells range over [0,1]
+     *
+     * @param slot the slot of the decision
+     * @param cell the index of the cell within the decision
+     * @return the inclusive upper bound of the cell
+     */
+    public int getUpperBound(int slot, int cell) {
+        if (encodings[slot] != Encoding.INTEGERS) {
+            return 1;
+        }
+        return upperBounds[wordOffsets[slot] + cell];
+    }
+
+    /**
+     * Gets the length of the flat genotype of an architecture with this layout
+     *
+     * @return the number of words in the flat genotype
+     */
+    public int getNumberOfWords() {
+        return defaultWords.length;
+    }
+
+    /**
+     * Creates a flat genotype with the default values of every decision
+     *
+     * @return a new flat genotype
+     */
+    public int[] newGenotype() {
+        return defaultWords.clone();
+    }
+
+    /**
+     * Gets the value of a binary cell in a flat genotype
+     *
+     * @param words the flat genotype
+     * @param slot the slot of the decision
+     * @param cell the index of the cell within the decision
+     * @return the value of the cell
+     */
+    public boolean getBit(int[] words, int slot, int cell) {
+        return (words[wordOffsets[slot] + (cell >>> 5)] & (1 << cell)) != 0;
+    }
+
+    /**
+     * Sets the value of a binary cell in a flat genotype
+     *
+     * @param words the flat genotype
+     * @param slot the slot of the decision
+     * @param cell the index of the cell within the decision
+     * @param value the new value of the cell
+     */
+    public void setBit(int[] words, int slot, int cell, boolean value) {
+        int index = wordOffsets[slot] + (cell >>> 5);
+        if (value) {
+            words[index] |= 1 << cell;
+        } else {
+            words[index] &= ~(1 << cell);
+        }
+    }
+
+    /**
+     * Sets every decision in a flat genotype to a random value. Binary and
+     * integer cells are drawn uniformly within their bounds. Permuting decisions
+     * are shuffled so that they remain valid permutations and partitioning
+     * decisions are written as restricted growth strings.
+     *
+     * @param words the flat genotype
+     */
+    public void randomize(int[] words) {
+        for (int slot = 0; slot < decisions.size(); slot++) {
+            int start = wordOffsets[slot];
+            if (encodings[slot] != Encoding.INTEGERS) {
+                for (int cell = 0; cell < cells[slot]; cell++) {
+                    setBit(words, slot, cell, PRNG.nextBoolean());
+                }
+            } else if (decisions.get(slot).getPattern() == DecisionPattern.PERMUTING) {
+                for (int i = 0; i < cells[slot]; i++) {
+                    words[start + i] = i;
+                }
+                for (int i = cells[slot] - 1; i > 0; i--) {
+                    int j = PRNG.nextInt(i + 1);
+                    int tmp = words[start + i];
+                    words[start + i] = words[start + j];
+                    words[start + j] = tmp;
+                }
+            } else {
+                for (int i = start; i < start + cells[slot]; i++) {
+                    words[i] = PRNG.nextInt(lowerBounds[i], upperBounds[i]);
+                }
+                if (decisions.get(slot).getPattern() == DecisionPattern.PARTITIONING) {
+                    toRestrictedGrowth(words, start, cells[slot]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Relabels the partition numbers of a partitioning decision in a flat
+     * genotype in order of first appearance
+     *
+     * @param words the flat genotype
+     * @param start the index where the decision begins
+     * @param n the number of elements of the decision
+     */
+    private static void toRestrictedGrowth(int[] words, int start, int n) {
+        int[] map = new int[n];
+        Arrays.fill(map, -1);
+        int next = 0;
+        for (int i = start; i < start + n; i++) {
+            if (map[words[i]] < 0) {
+                map[words[i]] = next++;
+            }
+            words[i] = map[words[i]];
+        }
+    }
+
+    /**
+     * Hashes the structure of the layout, so that equal layouts have the same
+     * hash code
+     *
+     * @return the hash code of this layout
+     */
+    @Override
+    public int hashCode() {
+        int hash = 5;
+        for (ArchitecturalDecision decision : decisions) {
+            hash = 41 * hash + decision.getTag().hashCode();
+        }
+        hash = 41 * hash + Arrays.hashCode(encodings);
+        hash = 41 * hash + Arrays.hashCode(cells);
+        return hash;
+    }
+
+    /**
+     * Checks if another layout has the same structure. Two layouts are equal
+     * if their decisions have the same tags and patterns in the same order and
+     * their values are stored in the same way with the same bounds, so the
+     * values of an architecture read the same through either layout. Layouts
+     * built separately from the same decisions, for example by two instances
+     * of a problem or by deserialization, are equal.
+     *
+     * @param obj the other object
+     * @return true if the other object is a layout with the same structure
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final DecisionLayout other = (DecisionLayout) obj;
+        if (decisions.size() != other.decisions.size()
+                || numberOfVariables != other.numberOfVariables
+                || !Arrays.equals(encodings, other.encodings)
+                || !Arrays.equals(offsets, other.offsets)
+                || !Arrays.equals(cells, other.cells)
+                || !Arrays.equals(wordOffsets, other.wordOffsets)
+                || !Arrays.equals(lowerBounds, other.lowerBounds)
+                || !Arrays.equals(upperBounds, other.upperBounds)) {
+            return false;
+        }
+        for (int slot = 0; slot < decisions.size(); slot++) {
+            ArchitecturalDecision decision = decisions.get(slot);
+            ArchitecturalDecision otherDecision = other.decisions.get(slot);
+            if (decision.getPattern() != otherDecision.getPattern()
+                    || !decision.getTag().equals(otherDecision.getTag())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.enumeration;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily iterates through the feasible designs of a constrained enumeration
+ * with a depth-first search. Values are assigned one position at a time and
+ * the assigned positions are checked against the {@link PartialConstraint}s
+ * as soon as a position is assigned. Infeasible partial designs are pruned
+ * along with all their completions, so the cost of the enumeration grows with
+ * the number of feasible partial designs rather than with the size of the
+ * design space. Only the current design is held in memory.
+ *
+ * Combining designs are assigned from the last position to the first, so they
+ * are generated in mixed-radix order with the first position changing the
+ * fastest, the same order as {@link MixedRadixIterator}. Restricted growth
+ * strings are assigned from the first position to the last, so they are
+ * generated in lexicographic order with the last position changing the
+ * fastest, the same order as {@link RestrictedGrowthIterator}.
+ *
+ * @author nozomihitomi
+ */
+public class BranchAndBoundIterator implements Iterator<int[]> {
+
+    /**
+     * The number of options for each position. Null if the designs are
+     * restricted growth strings
+     */
+    private final int[] levels;
+
+    /**
+     * Flag to assign the positions from the last to the first
+     */
+    private final boolean reversed;
+
+    /**
+     * The constraints every partial design must satisfy
+     */
+    private final PartialConstraint[] constraints;
+
+    /**
+     * The current design
+     */
+    private final int[] current;
+
+    /**
+     * The largest value among the first i+1 positions. Only used for
+     * restricted growth strings
+     */
+    private final int[] prefixMax;
+
+    /**
+     * Flag to return the same buffer on each call to next()
+     */
+    private final boolean reuse;
+
+    /**
+     * Flag for if the search has started
+     */
+    private boolean started;
+
+    /**
+     * Flag for if the current design is feasible and not yet returned
+     */
+    private boolean ready;
+
+    /**
+     * Flag for if the search is exhausted
+     */
+    private boolean done;
+
+    /**
+     * The number of infeasible partial designs pruned so far
+     */
+    private long pruned;
+
+    private BranchAndBoundIterator(int nPositions, int[] levels, boolean reuse, PartialConstraint[] constraints) {
+        this.levels = levels;
+        this.reversed = levels != null;
+        this.constraints = constraints.clone();
+        this.current = new int[nPositions];
+        this.prefixMax = levels == null ? new int[nPositions] : null;
+        this.reuse = reuse;
+        this.started = false;
+        this.ready = false;
+        this.done = false;
+        this.pruned = 0;
+    }
+
+    /**
+     * Creates an iterator over the feasible designs of combining decisions in
+     * mixed-radix order, with the first position changing the fastest
+     *
+     * @param levels The number of options for each position
+     * @param reuse if true, next() returns the same array, overwritten on each
+     * call. Otherwise a new array is returned on each call.
+     * @param constraints the constraints every partial design must satisfy
+     * @return an iterator over the feasible designs
+     */
+    public static BranchAndBoundIterator mixedRadix(int[] levels, boolean reuse, PartialConstraint... constraints) {
+        for (int lev : levels) {
+            if (lev <= 0) {
+                throw new IllegalArgumentException("The number of alternatives for any decision must be positive");
+            }
+        }
+        return new BranchAndBoundIterator(levels.length, levels.clone(), reuse, constraints);
+    }
+
+    /**
+     * Creates an iterator over the feasible ordered partitions of n elements,
+     * written as restricted growth strings in lexicographic order
+     *
+     * @param nElements the number of elements to consider in partitioning
+     * @param reuse if true, next() returns the same array, overwritten on each
+     * call. Otherwise a new array is returned on each call.
+     * @param constraints the constraints every partial design must satisfy
+     * @return an iterator over the feasible partitions
+     */
+    public static BranchAndBoundIterator restrictedGrowth(int nElements, boolean reuse, PartialConstraint... constraints) {
+        if (nElements < 0) {
+            throw new IllegalArgumentException("The number of elements must be non-negative");
+        }
+        return new BranchAndBoundIterator(nElements, null, reuse, constraints);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!ready && !done) {
+            ready = search();
+            done = !ready;
+        }
+        return ready;
+    }
+
+    @Override
+    public int[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ready = false;
+        return reuse ? current : current.clone();
+    }
+
+    /**
+     * Gets the number of infeasible partial designs pruned so far. Each
+     * pruned partial design removes all its completions from the search.
+     *
+     * @return the number of pruned partial designs
+     */
+    public long getNumberOfPrunedPrefixes() {
+        return pruned;
+    }
+
+    /**
+     * Gets the position assigned at a depth of the search
+     *
+     * @param k the depth
+     * @return the position assigned at the depth
+     */
+    private int position(int k) {
+        return reversed ? current.length - 1 - k : k;
+    }
+
+    /**
+     * Gets the number of options of the position assigned at a depth given
+     * the values assigned before it
+     *
+     * @param k the depth
+     * @return the exclusive upper bound of the value of the position
+     */
+    private int upper(int k) {
+        if (levels != null) {
+            return levels[position(k)];
+        }
+        return k == 0 ? 1 : prefixMax[k - 1] + 2;
+    }
+
+    /**
+     * Checks the positions assigned down to a depth against every constraint
+     *
+     * @param k the depth of the most recently assigned position
+     * @return true if the partial design is feasible
+     */
+    private boolean isFeasible(int k) {
+        int from = reversed ? current.length - 1 - k : 0;
+        int to = reversed ? current.length : k + 1;
+        for (PartialConstraint constraint : constraints) {
+            if (!constraint.isFeasible(current, from, to)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves to the next feasible design
+     *
+     * @return true if a feasible design was found. False if the search is
+     * exhausted
+     */
+    private boolean search() {
+        int n = current.length;
+        int k;
+        if (!started) {
+            started = true;
+            if (n == 0) {
+                return true;
+            }
+            k = 0;
+            current[position(0)] = 0;
+        } else {
+            if (n == 0) {
+                return false;
+            }
+            k = n - 1;
+            current[position(k)]++;
+        }
+
+        while (k >= 0) {
+            int pos = position(k);
+            if (current[pos] >= upper(k)) {
+                //every option of this position is explored, so backtrack
+                k--;
+                if (k >= 0) {
+                    current[position(k)]++;
+                }
+                continue;
+            }
+            if (prefixMax != null) {
+                prefixMax[k] = k == 0 ? current[k] : Math.max(prefixMax[k - 1], current[k]);
+            }
+            if (!isFeasible(k)) {
+                pruned++;
+                current[pos]++;
+                continue;
+            }
+            if (k == n - 1) {
+                return true;
+            }
+            k++;
+            current[position(k)] = 0;
+        }
+        return false;
+    }
+}
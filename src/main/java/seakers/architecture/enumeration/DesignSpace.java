@@ -0,0 +1,204 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.enumeration;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import seakers.architecture.Architecture;
+import seakers.architecture.pattern.ArchitecturalDecision;
+import seakers.architecture.pattern.Assigning;
+import seakers.architecture.pattern.Combining;
+import seakers.architecture.pattern.Connecting;
+import seakers.architecture.pattern.DownSelecting;
+import seakers.architecture.pattern.Partitioning;
+import seakers.architecture.pattern.Permuting;
+
+/**
+ * The design space spanned by an ordered set of architectural decisions. Every
+ * architecture in the space has a unique composite rank, a mixed-radix number
+ * where each digit is the rank of one decision and the first decision is the
+ * least significant digit. The composite rank can be used as a compact key for
+ * an architecture, to resume an enumeration from a checkpoint or to split an
+ * enumeration into ranges.
+ *
+ * @author nozomihitomi
+ */
+public class DesignSpace implements Serializable {
+
+    private static final long serialVersionUID = 3650934317046214468L;
+
+    /**
+     * The ordered decisions
+     */
+    private final List<ArchitecturalDecision> decisions;
+
+    /**
+     * The number of designs of each decision
+     */
+    private final long[] sizes;
+
+    /**
+     * The number of designs in the design space
+     */
+    private final long size;
+
+    /**
+     * Creates the design space of the given decisions
+     *
+     * @param decisions the ordered decisions
+     * @throws ArithmeticException if the number of designs exceeds the range
+     * of a long
+     */
+    public DesignSpace(Collection<ArchitecturalDecision> decisions) {
+        this.decisions = Collections.unmodifiableList(new ArrayList<>(decisions));
+        this.sizes = new long[decisions.size()];
+        long count = 1;
+        for (int k = 0; k < sizes.length; k++) {
+            sizes[k] = getNumberOfDesigns(this.decisions.get(k));
+            count = Math.multiplyExact(count, sizes[k]);
+        }
+        this.size = count;
+    }
+
+    /**
+     * Gets the ordered decisions of this design space
+     *
+     * @return the ordered decisions of this design space
+     */
+    public List<ArchitecturalDecision> getDecisions() {
+        return decisions;
+    }
+
+    /**
+     * Gets the number of designs in this design space
+     *
+     * @return the number of designs in this design space
+     */
+    public long getNumberOfDesigns() {
+        return size;
+    }
+
+    /**
+     * Computes the composite rank of an architecture
+     *
+     * @param arch the architecture
+     * @return the composite rank of the architecture
+     */
+    public long rank(Architecture arch) {
+        long rank = 0;
+        for (int k = sizes.length - 1; k >= 0; k--) {
+            rank = rank * sizes[k] + rank(arch, decisions.get(k));
+        }
+        return rank;
+    }
+
+    /**
+     * Sets the decisions of an architecture to the values with the given
+     * composite rank
+     *
+     * @param rank the composite rank
+     * @param arch the architecture
+     */
+    public void unrank(long rank, Architecture arch) {
+        if (rank < 0 || rank >= size) {
+            throw new IllegalArgumentException(String.format("Rank %d exceeds the number of designs %d", rank, size));
+        }
+        for (int k = 0; k < sizes.length; k++) {
+            unrank(rank % sizes[k], arch, decisions.get(k));
+            rank /= sizes[k];
+        }
+    }
+
+    /**
+     * Gets the number of unique designs of a decision
+     *
+     * @param decision the decision
+     * @return the number of unique designs of the decision
+     * @throws ArithmeticException if the number of designs exceeds the range
+     * of a long
+     */
+    public static long getNumberOfDesigns(ArchitecturalDecision decision) {
+        switch (decision.getPattern()) {
+            case ASSINGING:
+                return ((Assigning) decision).getNumberOfDesigns();
+            case COMBINING:
+                return ((Combining) decision).getNumberOfDesigns();
+            case CONNECTING:
+                return ((Connecting) decision).getNumberOfDesigns();
+            case DOWNSELECTING:
+                return ((DownSelecting) decision).getNumberOfDesigns();
+            case PARTITIONING:
+                return ((Partitioning) decision).getNumberOfDesigns();
+            case PERMUTING:
+                return ((Permuting) decision).getNumberOfDesigns();
+            default:
+                throw new IllegalArgumentException(String.format("Decision patter %s not supported", decision.getPattern()));
+        }
+    }
+
+    /**
+     * Computes the rank of a decision of an architecture
+     *
+     * @param arch the architecture
+     * @param decision the decision to rank
+     * @return the rank of the decision
+     */
+    public static long rank(Architecture arch, ArchitecturalDecision decision) {
+        String tag = decision.getTag();
+        switch (decision.getPattern()) {
+            case ASSINGING:
+                return Assigning.rank(arch, tag);
+            case COMBINING:
+                return Combining.rank(arch, tag);
+            case CONNECTING:
+                return Connecting.rank(arch, tag);
+            case DOWNSELECTING:
+                return DownSelecting.rank(arch, tag);
+            case PARTITIONING:
+                return Partitioning.rank(arch, tag);
+            case PERMUTING:
+                return Permuting.rank(arch, tag);
+            default:
+                throw new IllegalArgumentException(String.format("Decision patter %s not supported", decision.getPattern()));
+        }
+    }
+
+    /**
+     * Sets a decision of an architecture to the values with the given rank
+     *
+     * @param rank the rank of the decision
+     * @param arch the architecture
+     * @param decision the decision to change
+     */
+    public static void unrank(long rank, Architecture arch, ArchitecturalDecision decision) {
+        String tag = decision.getTag();
+        switch (decision.getPattern()) {
+            case ASSINGING:
+                Assigning.unrank(rank, arch, tag);
+                break;
+            case COMBINING:
+                Combining.unrank(rank, arch, tag);
+                break;
+            case CONNECTING:
+                Connecting.unrank(rank, arch, tag);
+                break;
+            case DOWNSELECTING:
+                DownSelecting.unrank(rank, arch, tag);
+                break;
+            case PARTITIONING:
+                Partitioning.unrank(rank, arch, tag);
+                break;
+            case PERMUTING:
+                Permuting.unrank(rank, arch, tag);
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Decision patter %s not supported", decision.getPattern()));
+        }
+    }
+}
@@ -0,0 +1,791 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.enumeration;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.moeaframework.core.FrameworkException;
+import org.moeaframework.core.Solution;
+import seakers.architecture.Architecture;
+import seakers.architecture.CompactArchitecture;
+import seakers.architecture.io.ResultFileReader;
+import seakers.architecture.io.ResultFileWriter;
+import seakers.architecture.io.ResultFormat;
+import seakers.architecture.problem.SystemArchitectureProblem;
+import seakers.architecture.util.LatencyHistogram;
+import seakers.architecture.util.NDTreeArchive;
+import seakers.architecture.util.SearchMetrics;
+
+/**
+ * Evaluates every architecture of a design space and keeps the non-dominated
+ * ones. The design space is never materialized. The search runs as a
+ * pipeline of three stages connected by bounded queues:
+ * <ol>
+ * <li>one thread unranks contiguous ranges of composite ranks (see
+ * {@link DesignSpace}) into batches of architectures;</li>
+ * <li>a pool of threads evaluates the batches with
+ * {@link SystemArchitectureProblem#evaluateBatch(List)}, each thread with its
+ * own problem instance;</li>
+ * <li>the thread that calls {@link #run()} adds the evaluated architectures to
+ * an {@link NDTreeArchive}.</li>
+ * </ol>
+ * A stage blocks when the queue after it is full, so memory is bounded by the
+ * queue capacities and the size of the front no matter how large the design
+ * space is.
+ *
+ * Progress, throughput and an estimate of the remaining time are logged
+ * periodically. With a checkpoint file, the rank below which every design
+ * has been filtered and the current front are saved periodically and when the
+ * search stops. A search started with an existing checkpoint resumes from
+ * that rank. To also keep every evaluated architecture, create the problems
+ * with a {@link seakers.architecture.problem.LoggingProblem}.
+ *
+ * @author nozomihitomi
+ */
+public class ExhaustiveSearch {
+
+    /**
+     * Ends the queues of the pipeline
+     */
+    private static final Batch END = new Batch(-1, -1, null);
+
+    /**
+     * A contiguous range of ranks and their architectures
+     */
+    private static final class Batch {
+
+        private final long origin;
+
+        private final long fence;
+
+        private final List<Architecture> architectures;
+
+        private Batch(long origin, long fence, List<Architecture> architectures) {
+            this.origin = origin;
+            this.fence = fence;
+            this.architectures = architectures;
+        }
+    }
+
+    /**
+     * Creates problem instances for the threads
+     */
+    private final Supplier<? extends SystemArchitectureProblem> problemFactory;
+
+    /**
+     * The number of evaluation threads
+     */
+    private final int parallelism;
+
+    /**
+     * The non-dominated architectures
+     */
+    private final NDTreeArchive archive;
+
+    /**
+     * The number of architectures in a batch
+     */
+    private int batchSize;
+
+    /**
+     * The number of batches each queue holds
+     */
+    private int queueCapacity;
+
+    /**
+     * The checkpoint file. Null to not checkpoint
+     */
+    private Path checkpoint;
+
+    /**
+     * The time between checkpoints in nanoseconds
+     */
+    private long checkpointNanos;
+
+    /**
+     * The time between progress reports in nanoseconds
+     */
+    private long progressNanos;
+
+    /**
+     * The time to unrank each architecture. Null without metrics
+     */
+    private volatile LatencyHistogram enumerationTimes;
+
+    /**
+     * The time to filter each architecture. Null without metrics
+     */
+    private volatile LatencyHistogram filterTimes;
+
+    /**
+     * The batches waiting to be evaluated
+     */
+    private volatile BlockingQueue<Batch> enumerated;
+
+    /**
+     * The batches waiting to be filtered
+     */
+    private volatile BlockingQueue<Batch> evaluated;
+
+    /**
+     * The first rank of the current search
+     */
+    private volatile long origin;
+
+    /**
+     * One past the last rank of the current search
+     */
+    private volatile long fence;
+
+    /**
+     * Every design with a smaller rank has been filtered
+     */
+    private volatile long next;
+
+    /**
+     * The number of designs filtered in the current session
+     */
+    private volatile long filtered;
+
+    /**
+     * The number of designs enumerated in the current session
+     */
+    private volatile long enumeratedCount;
+
+    /**
+     * The number of designs filtered before the current session resumed
+     */
+    private volatile long resumed;
+
+    /**
+     * The start of the current session
+     */
+    private volatile long startNanos;
+
+    private volatile boolean stopping;
+
+    /**
+     * The first exception thrown by a stage
+     */
+    private volatile Throwable failure;
+
+    /**
+     * Creates an exhaustive search with an unbounded archive that compares
+     * architectures by their objectives
+     *
+     * @param problemFactory creates a problem instance for each thread. May
+     * return the same instance every time if the problem is thread-safe
+     * @param parallelism the number of evaluation threads
+     */
+    public ExhaustiveSearch(Supplier<? extends SystemArchitectureProblem> problemFactory, int parallelism) {
+        this(problemFactory, parallelism, null);
+    }
+
+    /**
+     * Creates an exhaustive search
+     *
+     * @param problemFactory creates a problem instance for each thread. May
+     * return the same instance every time if the problem is thread-safe
+     * @param parallelism the number of evaluation threads
+     * @param archive the archive that filters the architectures. Null for an
+     * unbounded archive that compares architectures by their objectives
+     */
+    public ExhaustiveSearch(Supplier<? extends SystemArchitectureProblem> problemFactory, int parallelism, NDTreeArchive archive) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.problemFactory = problemFactory;
+        this.parallelism = parallelism;
+        this.archive = archive;
+        this.batchSize = 256;
+        this.queueCapacity = 2 * parallelism;
+        this.checkpoint = null;
+        this.checkpointNanos = TimeUnit.MINUTES.toNanos(10);
+        this.progressNanos = TimeUnit.MINUTES.toNanos(1);
+    }
+
+    /**
+     * Sets the number of architectures enumerated and evaluated together.
+     * Larger batches amortize the cost of the queues and of
+     * {@link SystemArchitectureProblem#evaluateBatch(List)}.
+     *
+     * @param batchSize the number of architectures in a batch
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the number of batches that can wait between two stages
+     *
+     * @param queueCapacity the number of batches each queue holds
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Sets the checkpoint file. The front is saved next to it in a result
+     * file with the extension ".arch" (see {@link ResultFormat}).
+     *
+     * @param checkpoint the checkpoint file. Null to not checkpoint
+     * @param interval the time between checkpoints
+     * @param unit the unit of the interval
+     */
+    public void setCheckpoint(Path checkpoint, long interval, TimeUnit unit) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive");
+        }
+        this.checkpoint = checkpoint;
+        this.checkpointNanos = unit.toNanos(interval);
+    }
+
+    /**
+     * Sets the time between progress reports
+     *
+     * @param interval the time between progress reports. Non-positive to not
+     * report progress
+     * @param unit the unit of the interval
+     */
+    public void setProgressInterval(long interval, TimeUnit unit) {
+        this.progressNanos = unit.toNanos(interval);
+    }
+
+    /**
+     * Records the metrics of the stages in a registry: the time to unrank
+     * and to filter each architecture in the "enumeration" and "filter"
+     * histograms, and the depth of the queues, the enumeration rate and the
+     * throughput as gauges. To record the time of each evaluation, create the
+     * problems with a {@link seakers.architecture.problem.InstrumentedProblem}.
+     *
+     * @param metrics the registry. Null to not record metrics
+     */
+    public void setMetrics(SearchMetrics metrics) {
+        if (metrics == null) {
+            this.enumerationTimes = null;
+            this.filterTimes = null;
+            return;
+        }
+        this.enumerationTimes = metrics.histogram("enumeration");
+        this.filterTimes = metrics.histogram("filter");
+        metrics.gauge("enumeration.queueDepth", this::getEnumeratedQueueDepth);
+        metrics.gauge("evaluation.queueDepth", this::getEvaluatedQueueDepth);
+        metrics.gauge("enumeration.designsPerSecond", this::getEnumerationRate);
+        metrics.gauge("filter.designsPerSecond", this::getThroughput);
+    }
+
+    /**
+     * Evaluates every design of the design space spanned by the decisions of
+     * the problem
+     *
+     * @return the archive of non-dominated architectures
+     * @throws IOException if the checkpoint could not be read or written
+     */
+    public NDTreeArchive run() throws IOException {
+        return run(0, -1);
+    }
+
+    /**
+     * Evaluates the designs with composite ranks in [origin, fence). If the
+     * checkpoint file exists, the search resumes from it and the range must
+     * match the range of the checkpoint.
+     *
+     * @param origin the rank of the first design, inclusive
+     * @param fence the rank of the last design, exclusive. Negative for the
+     * number of designs in the design space
+     * @return the archive of non-dominated architectures
+     * @throws IOException if the checkpoint could not be read or written
+     */
+    public NDTreeArchive run(long origin, long fence) throws IOException {
+        List<SystemArchitectureProblem> created = new ArrayList<>();
+        try {
+            SystemArchitectureProblem template = problemFactory.get();
+            created.add(template);
+            Solution prototype = template.newSolution();
+            if (!(prototype instanceof Architecture)) {
+                throw new IllegalArgumentException(String.format("Problem %s does not create architectures", template.getName()));
+            }
+            DesignSpace space = new DesignSpace(template.getDecisions());
+            if (fence < 0) {
+                fence = space.getNumberOfDesigns();
+            }
+            if (origin < 0 || origin > fence || fence > space.getNumberOfDesigns()) {
+                throw new IllegalArgumentException(String.format("Invalid rank range [%d, %d) for %d designs", origin, fence, space.getNumberOfDesigns()));
+            }
+            NDTreeArchive front = archive != null ? archive
+                    : new NDTreeArchive(template.getNumberOfObjectives());
+            this.origin = origin;
+            this.fence = fence;
+            this.next = origin;
+            this.resumed = 0;
+            if (checkpoint != null && Files.exists(checkpoint)) {
+                resume((Architecture) prototype, front);
+            }
+            List<SystemArchitectureProblem> problems = new ArrayList<>(parallelism);
+            problems.add(template);
+            for (int i = 1; i < parallelism; i++) {
+                SystemArchitectureProblem problem = problemFactory.get();
+                created.add(problem);
+                problems.add(problem);
+            }
+            pipeline(template, space, problems, front);
+            return front;
+        } finally {
+            //close each distinct instance once
+            Set<SystemArchitectureProblem> closed = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (SystemArchitectureProblem problem : created) {
+                if (closed.add(problem)) {
+                    problem.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the stages of the pipeline until every design is filtered, the
+     * search is stopped or a stage fails
+     */
+    private void pipeline(SystemArchitectureProblem template, DesignSpace space, List<SystemArchitectureProblem> problems, NDTreeArchive front) throws IOException {
+        this.enumerated = new ArrayBlockingQueue<>(queueCapacity);
+        this.evaluated = new ArrayBlockingQueue<>(queueCapacity);
+        this.filtered = 0;
+        this.enumeratedCount = 0;
+        this.stopping = false;
+        this.failure = null;
+        this.startNanos = System.nanoTime();
+
+        Thread enumerator = new Thread(() -> enumerate(template, space), "exhaustive-enumeration");
+        enumerator.setDaemon(true);
+        enumerator.start();
+        for (int i = 0; i < parallelism; i++) {
+            SystemArchitectureProblem problem = problems.get(i);
+            Thread evaluator = new Thread(() -> evaluate(problem), "exhaustive-evaluation-" + i);
+            evaluator.setDaemon(true);
+            evaluator.start();
+        }
+
+        //ranges that completed before the ranges below them
+        TreeMap<Long, Long> pending = new TreeMap<>();
+        long lastCheckpoint = startNanos;
+        long lastProgress = startNanos;
+        int ended = 0;
+        boolean interrupted = false;
+        while (ended < parallelism) {
+            Batch batch;
+            try {
+                batch = evaluated.take();
+            } catch (InterruptedException ex) {
+                //stop gracefully and keep draining the pipeline
+                interrupted = true;
+                stopping = true;
+                continue;
+            }
+            if (batch == END) {
+                ended++;
+                continue;
+            }
+            if (failure != null) {
+                continue;
+            }
+            long filterStart = System.nanoTime();
+            try {
+                for (Architecture arch : batch.architectures) {
+                    front.add(arch);
+                }
+            } catch (RuntimeException ex) {
+                fail(ex);
+                continue;
+            }
+            LatencyHistogram filterHistogram = filterTimes;
+            if (filterHistogram != null) {
+                filterHistogram.record((System.nanoTime() - filterStart) / batch.architectures.size(), batch.architectures.size());
+            }
+            filtered += batch.fence - batch.origin;
+            if (batch.origin == next) {
+                long rank = batch.fence;
+                Long completed;
+                while ((completed = pending.remove(rank)) != null) {
+                    rank = completed;
+                }
+                next = rank;
+            } else {
+                pending.put(batch.origin, batch.fence);
+            }
+            long now = System.nanoTime();
+            if (checkpoint != null && now - lastCheckpoint >= checkpointNanos) {
+                try {
+                    writeCheckpoint(front);
+                } catch (IOException ex) {
+                    //keep draining so the stages end before the problems are closed
+                    fail(ex);
+                }
+                lastCheckpoint = now;
+            }
+            if (progressNanos > 0 && now - lastProgress >= progressNanos) {
+                logProgress(front);
+                lastProgress = now;
+            }
+        }
+        try {
+            enumerator.join();
+        } catch (InterruptedException ex) {
+            interrupted = true;
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (checkpoint != null) {
+            try {
+                writeCheckpoint(front);
+            } catch (IOException ex) {
+                fail(ex);
+            }
+        }
+        if (progressNanos > 0) {
+            logProgress(front);
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure != null) {
+            throw new FrameworkException(failure);
+        }
+    }
+
+    /**
+     * The loop of the enumeration stage
+     */
+    private void enumerate(SystemArchitectureProblem template, DesignSpace space) {
+        try {
+            for (long rank = next; rank < fence && !stopping && failure == null;) {
+                long end = Math.min(fence, rank + batchSize);
+                long start = System.nanoTime();
+                List<Architecture> architectures = new ArrayList<>((int) (end - rank));
+                for (long r = rank; r < end; r++) {
+                    Architecture arch = (Architecture) template.newSolution();
+                    space.unrank(r, arch);
+                    architectures.add(arch);
+                }
+                LatencyHistogram histogram = enumerationTimes;
+                if (histogram != null) {
+                    histogram.record((System.nanoTime() - start) / (end - rank), end - rank);
+                }
+                enumerated.put(new Batch(rank, end, architectures));
+                enumeratedCount += end - rank;
+                rank = end;
+            }
+        } catch (InterruptedException ex) {
+            fail(ex);
+        } catch (RuntimeException ex) {
+            fail(ex);
+        } finally {
+            for (int i = 0; i < parallelism; i++) {
+                putUninterruptibly(enumerated, END);
+            }
+        }
+    }
+
+    /**
+     * The loop of an evaluation stage thread
+     */
+    private void evaluate(SystemArchitectureProblem problem) {
+        try {
+            while (true) {
+                Batch batch = enumerated.take();
+                if (batch == END) {
+                    break;
+                }
+                if (failure != null) {
+                    //drain the queue so the enumeration is not blocked
+                    continue;
+                }
+                try {
+                    problem.evaluateBatch(batch.architectures);
+                } catch (RuntimeException ex) {
+                    fail(ex);
+                    continue;
+                }
+                evaluated.put(batch);
+            }
+        } catch (InterruptedException ex) {
+            fail(ex);
+        } finally {
+            putUninterruptibly(evaluated, END);
+        }
+    }
+
+    private static void putUninterruptibly(BlockingQueue<Batch> queue, Batch batch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(batch);
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records the first failure of a stage
+     */
+    private synchronized void fail(Throwable ex) {
+        if (failure == null) {
+            failure = ex;
+        }
+        stopping = true;
+    }
+
+    /**
+     * Requests the search to stop. Batches already enumerated are still
+     * evaluated and filtered and a final checkpoint is written before
+     * {@link #run()} returns. May be called from any thread, for instance a
+     * shutdown hook.
+     */
+    public void stop() {
+        stopping = true;
+    }
+
+    /**
+     * Loads the rank and the front saved in the checkpoint
+     *
+     * @param prototype an architecture of the problem
+     * @param front the archive to add the saved front to
+     * @throws IOException if the checkpoint could not be read
+     */
+    private void resume(Architecture prototype, NDTreeArchive front) throws IOException {
+        Properties properties = readProperties(checkpoint);
+        long savedOrigin = Long.parseLong(properties.getProperty("origin"));
+        long savedFence = Long.parseLong(properties.getProperty("fence"));
+        if (savedOrigin != origin || savedFence != fence) {
+            throw new IllegalArgumentException(String.format("Checkpoint %s covers ranks [%d, %d) instead of [%d, %d)",
+                    checkpoint, savedOrigin, savedFence, origin, fence));
+        }
+        this.next = Long.parseLong(properties.getProperty("next"));
+        this.resumed = next - origin;
+        readFront(frontPath(checkpoint), prototype, front);
+        Logger.getLogger(ExhaustiveSearch.class.getName()).log(Level.INFO,
+                String.format("Resuming from rank %d with %d architectures in the front", next, front.size()));
+    }
+
+    /**
+     * Saves the front and then the rank below which every design is filtered.
+     * Both files are replaced atomically, so a crash leaves either the
+     * previous or the new checkpoint. A front newer than its rank only causes
+     * some designs to be evaluated again.
+     *
+     * @param front the archive of non-dominated architectures
+     * @throws IOException if the checkpoint could not be written
+     */
+    private void writeCheckpoint(NDTreeArchive front) throws IOException {
+        long rank = next;
+        writeFront(frontPath(checkpoint), front);
+        Properties properties = new Properties();
+        properties.setProperty("origin", Long.toString(origin));
+        properties.setProperty("fence", Long.toString(fence));
+        properties.setProperty("next", Long.toString(rank));
+        writeProperties(checkpoint, properties, "Exhaustive search checkpoint");
+    }
+
+    /**
+     * Gets the result file that holds the front of a checkpoint
+     *
+     * @param checkpoint the checkpoint file
+     * @return the result file of the front
+     */
+    static Path frontPath(Path checkpoint) {
+        return checkpoint.resolveSibling(checkpoint.getFileName() + ".arch");
+    }
+
+    /**
+     * Adds the architectures of a result file to an archive. Does nothing if
+     * the file does not exist.
+     *
+     * @param path the result file
+     * @param prototype an architecture with the layout of the stored
+     * architectures
+     * @param front the archive to add to
+     * @throws IOException if the file could not be read
+     */
+    static void readFront(Path path, Architecture prototype, NDTreeArchive front) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        boolean compact = prototype instanceof CompactArchitecture;
+        try (ResultFileReader reader = new ResultFileReader(path, prototype.getLayout())) {
+            for (long i = 0; i < reader.size(); i++) {
+                front.add(reader.read(i, compact));
+            }
+        }
+    }
+
+    /**
+     * Atomically replaces a result file with the architectures of an archive.
+     * The file is deleted if the archive is empty.
+     *
+     * @param path the result file
+     * @param front the archive
+     * @throws IOException if the file could not be written
+     */
+    static void writeFront(Path path, NDTreeArchive front) throws IOException {
+        Architecture any = null;
+        for (Solution solution : front) {
+            any = (Architecture) solution;
+            break;
+        }
+        if (any == null) {
+            Files.deleteIfExists(path);
+            return;
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        ResultFormat format = new ResultFormat(any.getLayout(), front.getNumberOfObjectives(), any.getNumberOfConstraints());
+        try (ResultFileWriter writer = new ResultFileWriter(temp, format)) {
+            writer.writeAll(front);
+            writer.flush(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static Properties readProperties(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+
+    /**
+     * Atomically replaces a properties file
+     */
+    static void writeProperties(Path path, Properties properties, String comment) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            properties.store(writer, comment);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void logProgress(NDTreeArchive front) {
+        long done = getCompletedCount();
+        long total = fence - origin;
+        double remaining = getEstimatedTimeRemaining(TimeUnit.SECONDS);
+        String eta = Double.isInfinite(remaining) ? "unknown" : formatDuration((long) remaining);
+        Logger.getLogger(ExhaustiveSearch.class.getName()).log(Level.INFO,
+                String.format("%d of %d designs (%.2f%%), %.1f designs/s, ETA %s, %d in the front",
+                        done, total, total == 0 ? 100.0 : 100.0 * done / total, getThroughput(), eta, front.size()));
+    }
+
+    private static String formatDuration(long seconds) {
+        long days = seconds / 86400;
+        seconds %= 86400;
+        String time = String.format("%02d:%02d:%02d", seconds / 3600, (seconds % 3600) / 60, seconds % 60);
+        return days > 0 ? String.format("%dd %s", days, time) : time;
+    }
+
+    /**
+     * Gets the number of designs filtered so far, including the designs
+     * filtered before the search resumed
+     *
+     * @return the number of designs filtered so far
+     */
+    public long getCompletedCount() {
+        return resumed + filtered;
+    }
+
+    /**
+     * Gets the rank below which every design has been filtered
+     *
+     * @return the rank below which every design has been filtered
+     */
+    public long getNextRank() {
+        return next;
+    }
+
+    /**
+     * Gets the number of designs filtered per second since the search started
+     * or resumed
+     *
+     * @return the number of designs filtered per second
+     */
+    public double getThroughput() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds > 0 ? filtered / seconds : 0.0;
+    }
+
+    /**
+     * Gets the number of designs enumerated per second since the search
+     * started or resumed
+     *
+     * @return the number of designs enumerated per second
+     */
+    public double getEnumerationRate() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds > 0 ? enumeratedCount / seconds : 0.0;
+    }
+
+    /**
+     * Estimates the time until every design is filtered at the current
+     * throughput
+     *
+     * @param unit the unit of the estimate
+     * @return the estimated remaining time. Infinite if nothing has been
+     * filtered since the search started or resumed
+     */
+    public double getEstimatedTimeRemaining(TimeUnit unit) {
+        double rate = getThroughput();
+        if (rate <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double seconds = (fence - origin - getCompletedCount()) / rate;
+        return seconds * unit.convert(1, TimeUnit.DAYS) / TimeUnit.DAYS.toSeconds(1);
+    }
+
+    /**
+     * Gets the number of batches waiting to be evaluated
+     *
+     * @return the number of batches waiting to be evaluated
+     */
+    public int getEnumeratedQueueDepth() {
+        BlockingQueue<Batch> queue = enumerated;
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * Gets the number of batches waiting to be filtered
+     *
+     * @return the number of batches waiting to be filtered
+     */
+    public int getEvaluatedQueueDepth() {
+        BlockingQueue<Batch> queue = evaluated;
+        return queue == null ? 0 : queue.size();
+    }
+}
@@ -9,10 +9,11 @@ import seakers.architecture.pattern.ArchitecturalDecision;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.paukov.combinatorics3.Generator;
 
 /**
@@ -195,48 +196,20 @@ public class FullFactorial implements Enumeration {
      * where each integer value indicates the partition number an element
      * belongs to. The largest partition number within an array is such that one
      * minus the number is also a partition number belonging to the array.
+     * Partial partitions that already exceed the maximum are pruned, so the
+     * partitions that violate the constraint are never built.
      *
      * @param nElements the number of elements to consider in partitioning
      * @param maxElements the maximum number of elements per partition
      * @return a full factorial enumeration of collection of partitions
      */
     public static Collection<int[]> ffOrderedPartitioning(int nElements, int maxElements) {
-        //in implementation, we maintain the maximum partition number of the array in the 0th index
-        Collection<int[]> prev = new ArrayList<>();
-        prev.add(new int[]{0, 0});
-        while (true) {
-            ArrayList<int[]> curr = new ArrayList<>();
-            for (int[] subPart : prev) {
-                for (int partNum = 0; partNum <= subPart[0] + 1; partNum++) {
-                    int[] extended = Arrays.copyOf(subPart, subPart.length + 1);
-                    extended[subPart.length] = partNum;
-                    extended[0] = Math.max(subPart[0], partNum);
-                    curr.add(extended);
-                }
-            }
-            if (curr.get(0).length == nElements + 1) {
-                ArrayList<int[]> out = new ArrayList<>(curr.size());
-                for (int[] partition : curr) {
-                    HashMap<Integer, Integer> map = new HashMap<>();
-                    //count the number of elements in each partition
-                    for (int partitionNumber : partition) {
-                        if (!map.containsKey(partitionNumber)) {
-                            map.put(partitionNumber, 0);
-                        }
-                        map.put(partitionNumber, map.get(partitionNumber) + 1);
-                    }
-                    for (int elementCount : map.values()) {
-                        if (elementCount > maxElements) {
-                            break;
-                        }
-                    }
-                    //if partial partition meets constraint
-                    out.add(Arrays.copyOfRange(partition, 1, partition.length));
-                }
-                return out;
-            }
-            prev = curr;
+        ArrayList<int[]> out = new ArrayList<>();
+        Iterator<int[]> iter = ffOrderedPartitioningIterator(nElements, false, PartialConstraint.maxBlockSize(maxElements));
+        while (iter.hasNext()) {
+            out.add(iter.next());
         }
+        return out;
     }
 
     /**
@@ -257,6 +230,381 @@ public class FullFactorial implements Enumeration {
         return permutations;
     }
 
+    /**
+     * Creates a lazy full factorial enumeration of combining decisions. Designs
+     * are generated one at a time in the same order as
+     * {@link #ffCombining(int[])}, starting from the design with 0 selected
+     * for all decisions.
+     *
+     * @param levels The number of options for each combining decision
+     * @param reuse if true, the same array is returned for every design and is
+     * overwritten when the iterator advances. Otherwise a new array is
+     * returned for each design.
+     * @return an iterator over every design
+     */
+    public static Iterator<int[]> ffCombiningIterator(int[] levels, boolean reuse) {
+        return new MixedRadixIterator(levels, reuse);
+    }
+
+    /**
+     * Creates a lazy enumeration of the combining designs that satisfy a set
+     * of constraints. Constraints are checked on every partial design and
+     * infeasible partial designs are pruned with all their completions.
+     * Designs are generated in the same order as
+     * {@link #ffCombiningIterator(int[], boolean)}, with the first decision
+     * changing the fastest.
+     *
+     * @param levels The number of options for each combining decision
+     * @param reuse if true, the same array is returned for every design and is
+     * overwritten when the iterator advances. Otherwise a new array is
+     * returned for each design.
+     * @param constraints the constraints on the partial designs
+     * @return an iterator over every feasible design
+     */
+    public static BranchAndBoundIterator ffCombiningIterator(int[] levels, boolean reuse, PartialConstraint... constraints) {
+        return BranchAndBoundIterator.mixedRadix(levels, reuse, constraints);
+    }
+
+    /**
+     * Creates a lazy full factorial enumeration of combining decisions as a
+     * sequential stream. See {@link #ffCombiningIterator(int[], boolean)}. The
+     * stream splits by rank when made parallel.
+     *
+     * @param levels The number of options for each combining decision
+     * @param reuse if true, the same array is returned for every design within
+     * a split
+     * @return a stream of every design
+     */
+    public static Stream<int[]> ffCombiningStream(int[] levels, boolean reuse) {
+        return StreamSupport.stream(ffCombiningSpliterator(levels, reuse), false);
+    }
+
+    /**
+     * Creates a splittable full factorial enumeration of combining decisions.
+     * Designs are ordered by their mixed-radix rank.
+     *
+     * @param levels The number of options for each combining decision
+     * @param reuse if true, the same array is returned for every design within
+     * a split
+     * @return a spliterator over every design
+     */
+    public static RankSpliterator ffCombiningSpliterator(int[] levels, boolean reuse) {
+        return new MixedRadixSpliterator(levels, reuse);
+    }
+
+    /**
+     * Creates a splittable full factorial enumeration of combining decisions
+     * restricted to the designs with ranks in [origin, fence).
+     *
+     * @param levels The number of options for each combining decision
+     * @param origin the rank of the first design, inclusive
+     * @param fence the rank of the last design, exclusive
+     * @param reuse if true, the same array is returned for every design within
+     * a split
+     * @return a spliterator over the designs in the range
+     */
+    public static RankSpliterator ffCombiningSpliterator(int[] levels, long origin, long fence, boolean reuse) {
+        return new MixedRadixSpliterator(levels, origin, fence, reuse);
+    }
+
+    /**
+     * Creates a lazy full factorial enumeration of down selecting decisions.
+     * Each design is a binary vector where 1 indicates a selected element.
+     *
+     * @param nElements The number of elements to down select from
+     * @param reuse if true, the same array is returned for every design and is
+     * overwritten when the iterator advances. Otherwise a new array is
+     * returned for each design.
+     * @return an iterator over every design
+     */
+    public static Iterator<int[]> ffDownSelectingIterator(int nElements, boolean reuse) {
+        return new MixedRadixIterator(binaryLevels(nElements), reuse);
+    }
+
+    /**
+     * Creates a lazy enumeration of the down selecting designs that satisfy a
+     * set of constraints, such as {@link PartialConstraint#cardinality}. See
+     * {@link #ffCombiningIterator(int[], boolean, PartialConstraint...)}.
+     *
+     * @param nElements The number of elements to down select from
+     * @param reuse if true, the same array is returned for every design and is
+     * overwritten when the iterator advances. Otherwise a new array is
+     * returned for each design.
+     * @param constraints the constraints on the partial designs
+     * @return an iterator over every feasible design
+     */
+    public static BranchAndBoundIterator ffDownSelectingIterator(int nElements, boolean reuse, PartialConstraint... constraints) {
+        return BranchAndBoundIterator.mixedRadix(binaryLevels(nElements), reuse, constraints);
+    }
+
+    /**
+     * Creates a lazy full factorial enumeration of down selecting decisions as
+     * a sequential stream. See {@link #ffDownSelectingIterator(int, boolean)}.
+     * The stream splits by rank when made parallel.
+     *
+     * @param nElements The number of elements to down select from
+     * @param reuse if true, the same array is returned for every design within
+     * a split
+     * @return a stream of every design
+     */
+    public static Stream<int[]> ffDownSelectingStream(int nElements, boolean reuse) {
+        return StreamSupport.stream(ffDownSelectingSpliterator(nElements, reuse), false);
+    }
+
+    /**
+     * Creates a splittable full factorial enumeration of down selecting
+     * decisions. The rank of a design is the binary number where element i is
+     * bit i.
+     *
+     * @param nElements The number of elements to down select from
+     * @param reuse if true, the same array is returned for every design within
+     * a split
+     * @return a spliterator over every design
+     */
+    public static RankSpliterator ffDownSelectingSpliterator(int nElements, boolean reuse) {
+        return new MixedRadixSpliterator(binaryLevels(nElements), reuse);
+    }
+
+    /**
+     * Creates a lazy full factorial enumeration of assigning decisions. Each
+     * assignment matrix is flattened row by row into a binary vector of length
+     * nLHS * nRHS, so that cell i,j is stored at index i * nRHS + j.
+     *
+     * @param nLHS The number of elements on the left hand side
+     * @param nRHS The number of elements on the right hand side
+     * @param reuse if true, the same array is returned for every design and is
+     * overwritten when the iterator advances. Otherwise a new array is
+     * returned for each design.
+     * @return an iterator over every flattened assignment matrix
+     */
+    public static Iterator<int[]> ffAssigningIterator(int nLHS, int nRHS, boolean reuse) {
+        return new MixedRadixIterator(binaryLevels(nLHS * nRHS), reuse);
+    }
+
+    /**
+     * Creates a lazy enumeration of the assigning designs that satisfy a set
+     * of constraints, such as {@link PartialConstraint#rowAssignments}. Each
+     * assignment matrix is flattened row by row. See
+     * {@link #ffCombiningIterator(int[], boolean, PartialConstraint...)}.
+     *
+     * @param nLHS The number of elements on the left hand side
+     * @param nRHS The number of elements on the right hand side
+     * @param reuse if true, the same array is returned for every design and is
+     * overwritten when the iterator advances. Otherwise a new array is
+     * returned for each design.
+     * @param constraints the constraints on the partial designs
+     * @return an iterator over every feasible flattened assignment matrix
+     */
+    public static BranchAndBoundIterator ffAssigningIterator(int nLHS, int nRHS, boolean reuse, PartialConstraint... constraints) {
+        return BranchAndBoundIterator.mixedRadix(binaryLevels(nLHS * nRHS), reuse, constraints);
+    }
+
+    /**
+     * Creates a lazy full factorial enumeration of assigning decisions as a
+     * sequential stream. See {@link #ffAssigningIterator(int, int, boolean)}.
+     * The stream splits by rank when made parallel.
+     *
+     * @param nLHS The number of elements on the left hand side
+     * @param nRHS The number of elements on the right hand side
+     * @param reuse if true, the same array is returned for every design within
+     * a split
+     * @return a stream of every flattened assignment matrix
+     */
+    public static Stream<int[]> ffAssigningStream(int nLHS, int nRHS, boolean reuse) {
+        return StreamSupport.stream(ffAssigningSpliterator(nLHS, nRHS, reuse), false);
+    }
+
+    /**
+     * Creates a splittable full factorial enumeration of assigning decisions.
+     * The rank of a flattened assignment matrix is the binary number where
+     * cell i,j is bit i * nRHS + j.
+     *
+     * @param nLHS The number of elements on the left hand side
+     * @param nRHS The number of elements on the right hand side
+     * @param reuse if true, the same array is returned for every design within
+     * a split
+     * @return a spliterator over every flattened assignment matrix
+     */
+    public static RankSpliterator ffAssigningSpliterator(int nLHS, int nRHS, boolean reuse) {
+        return new MixedRadixSpliterator(binaryLevels(nLHS * nRHS), reuse);
+    }
+
+    /**
+     * Creates a lazy full factorial enumeration of ordered partitions.
+     * Partitions are generated as restricted growth strings in the same order
+     * as {@link #ffOrderedPartitioning(int)}.
+     *
+     * @param nElements the number of elements to consider in partitioning
+     * @param reuse if true, the same array is returned for every partition and
+     * is overwritten when the iterator advances. Otherwise a new array is
+     * returned for each partition.
+     * @return an iterator over every partition
+     */
+    public static Iterator<int[]> ffOrderedPartitioningIterator(int nElements, boolean reuse) {
+        return new RestrictedGrowthIterator(nElements, reuse);
+    }
+
+    /**
+     * Creates a lazy enumeration of the ordered partitions that satisfy a set
+     * of constraints, such as {@link PartialConstraint#maxBlockSize}.
+     * Partitions are generated as restricted growth strings in the same order
+     * as {@link #ffOrderedPartitioningIterator(int, boolean)} and infeasible
+     * partial partitions are pruned with all their completions.
+     *
+     * @param nElements the number of elements to consider in partitioning
+     * @param reuse if true, the same array is returned for every partition and
+     * is overwritten when the iterator advances. Otherwise a new array is
+     * returned for each partition.
+     * @param constraints the constraints on the partial partitions
+     * @return an iterator over every feasible partition
+     */
+    public static BranchAndBoundIterator ffOrderedPartitioningIterator(int nElements, boolean reuse, PartialConstraint... constraints) {
+        return BranchAndBoundIterator.restrictedGrowth(nElements, reuse, constraints);
+    }
+
+    /**
+     * Creates a lazy full factorial enumeration of ordered partitions as a
+     * sequential stream. See
+     * {@link #ffOrderedPartitioningIterator(int, boolean)}. The stream splits
+     * by rank when made parallel.
+     *
+     * @param nElements the number of elements to consider in partitioning
+     * @param reuse if true, the same array is returned for every partition
+     * within a split
+     * @return a stream of every partition
+     */
+    public static Stream<int[]> ffOrderedPartitioningStream(int nElements, boolean reuse) {
+        return StreamSupport.stream(ffOrderedPartitioningSpliterator(nElements, reuse), false);
+    }
+
+    /**
+     * Creates a splittable full factorial enumeration of ordered partitions.
+     * Partitions are ordered by the lexicographic rank of their restricted
+     * growth strings.
+     *
+     * @param nElements the number of elements to consider in partitioning
+     * @param reuse if true, the same array is returned for every partition
+     * within a split
+     * @return a spliterator over every partition
+     */
+    public static RankSpliterator ffOrderedPartitioningSpliterator(int nElements, boolean reuse) {
+        return new RestrictedGrowthSpliterator(nElements, reuse);
+    }
+
+    /**
+     * Creates a lazy full factorial enumeration of a permutation. Permutations
+     * are generated with Heap's algorithm so consecutive permutations differ
+     * by a single swap.
+     *
+     * @param nElements the number of elements in the permutation
+     * @param reuse if true, the same array is returned for every permutation
+     * and is overwritten when the iterator advances. Otherwise a new array is
+     * returned for each permutation.
+     * @return an iterator over every permutation
+     */
+    public static Iterator<int[]> ffPermutingIterator(int nElements, boolean reuse) {
+        return new PermutationIterator(nElements, reuse);
+    }
+
+    /**
+     * Creates a lazy full factorial enumeration of a permutation as a
+     * sequential stream. Unlike {@link #ffPermutingIterator(int, boolean)},
+     * permutations are generated in lexicographic order so that the stream
+     * splits by rank when made parallel.
+     *
+     * @param nElements the number of elements in the permutation
+     * @param reuse if true, the same array is returned for every permutation
+     * within a split
+     * @return a stream of every permutation
+     */
+    public static Stream<int[]> ffPermutingStream(int nElements, boolean reuse) {
+        return StreamSupport.stream(ffPermutingSpliterator(nElements, reuse), false);
+    }
+
+    /**
+     * Creates a splittable full factorial enumeration of a permutation.
+     * Permutations are ordered by their lexicographic (Lehmer code) rank.
+     *
+     * @param nElements the number of elements in the permutation
+     * @param reuse if true, the same array is returned for every permutation
+     * within a split
+     * @return a spliterator over every permutation
+     */
+    public static RankSpliterator ffPermutingSpliterator(int nElements, boolean reuse) {
+        return new PermutationSpliterator(nElements, reuse);
+    }
+
+    /**
+     * Counts the number of designs in a full factorial enumeration of
+     * combining decisions
+     *
+     * @param levels The number of options for each combining decision
+     * @return the number of designs
+     * @throws ArithmeticException if the number of designs exceeds the range
+     * of a long
+     */
+    public static long countCombining(int[] levels) {
+        long out = 1;
+        for (int lev : levels) {
+            out = Math.multiplyExact(out, lev);
+        }
+        return out;
+    }
+
+    /**
+     * Counts the number of permutations of n elements
+     *
+     * @param nElements the number of elements in the permutation
+     * @return the number of permutations
+     * @throws ArithmeticException if the number of permutations exceeds the
+     * range of a long
+     */
+    public static long countPermuting(int nElements) {
+        long out = 1;
+        for (int i = nElements; i > 1; i--) {
+            out = Math.multiplyExact(out, i);
+        }
+        return out;
+    }
+
+    /**
+     * Counts the number of ordered partitions of n elements (the Bell number)
+     * using the Bell triangle
+     *
+     * @param nElements the number of elements to consider in partitioning
+     * @return the number of partitions
+     * @throws ArithmeticException if the number of partitions exceeds the
+     * range of a long
+     */
+    public static long countOrderedPartitioning(int nElements) {
+        if (nElements <= 1) {
+            return 1;
+        }
+        long[] row = new long[]{1};
+        for (int i = 1; i < nElements; i++) {
+            long[] next = new long[i + 1];
+            next[0] = row[i - 1];
+            for (int j = 1; j <= i; j++) {
+                next[j] = Math.addExact(next[j - 1], row[j - 1]);
+            }
+            row = next;
+        }
+        return row[nElements - 1];
+    }
+
+    /**
+     * Creates the levels of a combining decision where every decision is
+     * binary
+     *
+     * @param nElements the number of binary decisions
+     * @return levels of 2 for every decision
+     */
+    private static int[] binaryLevels(int nElements) {
+        int[] levels = new int[nElements];
+        Arrays.fill(levels, 2);
+        return levels;
+    }
+
     /**
      * Computes the factorial of a number.
      *
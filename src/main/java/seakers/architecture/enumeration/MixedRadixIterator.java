@@ -0,0 +1,110 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.enumeration;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily iterates through a full factorial enumeration of combining decisions
+ * using a mixed-radix counter. The value of the first decision changes the
+ * fastest, which is the same order used by
+ * {@link FullFactorial#ffCombining(int[])}. Only the current design is held in
+ * memory.
+ *
+ * @author nozomihitomi
+ */
+public class MixedRadixIterator implements Iterator<int[]> {
+
+    /**
+     * The number of options for each combining decision
+     */
+    private final int[] levels;
+
+    /**
+     * The current design
+     */
+    private final int[] current;
+
+    /**
+     * Flag to return the same buffer on each call to next()
+     */
+    private final boolean reuse;
+
+    /**
+     * The number of digits that are at their maximum value
+     */
+    private int nMax;
+
+    /**
+     * Flag for if next() has been called at least once
+     */
+    private boolean started;
+
+    /**
+     * Creates an iterator over all designs
+     *
+     * @param levels The number of options for each combining decision
+     * @param reuse if true, next() returns the same array, overwritten on each
+     * call. Otherwise a new array is returned on each call.
+     */
+    public MixedRadixIterator(int[] levels, boolean reuse) {
+        for (int lev : levels) {
+            if (lev <= 0) {
+                throw new IllegalArgumentException("The number of alternatives for any decision must be positive");
+            }
+        }
+        this.levels = levels.clone();
+        this.current = new int[levels.length];
+        this.reuse = reuse;
+        this.nMax = 0;
+        for (int lev : levels) {
+            if (lev == 1) {
+                nMax++;
+            }
+        }
+        this.started = false;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !started || nMax < levels.length;
+    }
+
+    @Override
+    public int[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (started) {
+            increment();
+        } else {
+            started = true;
+        }
+        return reuse ? current : current.clone();
+    }
+
+    /**
+     * Advances the counter by one
+     */
+    private void increment() {
+        for (int k = 0; k < levels.length; k++) {
+            if (current[k] == levels[k] - 1) {
+                //carry over to the next digit
+                current[k] = 0;
+                if (levels[k] > 1) {
+                    nMax--;
+                }
+            } else {
+                current[k]++;
+                if (current[k] == levels[k] - 1) {
+                    nMax++;
+                }
+                return;
+            }
+        }
+    }
+}
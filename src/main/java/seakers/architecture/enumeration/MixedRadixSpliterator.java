@@ -0,0 +1,70 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.enumeration;
+
+/**
+ * Splittable enumeration of combining decisions over a range of mixed-radix
+ * ranks. Down selecting and assigning decisions are enumerated as combining
+ * decisions with two options per element. The value of the first decision
+ * changes the fastest.
+ *
+ * @author nozomihitomi
+ */
+public class MixedRadixSpliterator extends RankSpliterator {
+
+    /**
+     * The number of options for each combining decision
+     */
+    private final int[] levels;
+
+    /**
+     * Creates a spliterator over all designs
+     *
+     * @param levels The number of options for each combining decision
+     * @param reuse if true, the same array is passed for every design
+     */
+    public MixedRadixSpliterator(int[] levels, boolean reuse) {
+        this(levels, 0, FullFactorial.countCombining(levels), reuse);
+    }
+
+    /**
+     * Creates a spliterator over designs with ranks in [origin, fence)
+     *
+     * @param levels The number of options for each combining decision
+     * @param origin the rank of the first design, inclusive
+     * @param fence the rank of the last design, exclusive
+     * @param reuse if true, the same array is passed for every design
+     */
+    public MixedRadixSpliterator(int[] levels, long origin, long fence, boolean reuse) {
+        super(levels.length, origin, fence, reuse);
+        if (fence > FullFactorial.countCombining(levels)) {
+            throw new IllegalArgumentException("Rank exceeds the number of designs");
+        }
+        this.levels = levels.clone();
+    }
+
+    @Override
+    protected void unrank(long rank, int[] out) {
+        Ranking.unrankMixedRadix(rank, levels, out);
+    }
+
+    @Override
+    protected void successor(int[] design) {
+        for (int k = 0; k < levels.length; k++) {
+            if (design[k] == levels[k] - 1) {
+                design[k] = 0;
+            } else {
+                design[k]++;
+                return;
+            }
+        }
+    }
+
+    @Override
+    protected RankSpliterator create(long origin, long fence, boolean reuse) {
+        return new MixedRadixSpliterator(levels, origin, fence, reuse);
+    }
+}
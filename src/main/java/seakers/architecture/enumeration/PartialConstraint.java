@@ -0,0 +1,198 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.enumeration;
+
+/**
+ * A feasibility check on a partially enumerated design. The
+ * {@link BranchAndBoundIterator} assigns the values of a design one position
+ * at a time and checks the assigned positions as soon as a position is
+ * assigned. The assigned positions are always a contiguous range that grows
+ * at one end: combining, down selecting and assigning designs are assigned
+ * from the last position to the first and partitions from the first position
+ * to the last. So a constraint only needs to check the conditions that
+ * involve the position at either end of the range. If a partial design is
+ * infeasible, all its completions are skipped.
+ *
+ * @author nozomihitomi
+ */
+@FunctionalInterface
+public interface PartialConstraint {
+
+    /**
+     * Checks if a partial design can still be completed into a feasible design
+     *
+     * @param values the values of the design. Only the values in [from, to)
+     * are assigned
+     * @param from the first assigned position, inclusive
+     * @param to the last assigned position, exclusive. The most recently
+     * assigned value is at index from or at index to - 1
+     * @return false if no completion of the partial design is feasible
+     */
+    public boolean isFeasible(int[] values, int from, int to);
+
+    /**
+     * Forbids two options from being selected together
+     *
+     * @param i the first position
+     * @param a the forbidden value of the first position
+     * @param j the second position
+     * @param b the forbidden value of the second position
+     * @return a constraint that rejects designs with value a at position i and
+     * value b at position j
+     */
+    public static PartialConstraint incompatible(int i, int a, int j, int b) {
+        int first = Math.min(i, j);
+        int last = Math.max(i, j);
+        return (values, from, to) -> first < from || last >= to
+                || (first != from && last != to - 1)
+                || values[i] != a || values[j] != b;
+    }
+
+    /**
+     * Limits the number of positions with a non-zero value, such as the
+     * number of selected elements of a down selecting decision
+     *
+     * @param min the minimum number of non-zero values, inclusive
+     * @param max the maximum number of non-zero values, inclusive
+     * @return a constraint on the number of non-zero values
+     */
+    public static PartialConstraint cardinality(int min, int max) {
+        return (values, from, to) -> {
+            int count = countNonZero(values, from, to, 1);
+            return count <= max && count + values.length - (to - from) >= min;
+        };
+    }
+
+    /**
+     * Limits the number of assignments of each element on the left hand side
+     * of an assigning decision. The assignment matrix is flattened row by row
+     * so that cell i,j is at position i * nRHS + j.
+     *
+     * @param nRHS the number of elements on the right hand side
+     * @param min the minimum number of assignments of each row, inclusive
+     * @param max the maximum number of assignments of each row, inclusive
+     * @return a constraint on the number of assignments of each row
+     */
+    public static PartialConstraint rowAssignments(int nRHS, int min, int max) {
+        return (values, from, to) -> isRowFeasible(values, from, to, from / nRHS * nRHS, nRHS, min, max)
+                && isRowFeasible(values, from, to, (to - 1) / nRHS * nRHS, nRHS, min, max);
+    }
+
+    /**
+     * Limits the number of assignments of each element on the right hand side
+     * of an assigning decision. The assignment matrix is flattened row by row
+     * so that cell i,j is at position i * nRHS + j.
+     *
+     * @param nRHS the number of elements on the right hand side
+     * @param min the minimum number of assignments of each column, inclusive
+     * @param max the maximum number of assignments of each column, inclusive
+     * @return a constraint on the number of assignments of each column
+     */
+    public static PartialConstraint columnAssignments(int nRHS, int min, int max) {
+        return (values, from, to) -> isColumnFeasible(values, from, to, from % nRHS, nRHS, min, max)
+                && isColumnFeasible(values, from, to, (to - 1) % nRHS, nRHS, min, max);
+    }
+
+    /**
+     * Limits the number of elements in each subset of a partition written as
+     * a restricted growth string
+     *
+     * @param max the maximum number of elements per subset, inclusive
+     * @return a constraint on the size of each subset
+     */
+    public static PartialConstraint maxBlockSize(int max) {
+        return (values, from, to) -> countLabel(values, from, to, values[from]) <= max
+                && countLabel(values, from, to, values[to - 1]) <= max;
+    }
+
+    /**
+     * Limits the number of subsets of a partition written as a restricted
+     * growth string
+     *
+     * @param max the maximum number of subsets, inclusive
+     * @return a constraint on the number of subsets
+     */
+    public static PartialConstraint maxBlocks(int max) {
+        return (values, from, to) -> values[from] < max && values[to - 1] < max;
+    }
+
+    /**
+     * Checks the number of assignments of a partially assigned row
+     *
+     * @param values the values of the design
+     * @param from the first assigned position, inclusive
+     * @param to the last assigned position, exclusive
+     * @param rowStart the position of the first cell of the row
+     * @param nRHS the number of cells per row
+     * @param min the minimum number of assignments, inclusive
+     * @param max the maximum number of assignments, inclusive
+     * @return true if the row can still have between min and max assignments
+     */
+    static boolean isRowFeasible(int[] values, int from, int to, int rowStart, int nRHS, int min, int max) {
+        int lo = Math.max(from, rowStart);
+        int hi = Math.min(to, rowStart + nRHS);
+        int count = countNonZero(values, lo, hi, 1);
+        return count <= max && count + nRHS - (hi - lo) >= min;
+    }
+
+    /**
+     * Checks the number of assignments of a partially assigned column
+     *
+     * @param values the values of the design
+     * @param from the first assigned position, inclusive
+     * @param to the last assigned position, exclusive
+     * @param column the column
+     * @param nRHS the number of cells per row
+     * @param min the minimum number of assignments, inclusive
+     * @param max the maximum number of assignments, inclusive
+     * @return true if the column can still have between min and max
+     * assignments
+     */
+    static boolean isColumnFeasible(int[] values, int from, int to, int column, int nRHS, int min, int max) {
+        int first = from + Math.floorMod(column - from, nRHS);
+        int count = countNonZero(values, first, to, nRHS);
+        int assigned = first < to ? (to - 1 - first) / nRHS + 1 : 0;
+        return count <= max && count + values.length / nRHS - assigned >= min;
+    }
+
+    /**
+     * Counts the positions with a given value
+     *
+     * @param values the values
+     * @param from the first position, inclusive
+     * @param to the last position, exclusive
+     * @param label the value to count
+     * @return the number of positions with the value
+     */
+    static int countLabel(int[] values, int from, int to, int label) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (values[i] == label) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the non-zero values at evenly spaced positions
+     *
+     * @param values the values
+     * @param from the first position, inclusive
+     * @param to the last position, exclusive
+     * @param step the distance between positions
+     * @return the number of non-zero values
+     */
+    static int countNonZero(int[] values, int from, int to, int step) {
+        int count = 0;
+        for (int i = from; i < to; i += step) {
+            if (values[i] != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.enumeration;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily iterates through all permutations of the integers 0 to n-1 using the
+ * non-recursive form of Heap's algorithm. Consecutive permutations differ by a
+ * single swap and only the current permutation is held in memory.
+ *
+ * @author nozomihitomi
+ */
+public class PermutationIterator implements Iterator<int[]> {
+
+    /**
+     * The current permutation
+     */
+    private final int[] current;
+
+    /**
+     * The loop counters of Heap's algorithm
+     */
+    private final int[] counters;
+
+    /**
+     * Flag to return the same buffer on each call to next()
+     */
+    private final boolean reuse;
+
+    /**
+     * The number of counters (excluding the 0th) that have reached their
+     * maximum value. The last permutation has been reached when all counters
+     * are at their maximum
+     */
+    private int nMax;
+
+    /**
+     * Flag for if next() has been called at least once
+     */
+    private boolean started;
+
+    /**
+     * Creates an iterator over all permutations
+     *
+     * @param nElements the number of elements in the permutation
+     * @param reuse if true, next() returns the same array, overwritten on each
+     * call. Otherwise a new array is returned on each call.
+     */
+    public PermutationIterator(int nElements, boolean reuse) {
+        if (nElements < 0) {
+            throw new IllegalArgumentException("The number of elements must be non-negative");
+        }
+        this.current = new int[nElements];
+        for (int i = 0; i < nElements; i++) {
+            current[i] = i;
+        }
+        this.counters = new int[nElements];
+        this.reuse = reuse;
+        this.nMax = 0;
+        this.started = false;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !started || nMax < current.length - 1;
+    }
+
+    @Override
+    public int[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (started) {
+            advance();
+        } else {
+            started = true;
+        }
+        return reuse ? current : current.clone();
+    }
+
+    /**
+     * Applies the next swap of Heap's algorithm
+     */
+    private void advance() {
+        int i = 1;
+        while (counters[i] == i) {
+            counters[i] = 0;
+            nMax--;
+            i++;
+        }
+        if (i % 2 == 0) {
+            swap(0, i);
+        } else {
+            swap(counters[i], i);
+        }
+        counters[i]++;
+        if (counters[i] == i) {
+            nMax++;
+        }
+    }
+
+    /**
+     * Swaps the position of the elements at index i and j.
+     *
+     * @param i index of first element to swap
+     * @param j index of second element to swap
+     */
+    private void swap(int i, int j) {
+        int tmp = current[i];
+        current[i] = current[j];
+        current[j] = tmp;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.enumeration;
+
+/**
+ * Splittable enumeration of the permutations of the integers 0 to n-1 over a
+ * range of lexicographic (Lehmer code) ranks.
+ *
+ * @author nozomihitomi
+ */
+public class PermutationSpliterator extends RankSpliterator {
+
+    /**
+     * Creates a spliterator over all permutations
+     *
+     * @param nElements the number of elements in the permutation
+     * @param reuse if true, the same array is passed for every permutation
+     */
+    public PermutationSpliterator(int nElements, boolean reuse) {
+        this(nElements, 0, FullFactorial.countPermuting(nElements), reuse);
+    }
+
+    /**
+     * Creates a spliterator over permutations with ranks in [origin, fence)
+     *
+     * @param nElements the number of elements in the permutation
+     * @param origin the rank of the first permutation, inclusive
+     * @param fence the rank of the last permutation, exclusive
+     * @param reuse if true, the same array is passed for every permutation
+     */
+    public PermutationSpliterator(int nElements, long origin, long fence, boolean reuse) {
+        super(nElements, origin, fence, reuse);
+        if (fence > FullFactorial.countPermuting(nElements)) {
+            throw new IllegalArgumentException("Rank exceeds the number of permutations");
+        }
+    }
+
+    @Override
+    protected void unrank(long rank, int[] out) {
+        Ranking.unrankPermutation(rank, out);
+    }
+
+    @Override
+    protected void successor(int[] design) {
+        //find the longest non-increasing suffix
+        int i = design.length - 2;
+        while (design[i] > design[i + 1]) {
+            i--;
+        }
+        //swap the pivot with the smallest larger value in the suffix
+        int j = design.length - 1;
+        while (design[j] < design[i]) {
+            j--;
+        }
+        swap(design, i, j);
+        //reverse the suffix
+        for (int l = i + 1, r = design.length - 1; l < r; l++, r--) {
+            swap(design, l, r);
+        }
+    }
+
+    @Override
+    protected RankSpliterator create(long origin, long fence, boolean reuse) {
+        return new PermutationSpliterator(getLength(), origin, fence, reuse);
+    }
+
+    /**
+     * Swaps the position of the elements in the array at index i and j.
+     *
+     * @param array array to perform swap
+     * @param i index of first element to swap
+     * @param j index of second element to swap
+     */
+    private static void swap(int[] array, int i, int j) {
+        int tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.enumeration;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator over a contiguous range of ranks in a full factorial
+ * enumeration. The first design of the range is found by unranking and every
+ * following design by computing the successor of the previous one. Splitting
+ * divides the remaining range of ranks in half, so parallel streams and
+ * fork-join tasks enumerate disjoint slices of the design space without any
+ * coordination.
+ *
+ * @author nozomihitomi
+ */
+public abstract class RankSpliterator implements Spliterator<int[]> {
+
+    /**
+     * The smallest range of ranks that is split
+     */
+    private static final long MIN_SPLIT = 2;
+
+    /**
+     * The rank of the next design
+     */
+    private long origin;
+
+    /**
+     * One past the rank of the last design
+     */
+    private final long fence;
+
+    /**
+     * The current design
+     */
+    private final int[] current;
+
+    /**
+     * Flag to return the same buffer for every design
+     */
+    private final boolean reuse;
+
+    /**
+     * Flag for if current holds the design with rank origin - 1
+     */
+    private boolean positioned;
+
+    /**
+     * Creates a spliterator over designs with ranks in [origin, fence)
+     *
+     * @param length the length of a design
+     * @param origin the rank of the first design, inclusive
+     * @param fence the rank of the last design, exclusive
+     * @param reuse if true, the same array is passed to the action for every
+     * design and is overwritten as the spliterator advances. Otherwise a new
+     * array is passed for each design.
+     */
+    protected RankSpliterator(int length, long origin, long fence, boolean reuse) {
+        if (origin < 0 || origin > fence) {
+            throw new IllegalArgumentException(String.format("Invalid rank range [%d, %d)", origin, fence));
+        }
+        this.origin = origin;
+        this.fence = fence;
+        this.current = new int[length];
+        this.reuse = reuse;
+        this.positioned = false;
+    }
+
+    /**
+     * Writes the design with the given rank
+     *
+     * @param rank the rank of the design
+     * @param out the array to store the design
+     */
+    protected abstract void unrank(long rank, int[] out);
+
+    /**
+     * Moves the design to the design with the next rank
+     *
+     * @param design the design to advance
+     */
+    protected abstract void successor(int[] design);
+
+    /**
+     * Creates a spliterator of the same design space over a different range of
+     * ranks
+     *
+     * @param origin the rank of the first design, inclusive
+     * @param fence the rank of the last design, exclusive
+     * @param reuse true if the same array is passed for every design
+     * @return the new spliterator
+     */
+    protected abstract RankSpliterator create(long origin, long fence, boolean reuse);
+
+    /**
+     * Gets the length of a design
+     *
+     * @return the length of a design
+     */
+    protected int getLength() {
+        return current.length;
+    }
+
+    /**
+     * Gets the rank of the next design this spliterator will return
+     *
+     * @return the rank of the next design
+     */
+    public long getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Gets one past the rank of the last design this spliterator will return
+     *
+     * @return one past the rank of the last design
+     */
+    public long getFence() {
+        return fence;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super int[]> action) {
+        if (origin >= fence) {
+            return false;
+        }
+        next();
+        action.accept(reuse ? current : current.clone());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super int[]> action) {
+        while (origin < fence) {
+            next();
+            action.accept(reuse ? current : current.clone());
+        }
+    }
+
+    /**
+     * Moves the current design to the design with rank origin
+     */
+    private void next() {
+        if (positioned) {
+            successor(current);
+        } else {
+            unrank(origin, current);
+            positioned = true;
+        }
+        origin++;
+    }
+
+    @Override
+    public Spliterator<int[]> trySplit() {
+        if (fence - origin < MIN_SPLIT) {
+            return null;
+        }
+        long mid = origin + (fence - origin) / 2;
+        RankSpliterator prefix = create(origin, mid, reuse);
+        origin = mid;
+        //the remaining range starts from a design that must be unranked
+        positioned = false;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - origin;
+    }
+
+    @Override
+    public int characteristics() {
+        int out = ORDERED | SIZED | SUBSIZED | NONNULL;
+        if (!reuse) {
+            out |= DISTINCT | IMMUTABLE;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.enumeration;
+
+/**
+ * Perfect hashing of designs to and from their rank, the zero-based position of
+ * the design in a full factorial enumeration. Combining designs are ranked as
+ * mixed-radix numbers where the first decision is the least significant digit.
+ * Permutations are ranked in lexicographic order using the Lehmer code.
+ * Partitions are ranked in lexicographic order of their restricted growth
+ * strings.
+ *
+ * @author nozomihitomi
+ */
+public final class Ranking {
+
+    /**
+     * Prevent the creation of this object
+     */
+    private Ranking() {
+
+    }
+
+    /**
+     * Computes the rank of a combining design
+     *
+     * @param design the value selected for each decision
+     * @param levels The number of options for each combining decision
+     * @return the rank of the design
+     */
+    public static long rankMixedRadix(int[] design, int[] levels) {
+        long rank = 0;
+        for (int k = design.length - 1; k >= 0; k--) {
+            if (design[k] < 0 || design[k] >= levels[k]) {
+                throw new IllegalArgumentException(String.format("Value %d at index %d is outside [0, %d)", design[k], k, levels[k]));
+            }
+            rank = Math.addExact(Math.multiplyExact(rank, levels[k]), design[k]);
+        }
+        return rank;
+    }
+
+    /**
+     * Computes the combining design with the given rank
+     *
+     * @param rank the rank of the design
+     * @param levels The number of options for each combining decision
+     * @param out the array to store the value selected for each decision
+     */
+    public static void unrankMixedRadix(long rank, int[] levels, int[] out) {
+        if (rank < 0) {
+            throw new IllegalArgumentException("Rank must be non-negative");
+        }
+        for (int k = 0; k < levels.length; k++) {
+            out[k] = (int) (rank % levels[k]);
+            rank /= levels[k];
+        }
+        if (rank != 0) {
+            throw new IllegalArgumentException("Rank exceeds the number of designs");
+        }
+    }
+
+    /**
+     * Computes the lexicographic rank of a permutation of the integers 0 to n-1
+     * from its Lehmer code
+     *
+     * @param permutation the permutation
+     * @return the rank of the permutation
+     */
+    public static long rankPermutation(int[] permutation) {
+        int n = permutation.length;
+        boolean[] used = new boolean[n];
+        long rank = 0;
+        for (int i = 0; i < n; i++) {
+            int value = permutation[i];
+            if (value < 0 || value >= n || used[value]) {
+                throw new IllegalArgumentException("Array is not a permutation of the integers 0 to n-1");
+            }
+            //the Lehmer code digit counts the smaller values not yet used
+            int digit = 0;
+            for (int v = 0; v < value; v++) {
+                if (!used[v]) {
+                    digit++;
+                }
+            }
+            used[value] = true;
+            rank = Math.addExact(Math.multiplyExact(rank, n - i), digit);
+        }
+        return rank;
+    }
+
+    /**
+     * Computes the permutation of the integers 0 to n-1 with the given
+     * lexicographic rank
+     *
+     * @param rank the rank of the permutation
+     * @param out the array to store the permutation. Its length is the number
+     * of elements in the permutation
+     */
+    public static void unrankPermutation(long rank, int[] out) {
+        if (rank < 0) {
+            throw new IllegalArgumentException("Rank must be non-negative");
+        }
+        int n = out.length;
+        //decode the Lehmer code digits, last digit first
+        for (int i = n - 1; i >= 0; i--) {
+            out[i] = (int) (rank % (n - i));
+            rank /= (n - i);
+        }
+        if (rank != 0) {
+            throw new IllegalArgumentException("Rank exceeds the number of permutations");
+        }
+        boolean[] used = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            int digit = out[i];
+            int value = 0;
+            while (used[value] || digit > 0) {
+                if (!used[value]) {
+                    digit--;
+                }
+                value++;
+            }
+            used[value] = true;
+            out[i] = value;
+        }
+    }
+
+    /**
+     * Creates the table of the number of ways to complete a partial restricted
+     * growth string. Entry [i][m] is the number of ways to assign elements i to
+     * n-1 given that the largest partition number among elements 0 to i-1 is m.
+     * Only the entries reachable from a valid prefix are filled.
+     *
+     * @param nElements the number of elements to consider in partitioning
+     * @return the table of completions
+     * @throws ArithmeticException if the number of partitions exceeds the
+     * range of a long
+     */
+    public static long[][] restrictedGrowthTable(int nElements) {
+        long[][] table = new long[nElements + 1][];
+        table[0] = new long[]{1};
+        if (nElements == 0) {
+            return table;
+        }
+        table[nElements] = new long[nElements];
+        for (int m = 0; m < nElements; m++) {
+            table[nElements][m] = 1;
+        }
+        for (int i = nElements - 1; i >= 1; i--) {
+            table[i] = new long[i];
+            for (int m = 0; m < i; m++) {
+                table[i][m] = Math.addExact(Math.multiplyExact(m + 1, table[i + 1][m]), table[i + 1][m + 1]);
+            }
+        }
+        table[0][0] = table[1][0];
+        return table;
+    }
+
+    /**
+     * Computes the lexicographic rank of a restricted growth string
+     *
+     * @param partition the restricted growth string
+     * @return the rank of the partition
+     */
+    public static long rankRestrictedGrowth(int[] partition) {
+        return rankRestrictedGrowth(partition, restrictedGrowthTable(partition.length));
+    }
+
+    /**
+     * Computes the lexicographic rank of a restricted growth string
+     *
+     * @param partition the restricted growth string
+     * @param table the table created by
+     * {@link #restrictedGrowthTable(int)} for the length of the partition
+     * @return the rank of the partition
+     */
+    public static long rankRestrictedGrowth(int[] partition, long[][] table) {
+        int n = partition.length;
+        if (n == 0) {
+            return 0;
+        }
+        if (partition[0] != 0) {
+            throw new IllegalArgumentException("Array is not a restricted growth string");
+        }
+        long rank = 0;
+        int max = 0;
+        for (int i = 1; i < n; i++) {
+            int value = partition[i];
+            if (value < 0 || value > max + 1) {
+                throw new IllegalArgumentException("Array is not a restricted growth string");
+            }
+            rank += value * table[i + 1][max];
+            max = Math.max(max, value);
+        }
+        return rank;
+    }
+
+    /**
+     * Computes the restricted growth string with the given lexicographic rank
+     *
+     * @param rank the rank of the partition
+     * @param out the array to store the restricted growth string. Its length
+     * is the number of elements to consider in partitioning
+     */
+    public static void unrankRestrictedGrowth(long rank, int[] out) {
+        unrankRestrictedGrowth(rank, restrictedGrowthTable(out.length), out);
+    }
+
+    /**
+     * Computes the restricted growth string with the given lexicographic rank
+     *
+     * @param rank the rank of the partition
+     * @param table the table created by
+     * {@link #restrictedGrowthTable(int)} for the length of the partition
+     * @param out the array to store the restricted growth string. Its length
+     * is the number of elements to consider in partitioning
+     */
+    public static void unrankRestrictedGrowth(long rank, long[][] table, int[] out) {
+        int n = out.length;
+        if (rank < 0 || rank >= table[0][0]) {
+            throw new IllegalArgumentException("Rank exceeds the number of partitions");
+        }
+        if (n == 0) {
+            return;
+        }
+        out[0] = 0;
+        int max = 0;
+        for (int i = 1; i < n; i++) {
+            long count = table[i + 1][max];
+            long existing = (max + 1) * count;
+            if (rank < existing) {
+                out[i] = (int) (rank / count);
+                rank %= count;
+            } else {
+                out[i] = max + 1;
+                rank -= existing;
+                max++;
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.enumeration;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily iterates through all ordered partitions of n elements as restricted
+ * growth strings in lexicographic order, which is the same order used by
+ * {@link FullFactorial#ffOrderedPartitioning(int)}. Each integer value
+ * indicates the partition number an element belongs to. The first element
+ * always belongs to partition 0 and each element belongs to a partition number
+ * at most one greater than the largest partition number of the elements before
+ * it. Only the current partition is held in memory.
+ *
+ * @author nozomihitomi
+ */
+public class RestrictedGrowthIterator implements Iterator<int[]> {
+
+    /**
+     * The current partition
+     */
+    private final int[] current;
+
+    /**
+     * The largest partition number among the first i+1 elements of the current
+     * partition
+     */
+    private final int[] prefixMax;
+
+    /**
+     * Flag to return the same buffer on each call to next()
+     */
+    private final boolean reuse;
+
+    /**
+     * Flag for if next() has been called at least once
+     */
+    private boolean started;
+
+    /**
+     * Creates an iterator over all ordered partitions
+     *
+     * @param nElements the number of elements to consider in partitioning
+     * @param reuse if true, next() returns the same array, overwritten on each
+     * call. Otherwise a new array is returned on each call.
+     */
+    public RestrictedGrowthIterator(int nElements, boolean reuse) {
+        if (nElements < 0) {
+            throw new IllegalArgumentException("The number of elements must be non-negative");
+        }
+        this.current = new int[nElements];
+        this.prefixMax = new int[nElements];
+        this.reuse = reuse;
+        this.started = false;
+    }
+
+    @Override
+    public boolean hasNext() {
+        //the last partition puts every element in its own partition
+        int n = current.length;
+        return !started || (n > 0 && current[n - 1] != n - 1);
+    }
+
+    @Override
+    public int[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (started) {
+            advance();
+        } else {
+            started = true;
+        }
+        return reuse ? current : current.clone();
+    }
+
+    /**
+     * Moves to the lexicographic successor of the current partition
+     */
+    private void advance() {
+        //find the last element that can move to a greater partition number
+        int i = current.length - 1;
+        while (current[i] > prefixMax[i - 1]) {
+            i--;
+        }
+        current[i]++;
+        prefixMax[i] = Math.max(prefixMax[i - 1], current[i]);
+        for (int j = i + 1; j < current.length; j++) {
+            current[j] = 0;
+            prefixMax[j] = prefixMax[i];
+        }
+    }
+}
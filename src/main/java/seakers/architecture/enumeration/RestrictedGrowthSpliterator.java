@@ -0,0 +1,80 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.enumeration;
+
+/**
+ * Splittable enumeration of ordered partitions, represented as restricted
+ * growth strings, over a range of lexicographic ranks.
+ *
+ * @author nozomihitomi
+ */
+public class RestrictedGrowthSpliterator extends RankSpliterator {
+
+    /**
+     * The table of completions used to unrank partitions. Shared between
+     * splits
+     */
+    private final long[][] table;
+
+    /**
+     * Creates a spliterator over all partitions
+     *
+     * @param nElements the number of elements to consider in partitioning
+     * @param reuse if true, the same array is passed for every partition
+     */
+    public RestrictedGrowthSpliterator(int nElements, boolean reuse) {
+        this(Ranking.restrictedGrowthTable(nElements), 0, FullFactorial.countOrderedPartitioning(nElements), reuse);
+    }
+
+    /**
+     * Creates a spliterator over partitions with ranks in [origin, fence)
+     *
+     * @param nElements the number of elements to consider in partitioning
+     * @param origin the rank of the first partition, inclusive
+     * @param fence the rank of the last partition, exclusive
+     * @param reuse if true, the same array is passed for every partition
+     */
+    public RestrictedGrowthSpliterator(int nElements, long origin, long fence, boolean reuse) {
+        this(Ranking.restrictedGrowthTable(nElements), origin, fence, reuse);
+    }
+
+    private RestrictedGrowthSpliterator(long[][] table, long origin, long fence, boolean reuse) {
+        super(table.length - 1, origin, fence, reuse);
+        if (fence > table[0][0]) {
+            throw new IllegalArgumentException("Rank exceeds the number of partitions");
+        }
+        this.table = table;
+    }
+
+    @Override
+    protected void unrank(long rank, int[] out) {
+        Ranking.unrankRestrictedGrowth(rank, table, out);
+    }
+
+    @Override
+    protected void successor(int[] design) {
+        //find the last element that is not the first of its partition since
+        //it can move to a greater partition number
+        int pivot = 0;
+        int max = 0;
+        for (int j = 1; j < design.length; j++) {
+            if (design[j] <= max) {
+                pivot = j;
+            } else {
+                max = design[j];
+            }
+        }
+        design[pivot]++;
+        for (int j = pivot + 1; j < design.length; j++) {
+            design[j] = 0;
+        }
+    }
+
+    @Override
+    protected RankSpliterator create(long origin, long fence, boolean reuse) {
+        return new RestrictedGrowthSpliterator(table, origin, fence, reuse);
+    }
+}
@@ -0,0 +1,833 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.enumeration;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import seakers.architecture.Architecture;
+import seakers.architecture.CompactArchitecture;
+import seakers.architecture.io.ResultFormat;
+import seakers.architecture.io.ResultIO;
+import seakers.architecture.problem.SystemArchitectureProblem;
+import seakers.architecture.util.NDTreeArchive;
+
+/**
+ * Splits the composite ranks of a design space (see {@link DesignSpace}) into
+ * leases of contiguous ranks and hands them out to {@link ShardWorker}s that
+ * connect over TCP sockets, possibly from other JVMs or machines. Each worker
+ * runs an {@link ExhaustiveSearch} over its lease and returns the partial
+ * front, which is merged into the front of the coordinator as it arrives.
+ *
+ * Workers renew their leases while they evaluate them. A lease that is not
+ * renewed before it expires, or whose worker disconnects, is handed out
+ * again. A range is completed by the first result that returns it, so late
+ * results of expired leases are ignored. With a checkpoint file, the completed
+ * leases and the merged front are saved periodically and when the coordinator
+ * is closed, and a coordinator started with an existing checkpoint only hands
+ * out the leases that were not completed.
+ *
+ * The protocol is a sequence of typed binary messages. Partial fronts are sent
+ * as records of the {@link ResultFormat} of the problem. Workers are not
+ * authenticated, so the coordinator listens on the loopback address unless
+ * another address is given to {@link #start(InetAddress, int)} for workers on
+ * other hosts of a trusted network.
+ *
+ * @author nozomihitomi
+ */
+public class ShardCoordinator implements Closeable {
+
+    /**
+     * Identifies the protocol in the first message of a worker
+     */
+    static final int MAGIC = 0x53484152;
+
+    /**
+     * Worker to coordinator: identifies the worker and its design space
+     */
+    static final byte HELLO = 1;
+
+    /**
+     * Worker to coordinator: asks for a lease
+     */
+    static final byte REQUEST = 2;
+
+    /**
+     * Worker to coordinator: extends a lease
+     */
+    static final byte RENEW = 3;
+
+    /**
+     * Worker to coordinator: returns the front of a lease
+     */
+    static final byte RESULT = 4;
+
+    /**
+     * Coordinator to worker: the worker is accepted
+     */
+    static final byte ACCEPT = 10;
+
+    /**
+     * Coordinator to worker: the worker is rejected, followed by the reason
+     */
+    static final byte REJECT = 11;
+
+    /**
+     * Coordinator to worker: a lease
+     */
+    static final byte LEASE = 12;
+
+    /**
+     * Coordinator to worker: no lease is available yet, ask again later
+     */
+    static final byte WAIT = 13;
+
+    /**
+     * Coordinator to worker: every lease is completed
+     */
+    static final byte DONE = 14;
+
+    /**
+     * A range of ranks handed out to a worker
+     */
+    private static final class Lease {
+
+        private final long id;
+
+        private final int index;
+
+        private final Connection owner;
+
+        private long deadline;
+
+        private Lease(long id, int index, Connection owner, long deadline) {
+            this.id = id;
+            this.index = index;
+            this.owner = owner;
+            this.deadline = deadline;
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(ShardCoordinator.class.getName());
+
+    /**
+     * An architecture of the problem. Gives the layout of the partial fronts
+     */
+    private final Architecture prototype;
+
+    /**
+     * The format of the records of the partial fronts
+     */
+    private final ResultFormat format;
+
+    /**
+     * The header of the format, which workers must match
+     */
+    private final byte[] header;
+
+    /**
+     * The number of designs in the design space
+     */
+    private final long designs;
+
+    /**
+     * The first rank, inclusive
+     */
+    private final long origin;
+
+    /**
+     * The last rank, exclusive
+     */
+    private final long fence;
+
+    /**
+     * The number of ranks in a lease
+     */
+    private final long leaseSize;
+
+    /**
+     * The number of leases
+     */
+    private final int nLeases;
+
+    /**
+     * The merged front
+     */
+    private final NDTreeArchive front;
+
+    /**
+     * The completed leases
+     */
+    private final BitSet done;
+
+    /**
+     * The number of completed leases
+     */
+    private int nDone;
+
+    /**
+     * The leases handed out and not completed, by index
+     */
+    private final Map<Integer, Lease> active;
+
+    /**
+     * The leases that expired and must be handed out again
+     */
+    private final ArrayDeque<Integer> expired;
+
+    /**
+     * The index of the next lease that was never handed out
+     */
+    private int nextIndex;
+
+    private long nextLeaseId;
+
+    /**
+     * The number of designs in the completed leases
+     */
+    private long completed;
+
+    private long leaseTimeoutMillis;
+
+    private Path checkpoint;
+
+    private long checkpointNanos;
+
+    private long lastCheckpoint;
+
+    private ServerSocket server;
+
+    private final Set<Connection> connections;
+
+    private boolean closed;
+
+    /**
+     * Creates a coordinator for every design of the design space spanned by
+     * the decisions of the problem
+     *
+     * @param problem the problem. Only used to describe the design space and
+     * the partial fronts. Architectures are never evaluated by the
+     * coordinator
+     * @param leaseSize the number of ranks in a lease
+     */
+    public ShardCoordinator(SystemArchitectureProblem problem, long leaseSize) {
+        this(problem, leaseSize, 0, -1, null);
+    }
+
+    /**
+     * Creates a coordinator
+     *
+     * @param problem the problem. Only used to describe the design space and
+     * the partial fronts. Architectures are never evaluated by the
+     * coordinator
+     * @param leaseSize the number of ranks in a lease
+     * @param origin the rank of the first design, inclusive
+     * @param fence the rank of the last design, exclusive. Negative for the
+     * number of designs in the design space
+     * @param archive the archive that merges the partial fronts. Null for an
+     * unbounded archive that compares architectures by their objectives
+     */
+    public ShardCoordinator(SystemArchitectureProblem problem, long leaseSize, long origin, long fence, NDTreeArchive archive) {
+        if (leaseSize <= 0) {
+            throw new IllegalArgumentException("Lease size must be positive");
+        }
+        if (!(problem.newSolution() instanceof Architecture)) {
+            throw new IllegalArgumentException(String.format("Problem %s does not create architectures", problem.getName()));
+        }
+        this.prototype = (Architecture) problem.newSolution();
+        this.format = new ResultFormat(prototype.getLayout(), problem.getNumberOfObjectives(), problem.getNumberOfConstraints());
+        this.header = format.getHeader();
+        this.designs = new DesignSpace(problem.getDecisions()).getNumberOfDesigns();
+        if (fence < 0) {
+            fence = designs;
+        }
+        if (origin < 0 || origin > fence || fence > designs) {
+            throw new IllegalArgumentException(String.format("Invalid rank range [%d, %d) for %d designs", origin, fence, designs));
+        }
+        long leases = (fence - origin + leaseSize - 1) / leaseSize;
+        if (leases > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(String.format("Lease size %d splits [%d, %d) into too many leases", leaseSize, origin, fence));
+        }
+        this.origin = origin;
+        this.fence = fence;
+        this.leaseSize = leaseSize;
+        this.nLeases = (int) leases;
+        this.front = archive != null ? archive : new NDTreeArchive(problem.getNumberOfObjectives());
+        this.done = new BitSet(nLeases);
+        this.active = new HashMap<>();
+        this.expired = new ArrayDeque<>();
+        this.connections = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        this.leaseTimeoutMillis = TimeUnit.MINUTES.toMillis(5);
+        this.checkpointNanos = TimeUnit.MINUTES.toNanos(10);
+    }
+
+    /**
+     * Sets the time a worker has to renew or complete a lease before it is
+     * handed out again
+     *
+     * @param timeout the lease timeout
+     * @param unit the unit of the timeout
+     */
+    public synchronized void setLeaseTimeout(long timeout, TimeUnit unit) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("Lease timeout must be positive");
+        }
+        this.leaseTimeoutMillis = unit.toMillis(timeout);
+    }
+
+    /**
+     * Sets the checkpoint file. Must be called before {@link #start(int)}. The
+     * merged front is saved next to it in a result file with the extension
+     * ".arch".
+     *
+     * @param checkpoint the checkpoint file. Null to not checkpoint
+     * @param interval the time between checkpoints
+     * @param unit the unit of the interval
+     */
+    public synchronized void setCheckpoint(Path checkpoint, long interval, TimeUnit unit) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive");
+        }
+        this.checkpoint = checkpoint;
+        this.checkpointNanos = unit.toNanos(interval);
+    }
+
+    /**
+     * Resumes from the checkpoint if it exists and starts accepting workers on
+     * the loopback address
+     *
+     * @param port the port to listen on. 0 for any free port
+     * @throws IOException if the checkpoint could not be read or the port
+     * could not be opened
+     */
+    public void start(int port) throws IOException {
+        start(InetAddress.getLoopbackAddress(), port);
+    }
+
+    /**
+     * Resumes from the checkpoint if it exists and starts accepting workers
+     *
+     * @param address the address to listen on. Null for every address of
+     * this host
+     * @param port the port to listen on. 0 for any free port
+     * @throws IOException if the checkpoint could not be read or the port
+     * could not be opened
+     */
+    public synchronized void start(InetAddress address, int port) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Coordinator is already started");
+        }
+        if (checkpoint != null && Files.exists(checkpoint)) {
+            resume();
+        }
+        lastCheckpoint = System.nanoTime();
+        server = new ServerSocket(port, 0, address);
+        Thread acceptor = new Thread(this::accept, "shard-coordinator-" + server.getLocalPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+        LOGGER.log(Level.INFO, String.format("Coordinating %d leases of %d designs on %s",
+                nLeases - nDone, leaseSize, server.getLocalSocketAddress()));
+    }
+
+    /**
+     * Gets the port the coordinator listens on
+     *
+     * @return the port the coordinator listens on
+     */
+    public synchronized int getPort() {
+        if (server == null) {
+            throw new IllegalStateException("Coordinator is not started");
+        }
+        return server.getLocalPort();
+    }
+
+    /**
+     * Waits until every lease is completed
+     *
+     * @return the merged front
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized NDTreeArchive awaitCompletion() throws InterruptedException {
+        while (nDone < nLeases) {
+            wait();
+        }
+        return front;
+    }
+
+    /**
+     * Waits until every lease is completed or the timeout elapses
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return true if every lease is completed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        long end = System.nanoTime() + unit.toNanos(timeout);
+        while (nDone < nLeases) {
+            long remaining = end - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the merged front. Only safe to iterate once every lease is
+     * completed or the coordinator is closed
+     *
+     * @return the merged front
+     */
+    public NDTreeArchive getFront() {
+        return front;
+    }
+
+    /**
+     * Gets the number of designs in the completed leases
+     *
+     * @return the number of designs in the completed leases
+     */
+    public synchronized long getCompletedCount() {
+        return completed;
+    }
+
+    /**
+     * Gets the number of leases currently handed out
+     *
+     * @return the number of leases currently handed out
+     */
+    public synchronized int getActiveLeaseCount() {
+        return active.size();
+    }
+
+    /**
+     * Gets the number of connected workers
+     *
+     * @return the number of connected workers
+     */
+    public int getWorkerCount() {
+        return connections.size();
+    }
+
+    /**
+     * Stops accepting workers, disconnects the connected workers and writes a
+     * final checkpoint
+     *
+     * @throws IOException if the checkpoint could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        ServerSocket socket;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            socket = server;
+        }
+        if (socket != null) {
+            socket.close();
+        }
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        synchronized (this) {
+            if (checkpoint != null) {
+                writeCheckpoint();
+            }
+        }
+    }
+
+    /**
+     * The loop of the thread that accepts workers
+     */
+    private void accept() {
+        while (true) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException ex) {
+                //the server socket was closed
+                return;
+            }
+            Connection connection = new Connection(socket);
+            connections.add(connection);
+            Thread thread = new Thread(connection, "shard-connection-" + socket.getRemoteSocketAddress());
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Hands out a lease, or decides that the worker must wait or stop
+     *
+     * @param owner the connection of the worker
+     * @return the lease, or null if the worker must wait or stop
+     */
+    private synchronized Lease grant(Connection owner) {
+        expire(System.currentTimeMillis());
+        Integer index = null;
+        while (!expired.isEmpty()) {
+            Integer candidate = expired.poll();
+            if (!done.get(candidate) && !active.containsKey(candidate)) {
+                index = candidate;
+                break;
+            }
+        }
+        while (index == null && nextIndex < nLeases) {
+            int candidate = nextIndex++;
+            if (!done.get(candidate)) {
+                index = candidate;
+            }
+        }
+        if (index == null) {
+            return null;
+        }
+        Lease lease = new Lease(nextLeaseId++, index, owner, System.currentTimeMillis() + leaseTimeoutMillis);
+        active.put(index, lease);
+        return lease;
+    }
+
+    /**
+     * Queues the leases whose deadline passed to be handed out again
+     *
+     * @param now the current time in milliseconds
+     */
+    private void expire(long now) {
+        Iterator<Lease> iter = active.values().iterator();
+        while (iter.hasNext()) {
+            Lease lease = iter.next();
+            if (lease.deadline < now) {
+                iter.remove();
+                expired.add(lease.index);
+                LOGGER.log(Level.WARNING, String.format("Lease [%d, %d) of %s expired",
+                        leaseOrigin(lease.index), leaseFence(lease.index), lease.owner.name));
+            }
+        }
+    }
+
+    /**
+     * Extends a lease if it is still held by the worker
+     */
+    private synchronized void renew(Connection owner, long id, int index) {
+        Lease lease = active.get(index);
+        if (lease != null && lease.id == id && lease.owner == owner) {
+            lease.deadline = System.currentTimeMillis() + leaseTimeoutMillis;
+        }
+    }
+
+    /**
+     * Releases the leases of a disconnected worker
+     */
+    private synchronized void release(Connection owner) {
+        Iterator<Lease> iter = active.values().iterator();
+        while (iter.hasNext()) {
+            Lease lease = iter.next();
+            if (lease.owner == owner) {
+                iter.remove();
+                expired.add(lease.index);
+            }
+        }
+    }
+
+    /**
+     * Merges the front of a lease unless the lease was already completed. A
+     * checkpoint that cannot be written is logged and tried again after the
+     * checkpoint interval, so the worker that completed the lease stays
+     * connected.
+     *
+     * @param index the index of the lease
+     * @param architectures the front of the lease
+     * @param owner the connection of the worker
+     */
+    private synchronized void complete(int index, List<Architecture> architectures, Connection owner) {
+        if (done.get(index)) {
+            return;
+        }
+        active.remove(index);
+        done.set(index);
+        nDone++;
+        long size = leaseFence(index) - leaseOrigin(index);
+        completed += size;
+        for (Architecture arch : architectures) {
+            front.add(arch);
+        }
+        LOGGER.log(Level.INFO, String.format("%s completed [%d, %d). %d of %d designs (%.2f%%), %d in the front",
+                owner.name, leaseOrigin(index), leaseFence(index), completed, fence - origin,
+                fence == origin ? 100.0 : 100.0 * completed / (fence - origin), front.size()));
+        long now = System.nanoTime();
+        if (checkpoint != null && (nDone == nLeases || now - lastCheckpoint >= checkpointNanos)) {
+            try {
+                writeCheckpoint();
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, String.format("Could not write checkpoint %s", checkpoint), ex);
+            }
+            lastCheckpoint = now;
+        }
+        if (nDone == nLeases) {
+            notifyAll();
+        }
+    }
+
+    private long leaseOrigin(int index) {
+        return origin + index * leaseSize;
+    }
+
+    private long leaseFence(int index) {
+        return Math.min(fence, origin + (index + 1) * leaseSize);
+    }
+
+    /**
+     * Loads the completed leases and the front saved in the checkpoint
+     */
+    private void resume() throws IOException {
+        Properties properties = ExhaustiveSearch.readProperties(checkpoint);
+        long savedOrigin = Long.parseLong(properties.getProperty("origin"));
+        long savedFence = Long.parseLong(properties.getProperty("fence"));
+        long savedLeaseSize = Long.parseLong(properties.getProperty("leaseSize"));
+        if (savedOrigin != origin || savedFence != fence || savedLeaseSize != leaseSize) {
+            throw new IllegalArgumentException(String.format("Checkpoint %s covers ranks [%d, %d) in leases of %d instead of [%d, %d) in leases of %d",
+                    checkpoint, savedOrigin, savedFence, savedLeaseSize, origin, fence, leaseSize));
+        }
+        BitSet saved = BitSet.valueOf(Base64.getDecoder().decode(properties.getProperty("done")));
+        for (int i = saved.nextSetBit(0); i >= 0 && i < nLeases; i = saved.nextSetBit(i + 1)) {
+            done.set(i);
+            nDone++;
+            completed += leaseFence(i) - leaseOrigin(i);
+        }
+        ExhaustiveSearch.readFront(ExhaustiveSearch.frontPath(checkpoint), prototype, front);
+        LOGGER.log(Level.INFO, String.format("Resuming with %d of %d leases completed and %d architectures in the front",
+                nDone, nLeases, front.size()));
+    }
+
+    /**
+     * Saves the front and then the completed leases. Both files are replaced
+     * atomically.
+     */
+    private void writeCheckpoint() throws IOException {
+        ExhaustiveSearch.writeFront(ExhaustiveSearch.frontPath(checkpoint), front);
+        Properties properties = new Properties();
+        properties.setProperty("origin", Long.toString(origin));
+        properties.setProperty("fence", Long.toString(fence));
+        properties.setProperty("leaseSize", Long.toString(leaseSize));
+        properties.setProperty("done", Base64.getEncoder().encodeToString(done.toByteArray()));
+        ExhaustiveSearch.writeProperties(checkpoint, properties, "Shard coordinator checkpoint");
+    }
+
+    /**
+     * The connection to one worker
+     */
+    private class Connection implements Runnable {
+
+        private final Socket socket;
+
+        private String name;
+
+        /**
+         * The indices of the leases handed out to this worker and not
+         * returned, by lease id. Only used by the thread of the connection
+         */
+        private final Map<Long, Integer> held;
+
+        private Connection(Socket socket) {
+            this.socket = socket;
+            this.name = socket.getRemoteSocketAddress().toString();
+            this.held = new HashMap<>();
+        }
+
+        @Override
+        public void run() {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+                if (!handshake(in, out)) {
+                    return;
+                }
+                boolean compact = prototype instanceof CompactArchitecture;
+                while (true) {
+                    byte type = in.readByte();
+                    switch (type) {
+                        case REQUEST:
+                            Lease lease = grant(this);
+                            if (lease != null) {
+                                held.put(lease.id, lease.index);
+                                out.writeByte(LEASE);
+                                out.writeLong(lease.id);
+                                out.writeInt(lease.index);
+                                out.writeLong(leaseOrigin(lease.index));
+                                out.writeLong(leaseFence(lease.index));
+                                out.writeLong(leaseTimeoutMillis);
+                            } else if (isComplete()) {
+                                out.writeByte(DONE);
+                            } else {
+                                out.writeByte(WAIT);
+                                out.writeLong(Math.min(1000, leaseTimeoutMillis));
+                            }
+                            out.flush();
+                            break;
+                        case RENEW:
+                            long id = in.readLong();
+                            renew(this, id, in.readInt());
+                            break;
+                        case RESULT:
+                            long leaseId = in.readLong();
+                            int index = in.readInt();
+                            int count = in.readInt();
+                            Integer heldIndex = held.remove(leaseId);
+                            if (heldIndex == null || heldIndex != index) {
+                                throw new IOException(String.format("%s returned lease %d which it does not hold", name, index));
+                            }
+                            long size = leaseFence(index) - leaseOrigin(index);
+                            if (count < 0 || count > size || (long) count * format.getRecordSize() > Integer.MAX_VALUE - 8) {
+                                throw new IOException(String.format("%s returned %d architectures for a lease of %d designs", name, count, size));
+                            }
+                            byte[] bytes = new byte[count * format.getRecordSize()];
+                            in.readFully(bytes);
+                            ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ResultFormat.ORDER);
+                            List<Architecture> architectures = new ArrayList<>(count);
+                            for (int i = 0; i < count; i++) {
+                                architectures.add(format.decode(buffer, i * format.getRecordSize(), compact));
+                            }
+                            complete(index, architectures, this);
+                            break;
+                        default:
+                            throw new IOException(String.format("Unexpected message %d from %s", type, name));
+                    }
+                }
+            } catch (EOFException | SocketException ex) {
+                //the worker disconnected
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, String.format("Connection to %s failed", name), ex);
+            } finally {
+                release(this);
+                connections.remove(this);
+                close();
+                LOGGER.log(Level.INFO, String.format("%s disconnected", name));
+            }
+        }
+
+        /**
+         * Checks that the worker speaks the protocol and enumerates the same
+         * design space with the same result format header
+         *
+         * @return true if the worker is accepted
+         */
+        private boolean handshake(DataInputStream in, DataOutputStream out) throws IOException {
+            if (in.readByte() != HELLO || in.readInt() != MAGIC) {
+                throw new IOException(String.format("%s does not speak the shard protocol", name));
+            }
+            String workerName = in.readUTF();
+            long workerDesigns = in.readLong();
+            int headerSize = in.readInt();
+            this.name = workerName;
+            String reason = null;
+            if (workerDesigns != designs) {
+                reason = String.format("Worker has %d designs instead of %d", workerDesigns, designs);
+            } else if (headerSize != header.length) {
+                reason = String.format("Worker result format has a header of %d bytes instead of %d", headerSize, header.length);
+            } else {
+                byte[] workerHeader = new byte[headerSize];
+                in.readFully(workerHeader);
+                if (!Arrays.equals(workerHeader, header)) {
+                    reason = "Worker result format does not have the decisions, objectives and constraints of the coordinator";
+                }
+            }
+            if (reason != null) {
+                out.writeByte(REJECT);
+                out.writeUTF(reason);
+                out.flush();
+                LOGGER.log(Level.WARNING, String.format("Rejected %s. %s", name, reason));
+                return false;
+            }
+            out.writeByte(ACCEPT);
+            out.flush();
+            LOGGER.log(Level.INFO, String.format("%s connected", name));
+            return true;
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                LOGGER.log(Level.FINE, null, ex);
+            }
+        }
+    }
+
+    private synchronized boolean isComplete() {
+        return nDone == nLeases;
+    }
+
+    /**
+     * Runs a coordinator until every lease is completed and saves the merged
+     * front. Arguments: the port, optionally preceded by the address to listen
+     * on and a colon (for instance 0.0.0.0:5000), the name of a class with a
+     * public no-arg
+     * constructor that implements {@code Supplier<SystemArchitectureProblem>},
+     * the lease size, the result file name (see
+     * {@link ResultIO#saveArchitectures(org.moeaframework.core.Population, String, String...)})
+     * and optionally a checkpoint file.
+     *
+     * @param args the command line arguments
+     * @throws Exception if the coordinator failed
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("Usage: ShardCoordinator [address:]<port> <problem factory class> <lease size> <result file> [checkpoint]");
+            System.exit(1);
+        }
+        Supplier<? extends SystemArchitectureProblem> factory = ShardWorker.loadFactory(args[1]);
+        SystemArchitectureProblem problem = factory.get();
+        try (ShardCoordinator coordinator = new ShardCoordinator(problem, Long.parseLong(args[2]))) {
+            if (args.length > 4) {
+                coordinator.setCheckpoint(Paths.get(args[4]), 1, TimeUnit.MINUTES);
+            }
+            int colon = args[0].lastIndexOf(':');
+            if (colon < 0) {
+                coordinator.start(Integer.parseInt(args[0]));
+            } else {
+                coordinator.start(InetAddress.getByName(args[0].substring(0, colon)), Integer.parseInt(args[0].substring(colon + 1)));
+            }
+            NDTreeArchive front = coordinator.awaitCompletion();
+            if (!front.isEmpty()) {
+                ResultIO.saveArchitectures(front.toPopulation(), args[3]);
+            }
+            LOGGER.log(Level.INFO, String.format("Every lease completed with %d architectures in the front", front.size()));
+        } finally {
+            problem.close();
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.enumeration;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.moeaframework.core.Solution;
+import seakers.architecture.Architecture;
+import seakers.architecture.io.ResultFormat;
+import seakers.architecture.problem.SystemArchitectureProblem;
+import seakers.architecture.util.NDTreeArchive;
+
+/**
+ * Pulls leases of composite ranks from a {@link ShardCoordinator}, evaluates
+ * each lease with an {@link ExhaustiveSearch} and returns its front. Leases
+ * are renewed in the background while they are evaluated. The worker stops
+ * when the coordinator reports that every lease is completed or closes the
+ * connection.
+ *
+ * @author nozomihitomi
+ */
+public class ShardWorker {
+
+    private static final Logger LOGGER = Logger.getLogger(ShardWorker.class.getName());
+
+    /**
+     * Creates problem instances for the threads
+     */
+    private final Supplier<? extends SystemArchitectureProblem> problemFactory;
+
+    /**
+     * The number of evaluation threads
+     */
+    private final int parallelism;
+
+    /**
+     * The name of this worker
+     */
+    private String name;
+
+    /**
+     * The number of architectures in a batch of the exhaustive search
+     */
+    private int batchSize;
+
+    /**
+     * The stream to the coordinator. Guarded by itself
+     */
+    private DataOutputStream out;
+
+    /**
+     * The number of leases completed by this worker
+     */
+    private volatile long leases;
+
+    /**
+     * Creates a worker
+     *
+     * @param problemFactory creates a problem instance for each thread. May
+     * return the same instance every time if the problem is thread-safe
+     * @param parallelism the number of evaluation threads
+     */
+    public ShardWorker(Supplier<? extends SystemArchitectureProblem> problemFactory, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.problemFactory = problemFactory;
+        this.parallelism = parallelism;
+        this.name = ManagementFactory.getRuntimeMXBean().getName();
+        this.batchSize = 256;
+    }
+
+    /**
+     * Sets the name reported to the coordinator. Defaults to the process id
+     * and host name
+     *
+     * @param name the name of this worker
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Sets the number of architectures enumerated and evaluated together
+     *
+     * @param batchSize the number of architectures in a batch
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Gets the number of leases completed by this worker
+     *
+     * @return the number of leases completed by this worker
+     */
+    public long getCompletedLeaseCount() {
+        return leases;
+    }
+
+    /**
+     * Connects to a coordinator and evaluates leases until every lease is
+     * completed
+     *
+     * @param host the host of the coordinator
+     * @param port the port of the coordinator
+     * @throws IOException if the connection failed or the coordinator
+     * rejected this worker
+     */
+    public void run(String host, int port) throws IOException {
+        SystemArchitectureProblem template = problemFactory.get();
+        long designs;
+        ResultFormat format;
+        try {
+            Architecture prototype = (Architecture) template.newSolution();
+            designs = new DesignSpace(template.getDecisions()).getNumberOfDesigns();
+            format = new ResultFormat(prototype.getLayout(), template.getNumberOfObjectives(), template.getNumberOfConstraints());
+        } finally {
+            template.close();
+        }
+
+        ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "shard-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        try (Socket socket = new Socket(host, port);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            socket.setTcpNoDelay(true);
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            synchronized (out) {
+                out.writeByte(ShardCoordinator.HELLO);
+                out.writeInt(ShardCoordinator.MAGIC);
+                out.writeUTF(name);
+                out.writeLong(designs);
+                byte[] header = format.getHeader();
+                out.writeInt(header.length);
+                out.write(header);
+                out.flush();
+            }
+            byte reply = in.readByte();
+            if (reply == ShardCoordinator.REJECT) {
+                throw new IOException(String.format("Coordinator rejected %s. %s", name, in.readUTF()));
+            } else if (reply != ShardCoordinator.ACCEPT) {
+                throw new IOException(String.format("Unexpected message %d from the coordinator", reply));
+            }
+
+            while (true) {
+                synchronized (out) {
+                    out.writeByte(ShardCoordinator.REQUEST);
+                    out.flush();
+                }
+                byte type = in.readByte();
+                if (type == ShardCoordinator.DONE) {
+                    LOGGER.log(Level.INFO, String.format("%s completed %d leases", name, leases));
+                    return;
+                } else if (type == ShardCoordinator.WAIT) {
+                    try {
+                        Thread.sleep(in.readLong());
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Shard worker was interrupted");
+                    }
+                } else if (type == ShardCoordinator.LEASE) {
+                    long id = in.readLong();
+                    int index = in.readInt();
+                    long origin = in.readLong();
+                    long fence = in.readLong();
+                    long timeout = in.readLong();
+                    long period = Math.max(1, timeout / 3);
+                    ScheduledFuture<?> renewal = heartbeat.scheduleAtFixedRate(
+                            () -> renew(id, index), period, period, TimeUnit.MILLISECONDS);
+                    NDTreeArchive front;
+                    try {
+                        ExhaustiveSearch search = new ExhaustiveSearch(problemFactory, parallelism);
+                        search.setBatchSize(batchSize);
+                        search.setProgressInterval(0, TimeUnit.SECONDS);
+                        front = search.run(origin, fence);
+                    } finally {
+                        renewal.cancel(false);
+                    }
+                    sendResult(id, index, front, format);
+                    leases++;
+                } else {
+                    throw new IOException(String.format("Unexpected message %d from the coordinator", type));
+                }
+            }
+        } finally {
+            heartbeat.shutdownNow();
+        }
+    }
+
+    /**
+     * Extends a lease. Failures are left to the main loop, which fails on
+     * the next read
+     */
+    private void renew(long id, int index) {
+        try {
+            synchronized (out) {
+                out.writeByte(ShardCoordinator.RENEW);
+                out.writeLong(id);
+                out.writeInt(index);
+                out.flush();
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, "Could not renew lease", ex);
+        }
+    }
+
+    /**
+     * Sends the front of a lease as records of the result format
+     */
+    private void sendResult(long id, int index, NDTreeArchive front, ResultFormat format) throws IOException {
+        int count = front.size();
+        Architecture any = null;
+        for (Solution solution : front) {
+            any = (Architecture) solution;
+            break;
+        }
+        byte[] bytes = new byte[count * format.getRecordSize()];
+        if (any != null) {
+            //the front shares the layout of the problem instances of the search
+            ResultFormat local = new ResultFormat(any.getLayout(), format.getNumberOfObjectives(), format.getNumberOfConstraints());
+            ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ResultFormat.ORDER);
+            int[] words = new int[any.getLayout().getWordOffset(any.getLayout().getNumberOfDecisions())];
+            for (Solution solution : front) {
+                local.encode(solution, buffer, words);
+            }
+        }
+        synchronized (out) {
+            out.writeByte(ShardCoordinator.RESULT);
+            out.writeLong(id);
+            out.writeInt(index);
+            out.writeInt(count);
+            out.write(bytes);
+            out.flush();
+        }
+    }
+
+    /**
+     * Instantiates a problem factory by class name
+     *
+     * @param className the name of a class with a public no-arg constructor
+     * that implements {@code Supplier<SystemArchitectureProblem>}
+     * @return the problem factory
+     */
+    @SuppressWarnings("unchecked")
+    static Supplier<? extends SystemArchitectureProblem> loadFactory(String className) throws ReflectiveOperationException {
+        Class<?> type = Class.forName(className);
+        if (!Supplier.class.isAssignableFrom(type)) {
+            throw new IllegalArgumentException(String.format("%s does not implement Supplier", className));
+        }
+        return (Supplier<? extends SystemArchitectureProblem>) type.getDeclaredConstructor().newInstance();
+    }
+
+    /**
+     * Runs a worker until every lease of the coordinator is completed.
+     * Arguments: the host and port of the coordinator, the name of a class
+     * with a public no-arg constructor that implements
+     * {@code Supplier<SystemArchitectureProblem>} and optionally the number of
+     * evaluation threads, which defaults to the number of processors.
+     *
+     * @param args the command line arguments
+     * @throws Exception if the worker failed
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: ShardWorker <host> <port> <problem factory class> [threads]");
+            System.exit(1);
+        }
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        new ShardWorker(loadFactory(args[2]), threads).run(args[0], Integer.parseInt(args[1]));
+    }
+}
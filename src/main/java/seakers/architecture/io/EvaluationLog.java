@@ -0,0 +1,513 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.moeaframework.core.Population;
+import org.moeaframework.core.Solution;
+import seakers.architecture.Architecture;
+import seakers.architecture.DecisionLayout;
+import seakers.architecture.problem.EvaluationCache;
+import seakers.architecture.util.ArchitectureKey;
+
+/**
+ * An append-only log of evaluated architectures written in the background
+ * during a run. The log is a binary result file (see {@link ResultFormat}),
+ * so a run that crashes keeps every evaluation up to the last synchronization
+ * and the log can be replayed to rebuild a population or an
+ * {@link EvaluationCache} on restart.
+ *
+ * Evaluator threads encode each architecture into one of a fixed number of
+ * preallocated record buffers and hand it to a single writer thread through a
+ * bounded queue, so logging never waits for the disk. The writer drains every
+ * queued record at once, writes them to the file with as few system calls as
+ * possible and forces them to the storage device at most once per
+ * synchronization interval (group commit). If every record buffer is in use,
+ * {@link #offer(Solution)} drops the record and counts it, while
+ * {@link #put(Solution)} waits for a free buffer.
+ *
+ * @author nozomihitomi
+ */
+public class EvaluationLog implements Closeable {
+
+    /**
+     * A preallocated record buffer
+     */
+    private static final class Slot {
+
+        /**
+         * The encoded record
+         */
+        private final ByteBuffer record;
+
+        /**
+         * Scratch space for the genotype of non-compact architectures
+         */
+        private final int[] words;
+
+        private Slot(ResultFormat format) {
+            this.record = format == null ? null : ByteBuffer.allocate(format.getRecordSize()).order(ResultFormat.ORDER);
+            this.words = format == null ? null : format.getLayout().newGenotype();
+        }
+    }
+
+    /**
+     * Queued to wake up the writer thread
+     */
+    private static final Slot WAKE = new Slot(null);
+
+    private final ResultFormat format;
+
+    /**
+     * Written only by the writer thread
+     */
+    private final ResultFileWriter writer;
+
+    /**
+     * Record buffers that are not in use
+     */
+    private final ArrayBlockingQueue<Slot> free;
+
+    /**
+     * Encoded records waiting to be written. Has room for every record buffer
+     * and one wake up
+     */
+    private final ArrayBlockingQueue<Slot> pending;
+
+    /**
+     * Flag for if a wake up is queued
+     */
+    private final AtomicBoolean wakeQueued;
+
+    /**
+     * Guards the order of the queued records, the number of queued records
+     * and the closing of the log
+     */
+    private final Object enqueueLock;
+
+    /**
+     * Guards the synchronization state. Threads waiting for a
+     * synchronization wait on this monitor
+     */
+    private final Object syncLock;
+
+    /**
+     * The maximum time in nanoseconds between writing a record and forcing it
+     * to the storage device
+     */
+    private final long syncIntervalNanos;
+
+    private final Thread thread;
+
+    /**
+     * The number of records queued since the log was opened
+     */
+    private volatile long enqueued;
+
+    /**
+     * The number of records written to the file by the writer thread
+     */
+    private volatile long written;
+
+    /**
+     * The number of records forced to the storage device
+     */
+    private volatile long durable;
+
+    /**
+     * The number of records that must be forced to the storage device as soon
+     * as they are written
+     */
+    private volatile long syncTarget;
+
+    /**
+     * The number of records dropped because the queue was full
+     */
+    private final AtomicLong dropped;
+
+    private volatile boolean closed;
+
+    /**
+     * The exception that stopped the writer thread
+     */
+    private volatile IOException failure;
+
+    /**
+     * Opens a log with room for 4096 queued records that is synchronized at
+     * least once per second. An existing log is appended to.
+     *
+     * @param path the path of the log
+     * @param format the format of the records
+     * @throws IOException if an I/O exception occurred
+     */
+    public EvaluationLog(Path path, ResultFormat format) throws IOException {
+        this(path, format, 4096, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Opens a log. If the file exists and is not empty, its header must match
+     * the given format and records are appended after its last complete
+     * record.
+     *
+     * @param path the path of the log
+     * @param format the format of the records
+     * @param capacity the number of records that can be queued
+     * @param syncInterval the maximum time between writing a record and
+     * forcing it to the storage device
+     * @param unit the unit of the synchronization interval
+     * @throws IOException if an I/O exception occurred
+     */
+    public EvaluationLog(Path path, ResultFormat format, int capacity, long syncInterval, TimeUnit unit) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity of the log must be positive");
+        }
+        this.format = format;
+        if (Files.exists(path) && Files.size(path) > 0) {
+            this.writer = ResultFileWriter.append(path, format);
+        } else {
+            this.writer = new ResultFileWriter(path, format);
+        }
+        this.free = new ArrayBlockingQueue<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            free.add(new Slot(format));
+        }
+        this.pending = new ArrayBlockingQueue<>(capacity + 1);
+        this.wakeQueued = new AtomicBoolean(false);
+        this.enqueueLock = new Object();
+        this.syncLock = new Object();
+        this.syncIntervalNanos = Math.max(1, unit.toNanos(syncInterval));
+        this.dropped = new AtomicLong();
+        this.thread = new Thread(this::run, "EvaluationLog-" + path.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues an evaluated architecture without waiting. The architecture is
+     * encoded immediately, so it can be modified as soon as this method
+     * returns.
+     *
+     * @param solution the evaluated architecture
+     * @return true if the architecture was queued. False if the queue was
+     * full and the record was dropped
+     * @throws IllegalStateException if the log is closed or the writer thread
+     * failed
+     */
+    public boolean offer(Solution solution) {
+        checkOpen();
+        Slot slot = free.poll();
+        if (slot == null) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        enqueue(slot, solution);
+        return true;
+    }
+
+    /**
+     * Queues an evaluated architecture, waiting for room in the queue if
+     * necessary. The architecture is encoded immediately, so it can be
+     * modified as soon as this method returns.
+     *
+     * @param solution the evaluated architecture
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalStateException if the log is closed or the writer thread
+     * stopped, including while waiting
+     */
+    public void put(Solution solution) throws InterruptedException {
+        //a writer that failed never returns the buffers it holds, so the wait
+        //is bounded and the writer is checked again after each timeout
+        Slot slot;
+        do {
+            checkOpen();
+            if (!thread.isAlive()) {
+                throw new IllegalStateException("Evaluation log writer stopped");
+            }
+            slot = free.poll(syncIntervalNanos, TimeUnit.NANOSECONDS);
+        } while (slot == null);
+        enqueue(slot, solution);
+    }
+
+    /**
+     * Encodes an architecture and queues the record
+     *
+     * @param slot a free record buffer
+     * @param solution the architecture
+     */
+    private void enqueue(Slot slot, Solution solution) {
+        slot.record.clear();
+        try {
+            format.encode(solution, slot.record, slot.words);
+        } catch (RuntimeException ex) {
+            free.add(slot);
+            throw ex;
+        }
+        slot.record.flip();
+        synchronized (enqueueLock) {
+            //close sets the flag under this lock, so a record queued here is
+            //always seen by the writer before it stops
+            if (closed) {
+                free.add(slot);
+                throw new IllegalStateException("Evaluation log is closed");
+            }
+            pending.add(slot);
+            enqueued++;
+        }
+    }
+
+    /**
+     * Waits until every record queued before this call is forced to the
+     * storage device. Concurrent calls are satisfied by the same
+     * synchronization.
+     *
+     * @throws IOException if the writer thread failed or the wait was
+     * interrupted
+     */
+    public void sync() throws IOException {
+        long target = enqueued;
+        synchronized (syncLock) {
+            if (syncTarget < target) {
+                syncTarget = target;
+            }
+        }
+        wake();
+        synchronized (syncLock) {
+            while (durable < target && failure == null && thread.isAlive()) {
+                try {
+                    syncLock.wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while synchronizing the evaluation log");
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        if (durable < target) {
+            throw new IOException("Evaluation log is closed");
+        }
+    }
+
+    /**
+     * Writes every queued record, forces the log to the storage device and
+     * stops the writer thread
+     *
+     * @throws IOException if the writer thread failed
+     */
+    @Override
+    public void close() throws IOException {
+        boolean closing;
+        synchronized (enqueueLock) {
+            closing = !closed;
+            closed = true;
+        }
+        if (closing) {
+            wake();
+            boolean interrupted = false;
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Evaluation log is closed");
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Evaluation log failed", failure);
+        }
+    }
+
+    /**
+     * Wakes up the writer thread if it is waiting for records
+     */
+    private void wake() {
+        if (wakeQueued.compareAndSet(false, true)) {
+            pending.add(WAKE);
+        }
+    }
+
+    /**
+     * The loop of the writer thread
+     */
+    private void run() {
+        List<Slot> batch = new ArrayList<>(free.size() + 1);
+        long lastSync = System.nanoTime();
+        try {
+            while (true) {
+                Slot first = pending.poll(syncIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    pending.drainTo(batch);
+                }
+                for (Slot slot : batch) {
+                    if (slot == WAKE) {
+                        wakeQueued.set(false);
+                        continue;
+                    }
+                    writer.write(slot.record);
+                    free.add(slot);
+                    written++;
+                }
+                batch.clear();
+
+                boolean closing = closed;
+                long now = System.nanoTime();
+                if (written > durable && (closing || syncTarget > durable || now - lastSync >= syncIntervalNanos)) {
+                    writer.flush(true);
+                    lastSync = now;
+                    synchronized (syncLock) {
+                        durable = written;
+                        syncLock.notifyAll();
+                    }
+                }
+                if (closing && pending.isEmpty()) {
+                    break;
+                }
+            }
+        } catch (IOException ex) {
+            failure = ex;
+            Logger.getLogger(EvaluationLog.class.getName()).log(Level.SEVERE, null, ex);
+        } catch (InterruptedException ex) {
+            failure = new InterruptedIOException("Evaluation log writer was interrupted");
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException ex) {
+                if (failure == null) {
+                    failure = ex;
+                }
+            }
+            synchronized (syncLock) {
+                syncLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Gets the format of the records
+     *
+     * @return the format of the records
+     */
+    public ResultFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Gets the number of records queued since the log was opened
+     *
+     * @return the number of queued records
+     */
+    public long getQueuedCount() {
+        return enqueued;
+    }
+
+    /**
+     * Gets the number of records forced to the storage device since the log
+     * was opened
+     *
+     * @return the number of durable records
+     */
+    public long getDurableCount() {
+        return durable;
+    }
+
+    /**
+     * Gets the number of records dropped by {@link #offer(Solution)} because
+     * the queue was full
+     *
+     * @return the number of dropped records
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Gets the number of records waiting to be written
+     *
+     * @return the number of records waiting to be written
+     */
+    public int getQueueDepth() {
+        return (int) (enqueued - written);
+    }
+
+    /**
+     * Decodes every complete record of a log in the order it was written
+     *
+     * @param path the path of the log
+     * @param layout the layout of the decisions of the logged architectures
+     * @param compact flag to create compact architectures
+     * @param action called with each architecture
+     * @return the number of records
+     * @throws IOException if an I/O exception occurred
+     */
+    public static long replay(Path path, DecisionLayout layout, boolean compact, Consumer<? super Architecture> action) throws IOException {
+        try (ResultFileReader reader = new ResultFileReader(path, layout)) {
+            for (long i = 0; i < reader.size(); i++) {
+                action.accept(reader.read(i, compact));
+            }
+            return reader.size();
+        }
+    }
+
+    /**
+     * Rebuilds a population from a log
+     *
+     * @param path the path of the log
+     * @param layout the layout of the decisions of the logged architectures
+     * @param compact flag to create compact architectures
+     * @return the logged architectures in the order they were written
+     * @throws IOException if an I/O exception occurred
+     */
+    public static Population readPopulation(Path path, DecisionLayout layout, boolean compact) throws IOException {
+        Population out = new Population();
+        replay(path, layout, compact, out::add);
+        return out;
+    }
+
+    /**
+     * Fills an evaluation cache with the objectives and constraints of every
+     * logged architecture. Keys depend on how the architectures are stored,
+     * so the architectures should be decoded the same way the problem creates
+     * them.
+     *
+     * @param path the path of the log
+     * @param layout the layout of the decisions of the logged architectures
+     * @param compact flag to decode compact architectures
+     * @param cache the cache to fill
+     * @return the number of records
+     * @throws IOException if an I/O exception occurred
+     */
+    public static long fillCache(Path path, DecisionLayout layout, boolean compact, EvaluationCache cache) throws IOException {
+        return replay(path, layout, compact, arch -> cache.put(ArchitectureKey.of(arch), arch));
+    }
+}
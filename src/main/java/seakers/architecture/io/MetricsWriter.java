@@ -0,0 +1,335 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.io;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.moeaframework.algorithm.PeriodicAction;
+import org.moeaframework.analysis.collector.Accumulator;
+import org.moeaframework.analysis.collector.InstrumentedAlgorithm;
+import org.moeaframework.core.Algorithm;
+
+/**
+ * Streams the metrics collected by an {@link InstrumentedAlgorithm} to a CSV
+ * file while the search is running, so long runs can be watched live. Each
+ * snapshot copies the entries added to the {@link Accumulator} since the
+ * previous snapshot into primitive rows, one row per collection, and a
+ * background thread formats the rows into a buffered file without boxing.
+ * The file is flushed whenever the background thread catches up, so it
+ * always ends with complete rows. Snapshots never wait for the background
+ * thread: if it falls more than 1024 rows behind, the rows that do not fit
+ * in the queue are dropped and counted (see {@link #getDroppedRowCount()}).
+ * If the background thread fails, the failure is logged once and the rows of
+ * every later snapshot are dropped and counted, so a full disk does not stop
+ * the search.
+ *
+ * The columns are the numeric keys of the accumulator at the first snapshot
+ * that has any entries, in alphabetical order. Keys with non-numeric values,
+ * such as approximation sets, and keys added later are not written.
+ *
+ * @author nozomihitomi
+ */
+public class MetricsWriter implements Closeable {
+
+    /**
+     * Queued to stop the background thread
+     */
+    private static final double[] END = new double[0];
+
+    /**
+     * The rows waiting to be written
+     */
+    private final ArrayBlockingQueue<double[]> rows;
+
+    private final BufferedWriter writer;
+
+    private final Thread thread;
+
+    /**
+     * The keys of the columns. Null before the first snapshot with entries
+     */
+    private volatile String[] keys;
+
+    /**
+     * Flag for each column if its values are integers
+     */
+    private volatile boolean[] integral;
+
+    /**
+     * The number of collections already copied from the accumulator
+     */
+    private int position;
+
+    /**
+     * The number of rows dropped because the queue was full
+     */
+    private final LongAdder dropped;
+
+    private volatile boolean closed;
+
+    /**
+     * Flag for if snapshots stopped queueing rows because the background
+     * thread failed. Only used by the thread that takes the snapshots
+     */
+    private boolean disabled;
+
+    /**
+     * The exception that stopped the background thread
+     */
+    private volatile IOException failure;
+
+    /**
+     * Creates a metrics file, replacing any existing file
+     *
+     * @param path the path of the file
+     * @throws IOException if an I/O exception occurred
+     */
+    public MetricsWriter(Path path) throws IOException {
+        this.rows = new ArrayBlockingQueue<>(1024);
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+        this.position = 0;
+        this.dropped = new LongAdder();
+        this.thread = new Thread(this::run, "MetricsWriter-" + path.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Wraps an instrumented algorithm so that its metrics are snapshot to
+     * this writer every given number of evaluations. The snapshot happens on
+     * the thread that steps the algorithm.
+     *
+     * @param instrumented the instrumented algorithm
+     * @param frequency the number of evaluations between snapshots
+     * @return the wrapped algorithm
+     */
+    public Algorithm attach(InstrumentedAlgorithm instrumented, int frequency) {
+        return new PeriodicAction(instrumented, frequency, PeriodicAction.FrequencyType.EVALUATIONS) {
+            @Override
+            public void doAction() {
+                snapshot(instrumented.getAccumulator());
+            }
+        };
+    }
+
+    /**
+     * Copies the entries added to the accumulator since the previous snapshot.
+     * Must be called from the thread that updates the accumulator and must
+     * always be given the same accumulator. Once the background thread has
+     * failed, the entries are counted as dropped rows instead.
+     *
+     * @param accumulator the accumulator of the instrumented algorithm
+     * @throws IllegalStateException if the writer is closed
+     */
+    public void snapshot(Accumulator accumulator) {
+        if (closed) {
+            throw new IllegalStateException("Metrics writer is closed");
+        }
+        if (!disabled && failure != null) {
+            disabled = true;
+            //rows queued while the background thread was stopping
+            discardQueued();
+            Logger.getLogger(MetricsWriter.class.getName()).log(Level.WARNING,
+                    "Metrics writer failed. The rows of later snapshots are dropped", failure);
+        }
+        if (keys == null && !initColumns(accumulator)) {
+            return;
+        }
+        String[] columns = keys;
+        int size = Integer.MAX_VALUE;
+        for (String key : columns) {
+            size = Math.min(size, accumulator.size(key));
+        }
+        if (disabled) {
+            if (position < size) {
+                dropped.add(size - position);
+                position = size;
+            }
+            return;
+        }
+        for (; position < size; position++) {
+            double[] row = new double[columns.length];
+            for (int c = 0; c < columns.length; c++) {
+                row[c] = ((Number) accumulator.get(columns[c], position)).doubleValue();
+            }
+            if (!rows.offer(row)) {
+                if (dropped.sum() == 0) {
+                    Logger.getLogger(MetricsWriter.class.getName()).log(Level.WARNING,
+                            "Metrics writer fell behind. Rows are dropped until it catches up");
+                }
+                dropped.increment();
+            }
+        }
+    }
+
+    /**
+     * Removes the queued rows and counts them as dropped
+     */
+    private void discardQueued() {
+        double[] row;
+        while ((row = rows.poll()) != null) {
+            if (row != END) {
+                dropped.increment();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of rows dropped because the background thread fell
+     * behind or failed
+     *
+     * @return the number of dropped rows
+     */
+    public long getDroppedRowCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Chooses the columns from the numeric keys of the accumulator
+     *
+     * @param accumulator the accumulator
+     * @return true if the accumulator has any numeric entries
+     */
+    private boolean initColumns(Accumulator accumulator) {
+        List<String> numeric = new ArrayList<>();
+        List<Boolean> ints = new ArrayList<>();
+        for (String key : new TreeSet<>(accumulator.keySet())) {
+            if (accumulator.size(key) == 0) {
+                continue;
+            }
+            Serializable value = accumulator.get(key, 0);
+            if (value instanceof Number) {
+                numeric.add(key);
+                ints.add(value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte);
+            }
+        }
+        if (numeric.isEmpty()) {
+            return false;
+        }
+        boolean[] flags = new boolean[ints.size()];
+        for (int i = 0; i < flags.length; i++) {
+            flags[i] = ints.get(i);
+        }
+        this.integral = flags;
+        this.keys = numeric.toArray(new String[numeric.size()]);
+        return true;
+    }
+
+    /**
+     * Writes every queued row and stops the background thread
+     *
+     * @throws IOException if the background thread failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            boolean interrupted = false;
+            while (thread.isAlive()) {
+                try {
+                    if (rows.offer(END, 100, TimeUnit.MILLISECONDS)) {
+                        break;
+                    }
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * The loop of the background thread
+     */
+    private void run() {
+        StringBuilder line = new StringBuilder(256);
+        char[] chars = new char[256];
+        boolean header = false;
+        try {
+            while (true) {
+                double[] row = rows.poll();
+                if (row == null) {
+                    //caught up with the search
+                    writer.flush();
+                    row = rows.take();
+                }
+                if (row == END) {
+                    break;
+                }
+                String[] columns = keys;
+                boolean[] ints = integral;
+                line.setLength(0);
+                if (!header) {
+                    for (int c = 0; c < columns.length; c++) {
+                        if (c > 0) {
+                            line.append(',');
+                        }
+                        line.append(columns[c]);
+                    }
+                    line.append('\n');
+                    header = true;
+                }
+                for (int c = 0; c < row.length; c++) {
+                    if (c > 0) {
+                        line.append(',');
+                    }
+                    if (ints[c]) {
+                        line.append((long) row[c]);
+                    } else {
+                        line.append(row[c]);
+                    }
+                }
+                line.append('\n');
+                if (chars.length < line.length()) {
+                    chars = new char[line.capacity()];
+                }
+                line.getChars(0, line.length(), chars, 0);
+                writer.write(chars, 0, line.length());
+            }
+        } catch (IOException ex) {
+            failure = ex;
+            Logger.getLogger(MetricsWriter.class.getName()).log(Level.SEVERE, null, ex);
+        } catch (InterruptedException ex) {
+            failure = new InterruptedIOException("Metrics writer was interrupted");
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException ex) {
+                if (failure == null) {
+                    failure = ex;
+                }
+            }
+            //release the rows that will never be written
+            discardQueued();
+        }
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.DoubleStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import org.moeaframework.core.Population;
+import seakers.architecture.Architecture;
+import seakers.architecture.DecisionLayout;
+
+/**
+ * Reads a binary result file (see {@link ResultFormat}) through read-only
+ * memory maps. The records are mapped in chunks of whole records, so files
+ * larger than 2GB can be read and the operating system only loads the pages
+ * that are accessed. The records present when the file is opened are
+ * visible. Reads do not change the state of the reader, so records can be
+ * read from several threads.
+ *
+ * Nothing is decoded up front. Objectives, constraints and attributes are
+ * read in place through {@link Column} views, and architectures are only
+ * decoded when a record is requested by index. Scans over ranges of records
+ * can be split across threads with parallel {@link #indices(long, long)}
+ * streams.
+ *
+ * @author nozomihitomi
+ */
+public class ResultFileReader implements Closeable {
+
+    private final ResultFormat format;
+
+    private final FileChannel channel;
+
+    /**
+     * The mapped records. Each chunk holds recordsPerChunk records except the
+     * last one
+     */
+    private final MappedByteBuffer[] chunks;
+
+    /**
+     * The number of records in each chunk
+     */
+    private final int recordsPerChunk;
+
+    /**
+     * The number of records in the file
+     */
+    private final long size;
+
+    /**
+     * Opens a result file without a decision layout. The objectives,
+     * constraints and attributes can be read but the architectures cannot be
+     * decoded.
+     *
+     * @param path the path of the file
+     * @throws IOException if an I/O exception occurred
+     */
+    public ResultFileReader(Path path) throws IOException {
+        this(path, null);
+    }
+
+    /**
+     * Opens a result file and maps its records
+     *
+     * @param path the path of the file
+     * @param layout the layout of the decisions of the stored architectures.
+     * May be null if the architectures are not decoded
+     * @throws IOException if an I/O exception occurred
+     * @throws IllegalArgumentException if the file does not describe the
+     * given layout
+     */
+    public ResultFileReader(Path path, DecisionLayout layout) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            this.format = ResultFormat.readHeader(channel, layout);
+            this.size = format.getNumberOfRecords(channel.size());
+            this.recordsPerChunk = Integer.MAX_VALUE / format.getRecordSize();
+            int nChunks = (int) ((size + recordsPerChunk - 1) / recordsPerChunk);
+            this.chunks = new MappedByteBuffer[nChunks];
+            for (int i = 0; i < nChunks; i++) {
+                long first = (long) i * recordsPerChunk;
+                long records = Math.min(recordsPerChunk, size - first);
+                long position = format.getHeaderSize() + first * format.getRecordSize();
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, records * format.getRecordSize());
+                chunks[i].order(ResultFormat.ORDER);
+            }
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Gets the format of the records
+     *
+     * @return the format of the records
+     */
+    public ResultFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Gets the number of records in the file
+     *
+     * @return the number of records in the file
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Gets the mapped chunk that holds a record
+     *
+     * @param index the index of the record
+     * @return the chunk that holds the record
+     */
+    protected ByteBuffer chunkOf(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("Record %d is out of bounds for %d records", index, size));
+        }
+        return chunks[(int) (index / recordsPerChunk)];
+    }
+
+    /**
+     * Gets the byte offset of a record within its chunk
+     *
+     * @param index the index of the record
+     * @return the byte offset of the record within its chunk
+     */
+    protected int offsetOf(long index) {
+        return (int) (index % recordsPerChunk) * format.getRecordSize();
+    }
+
+    /**
+     * Decodes one record
+     *
+     * @param index the index of the record
+     * @param compact flag to create a compact architecture
+     * @return the architecture in the record
+     */
+    public Architecture read(long index, boolean compact) {
+        return format.decode(chunkOf(index), offsetOf(index), compact);
+    }
+
+    /**
+     * Reads one objective of a record without decoding the architecture
+     *
+     * @param index the index of the record
+     * @param objective the index of the objective
+     * @return the value of the objective
+     */
+    public double getObjective(long index, int objective) {
+        return chunkOf(index).getDouble(offsetOf(index) + format.getObjectiveOffset(objective));
+    }
+
+    /**
+     * Decodes the records with the given indices
+     *
+     * @param indices the indices of the records
+     * @param compact flag to create compact architectures
+     * @return a population with the architectures in the order of the indices
+     */
+    public Population read(long[] indices, boolean compact) {
+        Population out = new Population();
+        for (long index : indices) {
+            out.add(read(index, compact));
+        }
+        return out;
+    }
+
+    /**
+     * Gets a view of the values of an objective of every record
+     *
+     * @param objective the index of the objective
+     * @return a view of the objective
+     */
+    public Column getObjectiveColumn(int objective) {
+        if (objective < 0 || objective >= format.getNumberOfObjectives()) {
+            throw new IllegalArgumentException(String.format("Objective %d is out of bounds for %d objectives", objective, format.getNumberOfObjectives()));
+        }
+        return new Column(format.getObjectiveOffset(objective));
+    }
+
+    /**
+     * Gets a view of the values of a constraint of every record
+     *
+     * @param constraint the index of the constraint
+     * @return a view of the constraint
+     */
+    public Column getConstraintColumn(int constraint) {
+        if (constraint < 0 || constraint >= format.getNumberOfConstraints()) {
+            throw new IllegalArgumentException(String.format("Constraint %d is out of bounds for %d constraints", constraint, format.getNumberOfConstraints()));
+        }
+        return new Column(format.getConstraintOffset(constraint));
+    }
+
+    /**
+     * Gets a view of the values of an attribute of every record. Missing
+     * attributes read as NaN.
+     *
+     * @param name the name of the attribute
+     * @return a view of the attribute
+     */
+    public Column getAttributeColumn(String name) {
+        return new Column(format.getAttributeOffset(name));
+    }
+
+    /**
+     * Gets the indices of every record
+     *
+     * @return a sequential stream of the indices of every record
+     */
+    public LongStream indices() {
+        return LongStream.range(0, size);
+    }
+
+    /**
+     * Gets the indices of a range of records. The stream can be made parallel
+     * to scan the range on several threads.
+     *
+     * @param from the index of the first record, inclusive
+     * @param to the index of the last record, exclusive
+     * @return a sequential stream of the indices
+     */
+    public LongStream indices(long from, long to) {
+        if (from < 0 || from > to || to > size) {
+            throw new IndexOutOfBoundsException(String.format("Invalid record range [%d, %d) for %d records", from, to, size));
+        }
+        return LongStream.range(from, to);
+    }
+
+    /**
+     * Lazily decodes a range of records. Each architecture is decoded when
+     * the stream reaches it.
+     *
+     * @param from the index of the first record, inclusive
+     * @param to the index of the last record, exclusive
+     * @param compact flag to create compact architectures
+     * @return a sequential stream of the architectures
+     */
+    public Stream<Architecture> stream(long from, long to, boolean compact) {
+        return indices(from, to).mapToObj(i -> read(i, compact));
+    }
+
+    /**
+     * Decodes every record into a population
+     *
+     * @param compact flag to create compact architectures
+     * @return a population with the architectures in file order
+     */
+    public Population readAll(boolean compact) {
+        Population out = new Population();
+        for (long i = 0; i < size; i++) {
+            out.add(read(i, compact));
+        }
+        return out;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * A read-only view of one double value of every record. Values are read
+     * from the mapped file on each access and are never copied unless
+     * requested.
+     */
+    public final class Column {
+
+        /**
+         * The byte offset of the value within a record
+         */
+        private final int offset;
+
+        private Column(int offset) {
+            this.offset = offset;
+        }
+
+        /**
+         * Gets the number of values
+         *
+         * @return the number of records
+         */
+        public long size() {
+            return size;
+        }
+
+        /**
+         * Gets the value of a record
+         *
+         * @param index the index of the record
+         * @return the value of the record
+         */
+        public double get(long index) {
+            return chunkOf(index).getDouble(offsetOf(index) + offset);
+        }
+
+        /**
+         * Copies the values of a range of records
+         *
+         * @param from the index of the first record
+         * @param dest the array to copy to
+         * @param destPos the first position in the array
+         * @param length the number of values to copy
+         */
+        public void copyTo(long from, double[] dest, int destPos, int length) {
+            if (length < 0 || from < 0 || from + length > size) {
+                throw new IndexOutOfBoundsException(String.format("Invalid record range [%d, %d) for %d records", from, from + length, size));
+            }
+            int recordSize = format.getRecordSize();
+            long index = from;
+            int pos = destPos;
+            int end = destPos + length;
+            while (pos < end) {
+                ByteBuffer chunk = chunks[(int) (index / recordsPerChunk)];
+                int first = (int) (index % recordsPerChunk);
+                int n = Math.min(end - pos, recordsPerChunk - first);
+                int byteOffset = first * recordSize + offset;
+                for (int i = 0; i < n; i++, byteOffset += recordSize) {
+                    dest[pos + i] = chunk.getDouble(byteOffset);
+                }
+                pos += n;
+                index += n;
+            }
+        }
+
+        /**
+         * Copies every value to an array
+         *
+         * @return the values of every record
+         * @throws IllegalStateException if there are too many records for an
+         * array
+         */
+        public double[] toArray() {
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException(String.format("Cannot copy %d values to an array", size));
+            }
+            double[] out = new double[(int) size];
+            copyTo(0, out, 0, out.length);
+            return out;
+        }
+
+        /**
+         * Gets the values of every record
+         *
+         * @return a sequential stream of the values in record order
+         */
+        public DoubleStream stream() {
+            return indices().mapToDouble(this::get);
+        }
+    }
+}
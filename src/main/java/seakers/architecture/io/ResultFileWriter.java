@@ -0,0 +1,217 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.moeaframework.core.Solution;
+
+/**
+ * Writes architectures to a binary result file (see {@link ResultFormat}).
+ * Records are encoded into a direct buffer and written to a file channel
+ * whenever the buffer is full, so writing does not create any objects per
+ * architecture. The writer is not thread-safe.
+ *
+ * @author nozomihitomi
+ */
+public class ResultFileWriter implements Closeable {
+
+    /**
+     * The default number of bytes buffered before writing to the file
+     */
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private final ResultFormat format;
+
+    private final FileChannel channel;
+
+    /**
+     * The encoded records not yet written to the file
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Scratch space for the genotype of non-compact architectures
+     */
+    private final int[] words;
+
+    /**
+     * The number of records written by this writer
+     */
+    private long count;
+
+    /**
+     * Creates a new result file, replacing any existing file, and writes its
+     * header
+     *
+     * @param path the path of the file
+     * @param format the format of the records
+     * @throws IOException if an I/O exception occurred
+     */
+    public ResultFileWriter(Path path, ResultFormat format) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), format, true);
+    }
+
+    /**
+     * Creates a writer that appends records to a file
+     *
+     * @param channel the channel positioned where records are appended
+     * @param format the format of the records
+     * @param writeHeader flag to write the header before any record
+     * @throws IOException if an I/O exception occurred
+     */
+    protected ResultFileWriter(FileChannel channel, ResultFormat format, boolean writeHeader) throws IOException {
+        this.format = format;
+        this.channel = channel;
+        int records = Math.max(1, DEFAULT_BUFFER_SIZE / format.getRecordSize());
+        this.buffer = ByteBuffer.allocateDirect(records * format.getRecordSize()).order(ResultFormat.ORDER);
+        this.words = format.getLayout().newGenotype();
+        this.count = 0;
+        if (writeHeader) {
+            try {
+                format.writeHeader(channel);
+            } catch (IOException ex) {
+                channel.close();
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Opens an existing result file to append records. The header of the file
+     * must match the given format, and a partially written last record is
+     * overwritten.
+     *
+     * @param path the path of the file
+     * @param format the format of the records
+     * @return a writer positioned after the last complete record
+     * @throws IOException if an I/O exception occurred
+     * @throws IllegalArgumentException if the file was written with a
+     * different format
+     */
+    public static ResultFileWriter append(Path path, ResultFormat format) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ResultFormat stored = ResultFormat.readHeader(channel, format.getLayout());
+            if (stored.getRecordSize() != format.getRecordSize()
+                    || stored.getNumberOfObjectives() != format.getNumberOfObjectives()
+                    || stored.getNumberOfConstraints() != format.getNumberOfConstraints()
+                    || !Arrays.equals(stored.getAttributes(), format.getAttributes())) {
+                throw new IllegalArgumentException("Result file was written with a different format");
+            }
+            long end = stored.getHeaderSize() + stored.getNumberOfRecords(channel.size()) * stored.getRecordSize();
+            channel.truncate(end);
+            channel.position(end);
+            return new ResultFileWriter(channel, stored, false);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Writes one architecture
+     *
+     * @param solution the architecture to write
+     * @throws IOException if an I/O exception occurred
+     */
+    public void write(Solution solution) throws IOException {
+        if (buffer.remaining() < format.getRecordSize()) {
+            drain();
+        }
+        format.encode(solution, buffer, words);
+        count++;
+    }
+
+    /**
+     * Writes one record that was already encoded with the format of this
+     * writer. The remaining bytes of the record are consumed.
+     *
+     * @param record the encoded record, positioned at its first byte
+     * @throws IOException if an I/O exception occurred
+     */
+    public void write(ByteBuffer record) throws IOException {
+        if (record.remaining() != format.getRecordSize()) {
+            throw new IllegalArgumentException(String.format("Expected a record of %d bytes. Found %d", format.getRecordSize(), record.remaining()));
+        }
+        if (buffer.remaining() < format.getRecordSize()) {
+            drain();
+        }
+        buffer.put(record);
+        count++;
+    }
+
+    /**
+     * Writes a collection of architectures
+     *
+     * @param solutions the architectures to write
+     * @throws IOException if an I/O exception occurred
+     */
+    public void writeAll(Iterable<? extends Solution> solutions) throws IOException {
+        for (Solution solution : solutions) {
+            write(solution);
+        }
+    }
+
+    /**
+     * Writes the buffered records to the file
+     *
+     * @throws IOException if an I/O exception occurred
+     */
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes the buffered records to the file and optionally forces them to
+     * the storage device
+     *
+     * @param sync flag to force the records to the storage device
+     * @throws IOException if an I/O exception occurred
+     */
+    public void flush(boolean sync) throws IOException {
+        drain();
+        if (sync) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Gets the format of the records
+     *
+     * @return the format of the records
+     */
+    public ResultFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Gets the number of records written by this writer
+     *
+     * @return the number of records written by this writer
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,518 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.moeaframework.core.Solution;
+import seakers.architecture.Architecture;
+import seakers.architecture.CompactArchitecture;
+import seakers.architecture.DecisionLayout;
+
+/**
+ * The record format of a binary result file. A result file begins with one
+ * header that describes the decision layout, the number of objectives and
+ * constraints and the names of the stored attributes. The header is followed
+ * by fixed-width records, one per architecture, that hold the flat genotype of
+ * the architecture (see {@link DecisionLayout}) followed by its objectives,
+ * constraints and attributes as doubles. All values are little endian, and
+ * the header and the records are padded to a multiple of 8 bytes so that
+ * every double is aligned in a memory-mapped file.
+ *
+ * The number of records is not stored. It is given by the length of the file,
+ * so records can be appended to a file at any time and a partially written
+ * last record is ignored.
+ *
+ * @author nozomihitomi
+ */
+public final class ResultFormat implements Serializable {
+
+    private static final long serialVersionUID = 3650873212294806125L;
+
+    /**
+     * The first four bytes of every result file
+     */
+    public static final int MAGIC = 0x53414843;
+
+    /**
+     * The version of the format written by this class
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The byte order of all values in a result file
+     */
+    public static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /**
+     * The layout of the decisions of the stored architectures
+     */
+    private final DecisionLayout layout;
+
+    private final int numberOfObjectives;
+
+    private final int numberOfConstraints;
+
+    /**
+     * The names of the attributes stored in each record
+     */
+    private final String[] attributes;
+
+    /**
+     * The number of bytes of the header
+     */
+    private final int headerSize;
+
+    /**
+     * The number of bytes of each record
+     */
+    private final int recordSize;
+
+    /**
+     * The number of bytes of the genotype in each record, including padding
+     */
+    private final int genotypeSize;
+
+    /**
+     * Creates the format of the records of architectures with the given
+     * layout
+     *
+     * @param layout the layout of the decisions
+     * @param numberOfObjectives the number of objectives
+     * @param numberOfConstraints the number of constraints
+     * @param attributes the names of the numeric attributes to store. Missing
+     * attributes are stored as NaN
+     */
+    public ResultFormat(DecisionLayout layout, int numberOfObjectives, int numberOfConstraints, String... attributes) {
+        this(layout, layout.getNumberOfWords(), numberOfObjectives, numberOfConstraints, attributes.clone(), headerSizeOf(layout, attributes));
+    }
+
+    /**
+     * Creates the format of the records of a result file
+     *
+     * @param layout the layout of the decisions. Null if the genotypes are
+     * not decoded
+     * @param nWords the number of words of the genotype
+     * @param numberOfObjectives the number of objectives
+     * @param numberOfConstraints the number of constraints
+     * @param attributes the names of the stored attributes
+     * @param headerSize the number of bytes of the header
+     */
+    private ResultFormat(DecisionLayout layout, int nWords, int numberOfObjectives, int numberOfConstraints, String[] attributes, int headerSize) {
+        if (numberOfObjectives < 0 || numberOfConstraints < 0) {
+            throw new IllegalArgumentException("The number of objectives and constraints must be non-negative");
+        }
+        this.layout = layout;
+        this.numberOfObjectives = numberOfObjectives;
+        this.numberOfConstraints = numberOfConstraints;
+        this.attributes = attributes;
+        this.genotypeSize = align(nWords * Integer.BYTES);
+        this.recordSize = genotypeSize + Double.BYTES * (numberOfObjectives + numberOfConstraints + attributes.length);
+        this.headerSize = headerSize;
+    }
+
+    /**
+     * Reads the header of a result file and checks that it describes the
+     * given decision layout. The decisions must have the same tags, patterns
+     * and number of values in the same order. Without a layout, the
+     * objectives, constraints and attributes can still be read but the
+     * architectures cannot be decoded.
+     *
+     * @param channel the channel positioned at the start of the file
+     * @param layout the layout of the decisions of the stored architectures.
+     * May be null
+     * @return the format of the records of the file
+     * @throws IOException if an I/O exception occurred or the file is not a
+     * result file
+     * @throws IllegalArgumentException if the file does not describe the
+     * given layout
+     */
+    public static ResultFormat readHeader(FileChannel channel, DecisionLayout layout) throws IOException {
+        ByteBuffer prefix = ByteBuffer.allocate(3 * Integer.BYTES).order(ORDER);
+        readFully(channel, prefix);
+        prefix.flip();
+        if (prefix.getInt() != MAGIC) {
+            throw new IOException("Not a result file");
+        }
+        int version = prefix.getInt();
+        if (version != VERSION) {
+            throw new IOException(String.format("Unsupported result file version %d", version));
+        }
+        int size = prefix.getInt();
+        if (size < prefix.capacity()) {
+            throw new IOException("Corrupt result file header");
+        }
+        ByteBuffer header = ByteBuffer.allocate(size - prefix.capacity()).order(ORDER);
+        readFully(channel, header);
+        header.flip();
+
+        int nDecisions = header.getInt();
+        if (layout != null && nDecisions != layout.getNumberOfDecisions()) {
+            throw new IllegalArgumentException(String.format("Expected %d decisions. Found %d", layout.getNumberOfDecisions(), nDecisions));
+        }
+        for (int slot = 0; slot < nDecisions; slot++) {
+            String tag = getString(header);
+            String pattern = getString(header);
+            String encoding = getString(header);
+            int cells = header.getInt();
+            if (layout != null && (!tag.equals(layout.getDecision(slot).getTag())
+                    || !pattern.equals(layout.getDecision(slot).getPattern().name())
+                    || !encoding.equals(layout.getEncoding(slot).name())
+                    || cells != layout.getNumberOfCells(slot))) {
+                throw new IllegalArgumentException(String.format("Decision %s in slot %d does not match the stored decision %s", layout.getDecision(slot).getTag(), slot, tag));
+            }
+        }
+        int nWords = header.getInt();
+        if (layout != null && nWords != layout.getNumberOfWords()) {
+            throw new IllegalArgumentException(String.format("Expected %d words. Found %d", layout.getNumberOfWords(), nWords));
+        }
+        int nObj = header.getInt();
+        int nCons = header.getInt();
+        String[] attributes = new String[header.getInt()];
+        for (int i = 0; i < attributes.length; i++) {
+            attributes[i] = getString(header);
+        }
+        return new ResultFormat(layout, nWords, nObj, nCons, attributes, size);
+    }
+
+    /**
+     * Writes the header of a result file, padded to the header size
+     *
+     * @param channel the channel positioned at the start of the file
+     * @throws IOException if an I/O exception occurred
+     */
+    public void writeHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = encodeHeader();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+
+    /**
+     * Gets the header of a result file in this format. Two formats with the
+     * same header describe the same decisions, objectives, constraints and
+     * attributes.
+     *
+     * @return the header, padded to the header size
+     */
+    public byte[] getHeader() {
+        return encodeHeader().array();
+    }
+
+    /**
+     * Computes the number of bytes of the header of a result file
+     *
+     * @param layout the layout of the decisions
+     * @param attributes the names of the stored attributes
+     * @return the number of bytes of the header, including padding
+     */
+    private static int headerSizeOf(DecisionLayout layout, String[] attributes) {
+        int size = 8 * Integer.BYTES;
+        for (int slot = 0; slot < layout.getNumberOfDecisions(); slot++) {
+            size += stringSize(layout.getDecision(slot).getTag());
+            size += stringSize(layout.getDecision(slot).getPattern().name());
+            size += stringSize(layout.getEncoding(slot).name());
+            size += Integer.BYTES;
+        }
+        for (String attribute : attributes) {
+            size += stringSize(attribute);
+        }
+        return align(size);
+    }
+
+    /**
+     * Encodes the header, padded to the header size
+     *
+     * @return the header, ready to be read
+     */
+    private ByteBuffer encodeHeader() {
+        requireLayout();
+        ByteBuffer out = ByteBuffer.allocate(headerSize).order(ORDER);
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putInt(headerSize);
+        out.putInt(layout.getNumberOfDecisions());
+        for (int slot = 0; slot < layout.getNumberOfDecisions(); slot++) {
+            putString(out, layout.getDecision(slot).getTag());
+            putString(out, layout.getDecision(slot).getPattern().name());
+            putString(out, layout.getEncoding(slot).name());
+            out.putInt(layout.getNumberOfCells(slot));
+        }
+        out.putInt(layout.getNumberOfWords());
+        out.putInt(numberOfObjectives);
+        out.putInt(numberOfConstraints);
+        out.putInt(attributes.length);
+        for (String attribute : attributes) {
+            putString(out, attribute);
+        }
+        out.clear();
+        return out;
+    }
+
+    /**
+     * Writes one record at the position of the buffer and advances the
+     * position by the record size. The buffer must use the byte order of
+     * this format.
+     *
+     * @param solution the architecture to write
+     * @param buffer the buffer to write to
+     * @param words a scratch array with one entry per word of the genotype
+     */
+    public void encode(Solution solution, ByteBuffer buffer, int[] words) {
+        Architecture arch = (Architecture) solution;
+        if (arch.getLayout() != layout) {
+            throw new IllegalArgumentException("Architecture does not share the decision layout of the result file");
+        }
+        if (arch.getNumberOfObjectives() != numberOfObjectives || arch.getNumberOfConstraints() != numberOfConstraints) {
+            throw new IllegalArgumentException(String.format("Expected %d objectives and %d constraints. Found %d and %d",
+                    numberOfObjectives, numberOfConstraints, arch.getNumberOfObjectives(), arch.getNumberOfConstraints()));
+        }
+        int start = buffer.position();
+        int[] genotype = genotypeOf(arch, words);
+        for (int i = 0; i < genotype.length; i++) {
+            buffer.putInt(genotype[i]);
+        }
+        buffer.position(start + genotypeSize);
+        for (int i = 0; i < numberOfObjectives; i++) {
+            buffer.putDouble(arch.getObjective(i));
+        }
+        for (int i = 0; i < numberOfConstraints; i++) {
+            buffer.putDouble(arch.getConstraint(i));
+        }
+        for (String attribute : attributes) {
+            Object value = arch.getAttribute(attribute);
+            buffer.putDouble(value instanceof Number ? ((Number) value).doubleValue() : Double.NaN);
+        }
+    }
+
+    /**
+     * Gets the flat genotype of an architecture
+     *
+     * @param arch the architecture
+     * @param words a scratch array to fill if the architecture is not compact
+     * @return the flat genotype of the architecture. The backing array of
+     * compact architectures is returned without copying.
+     */
+    private int[] genotypeOf(Architecture arch, int[] words) {
+        if (arch instanceof CompactArchitecture) {
+            return ((CompactArchitecture) arch).getGenotype().getWords();
+        }
+        for (int slot = 0; slot < layout.getNumberOfDecisions(); slot++) {
+            int n = layout.getNumberOfCells(slot);
+            if (layout.getEncoding(slot) == DecisionLayout.Encoding.INTEGERS) {
+                int start = layout.getWordOffset(slot);
+                for (int cell = 0; cell < n; cell++) {
+                    words[start + cell] = arch.getInt(slot, cell);
+                }
+            } else {
+                Arrays.fill(words, layout.getWordOffset(slot), layout.getWordOffset(slot + 1), 0);
+                for (int cell = 0; cell < n; cell++) {
+                    if (arch.getBit(slot, cell)) {
+                        layout.setBit(words, slot, cell, true);
+                    }
+                }
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Reads the record at an absolute position of a buffer. The position of
+     * the buffer is not changed. The buffer must use the byte order of this
+     * format. Attributes stored as NaN are not set.
+     *
+     * @param buffer the buffer to read from
+     * @param offset the byte offset of the record in the buffer
+     * @param compact flag to create a compact architecture
+     * @return the architecture in the record, without any changes marked
+     */
+    public Architecture decode(ByteBuffer buffer, int offset, boolean compact) {
+        requireLayout();
+        Architecture arch;
+        if (compact) {
+            CompactArchitecture out = new CompactArchitecture(layout, numberOfObjectives, numberOfConstraints);
+            int[] words = out.getGenotype().getWords();
+            for (int i = 0; i < words.length; i++) {
+                words[i] = buffer.getInt(offset + i * Integer.BYTES);
+            }
+            arch = out;
+        } else {
+            arch = new Architecture(layout, numberOfObjectives, numberOfConstraints);
+            for (int slot = 0; slot < layout.getNumberOfDecisions(); slot++) {
+                int start = offset + layout.getWordOffset(slot) * Integer.BYTES;
+                int n = layout.getNumberOfCells(slot);
+                if (layout.getEncoding(slot) == DecisionLayout.Encoding.INTEGERS) {
+                    for (int cell = 0; cell < n; cell++) {
+                        arch.setInt(slot, cell, buffer.getInt(start + cell * Integer.BYTES));
+                    }
+                } else {
+                    for (int cell = 0; cell < n; cell++) {
+                        int word = buffer.getInt(start + (cell >>> 5) * Integer.BYTES);
+                        arch.setBit(slot, cell, (word & (1 << cell)) != 0);
+                    }
+                }
+            }
+        }
+        int position = offset + genotypeSize;
+        for (int i = 0; i < numberOfObjectives; i++, position += Double.BYTES) {
+            arch.setObjective(i, buffer.getDouble(position));
+        }
+        for (int i = 0; i < numberOfConstraints; i++, position += Double.BYTES) {
+            arch.setConstraint(i, buffer.getDouble(position));
+        }
+        for (String attribute : attributes) {
+            double value = buffer.getDouble(position);
+            if (!Double.isNaN(value)) {
+                arch.setAttribute(attribute, value);
+            }
+            position += Double.BYTES;
+        }
+        arch.clearChanges();
+        return arch;
+    }
+
+    /**
+     * Gets the byte offset of an objective within a record
+     *
+     * @param i the index of the objective
+     * @return the byte offset of the objective from the start of the record
+     */
+    public int getObjectiveOffset(int i) {
+        return genotypeSize + i * Double.BYTES;
+    }
+
+    /**
+     * Gets the byte offset of a constraint within a record
+     *
+     * @param i the index of the constraint
+     * @return the byte offset of the constraint from the start of the record
+     */
+    public int getConstraintOffset(int i) {
+        return genotypeSize + (numberOfObjectives + i) * Double.BYTES;
+    }
+
+    /**
+     * Gets the byte offset of an attribute within a record
+     *
+     * @param name the name of the attribute
+     * @return the byte offset of the attribute from the start of the record
+     * @throws IllegalArgumentException if the attribute is not stored
+     */
+    public int getAttributeOffset(String name) {
+        for (int i = 0; i < attributes.length; i++) {
+            if (attributes[i].equals(name)) {
+                return genotypeSize + (numberOfObjectives + numberOfConstraints + i) * Double.BYTES;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Attribute %s is not stored in the result file", name));
+    }
+
+    /**
+     * Gets the layout of the decisions of the stored architectures
+     *
+     * @return the layout of the decisions. Null if the file was opened
+     * without a layout
+     */
+    public DecisionLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Checks that this format can encode and decode genotypes
+     *
+     * @throws IllegalStateException if this format has no decision layout
+     */
+    private void requireLayout() {
+        if (layout == null) {
+            throw new IllegalStateException("The result file was opened without a decision layout");
+        }
+    }
+
+    public int getNumberOfObjectives() {
+        return numberOfObjectives;
+    }
+
+    public int getNumberOfConstraints() {
+        return numberOfConstraints;
+    }
+
+    /**
+     * Gets the names of the attributes stored in each record
+     *
+     * @return a copy of the names of the stored attributes
+     */
+    public String[] getAttributes() {
+        return attributes.clone();
+    }
+
+    /**
+     * Gets the number of bytes of the header
+     *
+     * @return the byte offset of the first record
+     */
+    public int getHeaderSize() {
+        return headerSize;
+    }
+
+    /**
+     * Gets the number of bytes of each record
+     *
+     * @return the number of bytes of each record
+     */
+    public int getRecordSize() {
+        return recordSize;
+    }
+
+    /**
+     * Gets the number of complete records in a file of a given size
+     *
+     * @param fileSize the size of the file in bytes
+     * @return the number of complete records
+     */
+    public long getNumberOfRecords(long fileSize) {
+        return Math.max(0, (fileSize - headerSize) / recordSize);
+    }
+
+    /**
+     * Rounds a number of bytes up to a multiple of 8
+     *
+     * @param bytes the number of bytes
+     * @return the padded number of bytes
+     */
+    private static int align(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+
+    private static int stringSize(String s) {
+        return Integer.BYTES + s.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void putString(ByteBuffer buffer, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Unexpected end of result file");
+            }
+        }
+    }
+}
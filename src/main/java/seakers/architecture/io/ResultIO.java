@@ -8,10 +8,12 @@ package seakers.architecture.io;
  *
  * @author Marc
  */
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Paths;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.logging.Level;
@@ -20,6 +22,9 @@ import org.moeaframework.analysis.collector.Accumulator;
 import org.moeaframework.analysis.collector.InstrumentedAlgorithm;
 import org.moeaframework.core.Population;
 import org.moeaframework.core.PopulationIO;
+import seakers.architecture.Architecture;
+import seakers.architecture.DecisionLayout;
+import seakers.architecture.util.SearchMetrics;
 
 public class ResultIO implements Serializable {
 
@@ -34,7 +39,8 @@ public class ResultIO implements Serializable {
 
     /**
      * Saves the measured metrics from the instrumenter (e.g. hypervolume,
-     * elapsed time)
+     * elapsed time). To write the metrics while the search is running, use a
+     * {@link MetricsWriter}.
      *
      * @param instAlgorithm
      * @param filename filename including the path
@@ -45,7 +51,7 @@ public class ResultIO implements Serializable {
         File results = new File(filename + ".res");
         System.out.println("Saving metrics");
 
-        try (FileWriter writer = new FileWriter(results)) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(results))) {
             Set<String> keys = accum.keySet();
             Iterator<String> keyIter = keys.iterator();
             while (keyIter.hasNext()) {
@@ -67,6 +73,24 @@ public class ResultIO implements Serializable {
         }
     }
 
+    /**
+     * Saves the measured metrics from the instrumenter in a ".res" file and
+     * the counters, latency histograms and gauges of a registry next to it in
+     * a ".perf" file with one "name,value" line per metric
+     *
+     * @param instAlgorithm
+     * @param metrics the registry of counters, histograms and gauges
+     * @param filename filename including the path
+     */
+    public static void saveSearchMetrics(InstrumentedAlgorithm instAlgorithm, SearchMetrics metrics, String filename) {
+        saveSearchMetrics(instAlgorithm, filename);
+        try {
+            metrics.write(Paths.get(filename + ".perf"));
+        } catch (IOException ex) {
+            Logger.getLogger(ResultIO.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
     /**
      * Saves only the objective values of the solutions in the population
      *
@@ -106,7 +130,10 @@ public class ResultIO implements Serializable {
      * @param pop the solutions to be written in the specified file
      * @param filename the filename including the path to which the solutions
      * are written
+     * @deprecated serialization writes every architecture with its decisions
+     * and variables. Use {@link #saveArchitectures(Population, String, String...)}
      */
+    @Deprecated
     public static void savePopulation(Population pop, String filename) {
         System.out.println("Saving population");
 
@@ -126,9 +153,82 @@ public class ResultIO implements Serializable {
      * are written
      * @return a population containing all solutions in the specified file
      * @throws IOException if an I/O exception occurred
+     * @deprecated use {@link #loadArchitectures(String, DecisionLayout, boolean)}
      */
+    @Deprecated
     public static Population loadPopulation(String filename) throws IOException {
         return PopulationIO.read(new File(filename));
     }
 
+    /**
+     * Saves the architectures in the population to a binary result file (see
+     * {@link ResultFormat}). The decision layout and the number of objectives
+     * and constraints are taken from the first architecture.
+     *
+     * @param pop the architectures to save. Must not be empty
+     * @param filename the filename including the path to which the
+     * architectures are written
+     * @param attributes the names of the numeric attributes to save
+     */
+    public static void saveArchitectures(Population pop, String filename, String... attributes) {
+        if (pop.isEmpty()) {
+            throw new IllegalArgumentException("Cannot infer the decision layout of an empty population");
+        }
+        Architecture first = (Architecture) pop.get(0);
+        saveArchitectures(pop, new ResultFormat(first.getLayout(), first.getNumberOfObjectives(), first.getNumberOfConstraints(), attributes), filename);
+    }
+
+    /**
+     * Saves the architectures in the population to a binary result file (see
+     * {@link ResultFormat}). Files written using this method should be read
+     * using {@link #loadArchitectures(String, DecisionLayout, boolean)} or a
+     * {@link ResultFileReader}.
+     *
+     * @param pop the architectures to save
+     * @param format the format of the records
+     * @param filename the filename including the path to which the
+     * architectures are written
+     */
+    public static void saveArchitectures(Population pop, ResultFormat format, String filename) {
+        System.out.println("Saving architectures");
+
+        try (ResultFileWriter writer = new ResultFileWriter(Paths.get(filename + ".arch"), format)) {
+            writer.writeAll(pop);
+        } catch (IOException ex) {
+            Logger.getLogger(ResultIO.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Loads the architectures in a binary result file. Files read using this
+     * method should only have been created using the
+     * {@code saveArchitectures} method or a {@link ResultFileWriter}.
+     *
+     * @param filename the filename including the path and extension
+     * @param layout the layout of the decisions of the stored architectures
+     * @param compact flag to create compact architectures
+     * @return a population containing all architectures in the specified file
+     * @throws IOException if an I/O exception occurred
+     */
+    public static Population loadArchitectures(String filename, DecisionLayout layout, boolean compact) throws IOException {
+        try (ResultFileReader reader = new ResultFileReader(Paths.get(filename), layout)) {
+            return reader.readAll(compact);
+        }
+    }
+
+    /**
+     * Opens a binary result file for analysis without loading it. The
+     * objectives can be read as columns and architectures are only decoded
+     * on demand. The reader must be closed.
+     *
+     * @param filename the filename including the path and extension
+     * @param layout the layout of the decisions of the stored architectures.
+     * May be null if the architectures are not decoded
+     * @return a reader over the memory-mapped file
+     * @throws IOException if an I/O exception occurred
+     */
+    public static ResultFileReader openArchitectures(String filename, DecisionLayout layout) throws IOException {
+        return new ResultFileReader(Paths.get(filename), layout);
+    }
+
 }
@@ -0,0 +1,56 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.operators;
+
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variation;
+import seakers.architecture.Architecture;
+import seakers.architecture.pattern.DecisionPattern;
+import seakers.architecture.pattern.Partitioning;
+
+/**
+ * Applies a variation operator and then rewrites every partitioning decision
+ * of the offspring as a restricted growth string. Offspring that describe the
+ * same partitions are then stored identically, whatever labels the operator
+ * produced.
+ *
+ * @author nozomihitomi
+ */
+public class CanonicalizingVariation implements Variation {
+
+    /**
+     * The decorated operator
+     */
+    private final Variation variation;
+
+    /**
+     * Creates an operator that canonicalizes the offspring of another operator
+     *
+     * @param variation the operator to decorate
+     */
+    public CanonicalizingVariation(Variation variation) {
+        this.variation = variation;
+    }
+
+    @Override
+    public int getArity() {
+        return variation.getArity();
+    }
+
+    @Override
+    public Solution[] evolve(Solution[] parents) {
+        Solution[] offspring = variation.evolve(parents);
+        for (Solution solution : offspring) {
+            if (solution instanceof Architecture) {
+                Architecture arch = (Architecture) solution;
+                if (arch.getLayout().hasPattern(DecisionPattern.PARTITIONING)) {
+                    Partitioning.canonicalize(arch);
+                }
+            }
+        }
+        return offspring;
+    }
+}
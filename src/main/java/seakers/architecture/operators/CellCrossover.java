@@ -0,0 +1,72 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.operators;
+
+import org.moeaframework.core.PRNG;
+import seakers.architecture.Architecture;
+import seakers.architecture.DecisionLayout;
+import seakers.architecture.pattern.ArchitecturalDecision;
+import seakers.architecture.pattern.DecisionPattern;
+
+/**
+ * Uniform crossover of the cells of a decision. With the given probability,
+ * each cell of the decision is swapped between the two offspring with
+ * probability 0.5. Applies to every pattern except permuting, whose cells are
+ * not independent.
+ *
+ * @author nozomihitomi
+ */
+public class CellCrossover implements DecisionVariation {
+
+    /**
+     * The probability of applying this operator.
+     */
+    private final double probability;
+
+    /**
+     * Constructs a uniform cell crossover operator
+     *
+     * @param probability the probability of applying this operator
+     */
+    public CellCrossover(double probability) {
+        this.probability = probability;
+    }
+
+    @Override
+    public int getArity() {
+        return 2;
+    }
+
+    @Override
+    public boolean appliesTo(ArchitecturalDecision decision) {
+        return decision.getPattern() != DecisionPattern.PERMUTING;
+    }
+
+    @Override
+    public void evolve(Architecture[] offspring, int slot) {
+        if (PRNG.nextDouble() > probability) {
+            return;
+        }
+        Architecture a1 = offspring[0];
+        Architecture a2 = offspring[1];
+        int nCells = a1.getLayout().getNumberOfCells(slot);
+        boolean binary = a1.getLayout().getEncoding(slot) != DecisionLayout.Encoding.INTEGERS;
+        long coins = 0;
+        for (int cell = 0; cell < nCells; cell++) {
+            //draw the coin flips of 64 cells at a time
+            if ((cell & 63) == 0) {
+                coins = PRNG.getRandom().nextLong();
+            }
+            if ((coins & (1L << cell)) != 0) {
+                if (binary) {
+                    a2.setBit(slot, cell, a1.setBit(slot, cell, a2.getBit(slot, cell)));
+                } else {
+                    a2.setInt(slot, cell, a1.setInt(slot, cell, a2.getInt(slot, cell)));
+                }
+            }
+        }
+    }
+}
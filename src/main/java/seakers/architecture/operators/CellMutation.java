@@ -0,0 +1,87 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.operators;
+
+import org.moeaframework.core.PRNG;
+import seakers.architecture.Architecture;
+import seakers.architecture.DecisionLayout;
+import seakers.architecture.pattern.ArchitecturalDecision;
+import seakers.architecture.pattern.DecisionPattern;
+
+/**
+ * Mutates each cell of a decision independently with a given probability.
+ * Only the mutated cells are visited. Binary cells are flipped and integer cells are set to a uniformly random
+ * value within their bounds. Applies to every pattern except permuting, whose
+ * cells are not independent.
+ *
+ * @author nozomihitomi
+ */
+public class CellMutation implements DecisionVariation {
+
+    /**
+     * The probability of mutating each cell
+     */
+    private final double probability;
+
+    /**
+     * Constructs a cell mutation operator
+     *
+     * @param probability the probability of mutating each cell
+     */
+    public CellMutation(double probability) {
+        this.probability = probability;
+    }
+
+    @Override
+    public int getArity() {
+        return 1;
+    }
+
+    @Override
+    public boolean appliesTo(ArchitecturalDecision decision) {
+        return decision.getPattern() != DecisionPattern.PERMUTING;
+    }
+
+    @Override
+    public void evolve(Architecture[] offspring, int slot) {
+        if (probability <= 0.0) {
+            return;
+        }
+        //log of the probability that a cell is not mutated, used to skip straight to the next mutated cell
+        double logComplement = Math.log(1.0 - Math.min(probability, 1.0));
+        for (Architecture arch : offspring) {
+            DecisionLayout layout = arch.getLayout();
+            int nCells = layout.getNumberOfCells(slot);
+            boolean binary = layout.getEncoding(slot) != DecisionLayout.Encoding.INTEGERS;
+            for (int cell = nextCell(-1, logComplement); cell < nCells; cell = nextCell(cell, logComplement)) {
+                if (binary) {
+                    arch.setBit(slot, cell, !arch.getBit(slot, cell));
+                } else {
+                    arch.setInt(slot, cell, PRNG.nextInt(layout.getLowerBound(slot, cell), layout.getUpperBound(slot, cell)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws the next mutated cell. The number of cells skipped follows a
+     * geometric distribution, so each cell is still mutated independently with
+     * the mutation probability but only one random number is drawn per
+     * mutated cell.
+     *
+     * @param cell the last mutated cell
+     * @param logComplement the log of the probability that a cell is not
+     * mutated
+     * @return the next mutated cell
+     */
+    private static int nextCell(int cell, double logComplement) {
+        if (logComplement == Double.NEGATIVE_INFINITY) {
+            return cell + 1;
+        }
+        double next = cell + 1.0 + Math.floor(Math.log(1.0 - PRNG.nextDouble()) / logComplement);
+        return next >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) next;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.operators;
+
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variation;
+import seakers.architecture.Architecture;
+import seakers.architecture.DecisionLayout;
+import seakers.architecture.pattern.ArchitecturalDecision;
+import seakers.architecture.pattern.DecisionPattern;
+
+/**
+ * A variation operator that applies a configured {@link DecisionVariation} to
+ * each decision of an architecture. The operator of each decision is resolved
+ * from the decision layout when the composite is configured, either by the
+ * tag of the decision or by its pattern, so evolving an architecture only
+ * visits the decisions that have an operator and never scans the decision
+ * variables. An operator configured for a tag takes precedence over an
+ * operator configured for the pattern of the decision.
+ *
+ * @author nozomihitomi
+ */
+public class CompositeVariation implements Variation {
+
+    /**
+     * The layout of the architectures this operator evolves
+     */
+    private final DecisionLayout layout;
+
+    /**
+     * The operator of each slot. Null if the decision is not varied
+     */
+    private final DecisionVariation[] operators;
+
+    /**
+     * Flag for each slot that is configured by tag
+     */
+    private final boolean[] byTag;
+
+    /**
+     * Creates a composite operator that does not vary any decision until
+     * operators are configured
+     *
+     * @param layout the layout of the architectures to evolve
+     */
+    public CompositeVariation(DecisionLayout layout) {
+        this.layout = layout;
+        this.operators = new DecisionVariation[layout.getNumberOfDecisions()];
+        this.byTag = new boolean[layout.getNumberOfDecisions()];
+    }
+
+    /**
+     * Applies an operator to every decision with the given pattern that is not
+     * configured by tag
+     *
+     * @param pattern the decision pattern
+     * @param operator the operator. Null to stop varying the decisions
+     * @return this composite operator
+     * @throws IllegalArgumentException if the operator cannot be applied to a
+     * decision with the pattern
+     */
+    public CompositeVariation setOperator(DecisionPattern pattern, DecisionVariation operator) {
+        for (int slot = 0; slot < operators.length; slot++) {
+            ArchitecturalDecision decision = layout.getDecision(slot);
+            if (decision.getPattern() == pattern && !byTag[slot]) {
+                checkApplicable(operator, decision);
+                operators[slot] = operator;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Applies an operator to the decision with the given tag
+     *
+     * @param tag the tag of the decision
+     * @param operator the operator. Null to stop varying the decision
+     * @return this composite operator
+     * @throws IllegalArgumentException if there is no decision with the tag or
+     * the operator cannot be applied to it
+     */
+    public CompositeVariation setOperator(String tag, DecisionVariation operator) {
+        int slot = layout.getSlot(tag);
+        checkApplicable(operator, layout.getDecision(slot));
+        operators[slot] = operator;
+        byTag[slot] = true;
+        return this;
+    }
+
+    private static void checkApplicable(DecisionVariation operator, ArchitecturalDecision decision) {
+        if (operator != null && !operator.appliesTo(decision)) {
+            throw new IllegalArgumentException(String.format("Operator %s cannot be applied to decision %s", operator.getClass().getSimpleName(), decision.getTag()));
+        }
+    }
+
+    /**
+     * Gets the operator applied to the decision with the given tag
+     *
+     * @param tag the tag of the decision
+     * @return the operator applied to the decision or null if the decision is
+     * not varied
+     */
+    public DecisionVariation getOperator(String tag) {
+        return operators[layout.getSlot(tag)];
+    }
+
+    /**
+     * The arity is 2 if any decision is crossed, else 1
+     *
+     * @return the number of parents this operator requires
+     */
+    @Override
+    public int getArity() {
+        int out = 1;
+        for (DecisionVariation operator : operators) {
+            if (operator != null) {
+                out = Math.max(out, operator.getArity());
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public Solution[] evolve(Solution[] parents) {
+        Architecture[] offspring = new Architecture[getArity()];
+        for (int i = 0; i < offspring.length; i++) {
+            Architecture parent = (Architecture) parents[i];
+            if (parent.getLayout() != layout) {
+                throw new IllegalArgumentException("Architecture does not share the decision layout of the operator");
+            }
+            offspring[i] = parent.copy();
+        }
+        for (int slot = 0; slot < operators.length; slot++) {
+            if (operators[slot] != null) {
+                operators[slot].evolve(offspring, slot);
+            }
+        }
+        return offspring;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.operators;
+
+import seakers.architecture.Architecture;
+import seakers.architecture.pattern.ArchitecturalDecision;
+
+/**
+ * A variation operator that acts on a single decision of architectures that
+ * have already been copied from their parents. Decision variations are
+ * combined into one operator for a whole architecture with a
+ * {@link CompositeVariation}.
+ *
+ * @author nozomihitomi
+ */
+public interface DecisionVariation {
+
+    /**
+     * Gets the number of architectures this operator combines. Mutations have
+     * an arity of 1 and crossovers an arity of 2.
+     *
+     * @return the number of architectures this operator combines
+     */
+    public int getArity();
+
+    /**
+     * Checks if this operator can be applied to a decision
+     *
+     * @param decision the decision
+     * @return true if this operator can be applied to the decision
+     */
+    public boolean appliesTo(ArchitecturalDecision decision);
+
+    /**
+     * Modifies one decision of the offspring in place. A mutation mutates the
+     * decision of every offspring. A crossover crosses the decision of the
+     * first two offspring.
+     *
+     * @param offspring the offspring, copied from their parents
+     * @param slot the slot of the decision in the decision layout of the
+     * offspring
+     */
+    public void evolve(Architecture[] offspring, int slot);
+}
@@ -0,0 +1,70 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.operators;
+
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variation;
+import seakers.architecture.util.LatencyHistogram;
+import seakers.architecture.util.SearchMetrics;
+
+/**
+ * Applies a variation operator and records the time of each call in a
+ * {@link SearchMetrics} registry, in the histogram "variation." followed by
+ * the name of the operator. The time includes copying the parents, so
+ * operators that copy more than they need show up as slow.
+ *
+ * @author nozomihitomi
+ */
+public class InstrumentedVariation implements Variation {
+
+    /**
+     * The decorated operator
+     */
+    private final Variation variation;
+
+    /**
+     * The time of each call
+     */
+    private final LatencyHistogram calls;
+
+    /**
+     * Creates an operator that times another operator under the simple name
+     * of its class
+     *
+     * @param variation the operator to decorate
+     * @param metrics the registry to record the call times in
+     */
+    public InstrumentedVariation(Variation variation, SearchMetrics metrics) {
+        this(variation, metrics, variation.getClass().getSimpleName());
+    }
+
+    /**
+     * Creates an operator that times another operator
+     *
+     * @param variation the operator to decorate
+     * @param metrics the registry to record the call times in
+     * @param name the name of the operator in the registry
+     */
+    public InstrumentedVariation(Variation variation, SearchMetrics metrics, String name) {
+        this.variation = variation;
+        this.calls = metrics.histogram("variation." + name);
+    }
+
+    @Override
+    public int getArity() {
+        return variation.getArity();
+    }
+
+    @Override
+    public Solution[] evolve(Solution[] parents) {
+        long start = System.nanoTime();
+        try {
+            return variation.evolve(parents);
+        } finally {
+            calls.record(System.nanoTime() - start);
+        }
+    }
+}
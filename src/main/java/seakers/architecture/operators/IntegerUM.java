@@ -9,6 +9,7 @@ import org.moeaframework.core.PRNG;
 import org.moeaframework.core.Solution;
 import org.moeaframework.core.Variable;
 import org.moeaframework.core.Variation;
+import seakers.architecture.Architecture;
 import seakers.architecture.util.IntegerVariable;
 
 /**
@@ -47,6 +48,11 @@ public class IntegerUM implements Variation {
             if ((PRNG.nextDouble() <= probability)
                     && (variable instanceof IntegerVariable)) {
                 evolve((IntegerVariable) variable);
+                //the variable is changed directly, so record the change on the architecture
+                if (result instanceof Architecture) {
+                    Architecture arch = (Architecture) result;
+                    arch.markDirty(arch.getLayout().getSlotOfVariable(i));
+                }
             }
         }
 
@@ -5,34 +5,57 @@
  */
 package seakers.architecture.operators.permutation;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import org.moeaframework.core.PRNG;
 import org.moeaframework.core.Solution;
 import org.moeaframework.core.Variable;
 import org.moeaframework.core.Variation;
 import org.moeaframework.core.variable.Permutation;
+import seakers.architecture.Architecture;
+import seakers.architecture.operators.DecisionVariation;
+import seakers.architecture.pattern.ArchitecturalDecision;
+import seakers.architecture.pattern.DecisionPattern;
 
 /**
  *
  *
  * @author nozomihitomi
  */
-public class CycleCrossover implements Variation {
+public class CycleCrossover implements Variation, DecisionVariation {
 
     /**
      * The probability of applying this operator.
      */
     private final double probability;
 
+    /**
+     * The tag of the permuting decision to cross. Null to cross the
+     * permutation variables of any solution
+     */
+    private final String tag;
+
     /**
      * Constructs a CycleCrssover operator with the specified probability.
      *
      * @param probability the probability of applying this operator
      */
     public CycleCrossover(double probability) {
+        this(probability, null);
+    }
+
+    /**
+     * Constructs an operator with the specified probability that crosses the
+     * permuting decision with the given tag of two architectures. The decision
+     * is read and written in place, so the offspring are always valid
+     * permutations.
+     *
+     * @param probability the probability of applying this operator
+     * @param tag the tag of the permuting decision to cross
+     */
+    public CycleCrossover(double probability, String tag) {
         super();
         this.probability = probability;
+        this.tag = tag;
     }
 
     @Override
@@ -46,13 +69,19 @@ public class CycleCrossover implements Variation {
         Solution result2 = parents[1].copy();
 
         if (PRNG.nextDouble() <= probability) {
-            for (int i = 0; i < result1.getNumberOfVariables(); i++) {
-                Variable variable1 = result1.getVariable(i);
-                Variable variable2 = result2.getVariable(i);
+            if (tag != null) {
+                Architecture a1 = (Architecture) result1;
+                Architecture a2 = (Architecture) result2;
+                cross(a1, PermutationBuffers.permutingSlot(a1, tag), a2, PermutationBuffers.permutingSlot(a2, tag));
+            } else {
+                for (int i = 0; i < result1.getNumberOfVariables(); i++) {
+                    Variable variable1 = result1.getVariable(i);
+                    Variable variable2 = result2.getVariable(i);
 
-                if (PRNG.nextBoolean() && (variable1 instanceof Permutation)
-                        && (variable2 instanceof Permutation)) {
-                    evolve((Permutation) variable1, (Permutation) variable2);
+                    if (PRNG.nextBoolean() && (variable1 instanceof Permutation)
+                            && (variable2 instanceof Permutation)) {
+                        evolve((Permutation) variable1, (Permutation) variable2);
+                    }
                 }
             }
         }
@@ -68,42 +97,80 @@ public class CycleCrossover implements Variation {
      * @param p2
      */
     private void evolve(Permutation p1, Permutation p2) {
-        int[] child1 = new int[p1.size()];
-        int[] child2 = new int[p2.size()];
-
-        //map to store <value, index> for each permutation
-        HashMap<Integer, Integer> p1Map = new HashMap<>();
-        HashMap<Integer, Integer> p2Map = new HashMap<>();
-        for (int i = 0; i < p1.size(); i++) {
-            p1Map.put(p1.get(i), i);
-            p2Map.put(p2.get(i), i);
+        int n = p1.size();
+        PermutationBuffers buffers = PermutationBuffers.get(n);
+        PermutationBuffers.read(p1, buffers.parent1, buffers.position1);
+        PermutationBuffers.read(p2, buffers.parent2, buffers.position2);
+        cross(buffers, n);
+
+        //rearrange the copied parents into the children in place
+        PermutationBuffers.write(p1, buffers.child1, buffers.position1);
+        PermutationBuffers.write(p2, buffers.child2, buffers.position2);
+    }
+
+    @Override
+    public boolean appliesTo(ArchitecturalDecision decision) {
+        return decision.getPattern() == DecisionPattern.PERMUTING;
+    }
+
+    @Override
+    public void evolve(Architecture[] offspring, int slot) {
+        if (PRNG.nextDouble() <= probability) {
+            cross(offspring[0], slot, offspring[1], slot);
+        }
+    }
+
+    /**
+     * Crosses the permuting decision of two architectures
+     *
+     * @param a1
+     * @param slot1 the slot of the permuting decision in a1
+     * @param a2
+     * @param slot2 the slot of the permuting decision in a2
+     */
+    private void cross(Architecture a1, int slot1, Architecture a2, int slot2) {
+        int n = a1.getLayout().getNumberOfCells(slot1);
+        if (n < 2) {
+            return;
         }
+        PermutationBuffers buffers = PermutationBuffers.get(n);
+        PermutationBuffers.read(a1, slot1, n, buffers.parent1, buffers.position1);
+        PermutationBuffers.read(a2, slot2, n, buffers.parent2, buffers.position2);
+        cross(buffers, n);
+        PermutationBuffers.write(a1, slot1, n, buffers.child1);
+        PermutationBuffers.write(a2, slot2, n, buffers.child2);
+    }
 
-        final int p1CycleStart = p1.get(0);
+    /**
+     * Crosses the parents held in the buffers into the children of the
+     * buffers. The positions where the first cycle occurs are copied from the
+     * same parent and all other values are swapped between parents.
+     *
+     * @param buffers the buffers holding the parents and their positions
+     * @param n the number of elements in the permutations
+     */
+    static void cross(PermutationBuffers buffers, int n) {
+        int[] p1 = buffers.parent1;
+        int[] p2 = buffers.parent2;
+        boolean[] inCycle = buffers.flags1;
+        Arrays.fill(inCycle, 0, n, false);
 
-        //Find where cycle indices occur
-        HashSet<Integer> indices = new HashSet<>();
-        int current = p1CycleStart;
+        //Find where cycle indices occur by following the value of parent 2 back to its position in parent 1
+        int ind = 0;
         do {
-            final int ind = p1Map.get(current);
-            indices.add(ind);
-            current = p2Map.get(ind);
-        } while (current != p1CycleStart);
-
-        //copy over the values in the indices where the cycle occurs. Swap all other values between parents
-         for (int i = 0; i < p1.size(); i++) {
-            if (indices.contains(i)) {
-                child1[i] = p1.get(i);
-                child2[i] = p2.get(i);
+            inCycle[ind] = true;
+            ind = buffers.position1[p2[ind]];
+        } while (ind != 0);
+
+        for (int i = 0; i < n; i++) {
+            if (inCycle[i]) {
+                buffers.child1[i] = p1[i];
+                buffers.child2[i] = p2[i];
             } else {
-                child1[i] = p2.get(i);
-                child2[i] = p1.get(i);
+                buffers.child1[i] = p2[i];
+                buffers.child2[i] = p1[i];
             }
         }
-        
-        //copy children permutation over
-        p1.fromArray(child1);
-        p2.fromArray(child2);
     }
 
 }
@@ -0,0 +1,64 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.operators.permutation;
+
+import org.moeaframework.core.PRNG;
+
+/**
+ * Removes a randomly selected element of a permutation and inserts it at
+ * another random position, shifting the elements in between by one.
+ *
+ * @author nozomihitomi
+ */
+public class InsertionMutation extends PermutationMutation {
+
+    /**
+     * Constructs an InsertionMutation operator with the specified probability
+     * that mutates the permutation variables of any solution. Use this
+     * constructor when the operator is applied by a
+     * {@link seakers.architecture.operators.CompositeVariation}, which
+     * chooses the permuting decision.
+     *
+     * @param probability the probability of applying this operator
+     */
+    public InsertionMutation(double probability) {
+        this(probability, null);
+    }
+
+    /**
+     * Constructs an InsertionMutation operator with the specified probability
+     * that mutates the permuting decision with the given tag.
+     *
+     * @param probability the probability of applying this operator
+     * @param tag the tag of the permuting decision to mutate
+     */
+    public InsertionMutation(double probability, String tag) {
+        super(probability, tag);
+    }
+
+    /**
+     * Moves the element at one random position to another distinct random
+     * position
+     *
+     * @param values the elements of the permutation
+     * @param n the number of elements in the permutation
+     */
+    @Override
+    protected void mutate(int[] values, int n) {
+        int from = PRNG.nextInt(n);
+        int to = PRNG.nextInt(n - 1);
+        if (to >= from) {
+            to++;
+        }
+        int value = values[from];
+        if (from < to) {
+            System.arraycopy(values, from + 1, values, from, to - from);
+        } else {
+            System.arraycopy(values, to, values, to + 1, from - to);
+        }
+        values[to] = value;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.operators.permutation;
+
+import org.moeaframework.core.PRNG;
+
+/**
+ * Reverses the order of the elements between two randomly selected positions
+ * of a permutation. When the permutation is a tour this is the 2-opt move.
+ *
+ * @author nozomihitomi
+ */
+public class InversionMutation extends PermutationMutation {
+
+    /**
+     * Constructs an InversionMutation operator with the specified probability
+     * that mutates the permutation variables of any solution. Use this
+     * constructor when the operator is applied by a
+     * {@link seakers.architecture.operators.CompositeVariation}, which
+     * chooses the permuting decision.
+     *
+     * @param probability the probability of applying this operator
+     */
+    public InversionMutation(double probability) {
+        this(probability, null);
+    }
+
+    /**
+     * Constructs an InversionMutation operator with the specified probability
+     * that mutates the permuting decision with the given tag.
+     *
+     * @param probability the probability of applying this operator
+     * @param tag the tag of the permuting decision to mutate
+     */
+    public InversionMutation(double probability, String tag) {
+        super(probability, tag);
+    }
+
+    /**
+     * Reverses the elements between two distinct random positions, inclusive
+     *
+     * @param values the elements of the permutation
+     * @param n the number of elements in the permutation
+     */
+    @Override
+    protected void mutate(int[] values, int n) {
+        int i = PRNG.nextInt(n);
+        int j = PRNG.nextInt(n - 1);
+        if (j >= i) {
+            j++;
+        }
+        if (i > j) {
+            int tmp = i;
+            i = j;
+            j = tmp;
+        }
+        for (; i < j; i++, j--) {
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+}
@@ -5,27 +5,35 @@
  */
 package seakers.architecture.operators.permutation;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import org.moeaframework.core.PRNG;
 import org.moeaframework.core.Solution;
 import org.moeaframework.core.Variable;
 import org.moeaframework.core.Variation;
 import org.moeaframework.core.variable.Permutation;
+import seakers.architecture.Architecture;
+import seakers.architecture.operators.DecisionVariation;
+import seakers.architecture.pattern.ArchitecturalDecision;
+import seakers.architecture.pattern.DecisionPattern;
 
 /**
  *
  *
  * @author nozomihitomi
  */
-public class OrderBasedCrossover implements Variation {
+public class OrderBasedCrossover implements Variation, DecisionVariation {
 
     /**
      * The probability of applying this operator.
      */
     private final double probability;
 
+    /**
+     * The tag of the permuting decision to cross. Null to cross the
+     * permutation variables of any solution
+     */
+    private final String tag;
+
     /**
      * Constructs a OrderBasedCrossover operator with the specified
      * probability.
@@ -33,8 +41,22 @@ public class OrderBasedCrossover implements Variation {
      * @param probability the probability of applying this operator
      */
     public OrderBasedCrossover(double probability) {
+        this(probability, null);
+    }
+
+    /**
+     * Constructs an operator with the specified probability that crosses the
+     * permuting decision with the given tag of two architectures. The decision
+     * is read and written in place, so the offspring are always valid
+     * permutations.
+     *
+     * @param probability the probability of applying this operator
+     * @param tag the tag of the permuting decision to cross
+     */
+    public OrderBasedCrossover(double probability, String tag) {
         super();
         this.probability = probability;
+        this.tag = tag;
     }
 
     @Override
@@ -48,13 +70,19 @@ public class OrderBasedCrossover implements Variation {
         Solution result2 = parents[1].copy();
 
         if (PRNG.nextDouble() <= probability) {
-            for (int i = 0; i < result1.getNumberOfVariables(); i++) {
-                Variable variable1 = result1.getVariable(i);
-                Variable variable2 = result2.getVariable(i);
+            if (tag != null) {
+                Architecture a1 = (Architecture) result1;
+                Architecture a2 = (Architecture) result2;
+                cross(a1, PermutationBuffers.permutingSlot(a1, tag), a2, PermutationBuffers.permutingSlot(a2, tag));
+            } else {
+                for (int i = 0; i < result1.getNumberOfVariables(); i++) {
+                    Variable variable1 = result1.getVariable(i);
+                    Variable variable2 = result2.getVariable(i);
 
-                if (PRNG.nextBoolean() && (variable1 instanceof Permutation)
-                        && (variable2 instanceof Permutation)) {
-                    evolve((Permutation) variable1, (Permutation) variable2);
+                    if (PRNG.nextBoolean() && (variable1 instanceof Permutation)
+                            && (variable2 instanceof Permutation)) {
+                        evolve((Permutation) variable1, (Permutation) variable2);
+                    }
                 }
             }
         }
@@ -63,10 +91,9 @@ public class OrderBasedCrossover implements Variation {
     }
 
     /**
-     * Creates a binary template of the same length as the permutation. values
-     * of the permutation where the binary vector is equal to 1 are copied
-     * straight over. The remaining values are filled in using an ordered list
-     * of the remaining values as ordered by
+     * Copies the values between two random cross points straight over from
+     * the same parent. The remaining values are filled in the order they
+     * appear in the other parent, starting from the second cross point.
      *
      * @param p1
      * @param p2
@@ -81,58 +108,115 @@ public class OrderBasedCrossover implements Variation {
             crossoverPoint2 = temp;
         }
 
-        int[] child1 = new int[p1.size()];
-        int[] child2 = new int[p2.size()];
+        int n = p1.size();
+        PermutationBuffers buffers = PermutationBuffers.get(n);
+        PermutationBuffers.read(p1, buffers.parent1, buffers.position1);
+        PermutationBuffers.read(p2, buffers.parent2, buffers.position2);
+        cross(buffers, n, crossoverPoint1, crossoverPoint2);
+
+        //rearrange the copied parents into the children in place
+        PermutationBuffers.write(p1, buffers.child1, buffers.position1);
+        PermutationBuffers.write(p2, buffers.child2, buffers.position2);
+    }
+
+    @Override
+    public boolean appliesTo(ArchitecturalDecision decision) {
+        return decision.getPattern() == DecisionPattern.PERMUTING;
+    }
+
+    @Override
+    public void evolve(Architecture[] offspring, int slot) {
+        if (PRNG.nextDouble() <= probability) {
+            cross(offspring[0], slot, offspring[1], slot);
+        }
+    }
 
-        ArrayList<Integer> indices = new ArrayList<>(p1.size());
-        HashSet<Integer> p1MissingVals = new HashSet<>(p1.size());
-        HashSet<Integer> p2MissingVals = new HashSet<>(p1.size());
-        //map to store <value, index> for each permutation
-        HashMap<Integer, Integer> p1Map = new HashMap<>();
-        HashMap<Integer, Integer> p2Map = new HashMap<>();
-        for (int i = 0; i < p1.size(); i++) {
+    /**
+     * Crosses the permuting decision of two architectures
+     *
+     * @param a1
+     * @param slot1 the slot of the permuting decision in a1
+     * @param a2
+     * @param slot2 the slot of the permuting decision in a2
+     */
+    private void cross(Architecture a1, int slot1, Architecture a2, int slot2) {
+        int n = a1.getLayout().getNumberOfCells(slot1);
+        if (n < 2) {
+            return;
+        }
+        //select 2 cross points
+        int crossoverPoint1 = PRNG.nextInt(n - 1);
+        int crossoverPoint2 = PRNG.nextInt(n - 1);
+        if (crossoverPoint1 > crossoverPoint2) {
+            int temp = crossoverPoint1;
+            crossoverPoint1 = crossoverPoint2;
+            crossoverPoint2 = temp;
+        }
+
+        PermutationBuffers buffers = PermutationBuffers.get(n);
+        PermutationBuffers.read(a1, slot1, n, buffers.parent1, buffers.position1);
+        PermutationBuffers.read(a2, slot2, n, buffers.parent2, buffers.position2);
+        cross(buffers, n, crossoverPoint1, crossoverPoint2);
+        PermutationBuffers.write(a1, slot1, n, buffers.child1);
+        PermutationBuffers.write(a2, slot2, n, buffers.child2);
+    }
+
+    /**
+     * Crosses the parents held in the buffers into the children of the
+     * buffers. Positions (crossoverPoint1, crossoverPoint2] are copied from
+     * the same parent.
+     *
+     * @param buffers the buffers holding the parents
+     * @param n the number of elements in the permutations
+     * @param crossoverPoint1 the first cross point
+     * @param crossoverPoint2 the second cross point
+     */
+    static void cross(PermutationBuffers buffers, int n, int crossoverPoint1, int crossoverPoint2) {
+        boolean[] p1Missing = buffers.flags1;
+        boolean[] p2Missing = buffers.flags2;
+        Arrays.fill(p1Missing, 0, n, false);
+        Arrays.fill(p2Missing, 0, n, false);
+        for (int i = 0; i < n; i++) {
             if (i > crossoverPoint1 && i <= crossoverPoint2) {
-                child1[i] = p1.get(i);
-                child2[i] = p2.get(i);
+                buffers.child1[i] = buffers.parent1[i];
+                buffers.child2[i] = buffers.parent2[i];
             } else {
-                indices.add(i);
-                p2MissingVals.add(p2.get(i));
+                p1Missing[buffers.parent1[i]] = true;
+                p2Missing[buffers.parent2[i]] = true;
             }
-            p1Map.put(p1.get(i), i);
-            p2Map.put(p2.get(i), i);
         }
-        
-        //fill in the rest of child1 starting from the second cross point
+        fill(buffers.child1, buffers.parent2, p1Missing, n, crossoverPoint1, crossoverPoint2);
+        fill(buffers.child2, buffers.parent1, p2Missing, n, crossoverPoint1, crossoverPoint2);
+    }
+
+    /**
+     * Fills the positions of a child outside the cross points with its missing
+     * values in the order they appear in the donor, starting from the second
+     * cross point
+     *
+     * @param child the child
+     * @param donor the other parent
+     * @param missing flags for the values missing from the child
+     * @param n the number of elements in the permutations
+     * @param crossoverPoint1 the first cross point
+     * @param crossoverPoint2 the second cross point
+     */
+    private static void fill(int[] child, int[] donor, boolean[] missing, int n, int crossoverPoint1, int crossoverPoint2) {
+        int pos = 0;
         int ind = crossoverPoint2 + 1;
-        int counter = 0;
-        while(!p1MissingVals.isEmpty()){
-            if(ind == p1Map.size()){
+        for (int k = 0; k < n; k++, ind++) {
+            if (ind == n) {
                 ind = 0;
             }
-            if(!p1MissingVals.contains(p2Map.get(ind))){
-                child1[indices.get(counter)] = p2Map.get(ind);
-                p1MissingVals.remove(p2Map.get(ind));
-                counter++;
-            }
-        }
-        
-        //fill in the rest of child2 starting from the second cross point
-        ind = crossoverPoint2 + 1;
-        counter = 0;
-        while(!p2MissingVals.isEmpty()){
-            if(ind == p2Map.size()){
-                ind = 0;
-            }
-            if(!p2MissingVals.contains(p1Map.get(ind))){
-                child2[indices.get(counter)] = p1Map.get(ind);
-                p2MissingVals.remove(p1Map.get(ind));
-                counter++;
+            int value = donor[ind];
+            if (missing[value]) {
+                child[pos] = value;
+                pos++;
+                if (pos == crossoverPoint1 + 1) {
+                    pos = crossoverPoint2 + 1;
+                }
             }
         }
-
-        //copy children permutation over
-        p1.fromArray(child1);
-        p2.fromArray(child2);
     }
 
 }
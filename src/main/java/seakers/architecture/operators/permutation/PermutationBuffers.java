@@ -0,0 +1,172 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.operators.permutation;
+
+import org.moeaframework.core.variable.Permutation;
+import seakers.architecture.Architecture;
+import seakers.architecture.pattern.DecisionPattern;
+
+/**
+ * Per-thread scratch arrays shared by the permutation crossovers. The arrays
+ * only grow, so once a thread has crossed permutations of a given size the
+ * crossovers no longer allocate. Only the first n entries of each array are
+ * meaningful for a permutation of n elements.
+ *
+ * @author nozomihitomi
+ */
+final class PermutationBuffers {
+
+    private static final ThreadLocal<PermutationBuffers> BUFFERS = ThreadLocal.withInitial(PermutationBuffers::new);
+
+    /**
+     * The values of the first parent
+     */
+    int[] parent1 = new int[0];
+
+    /**
+     * The values of the second parent
+     */
+    int[] parent2 = new int[0];
+
+    /**
+     * The position of each value in the first parent
+     */
+    int[] position1 = new int[0];
+
+    /**
+     * The position of each value in the second parent
+     */
+    int[] position2 = new int[0];
+
+    /**
+     * The values of the first child
+     */
+    int[] child1 = new int[0];
+
+    /**
+     * The values of the second child
+     */
+    int[] child2 = new int[0];
+
+    /**
+     * Working flags indexed by position or value
+     */
+    boolean[] flags1 = new boolean[0];
+
+    /**
+     * Working flags indexed by position or value
+     */
+    boolean[] flags2 = new boolean[0];
+
+    private PermutationBuffers() {
+
+    }
+
+    /**
+     * Gets the buffers of the calling thread, grown to hold permutations of n
+     * elements
+     *
+     * @param n the number of elements in the permutations
+     * @return the buffers of the calling thread
+     */
+    static PermutationBuffers get(int n) {
+        PermutationBuffers out = BUFFERS.get();
+        if (out.parent1.length < n) {
+            out.parent1 = new int[n];
+            out.parent2 = new int[n];
+            out.position1 = new int[n];
+            out.position2 = new int[n];
+            out.child1 = new int[n];
+            out.child2 = new int[n];
+            out.flags1 = new boolean[n];
+            out.flags2 = new boolean[n];
+        }
+        return out;
+    }
+
+    /**
+     * Reads a permutation and the position of each of its values
+     *
+     * @param p the permutation
+     * @param values the array to hold the values
+     * @param positions the array to hold the position of each value
+     */
+    static void read(Permutation p, int[] values, int[] positions) {
+        for (int i = 0; i < p.size(); i++) {
+            values[i] = p.get(i);
+            positions[values[i]] = i;
+        }
+    }
+
+    /**
+     * Rearranges a permutation into the target order by swapping elements in
+     * place. At most n - 1 swaps are made and nothing is allocated.
+     *
+     * @param p the permutation to rearrange
+     * @param target the target order
+     * @param positions the position of each value in the permutation. Updated
+     * as elements are swapped
+     */
+    static void write(Permutation p, int[] target, int[] positions) {
+        for (int i = 0; i < p.size(); i++) {
+            int current = p.get(i);
+            int wanted = target[i];
+            if (current != wanted) {
+                int j = positions[wanted];
+                p.swap(i, j);
+                positions[current] = j;
+                positions[wanted] = i;
+            }
+        }
+    }
+
+    /**
+     * Gets the slot of a permuting decision
+     *
+     * @param arch the architecture
+     * @param tag the tag of the permuting decision
+     * @return the slot of the decision
+     * @throws IllegalArgumentException if the decision is not a permuting
+     * decision
+     */
+    static int permutingSlot(Architecture arch, String tag) {
+        int slot = arch.getDecisionSlot(tag);
+        if (arch.getDecision(slot).getPattern() != DecisionPattern.PERMUTING) {
+            throw new IllegalArgumentException(String.format("Decision %s is not a permuting decision", tag));
+        }
+        return slot;
+    }
+
+    /**
+     * Reads a permuting decision and the position of each of its values
+     *
+     * @param arch the architecture
+     * @param slot the slot of the permuting decision
+     * @param n the number of elements in the permutation
+     * @param values the array to hold the values
+     * @param positions the array to hold the position of each value
+     */
+    static void read(Architecture arch, int slot, int n, int[] values, int[] positions) {
+        for (int i = 0; i < n; i++) {
+            values[i] = arch.getInt(slot, i);
+            positions[values[i]] = i;
+        }
+    }
+
+    /**
+     * Writes values into a permuting decision
+     *
+     * @param arch the architecture
+     * @param slot the slot of the permuting decision
+     * @param n the number of elements in the permutation
+     * @param values the values to write
+     */
+    static void write(Architecture arch, int slot, int n, int[] values) {
+        for (int i = 0; i < n; i++) {
+            arch.setInt(slot, i, values[i]);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.operators.permutation;
+
+import org.moeaframework.core.PRNG;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variable;
+import org.moeaframework.core.Variation;
+import org.moeaframework.core.variable.Permutation;
+import seakers.architecture.Architecture;
+import seakers.architecture.operators.DecisionVariation;
+import seakers.architecture.pattern.ArchitecturalDecision;
+import seakers.architecture.pattern.DecisionPattern;
+
+/**
+ * A mutation that rearranges the elements of one permutation. The
+ * permutation is read into the primitive buffers of the calling thread,
+ * rearranged by the subclass and written back, so the offspring is always a
+ * valid permutation. Like the permutation crossovers, the operator mutates the
+ * permuting decision with a given tag of an architecture, or the permutation
+ * variables of any solution if no tag is given.
+ *
+ * @author nozomihitomi
+ */
+public abstract class PermutationMutation implements Variation, DecisionVariation {
+
+    /**
+     * The probability of applying this operator.
+     */
+    private final double probability;
+
+    /**
+     * The tag of the permuting decision to mutate. Null to mutate the
+     * permutation variables of any solution
+     */
+    private final String tag;
+
+    /**
+     * Constructs an operator with the specified probability that mutates the
+     * permuting decision with the given tag of an architecture.
+     *
+     * @param probability the probability of applying this operator
+     * @param tag the tag of the permuting decision to mutate. Null to mutate
+     * the permutation variables of any solution
+     */
+    protected PermutationMutation(double probability, String tag) {
+        super();
+        this.probability = probability;
+        this.tag = tag;
+    }
+
+    @Override
+    public int getArity() {
+        return 1;
+    }
+
+    @Override
+    public Solution[] evolve(Solution[] parents) {
+        Solution result = parents[0].copy();
+
+        if (tag != null) {
+            if (PRNG.nextDouble() <= probability) {
+                Architecture arch = (Architecture) result;
+                evolve(arch, PermutationBuffers.permutingSlot(arch, tag));
+            }
+        } else {
+            for (int i = 0; i < result.getNumberOfVariables(); i++) {
+                Variable variable = result.getVariable(i);
+                if ((variable instanceof Permutation) && PRNG.nextDouble() <= probability) {
+                    evolve((Permutation) variable);
+                }
+            }
+        }
+
+        return new Solution[]{result};
+    }
+
+    @Override
+    public boolean appliesTo(ArchitecturalDecision decision) {
+        return decision.getPattern() == DecisionPattern.PERMUTING;
+    }
+
+    @Override
+    public void evolve(Architecture[] offspring, int slot) {
+        for (Architecture arch : offspring) {
+            if (PRNG.nextDouble() <= probability) {
+                evolve(arch, slot);
+            }
+        }
+    }
+
+    /**
+     * Mutates a permuting decision of an architecture
+     *
+     * @param arch the architecture
+     * @param slot the slot of the permuting decision
+     */
+    private void evolve(Architecture arch, int slot) {
+        int n = arch.getLayout().getNumberOfCells(slot);
+        if (n < 2) {
+            return;
+        }
+        PermutationBuffers buffers = PermutationBuffers.get(n);
+        PermutationBuffers.read(arch, slot, n, buffers.child1, buffers.position1);
+        mutate(buffers.child1, n);
+        PermutationBuffers.write(arch, slot, n, buffers.child1);
+    }
+
+    /**
+     * Mutates a permutation variable
+     *
+     * @param p the permutation
+     */
+    private void evolve(Permutation p) {
+        int n = p.size();
+        if (n < 2) {
+            return;
+        }
+        PermutationBuffers buffers = PermutationBuffers.get(n);
+        PermutationBuffers.read(p, buffers.child1, buffers.position1);
+        mutate(buffers.child1, n);
+        PermutationBuffers.write(p, buffers.child1, buffers.position1);
+    }
+
+    /**
+     * Rearranges the elements of a permutation in place
+     *
+     * @param values the elements of the permutation. Only the first n
+     * elements belong to the permutation
+     * @param n the number of elements in the permutation. At least 2
+     */
+    protected abstract void mutate(int[] values, int n);
+}
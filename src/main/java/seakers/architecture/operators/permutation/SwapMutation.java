@@ -0,0 +1,58 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.operators.permutation;
+
+import org.moeaframework.core.PRNG;
+
+/**
+ * Swaps two randomly selected elements of a permutation.
+ *
+ * @author nozomihitomi
+ */
+public class SwapMutation extends PermutationMutation {
+
+    /**
+     * Constructs a SwapMutation operator with the specified probability that
+     * mutates the permutation variables of any solution. Use this constructor
+     * when the operator is applied by a
+     * {@link seakers.architecture.operators.CompositeVariation}, which
+     * chooses the permuting decision.
+     *
+     * @param probability the probability of applying this operator
+     */
+    public SwapMutation(double probability) {
+        this(probability, null);
+    }
+
+    /**
+     * Constructs a SwapMutation operator with the specified probability that
+     * mutates the permuting decision with the given tag.
+     *
+     * @param probability the probability of applying this operator
+     * @param tag the tag of the permuting decision to mutate
+     */
+    public SwapMutation(double probability, String tag) {
+        super(probability, tag);
+    }
+
+    /**
+     * Swaps two distinct random positions
+     *
+     * @param values the elements of the permutation
+     * @param n the number of elements in the permutation
+     */
+    @Override
+    protected void mutate(int[] values, int n) {
+        int i = PRNG.nextInt(n);
+        int j = PRNG.nextInt(n - 1);
+        if (j >= i) {
+            j++;
+        }
+        int tmp = values[i];
+        values[i] = values[j];
+        values[j] = tmp;
+    }
+}
@@ -5,13 +5,16 @@
  */
 package seakers.architecture.operators.permutation;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import org.moeaframework.core.PRNG;
 import org.moeaframework.core.Solution;
 import org.moeaframework.core.Variable;
 import org.moeaframework.core.Variation;
 import org.moeaframework.core.variable.Permutation;
+import seakers.architecture.Architecture;
+import seakers.architecture.operators.DecisionVariation;
+import seakers.architecture.pattern.ArchitecturalDecision;
+import seakers.architecture.pattern.DecisionPattern;
 
 /**
  * "In uniform order-based crossover, two parents (say P1 and P2) are randomly
@@ -29,13 +32,19 @@ import org.moeaframework.core.variable.Permutation;
  *
  * @author nozomihitomi
  */
-public class UniformOrderCrossover implements Variation {
+public class UniformOrderCrossover implements Variation, DecisionVariation {
 
     /**
      * The probability of applying this operator.
      */
     private final double probability;
 
+    /**
+     * The tag of the permuting decision to cross. Null to cross the
+     * permutation variables of any solution
+     */
+    private final String tag;
+
     /**
      * Constructs a UniformOrderBasedCrossover operator with the specified
      * probability.
@@ -43,8 +52,22 @@ public class UniformOrderCrossover implements Variation {
      * @param probability the probability of applying this operator
      */
     public UniformOrderCrossover(double probability) {
+        this(probability, null);
+    }
+
+    /**
+     * Constructs an operator with the specified probability that crosses the
+     * permuting decision with the given tag of two architectures. The decision
+     * is read and written in place, so the offspring are always valid
+     * permutations.
+     *
+     * @param probability the probability of applying this operator
+     * @param tag the tag of the permuting decision to cross
+     */
+    public UniformOrderCrossover(double probability, String tag) {
         super();
         this.probability = probability;
+        this.tag = tag;
     }
 
     @Override
@@ -58,13 +81,19 @@ public class UniformOrderCrossover implements Variation {
         Solution result2 = parents[1].copy();
 
         if (PRNG.nextDouble() <= probability) {
-            for (int i = 0; i < result1.getNumberOfVariables(); i++) {
-                Variable variable1 = result1.getVariable(i);
-                Variable variable2 = result2.getVariable(i);
+            if (tag != null) {
+                Architecture a1 = (Architecture) result1;
+                Architecture a2 = (Architecture) result2;
+                cross(a1, PermutationBuffers.permutingSlot(a1, tag), a2, PermutationBuffers.permutingSlot(a2, tag));
+            } else {
+                for (int i = 0; i < result1.getNumberOfVariables(); i++) {
+                    Variable variable1 = result1.getVariable(i);
+                    Variable variable2 = result2.getVariable(i);
 
-                if (PRNG.nextBoolean() && (variable1 instanceof Permutation)
-                        && (variable2 instanceof Permutation)) {
-                    evolve((Permutation) variable1, (Permutation) variable2);
+                    if (PRNG.nextBoolean() && (variable1 instanceof Permutation)
+                            && (variable2 instanceof Permutation)) {
+                        evolve((Permutation) variable1, (Permutation) variable2);
+                    }
                 }
             }
         }
@@ -76,51 +105,105 @@ public class UniformOrderCrossover implements Variation {
      * Creates a binary template of the same length as the permutation. values
      * of the permutation where the binary vector is equal to 1 are copied
      * straight over. The remaining values are filled in using an ordered list
-     * of the remaining values as ordered by
+     * of the remaining values as ordered by the other parent
      *
      * @param p1
      * @param p2
      */
     private void evolve(Permutation p1, Permutation p2) {
-        int[] child1 = new int[p1.size()];
-        int[] child2 = new int[p2.size()];
-
-        ArrayList<Integer> indices = new ArrayList<>(p1.size());
-        ArrayList<Integer> p1MissingVals = new ArrayList<>(p1.size());
-        ArrayList<Integer> p2MissingVals = new ArrayList<>(p1.size());
-        //map to store <value, index> for each permutation
-        HashMap<Integer, Integer> p1Map = new HashMap<>();
-        HashMap<Integer, Integer> p2Map = new HashMap<>();
-        for (int i = 0; i < p1.size(); i++) {
-            if (PRNG.nextBoolean()) {
-                child1[i] = p1.get(i);
-                child2[i] = p2.get(i);
-            } else {
-                indices.add(i);
-                p1MissingVals.add(p1.get(i));
-                p2MissingVals.add(p2.get(i));
-            }
-            p1Map.put(p1.get(i),i);
-            p2Map.put(p2.get(i),i);
+        int n = p1.size();
+        PermutationBuffers buffers = PermutationBuffers.get(n);
+        PermutationBuffers.read(p1, buffers.parent1, buffers.position1);
+        PermutationBuffers.read(p2, buffers.parent2, buffers.position2);
+        cross(buffers, n);
+
+        //rearrange the copied parents into the children in place
+        PermutationBuffers.write(p1, buffers.child1, buffers.position1);
+        PermutationBuffers.write(p2, buffers.child2, buffers.position2);
+    }
+
+    @Override
+    public boolean appliesTo(ArchitecturalDecision decision) {
+        return decision.getPattern() == DecisionPattern.PERMUTING;
+    }
+
+    @Override
+    public void evolve(Architecture[] offspring, int slot) {
+        if (PRNG.nextDouble() <= probability) {
+            cross(offspring[0], slot, offspring[1], slot);
         }
-        
-        //Create lists storing the ordered values to insert
-        ArrayList<Integer> p1List = new ArrayList<>(p1.size());
-        ArrayList<Integer> p2List = new ArrayList<>(p1.size());
-        for(int i = 0; i < indices.size(); i++){
-            p1List.add(p2Map.get(p1MissingVals.get(i)));
-            p2List.add(p1Map.get(p2MissingVals.get(i)));
+    }
+
+    /**
+     * Crosses the permuting decision of two architectures
+     *
+     * @param a1
+     * @param slot1 the slot of the permuting decision in a1
+     * @param a2
+     * @param slot2 the slot of the permuting decision in a2
+     */
+    private void cross(Architecture a1, int slot1, Architecture a2, int slot2) {
+        int n = a1.getLayout().getNumberOfCells(slot1);
+        if (n < 2) {
+            return;
         }
+        PermutationBuffers buffers = PermutationBuffers.get(n);
+        PermutationBuffers.read(a1, slot1, n, buffers.parent1, buffers.position1);
+        PermutationBuffers.read(a2, slot2, n, buffers.parent2, buffers.position2);
+        cross(buffers, n);
+        PermutationBuffers.write(a1, slot1, n, buffers.child1);
+        PermutationBuffers.write(a2, slot2, n, buffers.child2);
+    }
 
-        //fill in the rest of child1 and child2
-        for (int i = 0; i < indices.size(); i++) {
-            child1[indices.get(i)] = p1List.get(i);
-            child2[indices.get(i)] = p2List.get(i);
+    /**
+     * Crosses the parents held in the buffers into the children of the
+     * buffers using a random binary template
+     *
+     * @param buffers the buffers holding the parents
+     * @param n the number of elements in the permutations
+     */
+    static void cross(PermutationBuffers buffers, int n) {
+        boolean[] keep = buffers.flags1;
+        for (int i = 0; i < n; i++) {
+            keep[i] = PRNG.nextBoolean();
+            if (keep[i]) {
+                buffers.child1[i] = buffers.parent1[i];
+                buffers.child2[i] = buffers.parent2[i];
+            }
         }
+        fill(buffers.child1, buffers.parent1, buffers.parent2, keep, buffers.flags2, n);
+        fill(buffers.child2, buffers.parent2, buffers.parent1, keep, buffers.flags2, n);
+    }
 
-        //copy children permutation over
-        p1.fromArray(child1);
-        p2.fromArray(child2);
+    /**
+     * Fills the gaps of a child with the values of its parent in the gaps,
+     * ordered as they appear in the other parent
+     *
+     * @param child the child
+     * @param parent the parent the child keeps values from
+     * @param other the other parent
+     * @param keep the binary template
+     * @param missing working flags indexed by value
+     * @param n the number of elements in the permutations
+     */
+    private static void fill(int[] child, int[] parent, int[] other, boolean[] keep, boolean[] missing, int n) {
+        Arrays.fill(missing, 0, n, false);
+        for (int i = 0; i < n; i++) {
+            if (!keep[i]) {
+                missing[parent[i]] = true;
+            }
+        }
+        int pos = 0;
+        for (int k = 0; k < n; k++) {
+            int value = other[k];
+            if (missing[value]) {
+                while (keep[pos]) {
+                    pos++;
+                }
+                child[pos] = value;
+                pos++;
+            }
+        }
     }
 
 }
@@ -6,6 +6,7 @@
 package seakers.architecture.pattern;
 
 import seakers.architecture.Architecture;
+import seakers.architecture.DecisionLayout;
 import java.io.Serializable;
 import java.util.ArrayList;
 import org.moeaframework.core.Variable;
@@ -34,6 +35,11 @@ public class Assigning implements ArchitecturalDecision, Serializable{
 
     private final String tag;
 
+    /**
+     * flag for if the assignment matrix is packed into a single binary variable
+     */
+    private final boolean packed;
+
     /**
      * This constructor creates an assignment matrix with m items assigned to n
      * items
@@ -44,9 +50,27 @@ public class Assigning implements ArchitecturalDecision, Serializable{
      * @param tag the tag of the decision
      */
     public Assigning(int mNodes, int nNodes, String tag) {
+        this(mNodes, nNodes, tag, false);
+    }
+
+    /**
+     * This constructor creates an assignment matrix with m items assigned to n
+     * items. If packed, the whole assignment matrix is encoded in a single
+     * binary variable with one bit per cell instead of one binary variable per
+     * cell.
+     *
+     * @param mNodes the number of elements that are being assigned
+     * @param nNodes the number of elements that will have things assigned to
+     * it.
+     * @param tag the tag of the decision
+     * @param packed flag to encode the assignment matrix in a single binary
+     * variable
+     */
+    public Assigning(int mNodes, int nNodes, String tag, boolean packed) {
         this.mNodes = mNodes;
         this.nNodes = nNodes;
         this.tag = tag;
+        this.packed = packed;
     }
 
     @Override
@@ -66,18 +90,15 @@ public class Assigning implements ArchitecturalDecision, Serializable{
      * True = assigned. False = not assigned.
      */
     public static boolean connect(int i, int j, Architecture arch, String tag) {
-        Assigning dec = (Assigning) arch.getDecision(tag);
+        int slot = arch.getDecisionSlot(tag);
+        Assigning dec = (Assigning) arch.getDecision(slot);
         if(i >= dec.getNumberOfLHS()){
             throw new IllegalArgumentException(String.format("Cannot access LHS index greater than %d for decision %s", dec.getNumberOfLHS(), tag));
         }
         if(j >= dec.getNumberOfRHS()){
             throw new IllegalArgumentException(String.format("Cannot access RHS index greater than %d for decision %s", dec.getNumberOfRHS(), tag));
         }
-        int index = arch.getDecisionIndex(tag);
-        BinaryVariable var = ((BinaryVariable) arch.getVariable(i * dec.getNumberOfRHS() + j + index));
-        boolean out = var.get(0);
-        var.set(0, true);
-        return out;
+        return arch.setBit(slot, i * dec.getNumberOfRHS() + j, true);
     }
 
     /**
@@ -92,18 +113,15 @@ public class Assigning implements ArchitecturalDecision, Serializable{
      * True = assigned. False = not assigned.
      */
     public static boolean disconnect(int i, int j, Architecture arch, String tag) {
-        Assigning dec = (Assigning) arch.getDecision(tag);
+        int slot = arch.getDecisionSlot(tag);
+        Assigning dec = (Assigning) arch.getDecision(slot);
         if(i >= dec.getNumberOfLHS()){
             throw new IllegalArgumentException(String.format("Cannot access LHS index greater than %d for decision %s", dec.getNumberOfLHS(), tag));
         }
         if(j >= dec.getNumberOfRHS()){
             throw new IllegalArgumentException(String.format("Cannot access RHS index greater than %d for decision %s", dec.getNumberOfRHS(), tag));
         }
-        int index = arch.getDecisionIndex(tag);
-        BinaryVariable var = ((BinaryVariable) arch.getVariable(i * dec.getNumberOfRHS() + j + index));
-        boolean out = var.get(0);
-        var.set(0, false);
-        return out;
+        return arch.setBit(slot, i * dec.getNumberOfRHS() + j, false);
     }
 
     /**
@@ -118,16 +136,67 @@ public class Assigning implements ArchitecturalDecision, Serializable{
      * hand side are assigned.
      */
     public static boolean isConnected(int i, int j, Architecture arch, String tag) {
-        Assigning dec = (Assigning) arch.getDecision(tag);
+        int slot = arch.getDecisionSlot(tag);
+        Assigning dec = (Assigning) arch.getDecision(slot);
         if(i >= dec.getNumberOfLHS()){
             throw new IllegalArgumentException(String.format("Cannot access LHS index greater than %d for decision %s", dec.getNumberOfLHS(), tag));
         }
         if(j >= dec.getNumberOfRHS()){
             throw new IllegalArgumentException(String.format("Cannot access RHS index greater than %d for decision %s", dec.getNumberOfRHS(), tag));
         }
-        int index = arch.getDecisionIndex(tag);
-        BinaryVariable var = ((BinaryVariable) arch.getVariable(i * dec.getNumberOfRHS() + j + index));
-        return var.get(0);
+        return arch.getBit(slot, i * dec.getNumberOfRHS() + j);
+    }
+
+    /**
+     * Computes the rank of the decision in a full factorial enumeration. The
+     * rank is the binary number where bit i * nRHS + j is set if element i from
+     * the left hand side is assigned to element j on the right hand side.
+     *
+     * @param arch the architecture
+     * @param tag the tag of the decision to rank
+     * @return the rank of the decision
+     */
+    public static long rank(Architecture arch, String tag) {
+        int slot = arch.getDecisionSlot(tag);
+        Assigning dec = (Assigning) arch.getDecision(slot);
+        int nCells = dec.getNumberOfLHS() * dec.getNumberOfRHS();
+        BinaryCells.checkRankable(nCells, tag);
+        long rank = 0;
+        for (int cell = 0; cell < nCells; cell++) {
+            if (arch.getBit(slot, cell)) {
+                rank |= 1L << cell;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Sets the decision to the assignments with the given rank in a full
+     * factorial enumeration
+     *
+     * @param rank the rank of the decision
+     * @param arch the architecture
+     * @param tag the tag of the decision to change
+     */
+    public static void unrank(long rank, Architecture arch, String tag) {
+        int slot = arch.getDecisionSlot(tag);
+        Assigning dec = (Assigning) arch.getDecision(slot);
+        int nCells = dec.getNumberOfLHS() * dec.getNumberOfRHS();
+        BinaryCells.checkUnrankable(rank, nCells, tag);
+        for (int cell = 0; cell < nCells; cell++) {
+            arch.setBit(slot, cell, (rank & (1L << cell)) != 0);
+        }
+    }
+
+    /**
+     * Gets the number of unique designs of this decision
+     *
+     * @return the number of unique designs of this decision
+     * @throws ArithmeticException if the number of designs exceeds the range
+     * of a long
+     */
+    public long getNumberOfDesigns() {
+        return BinaryCells.countDesigns(mNodes * nNodes);
     }
 
     /**
@@ -151,18 +220,35 @@ public class Assigning implements ArchitecturalDecision, Serializable{
         return nNodes;
     }
 
+    /**
+     * Checks if the assignment matrix is packed into a single binary variable
+     *
+     * @return true if the assignment matrix is packed into a single binary
+     * variable. Else false.
+     */
+    public boolean isPacked() {
+        return packed;
+    }
+
     @Override
     public String getTag() {
         return tag;
     }
     
     /**
-     * In this implementation, binary variables are created and all are set to false
+     * In this implementation, binary variables are created and all are set to
+     * false. If packed, a single binary variable with one bit per cell of the
+     * assignment matrix is created.
+     *
      * @return a list of Binary variables set to false
      */
     @Override
     public ArrayList<Variable> getVariables() {
         ArrayList<Variable> out = new ArrayList<>(getNumberOfVariables());
+        if (packed) {
+            out.add(new BinaryVariable(mNodes * nNodes));
+            return out;
+        }
         for (int i = 0; i < getNumberOfVariables(); i++) {
             out.add(new BinaryVariable(1));
         }
@@ -171,12 +257,123 @@ public class Assigning implements ArchitecturalDecision, Serializable{
 
     @Override
     public String toString() {
-        return "Assigning{" + "LHSnodes=" + mNodes + ", RHSnodes=" + nNodes + ", tag=" + tag + '}';
+        return "Assigning{" + "LHSnodes=" + mNodes + ", RHSnodes=" + nNodes + ", tag=" + tag + ", packed=" + packed + '}';
     }
 
     @Override
     public int getNumberOfVariables() {
+        if (packed) {
+            return 1;
+        }
         return mNodes * nNodes;
     }
 
+    /**
+     * Creates a handle to an assigning decision
+     *
+     * @param layout the decision layout
+     * @param tag the tag of the decision
+     * @return the handle to the decision
+     */
+    public static Handle handle(DecisionLayout layout, String tag) {
+        return new Handle(layout, tag);
+    }
+
+    /**
+     * A precomputed reference to an assigning decision
+     */
+    public static class Handle extends DecisionHandle {
+
+        private static final long serialVersionUID = -5036719829004327385L;
+
+        private final int nLHS;
+
+        private final int nRHS;
+
+        private Handle(DecisionLayout layout, String tag) {
+            super(layout, tag, DecisionPattern.ASSINGING);
+            Assigning dec = (Assigning) getDecision();
+            this.nLHS = dec.getNumberOfLHS();
+            this.nRHS = dec.getNumberOfRHS();
+        }
+
+        /**
+         * Assigns element i from the left side to element j on the right
+         * side
+         *
+         * @param arch the architecture
+         * @param i element in the left hand side
+         * @param j element in the right hand side
+         * @return the value of the assignment matrix in cell i,j before the
+         * change
+         */
+        public boolean connect(Architecture arch, int i, int j) {
+            return set(arch, i, j, true);
+        }
+
+        /**
+         * Removes the assignment of element i from the left side to element
+         * j on the right side
+         *
+         * @param arch the architecture
+         * @param i element in the left hand side
+         * @param j element in the right hand side
+         * @return the value of the assignment matrix in cell i,j before the
+         * change
+         */
+        public boolean disconnect(Architecture arch, int i, int j) {
+            return set(arch, i, j, false);
+        }
+
+        /**
+         * Sets the value of cell i,j of the assignment matrix
+         *
+         * @param arch the architecture
+         * @param i element in the left hand side
+         * @param j element in the right hand side
+         * @param value true to assign. false to remove the assignment
+         * @return the value of the assignment matrix in cell i,j before the
+         * change
+         */
+        public boolean set(Architecture arch, int i, int j, boolean value) {
+            checkLayout(arch);
+            checkIndex(i, nLHS);
+            checkIndex(j, nRHS);
+            return arch.setBit(slot, i * nRHS + j, value);
+        }
+
+        /**
+         * Checks if element i from the left hand side and element j from the
+         * right hand side are assigned
+         *
+         * @param arch the architecture
+         * @param i element in the left hand side
+         * @param j element in the right hand side
+         * @return true if the elements are assigned
+         */
+        public boolean isConnected(Architecture arch, int i, int j) {
+            checkLayout(arch);
+            checkIndex(i, nLHS);
+            checkIndex(j, nRHS);
+            return arch.getBit(slot, i * nRHS + j);
+        }
+
+        /**
+         * Gets the number of elements on the left hand side
+         *
+         * @return the number of elements on the left hand side
+         */
+        public int getNumberOfLHS() {
+            return nLHS;
+        }
+
+        /**
+         * Gets the number of elements on the right hand side
+         *
+         * @return the number of elements on the right hand side
+         */
+        public int getNumberOfRHS() {
+            return nRHS;
+        }
+    }
 }
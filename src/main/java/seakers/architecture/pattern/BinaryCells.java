@@ -0,0 +1,69 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.pattern;
+
+import seakers.architecture.Architecture;
+
+/**
+ * Counting and rank checks shared by the binary valued decisions (assigning,
+ * connecting and downselecting). The cells themselves are read and written
+ * through {@link Architecture#getBit} and {@link Architecture#setBit}.
+ *
+ * @author nozomihitomi
+ */
+final class BinaryCells {
+
+    /**
+     * Prevent the creation of this object
+     */
+    private BinaryCells() {
+
+    }
+
+    /**
+     * Counts the number of designs of a decision with the given number of
+     * independent binary cells
+     *
+     * @param nCells the number of independent cells
+     * @return the number of designs
+     * @throws ArithmeticException if the number of designs exceeds the range
+     * of a long
+     */
+    static long countDesigns(int nCells) {
+        if (nCells > Long.SIZE - 2) {
+            throw new ArithmeticException(String.format("The number of designs of %d binary cells exceeds the range of a long", nCells));
+        }
+        return 1L << nCells;
+    }
+
+    /**
+     * Checks that the designs of a decision with the given number of
+     * independent binary cells can be ranked with a long
+     *
+     * @param nCells the number of independent cells
+     * @param tag the tag of the decision
+     */
+    static void checkRankable(int nCells, String tag) {
+        if (nCells > Long.SIZE - 2) {
+            throw new ArithmeticException(String.format("Decision %s has too many cells (%d) to be ranked", tag, nCells));
+        }
+    }
+
+    /**
+     * Checks that a rank is valid for a decision with the given number of
+     * independent binary cells
+     *
+     * @param rank the rank
+     * @param nCells the number of independent cells
+     * @param tag the tag of the decision
+     */
+    static void checkUnrankable(long rank, int nCells, String tag) {
+        checkRankable(nCells, tag);
+        if (rank < 0 || rank >= 1L << nCells) {
+            throw new IllegalArgumentException(String.format("Rank %d exceeds the number of designs for decision %s", rank, tag));
+        }
+    }
+}
@@ -6,10 +6,13 @@
 package seakers.architecture.pattern;
 
 import seakers.architecture.Architecture;
+import seakers.architecture.DecisionLayout;
 import org.moeaframework.core.Variable;
 import java.io.Serializable;
 import java.util.ArrayList;
 import static seakers.architecture.pattern.DecisionPattern.COMBINING;
+import seakers.architecture.enumeration.FullFactorial;
+import seakers.architecture.enumeration.Ranking;
 import seakers.architecture.util.IntegerVariable;
 
 /**
@@ -57,21 +60,18 @@ public class Combining implements ArchitecturalDecision, Serializable {
      * @return true if the variable changed values as a result
      */
     public static boolean setValue(int index, int value, Architecture arch, String tag) {
-        Combining dec = (Combining)arch.getDecision(tag);
+        int slot = arch.getDecisionSlot(tag);
+        Combining dec = (Combining) arch.getDecision(slot);
         if(index >= dec.getNumberOfVariables()){
             throw new IllegalArgumentException(String.format("Cannot access index greater than %d for decision %s", dec.getNumberOfVariables(), tag));
         }
-        int i = arch.getDecisionIndex(tag);
         if (value >= dec.getNumberOfAlternatives(index)) {
             throw new IllegalArgumentException(String.format("Cannot access value greater than %d. Tried accessesing %d.", dec.getNumberOfAlternatives(index), value));
         }
         if (value < 0){
             throw new IllegalArgumentException("Value must be greater than 0");
         }
-        IntegerVariable var = (IntegerVariable)arch.getVariable(i + index);
-        boolean out = var.getValue() == value;
-        var.setValue(value);
-        return out;
+        return arch.setInt(slot, index, value) == value;
     }
 
     /**
@@ -83,8 +83,44 @@ public class Combining implements ArchitecturalDecision, Serializable {
      * @return the value stored in the given index
      */
     public static int getValue(int index, Architecture arch, String tag) {
-        int i = arch.getDecisionIndex(tag);
-        return ((IntegerVariable)arch.getVariable(i + index)).getValue();
+        return arch.getInt(arch.getDecisionSlot(tag), index);
+    }
+
+    /**
+     * Computes the rank of the decision in a full factorial enumeration. The
+     * decision is ranked as a mixed-radix number where the first decision is
+     * the least significant digit.
+     *
+     * @param arch the architecture
+     * @param tag the tag of the decision to rank
+     * @return the rank of the decision
+     */
+    public static long rank(Architecture arch, String tag) {
+        int slot = arch.getDecisionSlot(tag);
+        Combining dec = (Combining) arch.getDecision(slot);
+        int[] values = new int[dec.getNumberOfVariables()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = arch.getInt(slot, index);
+        }
+        return Ranking.rankMixedRadix(values, dec.numAlternatives);
+    }
+
+    /**
+     * Sets the decision to the values with the given rank in a full factorial
+     * enumeration
+     *
+     * @param rank the rank of the decision
+     * @param arch the architecture
+     * @param tag the tag of the decision to change
+     */
+    public static void unrank(long rank, Architecture arch, String tag) {
+        int slot = arch.getDecisionSlot(tag);
+        Combining dec = (Combining) arch.getDecision(slot);
+        int[] values = new int[dec.getNumberOfVariables()];
+        Ranking.unrankMixedRadix(rank, dec.numAlternatives, values);
+        for (int index = 0; index < values.length; index++) {
+            arch.setInt(slot, index, values[index]);
+        }
     }
 
     /**
@@ -98,6 +134,17 @@ public class Combining implements ArchitecturalDecision, Serializable {
         return numAlternatives[index];
     }
 
+    /**
+     * Gets the number of unique designs of this decision
+     *
+     * @return the number of unique designs of this decision
+     * @throws ArithmeticException if the number of designs exceeds the range
+     * of a long
+     */
+    public long getNumberOfDesigns() {
+        return FullFactorial.countCombining(numAlternatives);
+    }
+
     @Override
     public DecisionPattern getPattern() {
         return COMBINING;
@@ -122,4 +169,80 @@ public class Combining implements ArchitecturalDecision, Serializable {
         return numAlternatives.length;
     }
 
+    /**
+     * Creates a handle to a combining decision
+     *
+     * @param layout the decision layout
+     * @param tag the tag of the decision
+     * @return the handle to the decision
+     */
+    public static Handle handle(DecisionLayout layout, String tag) {
+        return new Handle(layout, tag);
+    }
+
+    /**
+     * A precomputed reference to a combining decision
+     */
+    public static class Handle extends DecisionHandle {
+
+        private static final long serialVersionUID = 7746195400318220917L;
+
+        private final int[] numAlternatives;
+
+        private Handle(DecisionLayout layout, String tag) {
+            super(layout, tag, DecisionPattern.COMBINING);
+            this.numAlternatives = ((Combining) getDecision()).numAlternatives;
+        }
+
+        /**
+         * Sets the value of the specified decision. The alternative values are
+         * zero-indexed
+         *
+         * @param arch the architecture
+         * @param index the index of the decision
+         * @param value the value to set the decision at the given index
+         * @return the value before the change
+         */
+        public int setValue(Architecture arch, int index, int value) {
+            checkLayout(arch);
+            checkIndex(index, numAlternatives.length);
+            if (value < 0 || value >= numAlternatives[index]) {
+                throw new IllegalArgumentException(String.format("Cannot access value greater than %d. Tried accessesing %d.", numAlternatives[index], value));
+            }
+            return arch.setInt(slot, index, value);
+        }
+
+        /**
+         * Gets the value of the specified decision
+         *
+         * @param arch the architecture
+         * @param index the index of the decision
+         * @return the value of the decision at the given index
+         */
+        public int getValue(Architecture arch, int index) {
+            checkLayout(arch);
+            checkIndex(index, numAlternatives.length);
+            return arch.getInt(slot, index);
+        }
+
+        /**
+         * Gets the number of decisions in the combination
+         *
+         * @return the number of decisions in the combination
+         */
+        public int getNumberOfValues() {
+            return numAlternatives.length;
+        }
+
+        /**
+         * Returns the number of alternatives available for the specified
+         * decision
+         *
+         * @param index of the decision
+         * @return the number of alternatives
+         */
+        public int getNumberOfAlternatives(int index) {
+            return numAlternatives[index];
+        }
+    }
 }
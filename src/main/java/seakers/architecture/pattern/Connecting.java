@@ -6,6 +6,7 @@
 package seakers.architecture.pattern;
 
 import seakers.architecture.Architecture;
+import seakers.architecture.DecisionLayout;
 import java.io.Serializable;
 import java.util.ArrayList;
 import org.moeaframework.core.Variable;
@@ -16,6 +17,12 @@ import org.moeaframework.core.variable.BinaryVariable;
  * architecture fragment is defined by the set of edges in the graph, i.e. the
  * way of connecting those nodes.
  *
+ * An undirected graph is stored as a full adjacency matrix by default, in
+ * which connecting i and j sets both cells i,j and j,i. In triangular mode
+ * only the n(n-1)/2 edges i,j with i &lt; j are stored, ordered row by row, so
+ * the adjacency matrix is always symmetric and nodes cannot connect to
+ * themselves.
+ *
  * @author nozomihitomi
  */
 public class Connecting implements ArchitecturalDecision, Serializable {
@@ -34,6 +41,17 @@ public class Connecting implements ArchitecturalDecision, Serializable {
     
     private final String tag;
 
+    /**
+     * flag for if the adjacency matrix is packed into a single binary variable
+     */
+    private final boolean packed;
+
+    /**
+     * flag for if only the strict upper triangle of an undirected adjacency
+     * matrix is stored
+     */
+    private final boolean triangular;
+
     /**
      * This constructor creates a graph with no connected edges.
      *
@@ -42,9 +60,86 @@ public class Connecting implements ArchitecturalDecision, Serializable {
      * @param tag the tag of the decision
      */
     public Connecting(int nNodes, boolean isDirected, String tag) {
+        this(nNodes, isDirected, tag, false);
+    }
+
+    /**
+     * This constructor creates a graph with no connected edges. If packed, the
+     * whole adjacency matrix is encoded in a single binary variable with one
+     * bit per cell instead of one binary variable per cell.
+     *
+     * @param nNodes the number of nodes to include in the graph
+     * @param isDirected flag to determine if graph is directed
+     * @param tag the tag of the decision
+     * @param packed flag to encode the adjacency matrix in a single binary
+     * variable
+     */
+    public Connecting(int nNodes, boolean isDirected, String tag, boolean packed) {
+        this(nNodes, isDirected, tag, packed, false);
+    }
+
+    /**
+     * This constructor creates a graph with no connected edges. If triangular,
+     * the graph must be undirected and only the edges i,j with i &lt; j are
+     * stored.
+     *
+     * @param nNodes the number of nodes to include in the graph
+     * @param isDirected flag to determine if graph is directed
+     * @param tag the tag of the decision
+     * @param packed flag to encode the adjacency matrix in a single binary
+     * variable
+     * @param triangular flag to store only the strict upper triangle of the
+     * adjacency matrix
+     * @throws IllegalArgumentException if a directed graph is triangular
+     */
+    public Connecting(int nNodes, boolean isDirected, String tag, boolean packed, boolean triangular) {
+        if (isDirected && triangular) {
+            throw new IllegalArgumentException(String.format("Directed decision %s cannot be stored as a triangle", tag));
+        }
         this.isDirected = isDirected;
         this.nNodes = nNodes;
         this.tag = tag;
+        this.packed = packed;
+        this.triangular = triangular;
+    }
+
+    /**
+     * Gets the cell of the adjacency matrix that stores edge i,j
+     *
+     * @param i index of node i
+     * @param j index of node j
+     * @return the index of the cell or -1 if the edge is a self-loop of a
+     * triangular decision
+     */
+    int cellOf(int i, int j) {
+        if (!triangular) {
+            return i * nNodes + j;
+        }
+        if (i == j) {
+            return -1;
+        }
+        if (i > j) {
+            int tmp = i;
+            i = j;
+            j = tmp;
+        }
+        return i * (2 * nNodes - i - 1) / 2 + (j - i - 1);
+    }
+
+    /**
+     * Gets the cell that stores edge i,j and rejects self-loops of triangular
+     * decisions
+     *
+     * @param i index of node i
+     * @param j index of node j
+     * @return the index of the cell
+     */
+    private int writableCellOf(int i, int j) {
+        int cell = cellOf(i, j);
+        if (cell < 0) {
+            throw new IllegalArgumentException(String.format("Node %d cannot be connected to itself in decision %s", i, tag));
+        }
+        return cell;
     }
 
     /**
@@ -60,21 +155,19 @@ public class Connecting implements ArchitecturalDecision, Serializable {
      * True = connected. False = not connected.
      */
     public static boolean connect(int i, int j, Architecture arch, String tag) {
-        Connecting dec = (Connecting) arch.getDecision(tag);
+        int slot = arch.getDecisionSlot(tag);
+        Connecting dec = (Connecting) arch.getDecision(slot);
         if(i >= dec.getNumberOfNodes()){
             throw new IllegalArgumentException(String.format("Cannot access index greater than %d for decision %s", dec.getNumberOfNodes(), tag));
         }
         if(j >= dec.getNumberOfNodes()){
             throw new IllegalArgumentException(String.format("Cannot access index greater than %d for decision %s", dec.getNumberOfNodes(), tag));
         }
-        int index = arch.getDecisionIndex(tag);
         
-        BinaryVariable var = ((BinaryVariable) arch.getVariable(i * dec.getNumberOfNodes()+ j + index));
-        boolean out = var.get(0);
-        var.set(0, true);
+        boolean out = arch.setBit(slot, dec.writableCellOf(i, j), true);
         
-        if(!dec.isDirected()){
-            ((BinaryVariable) arch.getVariable(j * dec.getNumberOfNodes()+ i + index)).set(0, true);
+        if(!dec.isDirected() && !dec.isTriangular()){
+            arch.setBit(slot, j * dec.getNumberOfNodes() + i, true);
         }
         return out;
     }
@@ -93,21 +186,19 @@ public class Connecting implements ArchitecturalDecision, Serializable {
      * True = connected. False = not connected.
      */
     public static boolean disconnect(int i, int j, Architecture arch, String tag) {
-        Connecting dec = (Connecting) arch.getDecision(tag);
+        int slot = arch.getDecisionSlot(tag);
+        Connecting dec = (Connecting) arch.getDecision(slot);
         if(i >= dec.getNumberOfNodes()){
             throw new IllegalArgumentException(String.format("Cannot access index greater than %d for decision %s", dec.getNumberOfNodes(), tag));
         }
         if(j >= dec.getNumberOfNodes()){
             throw new IllegalArgumentException(String.format("Cannot access index greater than %d for decision %s", dec.getNumberOfNodes(), tag));
         }
-        int index = arch.getDecisionIndex(tag);
         
-        BinaryVariable var = ((BinaryVariable) arch.getVariable(i * dec.getNumberOfNodes()+ j + index));
-        boolean out = var.get(0);
-        var.set(0, false);
+        boolean out = arch.setBit(slot, dec.writableCellOf(i, j), false);
         
-        if(!dec.isDirected()){
-            ((BinaryVariable) arch.getVariable(j * dec.getNumberOfNodes()+ i + index)).set(0, false);
+        if(!dec.isDirected() && !dec.isTriangular()){
+            arch.setBit(slot, j * dec.getNumberOfNodes() + i, false);
         }
         return out;
     }
@@ -124,7 +215,8 @@ public class Connecting implements ArchitecturalDecision, Serializable {
      * hand side are assigned.
      */
     public static boolean isConnected(int i, int j, Architecture arch, String tag) {
-        Connecting dec = (Connecting) arch.getDecision(tag);
+        int slot = arch.getDecisionSlot(tag);
+        Connecting dec = (Connecting) arch.getDecision(slot);
         if(i >= dec.getNumberOfNodes()){
             throw new IllegalArgumentException(String.format("Cannot access index greater than %d for decision %s", dec.getNumberOfNodes(), tag));
         }
@@ -132,8 +224,117 @@ public class Connecting implements ArchitecturalDecision, Serializable {
             throw new IllegalArgumentException(String.format("Cannot access index greater than %d for decision %s", dec.getNumberOfNodes(), tag));
         }
         
-        int index = arch.getDecisionIndex(tag);
-        return ((BinaryVariable) arch.getVariable(i * dec.getNumberOfNodes()+ j + index)).get(0);
+        int cell = dec.cellOf(i, j);
+        return cell >= 0 && arch.getBit(slot, cell);
+    }
+
+    /**
+     * Computes the rank of the decision in a full factorial enumeration. The
+     * rank is the binary number where each edge is one bit. Edges are ordered
+     * row by row over the adjacency matrix. If undirected, only the edges i,j
+     * with i &lt;= j are ranked, or i &lt; j if triangular.
+     *
+     * @param arch the architecture
+     * @param tag the tag of the decision to rank
+     * @return the rank of the decision
+     */
+    public static long rank(Architecture arch, String tag) {
+        int slot = arch.getDecisionSlot(tag);
+        Connecting dec = (Connecting) arch.getDecision(slot);
+        BinaryCells.checkRankable(dec.getNumberOfEdges(), tag);
+        int n = dec.getNumberOfNodes();
+        long rank = 0;
+        if (dec.isTriangular()) {
+            //the stored cells are the edges in rank order
+            for (int cell = 0; cell < dec.getNumberOfEdges(); cell++) {
+                if (arch.getBit(slot, cell)) {
+                    rank |= 1L << cell;
+                }
+            }
+            return rank;
+        }
+        int bit = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = dec.isDirected() ? 0 : i; j < n; j++) {
+                if (arch.getBit(slot, i * n + j)) {
+                    rank |= 1L << bit;
+                }
+                bit++;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Sets the decision to the edges with the given rank in a full factorial
+     * enumeration
+     *
+     * @param rank the rank of the decision
+     * @param arch the architecture
+     * @param tag the tag of the decision to change
+     */
+    public static void unrank(long rank, Architecture arch, String tag) {
+        int slot = arch.getDecisionSlot(tag);
+        Connecting dec = (Connecting) arch.getDecision(slot);
+        BinaryCells.checkUnrankable(rank, dec.getNumberOfEdges(), tag);
+        int n = dec.getNumberOfNodes();
+        if (dec.isTriangular()) {
+            for (int cell = 0; cell < dec.getNumberOfEdges(); cell++) {
+                arch.setBit(slot, cell, (rank & (1L << cell)) != 0);
+            }
+            return;
+        }
+        int bit = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = dec.isDirected() ? 0 : i; j < n; j++) {
+                boolean value = (rank & (1L << bit)) != 0;
+                arch.setBit(slot, i * n + j, value);
+                if (!dec.isDirected()) {
+                    arch.setBit(slot, j * n + i, value);
+                }
+                bit++;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of independent edges of the graph. If undirected, the
+     * edges i,j and j,i are the same edge. If triangular, there are no
+     * self-loops.
+     *
+     * @return the number of independent edges of the graph
+     */
+    public int getNumberOfEdges() {
+        if (isDirected) {
+            return nNodes * nNodes;
+        }
+        if (triangular) {
+            return nNodes * (nNodes - 1) / 2;
+        }
+        return nNodes * (nNodes + 1) / 2;
+    }
+
+    /**
+     * Gets the number of stored cells of the adjacency matrix
+     *
+     * @return n(n-1)/2 if triangular. Else n*n
+     */
+    public int getNumberOfCells() {
+        if (triangular) {
+            return nNodes * (nNodes - 1) / 2;
+        }
+        return nNodes * nNodes;
+    }
+
+    /**
+     * Gets the number of unique designs of this decision
+     *
+     * @return the number of unique designs of this decision
+     * @throws ArithmeticException if the number of designs exceeds the range
+     * of a long
+     */
+    public long getNumberOfDesigns() {
+        return BinaryCells.countDesigns(getNumberOfEdges());
     }
 
     /**
@@ -152,6 +353,26 @@ public class Connecting implements ArchitecturalDecision, Serializable {
     public boolean isDirected() {
         return isDirected;
     }
+
+    /**
+     * Checks if the adjacency matrix is packed into a single binary variable
+     *
+     * @return true if the adjacency matrix is packed into a single binary
+     * variable. Else false.
+     */
+    public boolean isPacked() {
+        return packed;
+    }
+
+    /**
+     * Checks if only the strict upper triangle of the adjacency matrix is
+     * stored
+     *
+     * @return true if only the edges i,j with i &lt; j are stored. Else false.
+     */
+    public boolean isTriangular() {
+        return triangular;
+    }
     
 
     @Override
@@ -165,12 +386,20 @@ public class Connecting implements ArchitecturalDecision, Serializable {
     }
 
     /**
-     * In this implementation, binary variables are created and all are set to false
+     * In this implementation, binary variables are created and all are set to
+     * false. If packed, a single binary variable with one bit per cell of the
+     * adjacency matrix is created. If triangular, only the cells of the strict
+     * upper triangle are created.
+     *
      * @return a list of Binary variables set to false
      */
     @Override
     public ArrayList<Variable> getVariables() {
         ArrayList<Variable> out = new ArrayList<>(getNumberOfVariables());
+        if (packed) {
+            out.add(new BinaryVariable(getNumberOfCells()));
+            return out;
+        }
         for (int i = 0; i < getNumberOfVariables(); i++) {
             out.add(new BinaryVariable(1));
         }
@@ -179,7 +408,132 @@ public class Connecting implements ArchitecturalDecision, Serializable {
 
     @Override
     public int getNumberOfVariables() {
-        return nNodes * nNodes;
+        if (packed) {
+            return 1;
+        }
+        return getNumberOfCells();
+    }
+
+    /**
+     * Creates a handle to a connecting decision
+     *
+     * @param layout the decision layout
+     * @param tag the tag of the decision
+     * @return the handle to the decision
+     */
+    public static Handle handle(DecisionLayout layout, String tag) {
+        return new Handle(layout, tag);
     }
 
+    /**
+     * A precomputed reference to a connecting decision
+     */
+    public static class Handle extends DecisionHandle {
+
+        private static final long serialVersionUID = 3368219554121738052L;
+
+        private final int nNodes;
+
+        private final boolean directed;
+
+        private final boolean triangular;
+
+        private Handle(DecisionLayout layout, String tag) {
+            super(layout, tag, DecisionPattern.CONNECTING);
+            Connecting dec = (Connecting) getDecision();
+            this.nNodes = dec.getNumberOfNodes();
+            this.directed = dec.isDirected();
+            this.triangular = dec.isTriangular();
+        }
+
+        /**
+         * Connects nodes i and j. If undirected, both directions are
+         * connected.
+         *
+         * @param arch the architecture
+         * @param i index of node i
+         * @param j index of node j
+         * @return the value of the adjacency matrix in cell i,j before the
+         * change
+         */
+        public boolean connect(Architecture arch, int i, int j) {
+            return set(arch, i, j, true);
+        }
+
+        /**
+         * Disconnects nodes i and j. If undirected, both directions are
+         * disconnected.
+         *
+         * @param arch the architecture
+         * @param i index of node i
+         * @param j index of node j
+         * @return the value of the adjacency matrix in cell i,j before the
+         * change
+         */
+        public boolean disconnect(Architecture arch, int i, int j) {
+            return set(arch, i, j, false);
+        }
+
+        /**
+         * Sets the value of cell i,j of the adjacency matrix. If undirected,
+         * cell j,i is set as well. Self-loops cannot be set if triangular.
+         *
+         * @param arch the architecture
+         * @param i index of node i
+         * @param j index of node j
+         * @param value true to connect. false to disconnect
+         * @return the value of the adjacency matrix in cell i,j before the
+         * change
+         */
+        public boolean set(Architecture arch, int i, int j, boolean value) {
+            checkLayout(arch);
+            checkIndex(i, nNodes);
+            checkIndex(j, nNodes);
+            if (triangular) {
+                return arch.setBit(slot, ((Connecting) getDecision()).writableCellOf(i, j), value);
+            }
+            boolean out = arch.setBit(slot, i * nNodes + j, value);
+            if (!directed) {
+                arch.setBit(slot, j * nNodes + i, value);
+            }
+            return out;
+        }
+
+        /**
+         * Checks if node i is connected to node j
+         *
+         * @param arch the architecture
+         * @param i index of node i
+         * @param j index of node j
+         * @return true if node i is connected to node j
+         */
+        public boolean isConnected(Architecture arch, int i, int j) {
+            checkLayout(arch);
+            checkIndex(i, nNodes);
+            checkIndex(j, nNodes);
+            if (triangular) {
+                int cell = ((Connecting) getDecision()).cellOf(i, j);
+                return cell >= 0 && arch.getBit(slot, cell);
+            }
+            return arch.getBit(slot, i * nNodes + j);
+        }
+
+        /**
+         * Gets the number of nodes in the graph
+         *
+         * @return the number of nodes in the graph
+         */
+        public int getNumberOfNodes() {
+            return nNodes;
+        }
+
+        /**
+         * Checks if the graph is directed
+         *
+         * @return true if the graph is directed
+         */
+        public boolean isDirected() {
+            return directed;
+        }
+    }
 }
@@ -0,0 +1,135 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.pattern;
+
+import java.io.Serializable;
+import seakers.architecture.Architecture;
+import seakers.architecture.DecisionLayout;
+
+/**
+ * A precomputed reference to one decision of a decision layout. A handle is
+ * obtained once per problem, for example with
+ * {@link Assigning#handle(seakers.architecture.DecisionLayout, java.lang.String)},
+ * and resolves the tag, the slot and the dimensions of the decision up front
+ * so that reading and writing the decision in an architecture is pure index
+ * arithmetic. A handle can be used with any architecture whose decision
+ * layout equals the layout of the handle (see
+ * {@link DecisionLayout#equals(java.lang.Object)}), so a deserialized handle
+ * still works with the architectures of the running problem.
+ *
+ * @author nozomihitomi
+ */
+public abstract class DecisionHandle implements Serializable {
+
+    private static final long serialVersionUID = 2814395187735045861L;
+
+    /**
+     * The layout the decision belongs to
+     */
+    private final DecisionLayout layout;
+
+    /**
+     * The slot of the decision in the layout
+     */
+    protected final int slot;
+
+    /**
+     * The tag of the decision
+     */
+    private final String tag;
+
+    /**
+     * The last layout other than the layout of the handle found to be equal
+     * to it, so that the comparison is made once per layout
+     */
+    private transient volatile DecisionLayout matched;
+
+    /**
+     * Creates a handle to a decision
+     *
+     * @param layout the layout the decision belongs to
+     * @param tag the tag of the decision
+     * @param pattern the expected pattern of the decision
+     * @throws IllegalArgumentException if the layout has no decision with the
+     * tag or the decision does not have the expected pattern
+     */
+    protected DecisionHandle(DecisionLayout layout, String tag, DecisionPattern pattern) {
+        this.layout = layout;
+        this.slot = layout.getSlot(tag);
+        this.tag = tag;
+        if (layout.getDecision(slot).getPattern() != pattern) {
+            throw new IllegalArgumentException(String.format("Decision %s is not a %s decision", tag, pattern));
+        }
+    }
+
+    /**
+     * Checks that the decision layout of an architecture equals the layout of
+     * this handle. Equal layouts place the decision in the same slot with the
+     * same dimensions, so the precomputed indices apply to either layout.
+     *
+     * @param arch the architecture
+     * @throws IllegalArgumentException if the architecture has a different
+     * decision layout
+     */
+    protected final void checkLayout(Architecture arch) {
+        DecisionLayout other = arch.getLayout();
+        if (other == layout || other == matched) {
+            return;
+        }
+        if (!layout.equals(other)) {
+            throw new IllegalArgumentException(String.format("Architecture does not have the decision layout of the handle for decision %s", tag));
+        }
+        matched = other;
+    }
+
+    /**
+     * Checks that an index is within [0, size)
+     *
+     * @param index the index
+     * @param size the exclusive upper bound
+     */
+    protected final void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException(String.format("Cannot access index greater than %d for decision %s", size, tag));
+        }
+    }
+
+    /**
+     * Gets the layout the decision belongs to
+     *
+     * @return the layout the decision belongs to
+     */
+    public DecisionLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Gets the slot of the decision in the layout
+     *
+     * @return the slot of the decision
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Gets the tag of the decision
+     *
+     * @return the tag of the decision
+     */
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * Gets the decision this handle refers to
+     *
+     * @return the decision
+     */
+    public ArchitecturalDecision getDecision() {
+        return layout.getDecision(slot);
+    }
+}
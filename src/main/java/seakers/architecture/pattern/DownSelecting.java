@@ -6,6 +6,7 @@
 package seakers.architecture.pattern;
 
 import seakers.architecture.Architecture;
+import seakers.architecture.DecisionLayout;
 import java.io.Serializable;
 import java.util.ArrayList;
 import org.moeaframework.core.Variable;
@@ -26,6 +27,11 @@ public class DownSelecting implements ArchitecturalDecision, Serializable {
     
     private final int numberOfEntities;
 
+    /**
+     * flag for if the selections are packed into a single binary variable
+     */
+    private final boolean packed;
+
     /**
      * Creates a new downselecting decision where all entities are set to "not
      * selected". 
@@ -34,8 +40,23 @@ public class DownSelecting implements ArchitecturalDecision, Serializable {
      * @param tag the tag of the decision
      */
     public DownSelecting(int numberOfEntities, String tag) {
+        this(numberOfEntities, tag, false);
+    }
+
+    /**
+     * Creates a new downselecting decision where all entities are set to "not
+     * selected". If packed, the selections are encoded in a single binary
+     * variable with one bit per entity instead of one binary variable per
+     * entity.
+     *
+     * @param numberOfEntities the number of entities available to choose from
+     * @param tag the tag of the decision
+     * @param packed flag to encode the selections in a single binary variable
+     */
+    public DownSelecting(int numberOfEntities, String tag, boolean packed) {
         this.numberOfEntities = numberOfEntities;
         this.tag = tag;
+        this.packed = packed;
     }
     
     /**
@@ -47,16 +68,13 @@ public class DownSelecting implements ArchitecturalDecision, Serializable {
      * @return
      */
     public static boolean set(int index, boolean value, Architecture arch, String tag){
-        DownSelecting dec = (DownSelecting) arch.getDecision(tag);
-        if(index >= dec.getNumberOfVariables()){
-            throw new IllegalArgumentException(String.format("Cannot access index greater than %d for decision %s", dec.getNumberOfVariables(), tag));
+        int slot = arch.getDecisionSlot(tag);
+        DownSelecting dec = (DownSelecting) arch.getDecision(slot);
+        if(index >= dec.getNumberOfEntities()){
+            throw new IllegalArgumentException(String.format("Cannot access index greater than %d for decision %s", dec.getNumberOfEntities(), tag));
         }
         
-        int i = arch.getDecisionIndex(tag);
-        BinaryVariable var = ((BinaryVariable) arch.getVariable(i + index));
-        boolean out = var.get(0);
-        var.set(0, value);
-        return out;
+        return arch.setBit(slot, index, value);
     }
     
      /**
@@ -67,16 +85,83 @@ public class DownSelecting implements ArchitecturalDecision, Serializable {
      * @return
      */
     public static boolean getValue(int index, Architecture arch, String tag){
-        DownSelecting dec = (DownSelecting) arch.getDecision(tag);
-        if(index >= dec.getNumberOfVariables()){
-            throw new IllegalArgumentException(String.format("Cannot access index greater than %d for decision %s", dec.getNumberOfVariables(), tag));
+        int slot = arch.getDecisionSlot(tag);
+        DownSelecting dec = (DownSelecting) arch.getDecision(slot);
+        if(index >= dec.getNumberOfEntities()){
+            throw new IllegalArgumentException(String.format("Cannot access index greater than %d for decision %s", dec.getNumberOfEntities(), tag));
         }
         
-        int i = arch.getDecisionIndex(tag);
-        BinaryVariable var = ((BinaryVariable) arch.getVariable(i + index));
-        return var.get(0);
+        return arch.getBit(slot, index);
     }    
 
+    /**
+     * Computes the rank of the decision in a full factorial enumeration. The
+     * rank is the binary number where bit i is set if entity i is selected.
+     *
+     * @param arch the architecture
+     * @param tag the tag of the decision to rank
+     * @return the rank of the decision
+     */
+    public static long rank(Architecture arch, String tag) {
+        int slot = arch.getDecisionSlot(tag);
+        DownSelecting dec = (DownSelecting) arch.getDecision(slot);
+        BinaryCells.checkRankable(dec.getNumberOfEntities(), tag);
+        long rank = 0;
+        for (int index = 0; index < dec.getNumberOfEntities(); index++) {
+            if (arch.getBit(slot, index)) {
+                rank |= 1L << index;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Sets the decision to the selections with the given rank in a full
+     * factorial enumeration
+     *
+     * @param rank the rank of the decision
+     * @param arch the architecture
+     * @param tag the tag of the decision to change
+     */
+    public static void unrank(long rank, Architecture arch, String tag) {
+        int slot = arch.getDecisionSlot(tag);
+        DownSelecting dec = (DownSelecting) arch.getDecision(slot);
+        BinaryCells.checkUnrankable(rank, dec.getNumberOfEntities(), tag);
+        for (int index = 0; index < dec.getNumberOfEntities(); index++) {
+            arch.setBit(slot, index, (rank & (1L << index)) != 0);
+        }
+    }
+
+    /**
+     * Gets the number of unique designs of this decision
+     *
+     * @return the number of unique designs of this decision
+     * @throws ArithmeticException if the number of designs exceeds the range
+     * of a long
+     */
+    public long getNumberOfDesigns() {
+        return BinaryCells.countDesigns(numberOfEntities);
+    }
+
+    /**
+     * Gets the number of entities available to choose from
+     *
+     * @return the number of entities available to choose from
+     */
+    public int getNumberOfEntities() {
+        return numberOfEntities;
+    }
+
+    /**
+     * Checks if the selections are packed into a single binary variable
+     *
+     * @return true if the selections are packed into a single binary variable.
+     * Else false.
+     */
+    public boolean isPacked() {
+        return packed;
+    }
+
     @Override
     public DecisionPattern getPattern() {
         return DecisionPattern.DOWNSELECTING;
@@ -87,9 +172,20 @@ public class DownSelecting implements ArchitecturalDecision, Serializable {
         return this.tag;
     }
 
+    /**
+     * In this implementation, binary variables are created and all are set to
+     * false. If packed, a single binary variable with one bit per entity is
+     * created.
+     *
+     * @return a list of Binary variables set to false
+     */
     @Override
     public ArrayList<Variable> getVariables() {
-        ArrayList<Variable> out = new ArrayList<>(numberOfEntities);
+        ArrayList<Variable> out = new ArrayList<>(getNumberOfVariables());
+        if (packed) {
+            out.add(new BinaryVariable(numberOfEntities));
+            return out;
+        }
         for (int i = 0; i < numberOfEntities; i++) {
             out.add(new BinaryVariable(1));
         }
@@ -98,7 +194,71 @@ public class DownSelecting implements ArchitecturalDecision, Serializable {
 
     @Override
     public int getNumberOfVariables() {
+        if (packed) {
+            return 1;
+        }
         return numberOfEntities;
     }
 
+    /**
+     * Creates a handle to a downselecting decision
+     *
+     * @param layout the decision layout
+     * @param tag the tag of the decision
+     * @return the handle to the decision
+     */
+    public static Handle handle(DecisionLayout layout, String tag) {
+        return new Handle(layout, tag);
+    }
+
+    /**
+     * A precomputed reference to a downselecting decision
+     */
+    public static class Handle extends DecisionHandle {
+
+        private static final long serialVersionUID = -8417283012596531570L;
+
+        private final int nEntities;
+
+        private Handle(DecisionLayout layout, String tag) {
+            super(layout, tag, DecisionPattern.DOWNSELECTING);
+            this.nEntities = ((DownSelecting) getDecision()).getNumberOfEntities();
+        }
+
+        /**
+         * Selects or deselects an entity
+         *
+         * @param arch the architecture
+         * @param index the index of the entity
+         * @param value true to select. false to deselect
+         * @return the value before the change
+         */
+        public boolean set(Architecture arch, int index, boolean value) {
+            checkLayout(arch);
+            checkIndex(index, nEntities);
+            return arch.setBit(slot, index, value);
+        }
+
+        /**
+         * Checks if an entity is selected
+         *
+         * @param arch the architecture
+         * @param index the index of the entity
+         * @return true if the entity is selected
+         */
+        public boolean getValue(Architecture arch, int index) {
+            checkLayout(arch);
+            checkIndex(index, nEntities);
+            return arch.getBit(slot, index);
+        }
+
+        /**
+         * Gets the number of candidate entities
+         *
+         * @return the number of candidate entities
+         */
+        public int getNumberOfEntities() {
+            return nEntities;
+        }
+    }
 }
@@ -7,7 +7,12 @@ package seakers.architecture.pattern;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import org.moeaframework.core.Variable;
+import seakers.architecture.Architecture;
+import seakers.architecture.DecisionLayout;
+import seakers.architecture.enumeration.FullFactorial;
+import seakers.architecture.enumeration.Ranking;
 import seakers.architecture.util.IntegerVariable;
 
 /**
@@ -15,6 +20,12 @@ import seakers.architecture.util.IntegerVariable;
  * of all subsets is equivalent to the set and the intersection of all subsets
  * is the empty set
  *
+ * Each element is labeled with the number of its subset, so relabeling the
+ * subsets gives a different encoding of the same partition. Architectures
+ * compare and hash partitioning decisions by partition rather than by label,
+ * and {@link #canonicalize(Architecture)} rewrites the labels in the canonical
+ * restricted growth string form.
+ *
  * @author nozomihitomi
  */
 public class Partitioning implements ArchitecturalDecision, Serializable {
@@ -39,6 +50,153 @@ public class Partitioning implements ArchitecturalDecision, Serializable {
         this.tag = tag;
     }
 
+    /**
+     * Computes the lexicographic rank of the partition. The partition numbers
+     * are first relabeled in order of first appearance so that the rank
+     * identifies the partition regardless of how its subsets are numbered.
+     *
+     * @param arch the architecture
+     * @param tag the tag of the decision to rank
+     * @return the rank of the partition
+     */
+    public static long rank(Architecture arch, String tag) {
+        int slot = arch.getDecisionSlot(tag);
+        Partitioning dec = (Partitioning) arch.getDecision(slot);
+        int[] labels = new int[dec.getNumberOfVariables()];
+        readRestrictedGrowth(arch, slot, labels);
+        return Ranking.rankRestrictedGrowth(labels);
+    }
+
+    /**
+     * Sets the decision to the partition with the given lexicographic rank.
+     * The partition numbers are written as a restricted growth string.
+     *
+     * @param rank the rank of the partition
+     * @param arch the architecture
+     * @param tag the tag of the decision to change
+     */
+    public static void unrank(long rank, Architecture arch, String tag) {
+        int slot = arch.getDecisionSlot(tag);
+        Partitioning dec = (Partitioning) arch.getDecision(slot);
+        int[] labels = new int[dec.getNumberOfVariables()];
+        Ranking.unrankRestrictedGrowth(rank, labels);
+        for (int i = 0; i < labels.length; i++) {
+            arch.setInt(slot, i, labels[i]);
+        }
+    }
+
+    /**
+     * Reads the partition in a slot as a restricted growth string. The
+     * partition numbers are relabeled in order of first appearance so that the
+     * first element belongs to partition 0 and each new partition gets the
+     * next unused number. Two labelings of the same partition give the same
+     * string.
+     *
+     * @param arch the architecture
+     * @param slot the slot of the partitioning decision
+     * @param out the array to write the restricted growth string to. Must have
+     * one entry per element
+     */
+    public static void readRestrictedGrowth(Architecture arch, int slot, int[] out) {
+        int[] map = new int[out.length];
+        Arrays.fill(map, -1);
+        int next = 0;
+        for (int i = 0; i < out.length; i++) {
+            int label = arch.getInt(slot, i);
+            if (map[label] < 0) {
+                map[label] = next++;
+            }
+            out[i] = map[label];
+        }
+    }
+
+    /**
+     * Checks if the partition in a slot is already written as a restricted
+     * growth string
+     *
+     * @param arch the architecture
+     * @param slot the slot of the partitioning decision
+     * @return true if the partition numbers appear in increasing order of
+     * first appearance starting from 0
+     */
+    public static boolean isRestrictedGrowth(Architecture arch, int slot) {
+        int n = arch.getLayout().getNumberOfCells(slot);
+        int max = -1;
+        for (int i = 0; i < n; i++) {
+            int label = arch.getInt(slot, i);
+            if (label > max + 1) {
+                return false;
+            }
+            max = Math.max(max, label);
+        }
+        return true;
+    }
+
+    /**
+     * Rewrites the partition in a slot as a restricted growth string. Only
+     * the relabeled elements are written.
+     *
+     * @param arch the architecture
+     * @param slot the slot of the partitioning decision
+     * @return true if any element was relabeled
+     */
+    private static boolean canonicalize(Architecture arch, int slot) {
+        if (isRestrictedGrowth(arch, slot)) {
+            return false;
+        }
+        int[] labels = new int[arch.getLayout().getNumberOfCells(slot)];
+        readRestrictedGrowth(arch, slot, labels);
+        for (int i = 0; i < labels.length; i++) {
+            arch.setInt(slot, i, labels[i]);
+        }
+        return true;
+    }
+
+    /**
+     * Rewrites the partition as a restricted growth string so that every
+     * labeling of the same partition is stored the same way
+     *
+     * @param arch the architecture
+     * @param tag the tag of the decision to change
+     * @return true if any element was relabeled
+     */
+    public static boolean canonicalize(Architecture arch, String tag) {
+        int slot = arch.getDecisionSlot(tag);
+        if (!(arch.getDecision(slot) instanceof Partitioning)) {
+            throw new IllegalArgumentException(String.format("Decision %s is not a partitioning decision", tag));
+        }
+        return canonicalize(arch, slot);
+    }
+
+    /**
+     * Rewrites every partitioning decision of an architecture as a restricted
+     * growth string
+     *
+     * @param arch the architecture
+     * @return true if any element was relabeled
+     */
+    public static boolean canonicalize(Architecture arch) {
+        DecisionLayout layout = arch.getLayout();
+        boolean out = false;
+        for (int slot = 0; slot < layout.getNumberOfDecisions(); slot++) {
+            if (layout.getDecision(slot).getPattern() == DecisionPattern.PARTITIONING) {
+                out |= canonicalize(arch, slot);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Gets the number of unique partitions of this decision
+     *
+     * @return the number of unique partitions of this decision
+     * @throws ArithmeticException if the number of partitions exceeds the
+     * range of a long
+     */
+    public long getNumberOfDesigns() {
+        return FullFactorial.countOrderedPartitioning(nElements);
+    }
+
     @Override
     public DecisionPattern getPattern() {
         return DecisionPattern.PARTITIONING;
@@ -63,4 +221,79 @@ public class Partitioning implements ArchitecturalDecision, Serializable {
         return nElements;
     }
 
+    /**
+     * Creates a handle to a partitioning decision
+     *
+     * @param layout the decision layout
+     * @param tag the tag of the decision
+     * @return the handle to the decision
+     */
+    public static Handle handle(DecisionLayout layout, String tag) {
+        return new Handle(layout, tag);
+    }
+
+    /**
+     * A precomputed reference to a partitioning decision
+     */
+    public static class Handle extends DecisionHandle {
+
+        private static final long serialVersionUID = 1620471528930675542L;
+
+        private final int nElements;
+
+        private Handle(DecisionLayout layout, String tag) {
+            super(layout, tag, DecisionPattern.PARTITIONING);
+            this.nElements = getDecision().getNumberOfVariables();
+        }
+
+        /**
+         * Gets the number of the subset that an element belongs to
+         *
+         * @param arch the architecture
+         * @param i the element
+         * @return the number of the subset of the element
+         */
+        public int getValue(Architecture arch, int i) {
+            checkLayout(arch);
+            checkIndex(i, nElements);
+            return arch.getInt(slot, i);
+        }
+
+        /**
+         * Moves an element to a subset
+         *
+         * @param arch the architecture
+         * @param i the element
+         * @param subset the number of the subset, in [0, n-1]
+         * @return the number of the subset of the element before the change
+         */
+        public int setValue(Architecture arch, int i, int subset) {
+            checkLayout(arch);
+            checkIndex(i, nElements);
+            if (subset < 0 || subset >= nElements) {
+                throw new IllegalArgumentException(String.format("Cannot access value greater than %d. Tried accessesing %d.", nElements, subset));
+            }
+            return arch.setInt(slot, i, subset);
+        }
+
+        /**
+         * Rewrites the partition as a restricted growth string
+         *
+         * @param arch the architecture
+         * @return true if any element was relabeled
+         */
+        public boolean canonicalize(Architecture arch) {
+            checkLayout(arch);
+            return Partitioning.canonicalize(arch, slot);
+        }
+
+        /**
+         * Gets the number of elements in the partition
+         *
+         * @return the number of elements in the partition
+         */
+        public int getNumberOfElements() {
+            return nElements;
+        }
+    }
 }
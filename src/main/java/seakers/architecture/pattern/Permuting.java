@@ -6,9 +6,12 @@
 package seakers.architecture.pattern;
 
 import seakers.architecture.Architecture;
+import seakers.architecture.DecisionLayout;
 import java.io.Serializable;
 import java.util.ArrayList;
 import org.moeaframework.core.Variable;
+import seakers.architecture.enumeration.FullFactorial;
+import seakers.architecture.enumeration.Ranking;
 import seakers.architecture.util.IntegerVariable;
 
 /**
@@ -52,16 +55,60 @@ public class Permuting implements ArchitecturalDecision, Serializable {
      * or range @{code [0, size()-1]}
      */
     public static void swap(int i, int j, Architecture arch, String tag) {
-        Permuting dec = (Permuting) arch.getDecision(tag);
+        int slot = arch.getDecisionSlot(tag);
+        Permuting dec = (Permuting) arch.getDecision(slot);
         if(i >= dec.getNumberOfVariables() || j>= dec.getNumberOfVariables()){
             throw new IllegalArgumentException(String.format("Cannot access index greater than %d for decision %s", dec.getNumberOfVariables(), tag));
         }
         
-        int startIndex = arch.getDecisionIndex(tag);
-        Variable tmp1 = arch.getVariable(i+startIndex);
-        Variable tmp2 = arch.getVariable(j+startIndex);
-        arch.setVariable(i+startIndex, tmp2);
-        arch.setVariable(j+startIndex, tmp1);
+        int tmp = arch.getInt(slot, i);
+        arch.setInt(slot, i, arch.getInt(slot, j));
+        arch.setInt(slot, j, tmp);
+    }
+
+    /**
+     * Computes the lexicographic rank of the permutation from its Lehmer code
+     *
+     * @param arch the architecture
+     * @param tag the tag of the decision to rank
+     * @return the rank of the permutation
+     */
+    public static long rank(Architecture arch, String tag) {
+        int slot = arch.getDecisionSlot(tag);
+        Permuting dec = (Permuting) arch.getDecision(slot);
+        int[] values = new int[dec.getNumberOfVariables()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = arch.getInt(slot, i);
+        }
+        return Ranking.rankPermutation(values);
+    }
+
+    /**
+     * Sets the decision to the permutation with the given lexicographic rank
+     *
+     * @param rank the rank of the permutation
+     * @param arch the architecture
+     * @param tag the tag of the decision to change
+     */
+    public static void unrank(long rank, Architecture arch, String tag) {
+        int slot = arch.getDecisionSlot(tag);
+        Permuting dec = (Permuting) arch.getDecision(slot);
+        int[] values = new int[dec.getNumberOfVariables()];
+        Ranking.unrankPermutation(rank, values);
+        for (int i = 0; i < values.length; i++) {
+            arch.setInt(slot, i, values[i]);
+        }
+    }
+
+    /**
+     * Gets the number of unique permutations of this decision
+     *
+     * @return the number of unique permutations of this decision
+     * @throws ArithmeticException if the number of permutations exceeds the
+     * range of a long
+     */
+    public long getNumberOfDesigns() {
+        return FullFactorial.countPermuting(nElements);
     }
 
     @Override
@@ -88,4 +135,67 @@ public class Permuting implements ArchitecturalDecision, Serializable {
         return nElements;
     }
 
+    /**
+     * Creates a handle to a permuting decision
+     *
+     * @param layout the decision layout
+     * @param tag the tag of the decision
+     * @return the handle to the decision
+     */
+    public static Handle handle(DecisionLayout layout, String tag) {
+        return new Handle(layout, tag);
+    }
+
+    /**
+     * A precomputed reference to a permuting decision
+     */
+    public static class Handle extends DecisionHandle {
+
+        private static final long serialVersionUID = -2466137707957418301L;
+
+        private final int nElements;
+
+        private Handle(DecisionLayout layout, String tag) {
+            super(layout, tag, DecisionPattern.PERMUTING);
+            this.nElements = getDecision().getNumberOfVariables();
+        }
+
+        /**
+         * Gets the element in the given position of the permutation
+         *
+         * @param arch the architecture
+         * @param i the position
+         * @return the element in the position
+         */
+        public int get(Architecture arch, int i) {
+            checkLayout(arch);
+            checkIndex(i, nElements);
+            return arch.getInt(slot, i);
+        }
+
+        /**
+         * Swaps the ith and jth elements of the permutation
+         *
+         * @param arch the architecture
+         * @param i the first position
+         * @param j the second position
+         */
+        public void swap(Architecture arch, int i, int j) {
+            checkLayout(arch);
+            checkIndex(i, nElements);
+            checkIndex(j, nElements);
+            int tmp = arch.getInt(slot, i);
+            arch.setInt(slot, i, arch.getInt(slot, j));
+            arch.setInt(slot, j, tmp);
+        }
+
+        /**
+         * Gets the number of elements in the permutation
+         *
+         * @return the number of elements in the permutation
+         */
+        public int getNumberOfElements() {
+            return nElements;
+        }
+    }
 }
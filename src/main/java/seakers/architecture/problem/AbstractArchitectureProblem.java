@@ -0,0 +1,143 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.problem;
+
+import java.util.List;
+import org.moeaframework.problem.AbstractProblem;
+import seakers.architecture.Architecture;
+import seakers.architecture.CompactArchitecture;
+import seakers.architecture.DecisionLayout;
+import seakers.architecture.pattern.ArchitecturalDecision;
+
+/**
+ * Base class for system architecture problems. The decision layout and the
+ * default decision variables are built once in a prototype architecture and
+ * each new solution is a copy of the prototype. Subclasses implement
+ * {@link #evaluate(org.moeaframework.core.Solution)} and can override
+ * {@link #evaluateBatch(java.util.List)} or the batch hooks to share
+ * expensive setup, such as loading a simulation model, between the
+ * architectures of a batch.
+ *
+ * @author nozomihitomi
+ */
+public abstract class AbstractArchitectureProblem extends AbstractProblem implements SystemArchitectureProblem {
+
+    /**
+     * The architecture copied to create new solutions
+     */
+    private final Architecture prototype;
+
+    /**
+     * Creates a problem without constraints
+     *
+     * @param decisions the ordered architectural decisions
+     * @param numberOfObjectives the number of objectives
+     */
+    public AbstractArchitectureProblem(List<ArchitecturalDecision> decisions, int numberOfObjectives) {
+        this(decisions, numberOfObjectives, 0);
+    }
+
+    /**
+     * Creates a problem
+     *
+     * @param decisions the ordered architectural decisions
+     * @param numberOfObjectives the number of objectives
+     * @param numberOfConstraints the number of constraints
+     */
+    public AbstractArchitectureProblem(List<ArchitecturalDecision> decisions, int numberOfObjectives, int numberOfConstraints) {
+        this(decisions, numberOfObjectives, numberOfConstraints, false);
+    }
+
+    /**
+     * Creates a problem. If compact, new solutions are
+     * {@link CompactArchitecture}s that hold all decision values in a single
+     * flat genotype variable.
+     *
+     * @param decisions the ordered architectural decisions
+     * @param numberOfObjectives the number of objectives
+     * @param numberOfConstraints the number of constraints
+     * @param compact flag to create compact architectures
+     */
+    public AbstractArchitectureProblem(List<ArchitecturalDecision> decisions, int numberOfObjectives, int numberOfConstraints, boolean compact) {
+        this(createPrototype(new DecisionLayout(decisions), numberOfObjectives, numberOfConstraints, compact));
+    }
+
+    private AbstractArchitectureProblem(Architecture prototype) {
+        super(prototype.getNumberOfVariables(), prototype.getNumberOfObjectives(), prototype.getNumberOfConstraints());
+        this.prototype = prototype;
+    }
+
+    private static Architecture createPrototype(DecisionLayout layout, int numberOfObjectives, int numberOfConstraints, boolean compact) {
+        if (compact) {
+            return new CompactArchitecture(layout, numberOfObjectives, numberOfConstraints);
+        }
+        return new Architecture(layout, numberOfObjectives, numberOfConstraints);
+    }
+
+    @Override
+    public List<ArchitecturalDecision> getDecisions() {
+        return prototype.getLayout().getDecisions();
+    }
+
+    /**
+     * Gets the decision layout shared by all architectures of this problem
+     *
+     * @return the decision layout
+     */
+    public DecisionLayout getLayout() {
+        return prototype.getLayout();
+    }
+
+    /**
+     * Creates a new architecture by copying the variables of the prototype
+     * architecture. All decisions take their default values.
+     *
+     * @return a new architecture
+     */
+    @Override
+    public Architecture newSolution() {
+        return prototype.copy();
+    }
+
+    /**
+     * Evaluates a batch of architectures by calling {@link #beforeBatch},
+     * evaluating each architecture in order and then calling
+     * {@link #afterBatch}.
+     *
+     * @param architectures the architectures to evaluate
+     */
+    @Override
+    public void evaluateBatch(List<Architecture> architectures) {
+        beforeBatch(architectures);
+        try {
+            for (Architecture arch : architectures) {
+                evaluate(arch);
+            }
+        } finally {
+            afterBatch(architectures);
+        }
+    }
+
+    /**
+     * Called before the architectures of a batch are evaluated. The default
+     * implementation does nothing.
+     *
+     * @param architectures the architectures about to be evaluated
+     */
+    protected void beforeBatch(List<Architecture> architectures) {
+
+    }
+
+    /**
+     * Called after the architectures of a batch are evaluated, even if an
+     * evaluation failed. The default implementation does nothing.
+     *
+     * @param architectures the architectures that were evaluated
+     */
+    protected void afterBatch(List<Architecture> architectures) {
+
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.problem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import org.moeaframework.core.FrameworkException;
+import org.moeaframework.core.Solution;
+import seakers.architecture.Architecture;
+import seakers.architecture.pattern.ArchitecturalDecision;
+import seakers.architecture.util.ArchitectureKey;
+
+/**
+ * Decorates a problem so that the objectives and constraints of each unique
+ * architecture are only computed once. Evaluations are memoized in an
+ * {@link EvaluationCache} keyed on the values of the decision variables. If
+ * several threads evaluate the same architecture at the same time, only one of
+ * them calls the underlying problem and the others wait for its result.
+ *
+ * @author nozomihitomi
+ */
+public class CachingProblem implements SystemArchitectureProblem {
+
+    /**
+     * The decorated problem
+     */
+    private final SystemArchitectureProblem problem;
+
+    /**
+     * The cache of evaluations
+     */
+    private final EvaluationCache cache;
+
+    /**
+     * Evaluations that are currently being computed
+     */
+    private final ConcurrentHashMap<ArchitectureKey, CompletableFuture<EvaluationCache.CachedEvaluation>> inFlight;
+
+    /**
+     * Creates a caching problem with a new cache
+     *
+     * @param problem the problem to decorate
+     * @param maximumSize the maximum number of cached evaluations
+     */
+    public CachingProblem(SystemArchitectureProblem problem, long maximumSize) {
+        this(problem, new EvaluationCache(maximumSize));
+    }
+
+    /**
+     * Creates a caching problem with an existing cache. The cache may be
+     * shared by several problems only if they compute the same objectives and
+     * constraints.
+     *
+     * @param problem the problem to decorate
+     * @param cache the cache of evaluations
+     */
+    public CachingProblem(SystemArchitectureProblem problem, EvaluationCache cache) {
+        this.problem = problem;
+        this.cache = cache;
+        this.inFlight = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void evaluate(Solution solution) {
+        ArchitectureKey key = ArchitectureKey.of(solution);
+        EvaluationCache.CachedEvaluation entry = cache.get(key);
+        if (entry != null) {
+            entry.copyTo(solution);
+            return;
+        }
+
+        CompletableFuture<EvaluationCache.CachedEvaluation> future = new CompletableFuture<>();
+        CompletableFuture<EvaluationCache.CachedEvaluation> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            //another thread is evaluating the same architecture
+            await(existing).copyTo(solution);
+            return;
+        }
+
+        try {
+            problem.evaluate(solution);
+            complete(key, future, solution);
+        } catch (RuntimeException | Error ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    /**
+     * Evaluates a batch of architectures. Only the architectures that are not
+     * cached, and are not duplicates of another architecture in the batch or
+     * of an evaluation in progress, are passed on to the decorated problem as
+     * one batch.
+     *
+     * @param architectures the architectures to evaluate
+     */
+    @Override
+    public void evaluateBatch(List<Architecture> architectures) {
+        List<Architecture> misses = new ArrayList<>();
+        List<ArchitectureKey> missKeys = new ArrayList<>();
+        List<CompletableFuture<EvaluationCache.CachedEvaluation>> missFutures = new ArrayList<>();
+        List<Architecture> waiting = new ArrayList<>();
+        List<CompletableFuture<EvaluationCache.CachedEvaluation>> waitingFutures = new ArrayList<>();
+
+        for (Architecture arch : architectures) {
+            ArchitectureKey key = ArchitectureKey.of(arch);
+            EvaluationCache.CachedEvaluation entry = cache.get(key);
+            if (entry != null) {
+                entry.copyTo(arch);
+                continue;
+            }
+            CompletableFuture<EvaluationCache.CachedEvaluation> future = new CompletableFuture<>();
+            CompletableFuture<EvaluationCache.CachedEvaluation> existing = inFlight.putIfAbsent(key, future);
+            if (existing != null) {
+                waiting.add(arch);
+                waitingFutures.add(existing);
+            } else {
+                misses.add(arch);
+                missKeys.add(key);
+                missFutures.add(future);
+            }
+        }
+
+        try {
+            if (!misses.isEmpty()) {
+                problem.evaluateBatch(misses);
+            }
+            for (int i = 0; i < misses.size(); i++) {
+                complete(missKeys.get(i), missFutures.get(i), misses.get(i));
+            }
+        } catch (RuntimeException | Error ex) {
+            for (CompletableFuture<EvaluationCache.CachedEvaluation> future : missFutures) {
+                future.completeExceptionally(ex);
+            }
+            throw ex;
+        } finally {
+            for (ArchitectureKey key : missKeys) {
+                inFlight.remove(key);
+            }
+        }
+
+        for (int i = 0; i < waiting.size(); i++) {
+            await(waitingFutures.get(i)).copyTo(waiting.get(i));
+        }
+    }
+
+    /**
+     * Caches the evaluation of a solution and hands it to any waiting threads
+     *
+     * @param key the key of the solution
+     * @param future the future other threads may be waiting on
+     * @param solution the evaluated solution
+     */
+    private void complete(ArchitectureKey key, CompletableFuture<EvaluationCache.CachedEvaluation> future, Solution solution) {
+        EvaluationCache.CachedEvaluation entry = new EvaluationCache.CachedEvaluation(solution.getObjectives(), solution.getConstraints());
+        cache.put(key, entry);
+        future.complete(entry);
+    }
+
+    /**
+     * Waits for an evaluation computed by another thread
+     *
+     * @param future the evaluation
+     * @return the evaluation
+     */
+    private static EvaluationCache.CachedEvaluation await(CompletableFuture<EvaluationCache.CachedEvaluation> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new FrameworkException(ex);
+        } catch (ExecutionException ex) {
+            throw new FrameworkException(ex.getCause());
+        }
+    }
+
+    /**
+     * Gets the cache of evaluations
+     *
+     * @return the cache of evaluations
+     */
+    public EvaluationCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Gets the decorated problem
+     *
+     * @return the decorated problem
+     */
+    public SystemArchitectureProblem getProblem() {
+        return problem;
+    }
+
+    @Override
+    public List<ArchitecturalDecision> getDecisions() {
+        return problem.getDecisions();
+    }
+
+    @Override
+    public String getName() {
+        return problem.getName();
+    }
+
+    @Override
+    public int getNumberOfVariables() {
+        return problem.getNumberOfVariables();
+    }
+
+    @Override
+    public int getNumberOfObjectives() {
+        return problem.getNumberOfObjectives();
+    }
+
+    @Override
+    public int getNumberOfConstraints() {
+        return problem.getNumberOfConstraints();
+    }
+
+    @Override
+    public Solution newSolution() {
+        return problem.newSolution();
+    }
+
+    @Override
+    public void close() {
+        problem.close();
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.problem;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import org.moeaframework.core.Solution;
+import seakers.architecture.util.ArchitectureKey;
+
+/**
+ * A thread-safe, size-bounded cache of the objectives and constraints of
+ * evaluated architectures. Entries are evicted in least recently used order.
+ * The cache is split into independently locked segments so that parallel
+ * evaluators rarely contend for the same lock.
+ *
+ * @author nozomihitomi
+ */
+public class EvaluationCache {
+
+    /**
+     * The independently locked segments
+     */
+    private final Segment[] segments;
+
+    /**
+     * The maximum number of entries in the cache
+     */
+    private final long maximumSize;
+
+    private final LongAdder hits;
+
+    private final LongAdder misses;
+
+    private final LongAdder evictions;
+
+    /**
+     * Creates a cache with one segment per available processor
+     *
+     * @param maximumSize the maximum number of entries in the cache
+     */
+    public EvaluationCache(long maximumSize) {
+        this(maximumSize, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a cache
+     *
+     * @param maximumSize the maximum number of entries in the cache
+     * @param nSegments the number of independently locked segments
+     */
+    public EvaluationCache(long maximumSize, int nSegments) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("The maximum size of the cache must be positive");
+        }
+        if (nSegments <= 0) {
+            throw new IllegalArgumentException("The number of segments must be positive");
+        }
+        //no point in having more segments than entries
+        nSegments = (int) Math.min(nSegments, maximumSize);
+        this.maximumSize = maximumSize;
+        this.segments = new Segment[nSegments];
+        for (int i = 0; i < nSegments; i++) {
+            //spread the capacity so the segments add up to the maximum size
+            long capacity = maximumSize / nSegments + (i < maximumSize % nSegments ? 1 : 0);
+            segments[i] = new Segment(capacity);
+        }
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+    }
+
+    /**
+     * Gets the cached evaluation of an architecture and records a hit or miss
+     *
+     * @param key the key of the architecture
+     * @return the cached evaluation or null if the architecture is not cached
+     */
+    public CachedEvaluation get(ArchitectureKey key) {
+        Segment segment = segmentFor(key);
+        CachedEvaluation out;
+        synchronized (segment) {
+            out = segment.get(key);
+        }
+        if (out == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return out;
+    }
+
+    /**
+     * Caches the evaluation of an architecture
+     *
+     * @param key the key of the architecture
+     * @param entry the evaluation
+     */
+    public void put(ArchitectureKey key, CachedEvaluation entry) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, entry);
+        }
+    }
+
+    /**
+     * Caches the objectives and constraints of an evaluated solution
+     *
+     * @param key the key of the solution
+     * @param solution the evaluated solution
+     */
+    public void put(ArchitectureKey key, Solution solution) {
+        put(key, new CachedEvaluation(solution.getObjectives(), solution.getConstraints()));
+    }
+
+    /**
+     * Removes all entries from the cache. The hit and miss counters are not
+     * reset.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of entries in the cache
+     *
+     * @return the number of entries in the cache
+     */
+    public long size() {
+        long out = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                out += segment.size();
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Gets the maximum number of entries in the cache
+     *
+     * @return the maximum number of entries in the cache
+     */
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Gets the number of lookups that found a cached evaluation
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that did not find a cached evaluation
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of entries evicted to respect the maximum size
+     *
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the fraction of lookups that found a cached evaluation
+     *
+     * @return the hit rate or 0 if there were no lookups
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    private Segment segmentFor(ArchitectureKey key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[Math.floorMod(h, segments.length)];
+    }
+
+    /**
+     * A least recently used map with a fixed capacity
+     */
+    private class Segment extends LinkedHashMap<ArchitectureKey, CachedEvaluation> {
+
+        private static final long serialVersionUID = -6473209186725281945L;
+
+        private final long capacity;
+
+        Segment(long capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ArchitectureKey, CachedEvaluation> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The cached objectives and constraints of an architecture
+     */
+    public static final class CachedEvaluation {
+
+        private final double[] objectives;
+
+        private final double[] constraints;
+
+        /**
+         * Creates an entry. The arrays are copied.
+         *
+         * @param objectives the objective values
+         * @param constraints the constraint values
+         */
+        public CachedEvaluation(double[] objectives, double[] constraints) {
+            this.objectives = objectives.clone();
+            this.constraints = constraints.clone();
+        }
+
+        /**
+         * Copies the cached objectives and constraints into a solution
+         *
+         * @param solution the solution to update
+         */
+        public void copyTo(Solution solution) {
+            solution.setObjectives(objectives);
+            solution.setConstraints(constraints);
+        }
+
+        /**
+         * Gets a copy of the cached objective values
+         *
+         * @return the cached objective values
+         */
+        public double[] getObjectives() {
+            return objectives.clone();
+        }
+
+        /**
+         * Gets a copy of the cached constraint values
+         *
+         * @return the cached constraint values
+         */
+        public double[] getConstraints() {
+            return constraints.clone();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.problem;
+
+import java.util.List;
+import org.moeaframework.core.Solution;
+import seakers.architecture.Architecture;
+import seakers.architecture.pattern.ArchitecturalDecision;
+
+/**
+ * Base class for problems whose evaluation can reuse the partial results of a
+ * previously evaluated architecture. Each evaluation leaves a state, for
+ * example the cost of each subsystem, on the architecture. Copies of the
+ * architecture made by the variation operators inherit that state together
+ * with the record of which decisions they changed, so the offspring can be
+ * evaluated by only recomputing the partial results that depend on the
+ * changed decisions (see {@link Architecture#isDirty(int)} and
+ * {@link Architecture#nextDirtySlot(int)}). Architectures without a state,
+ * such as new or deserialized architectures, are evaluated in full.
+ *
+ * The variation operators of the MOEA framework modify the decision variables
+ * in place without recording the changes. So by default the genotype of each
+ * evaluated architecture is kept with its state, and the offspring are
+ * compared with it before the incremental evaluation. If every operator
+ * writes through the cell methods of the architecture, as the
+ * {@link seakers.architecture.operators.DecisionVariation},
+ * {@link seakers.architecture.operators.CellCrossover} and
+ * {@link seakers.architecture.operators.CellMutation} operators do, the
+ * comparison can be skipped with {@link #setTrustTrackedChanges(boolean)}.
+ *
+ * @author nozomihitomi
+ * @param <S> the type of the evaluation state. States are shared between
+ * copies of an architecture and must not be modified once returned
+ */
+public abstract class IncrementalArchitectureProblem<S> extends AbstractArchitectureProblem {
+
+    /**
+     * The state of an evaluated architecture and its genotype
+     */
+    private static final class Evaluated<S> {
+
+        private final S state;
+
+        /**
+         * The genotype of the evaluated architecture. Null if the changes of
+         * its offspring are trusted
+         */
+        private final int[] genotype;
+
+        private Evaluated(S state, int[] genotype) {
+            this.state = state;
+            this.genotype = genotype;
+        }
+    }
+
+    /**
+     * Flag to record the changed cells of each decision of new architectures
+     */
+    private final boolean cellTracking;
+
+    /**
+     * Flag to trust the changes recorded by the architectures instead of
+     * comparing them with the genotype of their parent
+     */
+    private volatile boolean trustTrackedChanges;
+
+    /**
+     * Creates a problem that only records which decisions changed
+     *
+     * @param decisions the ordered architectural decisions
+     * @param numberOfObjectives the number of objectives
+     * @param numberOfConstraints the number of constraints
+     */
+    public IncrementalArchitectureProblem(List<ArchitecturalDecision> decisions, int numberOfObjectives, int numberOfConstraints) {
+        this(decisions, numberOfObjectives, numberOfConstraints, false, false);
+    }
+
+    /**
+     * Creates a problem
+     *
+     * @param decisions the ordered architectural decisions
+     * @param numberOfObjectives the number of objectives
+     * @param numberOfConstraints the number of constraints
+     * @param compact flag to create compact architectures
+     * @param cellTracking flag to also record the changed cells of each
+     * decision
+     */
+    public IncrementalArchitectureProblem(List<ArchitecturalDecision> decisions, int numberOfObjectives, int numberOfConstraints, boolean compact, boolean cellTracking) {
+        super(decisions, numberOfObjectives, numberOfConstraints, compact);
+        this.cellTracking = cellTracking;
+    }
+
+    /**
+     * Creates a new architecture with all decisions at their default values
+     * and without an evaluation state
+     *
+     * @return a new architecture
+     */
+    @Override
+    public Architecture newSolution() {
+        Architecture out = super.newSolution();
+        out.setCellTracking(cellTracking);
+        return out;
+    }
+
+    /**
+     * Sets whether the changes recorded by the architectures are trusted.
+     * Only trust them if every operator applied to the architectures writes
+     * through their cell methods or marks the decisions it changes as dirty.
+     * Otherwise the incremental evaluations reuse stale partial results.
+     * Defaults to false.
+     *
+     * @param trust true to skip the comparison of each architecture with the
+     * genotype of its parent
+     */
+    public void setTrustTrackedChanges(boolean trust) {
+        this.trustTrackedChanges = trust;
+    }
+
+    /**
+     * Checks whether the changes recorded by the architectures are trusted
+     *
+     * @return true if the changes recorded by the architectures are trusted
+     */
+    public boolean isTrustTrackedChanges() {
+        return trustTrackedChanges;
+    }
+
+    /**
+     * Evaluates an architecture in full if it has no evaluation state or
+     * incrementally from its state otherwise. Unless the recorded changes are
+     * trusted, the cells that differ from the genotype of the evaluated
+     * parent are marked as changed first. The new state is stored on the
+     * architecture and its changes are cleared.
+     *
+     * @param solution the architecture to evaluate
+     */
+    @Override
+    public void evaluate(Solution solution) {
+        Architecture arch = (Architecture) solution;
+        boolean trust = trustTrackedChanges;
+        S previous = null;
+        if (arch.getEvaluationState() instanceof Evaluated) {
+            @SuppressWarnings("unchecked")
+            Evaluated<S> evaluated = (Evaluated<S>) arch.getEvaluationState();
+            if (evaluated.genotype != null) {
+                arch.markChangesFrom(evaluated.genotype);
+                previous = evaluated.state;
+            } else if (trust) {
+                previous = evaluated.state;
+            }
+        }
+        S state;
+        if (previous == null) {
+            state = evaluateFull(arch);
+        } else {
+            state = evaluateIncremental(arch, previous);
+        }
+        int[] genotype = null;
+        if (!trust) {
+            genotype = new int[arch.getLayout().getNumberOfWords()];
+            arch.readGenotype(genotype);
+        }
+        arch.setEvaluationState(new Evaluated<>(state, genotype));
+        arch.clearChanges();
+    }
+
+    /**
+     * Computes the objectives and constraints of an architecture from scratch
+     *
+     * @param arch the architecture to evaluate
+     * @return the evaluation state of the architecture
+     */
+    protected abstract S evaluateFull(Architecture arch);
+
+    /**
+     * Computes the objectives and constraints of an architecture that differs
+     * from a previously evaluated architecture only in the decisions marked as
+     * changed. The given state must not be modified. Return a new state
+     * instead.
+     *
+     * @param arch the architecture to evaluate
+     * @param previous the evaluation state of the previously evaluated
+     * architecture
+     * @return the evaluation state of the architecture
+     */
+    protected abstract S evaluateIncremental(Architecture arch, S previous);
+}
@@ -0,0 +1,138 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.problem;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import org.moeaframework.core.Solution;
+import seakers.architecture.Architecture;
+import seakers.architecture.pattern.ArchitecturalDecision;
+import seakers.architecture.util.LatencyHistogram;
+import seakers.architecture.util.SearchMetrics;
+
+/**
+ * Decorates a problem so that the time of every evaluation is recorded in a
+ * {@link SearchMetrics} registry. Single evaluations are recorded in the
+ * "evaluation" histogram. A batch is timed as a whole and each of its
+ * architectures is recorded with the mean time of the batch, so batches do
+ * not hide the cost of the architectures they evaluate. The "evaluation.batch"
+ * histogram records the time of each batch.
+ *
+ * @author nozomihitomi
+ */
+public class InstrumentedProblem implements SystemArchitectureProblem {
+
+    /**
+     * The decorated problem
+     */
+    private final SystemArchitectureProblem problem;
+
+    /**
+     * The time of each architecture
+     */
+    private final LatencyHistogram evaluations;
+
+    /**
+     * The time of each batch
+     */
+    private final LatencyHistogram batches;
+
+    /**
+     * The number of evaluations that threw an exception
+     */
+    private final LongAdder failures;
+
+    /**
+     * Creates an instrumented problem
+     *
+     * @param problem the problem to decorate
+     * @param metrics the registry to record the evaluation times in
+     */
+    public InstrumentedProblem(SystemArchitectureProblem problem, SearchMetrics metrics) {
+        this.problem = problem;
+        this.evaluations = metrics.histogram("evaluation");
+        this.batches = metrics.histogram("evaluation.batch");
+        this.failures = metrics.counter("evaluation.failures");
+    }
+
+    @Override
+    public void evaluate(Solution solution) {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            problem.evaluate(solution);
+            ok = true;
+        } finally {
+            evaluations.record(System.nanoTime() - start);
+            if (!ok) {
+                failures.increment();
+            }
+        }
+    }
+
+    @Override
+    public void evaluateBatch(List<Architecture> architectures) {
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            problem.evaluateBatch(architectures);
+            ok = true;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            batches.record(elapsed);
+            if (!architectures.isEmpty()) {
+                evaluations.record(elapsed / architectures.size(), architectures.size());
+            }
+            if (!ok) {
+                failures.increment();
+            }
+        }
+    }
+
+    /**
+     * Gets the decorated problem
+     *
+     * @return the decorated problem
+     */
+    public SystemArchitectureProblem getProblem() {
+        return problem;
+    }
+
+    @Override
+    public List<ArchitecturalDecision> getDecisions() {
+        return problem.getDecisions();
+    }
+
+    @Override
+    public String getName() {
+        return problem.getName();
+    }
+
+    @Override
+    public int getNumberOfVariables() {
+        return problem.getNumberOfVariables();
+    }
+
+    @Override
+    public int getNumberOfObjectives() {
+        return problem.getNumberOfObjectives();
+    }
+
+    @Override
+    public int getNumberOfConstraints() {
+        return problem.getNumberOfConstraints();
+    }
+
+    @Override
+    public Solution newSolution() {
+        return problem.newSolution();
+    }
+
+    @Override
+    public void close() {
+        problem.close();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.problem;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.moeaframework.core.Solution;
+import seakers.architecture.Architecture;
+import seakers.architecture.io.EvaluationLog;
+import seakers.architecture.pattern.ArchitecturalDecision;
+
+/**
+ * Decorates a problem so that every evaluated architecture is recorded in an
+ * {@link EvaluationLog}, including architectures that are later discarded by
+ * the search. Logging does not wait for the disk. Records are dropped if the
+ * log falls behind. If the log fails, the failure is logged once and every
+ * later record is dropped while the evaluations go on (see
+ * {@link #getDroppedCount()}). To only log
+ * architectures that are actually evaluated, decorate the logging problem
+ * with a {@link CachingProblem} rather than the other way around.
+ *
+ * @author nozomihitomi
+ */
+public class LoggingProblem implements SystemArchitectureProblem {
+
+    /**
+     * The decorated problem
+     */
+    private final SystemArchitectureProblem problem;
+
+    /**
+     * The log of evaluated architectures
+     */
+    private final EvaluationLog log;
+
+    /**
+     * Flag for if the log failed or was closed
+     */
+    private final AtomicBoolean failed;
+
+    /**
+     * The number of records dropped because the log failed or was closed
+     */
+    private final LongAdder dropped;
+
+    /**
+     * Creates a logging problem. The log is closed when this problem is
+     * closed.
+     *
+     * @param problem the problem to decorate
+     * @param log the log of evaluated architectures
+     */
+    public LoggingProblem(SystemArchitectureProblem problem, EvaluationLog log) {
+        this.problem = problem;
+        this.log = log;
+        this.failed = new AtomicBoolean(false);
+        this.dropped = new LongAdder();
+    }
+
+    @Override
+    public void evaluate(Solution solution) {
+        problem.evaluate(solution);
+        record(solution);
+    }
+
+    @Override
+    public void evaluateBatch(List<Architecture> architectures) {
+        problem.evaluateBatch(architectures);
+        for (Architecture arch : architectures) {
+            record(arch);
+        }
+    }
+
+    /**
+     * Queues an evaluated architecture in the log. Once the log has failed or
+     * been closed the architecture is dropped instead
+     *
+     * @param solution the evaluated architecture
+     */
+    private void record(Solution solution) {
+        if (failed.get()) {
+            dropped.increment();
+            return;
+        }
+        try {
+            log.offer(solution);
+        } catch (IllegalStateException ex) {
+            dropped.increment();
+            if (failed.compareAndSet(false, true)) {
+                Logger.getLogger(LoggingProblem.class.getName()).log(Level.SEVERE,
+                        "Evaluation log is unavailable. Later evaluations are not logged", ex);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of evaluated architectures that were not logged, either
+     * because the log fell behind or because it failed or was closed
+     *
+     * @return the number of dropped records
+     */
+    public long getDroppedCount() {
+        return log.getDroppedCount() + dropped.sum();
+    }
+
+    /**
+     * Gets the log of evaluated architectures
+     *
+     * @return the log of evaluated architectures
+     */
+    public EvaluationLog getLog() {
+        return log;
+    }
+
+    /**
+     * Gets the decorated problem
+     *
+     * @return the decorated problem
+     */
+    public SystemArchitectureProblem getProblem() {
+        return problem;
+    }
+
+    @Override
+    public List<ArchitecturalDecision> getDecisions() {
+        return problem.getDecisions();
+    }
+
+    @Override
+    public String getName() {
+        return problem.getName();
+    }
+
+    @Override
+    public int getNumberOfVariables() {
+        return problem.getNumberOfVariables();
+    }
+
+    @Override
+    public int getNumberOfObjectives() {
+        return problem.getNumberOfObjectives();
+    }
+
+    @Override
+    public int getNumberOfConstraints() {
+        return problem.getNumberOfConstraints();
+    }
+
+    @Override
+    public Solution newSolution() {
+        return problem.newSolution();
+    }
+
+    /**
+     * Closes the decorated problem and the log. Failures to write the log
+     * are logged rather than thrown.
+     */
+    @Override
+    public void close() {
+        try {
+            log.close();
+        } catch (IOException ex) {
+            Logger.getLogger(LoggingProblem.class.getName()).log(Level.SEVERE, null, ex);
+        } finally {
+            problem.close();
+        }
+    }
+}
@@ -0,0 +1,453 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.problem;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.moeaframework.core.FrameworkException;
+import org.moeaframework.core.Problem;
+import org.moeaframework.core.Solution;
+
+/**
+ * Evaluates solutions concurrently on a pool of threads. Each concurrent
+ * evaluation borrows its own problem instance from a pool filled on demand by a
+ * factory, so simulators that are not thread-safe are never shared between
+ * threads. Results are written into the given solutions, so the order of the
+ * results does not depend on the order in which evaluations complete.
+ * Evaluations that exceed the optional timeout are abandoned and their
+ * solutions are marked with infinite objective and constraint values and the
+ * {@link #TIMEOUT_ATTRIBUTE} attribute. The interrupt may leave the problem
+ * instance of an abandoned evaluation in an inconsistent state, so the
+ * instance is closed and discarded instead of returned to the pool, and the
+ * factory creates a new instance when one is needed. A factory that returns
+ * the same instance every time should only be combined with a timeout if
+ * closing the instance does not make it unusable.
+ *
+ * @author nozomihitomi
+ */
+public class ParallelEvaluator implements AutoCloseable {
+
+    /**
+     * The attribute set to true on solutions whose evaluation timed out
+     */
+    public static final String TIMEOUT_ATTRIBUTE = "timedOut";
+
+    /**
+     * The kind of threads that run the evaluations
+     */
+    public enum ThreadMode {
+
+        /**
+         * A work-stealing pool of platform threads
+         */
+        PLATFORM,
+        /**
+         * One virtual thread per evaluation. Falls back to platform threads
+         * if the runtime does not support virtual threads.
+         */
+        VIRTUAL
+    }
+
+    /**
+     * Creates problem instances for the threads
+     */
+    private final Supplier<? extends Problem> problemFactory;
+
+    /**
+     * Runs the evaluations
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Flag for if the executor is shut down when this evaluator is closed
+     */
+    private final boolean ownsExecutor;
+
+    /**
+     * Limits the number of concurrent evaluations
+     */
+    private final Semaphore permits;
+
+    /**
+     * Problem instances not currently in use
+     */
+    private final Queue<Problem> idle;
+
+    /**
+     * All problem instances created by this evaluator
+     */
+    private final Queue<Problem> created;
+
+    /**
+     * The maximum time of an evaluation in nanoseconds. Non-positive for no
+     * timeout
+     */
+    private final long timeoutNanos;
+
+    /**
+     * Interrupts evaluations that time out
+     */
+    private final ScheduledExecutorService watchdog;
+
+    /**
+     * Creates an evaluator with a work-stealing pool of platform threads and
+     * no timeout
+     *
+     * @param problemFactory creates a problem instance for each thread. May
+     * return the same instance every time if the problem is thread-safe
+     * @param parallelism the number of concurrent evaluations
+     */
+    public ParallelEvaluator(Supplier<? extends Problem> problemFactory, int parallelism) {
+        this(problemFactory, parallelism, ThreadMode.PLATFORM, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates an evaluator
+     *
+     * @param problemFactory creates a problem instance for each thread. May
+     * return the same instance every time if the problem is thread-safe
+     * @param parallelism the number of concurrent evaluations
+     * @param mode the kind of threads that run the evaluations
+     * @param timeout the maximum time of an evaluation. Non-positive for no
+     * timeout
+     * @param unit the unit of the timeout
+     */
+    public ParallelEvaluator(Supplier<? extends Problem> problemFactory, int parallelism, ThreadMode mode, long timeout, TimeUnit unit) {
+        this(problemFactory, createExecutor(parallelism, mode), true, parallelism, timeout, unit);
+    }
+
+    /**
+     * Creates an evaluator that runs evaluations on an existing executor. The
+     * executor is not shut down when this evaluator is closed.
+     *
+     * @param problemFactory creates a problem instance for each thread. May
+     * return the same instance every time if the problem is thread-safe
+     * @param executor runs the evaluations
+     * @param parallelism the maximum number of concurrent evaluations
+     * @param timeout the maximum time of an evaluation. Non-positive for no
+     * timeout
+     * @param unit the unit of the timeout
+     */
+    public ParallelEvaluator(Supplier<? extends Problem> problemFactory, ExecutorService executor, int parallelism, long timeout, TimeUnit unit) {
+        this(problemFactory, executor, false, parallelism, timeout, unit);
+    }
+
+    private ParallelEvaluator(Supplier<? extends Problem> problemFactory, ExecutorService executor, boolean ownsExecutor, int parallelism, long timeout, TimeUnit unit) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.problemFactory = problemFactory;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.permits = new Semaphore(parallelism);
+        this.idle = new ConcurrentLinkedQueue<>();
+        this.created = new ConcurrentLinkedQueue<>();
+        this.timeoutNanos = unit.toNanos(timeout);
+        if (timeoutNanos > 0) {
+            this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "evaluation-watchdog");
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            this.watchdog = null;
+        }
+    }
+
+    /**
+     * Creates the executor for the given thread mode
+     *
+     * @param parallelism the number of concurrent evaluations
+     * @param mode the kind of threads
+     * @return the executor
+     */
+    private static ExecutorService createExecutor(int parallelism, ThreadMode mode) {
+        if (mode == ThreadMode.VIRTUAL) {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException ex) {
+                Logger.getLogger(ParallelEvaluator.class.getName()).log(Level.WARNING,
+                        "Virtual threads are not supported by this runtime. Using platform threads", ex);
+            }
+        }
+        return new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Evaluates all solutions and waits until every evaluation completes or
+     * times out. If any evaluation throws an exception, the remaining
+     * evaluations still complete before the first exception is rethrown.
+     *
+     * @param solutions the solutions to evaluate
+     */
+    public void evaluateAll(List<? extends Solution> solutions) {
+        List<Task> tasks = new ArrayList<>(solutions.size());
+        for (Solution solution : solutions) {
+            Task task = new Task(solution);
+            tasks.add(task);
+            executor.execute(task);
+        }
+
+        Throwable failure = null;
+        for (Task task : tasks) {
+            try {
+                if (task.result.get()) {
+                    markTimedOut(task.target);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new FrameworkException(ex);
+            } catch (ExecutionException ex) {
+                if (failure == null) {
+                    failure = ex.getCause();
+                }
+            }
+        }
+        if (failure != null) {
+            throw new FrameworkException(failure);
+        }
+    }
+
+    /**
+     * Evaluates one solution on the calling thread with a borrowed problem
+     * instance. Waits for a permit like the evaluations of
+     * {@link #evaluateAll(List)}, so concurrent callers never use more than
+     * the given parallelism of problem instances. No timeout is applied.
+     *
+     * @param solution the solution to evaluate
+     */
+    public void evaluate(Solution solution) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new FrameworkException(ex);
+        }
+        Problem problem = borrow();
+        try {
+            problem.evaluate(solution);
+        } finally {
+            idle.offer(problem);
+            permits.release();
+        }
+    }
+
+    /**
+     * Marks a solution whose evaluation timed out
+     *
+     * @param solution the solution
+     */
+    private static void markTimedOut(Solution solution) {
+        for (int i = 0; i < solution.getNumberOfObjectives(); i++) {
+            solution.setObjective(i, Double.POSITIVE_INFINITY);
+        }
+        for (int i = 0; i < solution.getNumberOfConstraints(); i++) {
+            solution.setConstraint(i, Double.POSITIVE_INFINITY);
+        }
+        solution.setAttribute(TIMEOUT_ATTRIBUTE, Boolean.TRUE);
+    }
+
+    /**
+     * Takes an idle problem instance or creates a new one
+     *
+     * @return a problem instance
+     */
+    private Problem borrow() {
+        Problem problem = idle.poll();
+        if (problem == null) {
+            problem = problemFactory.get();
+            created.add(problem);
+        }
+        return problem;
+    }
+
+    /**
+     * Removes a problem instance from the pool and closes it unless it is
+     * still in use by another evaluation
+     *
+     * @param problem the problem instance
+     */
+    private void discard(Problem problem) {
+        synchronized (created) {
+            //the factory may return the same instance more than once, so only
+            //the first reference is removed
+            boolean shared = false;
+            boolean removed = false;
+            for (Iterator<Problem> iter = created.iterator(); iter.hasNext();) {
+                if (iter.next() == problem) {
+                    if (removed) {
+                        shared = true;
+                        break;
+                    }
+                    iter.remove();
+                    removed = true;
+                }
+            }
+            //not found if this evaluator was closed in the meantime
+            if (removed && !shared) {
+                problem.close();
+            }
+        }
+    }
+
+    /**
+     * Shuts down the threads owned by this evaluator and closes the problem
+     * instances it created
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+        }
+        synchronized (created) {
+            //close each distinct instance once
+            Set<Problem> closed = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Problem problem : created) {
+                if (closed.add(problem)) {
+                    problem.close();
+                }
+            }
+            created.clear();
+        }
+        idle.clear();
+    }
+
+    /**
+     * One evaluation. The result completes with true if the evaluation timed
+     * out
+     */
+    private class Task implements Runnable {
+
+        private static final int RUNNING = 0;
+
+        private static final int DONE = 1;
+
+        private static final int TIMED_OUT = 2;
+
+        private final Solution target;
+
+        private final CompletableFuture<Boolean> result;
+
+        private Thread runner;
+
+        private int state;
+
+        /**
+         * Flag for if the evaluation timed out and its problem instance must
+         * be discarded. Only used by the thread that runs the evaluation
+         */
+        private boolean abandoned;
+
+        Task(Solution target) {
+            this.target = target;
+            this.result = new CompletableFuture<>();
+            this.state = RUNNING;
+        }
+
+        @Override
+        public void run() {
+            try {
+                permits.acquire();
+            } catch (InterruptedException ex) {
+                result.completeExceptionally(ex);
+                return;
+            }
+            Problem problem = borrow();
+            try {
+                if (timeoutNanos > 0) {
+                    evaluateWithTimeout(problem);
+                } else {
+                    problem.evaluate(target);
+                    result.complete(false);
+                }
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            } finally {
+                if (abandoned) {
+                    discard(problem);
+                } else {
+                    idle.offer(problem);
+                }
+                permits.release();
+            }
+        }
+
+        /**
+         * Evaluates a copy of the target so that an abandoned evaluation never
+         * writes into the target
+         *
+         * @param problem the problem instance
+         */
+        private void evaluateWithTimeout(Problem problem) {
+            Solution work = target.copy();
+            synchronized (this) {
+                runner = Thread.currentThread();
+            }
+            ScheduledFuture<?> alarm = watchdog.schedule(this::timeout, timeoutNanos, TimeUnit.NANOSECONDS);
+            boolean timedOut;
+            try {
+                problem.evaluate(work);
+            } finally {
+                alarm.cancel(false);
+                synchronized (this) {
+                    timedOut = state == TIMED_OUT;
+                    abandoned = timedOut;
+                    state = DONE;
+                    //clear a pending interrupt so it does not leak into the next task
+                    Thread.interrupted();
+                }
+            }
+            if (!timedOut) {
+                target.setObjectives(work.getObjectives());
+                target.setConstraints(work.getConstraints());
+                for (Map.Entry<String, Serializable> attribute : work.getAttributes().entrySet()) {
+                    target.setAttribute(attribute.getKey(), attribute.getValue());
+                }
+                result.complete(false);
+            }
+        }
+
+        /**
+         * Abandons the evaluation if it is still running
+         */
+        private void timeout() {
+            synchronized (this) {
+                if (state != RUNNING) {
+                    return;
+                }
+                state = TIMED_OUT;
+                //complete before the interrupted evaluation can fail the result
+                result.complete(true);
+                runner.interrupt();
+            }
+        }
+    }
+}
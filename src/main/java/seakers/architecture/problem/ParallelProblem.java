@@ -0,0 +1,101 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.problem;
+
+import java.util.List;
+import org.moeaframework.core.Solution;
+import seakers.architecture.Architecture;
+import seakers.architecture.pattern.ArchitecturalDecision;
+
+/**
+ * Decorates a problem so that batches of architectures are evaluated
+ * concurrently by a {@link ParallelEvaluator}. Single evaluations run on the
+ * calling thread. The decorated problem provides the name, the number of
+ * variables, objectives and constraints, and new solutions.
+ *
+ * @author nozomihitomi
+ */
+public class ParallelProblem implements SystemArchitectureProblem {
+
+    /**
+     * The decorated problem
+     */
+    private final SystemArchitectureProblem problem;
+
+    /**
+     * Evaluates the architectures
+     */
+    private final ParallelEvaluator evaluator;
+
+    /**
+     * Creates a parallel problem
+     *
+     * @param problem the problem to decorate
+     * @param evaluator evaluates the architectures
+     */
+    public ParallelProblem(SystemArchitectureProblem problem, ParallelEvaluator evaluator) {
+        this.problem = problem;
+        this.evaluator = evaluator;
+    }
+
+    @Override
+    public void evaluate(Solution solution) {
+        evaluator.evaluate(solution);
+    }
+
+    @Override
+    public void evaluateBatch(List<Architecture> architectures) {
+        evaluator.evaluateAll(architectures);
+    }
+
+    /**
+     * Gets the evaluator of this problem
+     *
+     * @return the evaluator of this problem
+     */
+    public ParallelEvaluator getEvaluator() {
+        return evaluator;
+    }
+
+    @Override
+    public List<ArchitecturalDecision> getDecisions() {
+        return problem.getDecisions();
+    }
+
+    @Override
+    public String getName() {
+        return problem.getName();
+    }
+
+    @Override
+    public int getNumberOfVariables() {
+        return problem.getNumberOfVariables();
+    }
+
+    @Override
+    public int getNumberOfObjectives() {
+        return problem.getNumberOfObjectives();
+    }
+
+    @Override
+    public int getNumberOfConstraints() {
+        return problem.getNumberOfConstraints();
+    }
+
+    @Override
+    public Solution newSolution() {
+        return problem.newSolution();
+    }
+
+    /**
+     * Closes the evaluator and the decorated problem
+     */
+    @Override
+    public void close() {
+        evaluator.close();
+        problem.close();
+    }
+}
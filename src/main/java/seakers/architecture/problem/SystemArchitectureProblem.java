@@ -5,10 +5,38 @@
  */
 package seakers.architecture.problem;
 
+import java.util.List;
+import org.moeaframework.core.Problem;
+import seakers.architecture.Architecture;
+import seakers.architecture.pattern.ArchitecturalDecision;
+
 /**
+ * A problem whose solutions are architectures defined by an ordered list of
+ * architectural decisions. Architectures can be evaluated one at a time or in
+ * batches so that evaluators can amortize expensive setup over many
+ * architectures.
  *
  * @author nozomihitomi
  */
-public interface SystemArchitectureProblem {
-    
+public interface SystemArchitectureProblem extends Problem {
+
+    /**
+     * Gets the architectural decisions that define the architectures of this
+     * problem
+     *
+     * @return the ordered list of architectural decisions
+     */
+    public List<ArchitecturalDecision> getDecisions();
+
+    /**
+     * Evaluates a batch of architectures. The default implementation evaluates
+     * each architecture in order.
+     *
+     * @param architectures the architectures to evaluate
+     */
+    public default void evaluateBatch(List<Architecture> architectures) {
+        for (Architecture arch : architectures) {
+            evaluate(arch);
+        }
+    }
 }
@@ -0,0 +1,228 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import org.moeaframework.core.Solution;
+import org.moeaframework.core.Variable;
+import org.moeaframework.core.variable.BinaryVariable;
+import org.moeaframework.core.variable.Permutation;
+import org.moeaframework.core.variable.RealVariable;
+import seakers.architecture.Architecture;
+import seakers.architecture.CompactArchitecture;
+import seakers.architecture.DecisionLayout;
+import seakers.architecture.pattern.DecisionPattern;
+import seakers.architecture.pattern.Partitioning;
+
+/**
+ * A compact, immutable key that identifies the values of the decision
+ * variables of a solution. The values are packed into a bit string held in a
+ * primitive array and the hash code is computed once, so keys are cheap to
+ * store and compare in hash based caches. Two solutions of the same problem
+ * have equal keys if and only if their variables hold equal values, except
+ * that the partitioning decisions of architectures are keyed by partition, so
+ * architectures that only differ in how the subsets of a partition are
+ * numbered have equal keys.
+ *
+ * @author nozomihitomi
+ */
+public final class ArchitectureKey implements Serializable {
+
+    private static final long serialVersionUID = 5528102416930637012L;
+
+    /**
+     * The packed values of the decision variables
+     */
+    private final long[] bits;
+
+    /**
+     * The precomputed hash code
+     */
+    private final int hash;
+
+    /**
+     * Creates a key from packed values
+     *
+     * @param bits the packed values of the decision variables
+     */
+    public ArchitectureKey(long[] bits) {
+        this.bits = bits;
+        this.hash = Arrays.hashCode(bits);
+    }
+
+    /**
+     * Creates the key of a solution. Supports binary, integer, real,
+     * permutation and genotype variables.
+     *
+     * @param solution the solution
+     * @return the key of the solution
+     * @throws IllegalArgumentException if the solution contains an unsupported
+     * variable type
+     */
+    public static ArchitectureKey of(Solution solution) {
+        if (solution instanceof Architecture
+                && ((Architecture) solution).getLayout().hasPattern(DecisionPattern.PARTITIONING)) {
+            return ofPartitioned((Architecture) solution);
+        }
+        Packer packer = new Packer();
+        for (int i = 0; i < solution.getNumberOfVariables(); i++) {
+            packer.append(solution.getVariable(i));
+        }
+        return new ArchitectureKey(packer.toArray());
+    }
+
+    /**
+     * Creates the key of an architecture with partitioning decisions. The
+     * partitioning decisions are packed as restricted growth strings and all
+     * other decisions are packed as they are stored.
+     *
+     * @param arch the architecture
+     * @return the key of the architecture
+     */
+    private static ArchitectureKey ofPartitioned(Architecture arch) {
+        Packer packer = new Packer();
+        DecisionLayout layout = arch.getLayout();
+        int[] words = arch instanceof CompactArchitecture ? ((CompactArchitecture) arch).getGenotype().getWords() : null;
+        for (int slot = 0; slot < layout.getNumberOfDecisions(); slot++) {
+            if (layout.getDecision(slot).getPattern() == DecisionPattern.PARTITIONING) {
+                int[] labels = new int[layout.getNumberOfCells(slot)];
+                Partitioning.readRestrictedGrowth(arch, slot, labels);
+                for (int label : labels) {
+                    packer.append(label);
+                }
+            } else if (words != null) {
+                for (int i = layout.getWordOffset(slot); i < layout.getWordOffset(slot + 1); i++) {
+                    packer.append(words[i]);
+                }
+            } else {
+                int offset = layout.getOffset(slot);
+                for (int i = offset; i < offset + layout.getDecision(slot).getNumberOfVariables(); i++) {
+                    packer.append(arch.getVariable(i));
+                }
+            }
+        }
+        return new ArchitectureKey(packer.toArray());
+    }
+
+    /**
+     * Gets a copy of the packed values of the decision variables
+     *
+     * @return the packed values of the decision variables
+     */
+    public long[] toLongArray() {
+        return bits.clone();
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final ArchitectureKey other = (ArchitectureKey) obj;
+        return this.hash == other.hash && Arrays.equals(this.bits, other.bits);
+    }
+
+    @Override
+    public String toString() {
+        return "ArchitectureKey{" + "bits=" + Arrays.toString(bits) + '}';
+    }
+
+    /**
+     * Packs values into a growing bit string
+     */
+    static final class Packer {
+
+        private long[] words = new long[4];
+
+        private long nBits = 0;
+
+        /**
+         * Appends the value of a variable
+         *
+         * @param variable the variable
+         */
+        void append(Variable variable) {
+            if (variable instanceof BinaryVariable) {
+                BinaryVariable var = (BinaryVariable) variable;
+                long[] set = var.getBitSet().toLongArray();
+                int remaining = var.getNumberOfBits();
+                for (int w = 0; remaining > 0; w++) {
+                    int width = Math.min(Long.SIZE, remaining);
+                    append(w < set.length ? set[w] : 0L, width);
+                    remaining -= width;
+                }
+            } else if (variable instanceof IntegerVariable) {
+                append(((IntegerVariable) variable).getValue());
+            } else if (variable instanceof RealVariable) {
+                append(Double.doubleToLongBits(((RealVariable) variable).getValue()), Long.SIZE);
+            } else if (variable instanceof Genotype) {
+                for (int word : ((Genotype) variable).getWords()) {
+                    append(word);
+                }
+            } else if (variable instanceof Permutation) {
+                Permutation var = (Permutation) variable;
+                for (int i = 0; i < var.size(); i++) {
+                    append(var.get(i));
+                }
+            } else {
+                throw new IllegalArgumentException(String.format("Variable type %s is not supported", variable.getClass().getName()));
+            }
+        }
+
+        /**
+         * Appends a 32 bit integer
+         *
+         * @param value the value to append
+         */
+        void append(int value) {
+            append(value & 0xFFFFFFFFL, Integer.SIZE);
+        }
+
+        /**
+         * Appends the lowest bits of a value
+         *
+         * @param value the value to append
+         * @param width the number of bits to append
+         */
+        void append(long value, int width) {
+            if (width < Long.SIZE) {
+                value &= (1L << width) - 1;
+            }
+            int word = (int) (nBits >>> 6);
+            int shift = (int) (nBits & 63);
+            ensureCapacity(word + 2);
+            words[word] |= value << shift;
+            if (shift != 0 && shift + width > Long.SIZE) {
+                words[word + 1] |= value >>> (Long.SIZE - shift);
+            }
+            nBits += width;
+        }
+
+        private void ensureCapacity(int nWords) {
+            if (nWords > words.length) {
+                words = Arrays.copyOf(words, Math.max(nWords, 2 * words.length));
+            }
+        }
+
+        /**
+         * Gets the packed values
+         *
+         * @return the packed values
+         */
+        long[] toArray() {
+            return Arrays.copyOf(words, (int) ((nBits + 63) >>> 6));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.util;
+
+import java.util.Arrays;
+import org.moeaframework.core.Variable;
+import seakers.architecture.DecisionLayout;
+
+/**
+ * A decision variable that holds the values of every decision of an
+ * architecture in one flat primitive array. Binary cells are packed 32 to a
+ * word and integer cells take one word each, as described by the shared
+ * {@link DecisionLayout}. Copying a genotype copies a single array.
+ *
+ * @author nozomihitomi
+ */
+public class Genotype implements Variable {
+
+    private static final long serialVersionUID = 4073327912906617430L;
+
+    /**
+     * The layout that describes the words
+     */
+    private final DecisionLayout layout;
+
+    /**
+     * The values of the decisions
+     */
+    private final int[] words;
+
+    /**
+     * Creates a genotype with the default values of every decision in the
+     * layout
+     *
+     * @param layout the layout of the decisions
+     */
+    public Genotype(DecisionLayout layout) {
+        this(layout, layout.newGenotype());
+    }
+
+    /**
+     * Creates a genotype backed by the given words. The array is not copied.
+     *
+     * @param layout the layout of the decisions
+     * @param words the values of the decisions
+     */
+    public Genotype(DecisionLayout layout, int[] words) {
+        if (words.length != layout.getNumberOfWords()) {
+            throw new IllegalArgumentException(String.format("Expected %d words. Found %d", layout.getNumberOfWords(), words.length));
+        }
+        this.layout = layout;
+        this.words = words;
+    }
+
+    /**
+     * Gets the layout that describes the words
+     *
+     * @return the layout of the decisions
+     */
+    public DecisionLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Gets the backing array of this genotype. Changes to the array change
+     * this genotype.
+     *
+     * @return the values of the decisions
+     */
+    public int[] getWords() {
+        return words;
+    }
+
+    @Override
+    public Genotype copy() {
+        return new Genotype(layout, words.clone());
+    }
+
+    @Override
+    public void randomize() {
+        layout.randomize(words);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        return Arrays.equals(this.words, ((Genotype) obj).words);
+    }
+}
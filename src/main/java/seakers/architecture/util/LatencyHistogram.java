@@ -0,0 +1,206 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values, typically latencies in
+ * nanoseconds, with log-linear buckets in the style of HdrHistogram. Each
+ * power of two is split into 128 buckets, so percentiles are exact to within
+ * 1% of the value over the whole range of a long. Recording a value only
+ * updates a few uncontended atomic counters, so the histogram can be left
+ * enabled on hot paths and shared between threads.
+ *
+ * Readings are not atomic with respect to concurrent recordings, so a
+ * percentile read while values are recorded may miss the latest values.
+ *
+ * @author nozomihitomi
+ */
+public class LatencyHistogram {
+
+    /**
+     * The number of bits of each value that select a bucket within its power
+     * of two
+     */
+    private static final int PRECISION = 7;
+
+    /**
+     * The number of buckets in each power of two
+     */
+    private static final int SUB_BUCKETS = 1 << PRECISION;
+
+    /**
+     * The number of buckets needed for every non-negative long
+     */
+    private static final int BUCKETS = (Long.SIZE - PRECISION + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts;
+
+    private final LongAdder count;
+
+    private final LongAdder sum;
+
+    private final LongAccumulator min;
+
+    private final LongAccumulator max;
+
+    /**
+     * Creates an empty histogram
+     */
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.count = new LongAdder();
+        this.sum = new LongAdder();
+        this.min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        this.max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+    }
+
+    /**
+     * Records a value
+     *
+     * @param value the value. Negative values are recorded as 0
+     */
+    public void record(long value) {
+        record(value, 1);
+    }
+
+    /**
+     * Records the same value several times
+     *
+     * @param value the value. Negative values are recorded as 0
+     * @param times the number of times to record the value
+     */
+    public void record(long value, long times) {
+        if (times <= 0) {
+            return;
+        }
+        if (value < 0) {
+            value = 0;
+        }
+        counts.addAndGet(indexOf(value), times);
+        count.add(times);
+        sum.add(value * times);
+        min.accumulate(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Gets the bucket of a value
+     *
+     * @param value a non-negative value
+     * @return the index of the bucket
+     */
+    private static int indexOf(long value) {
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value | SUB_BUCKETS) - PRECISION;
+        return (shift << PRECISION) + (int) (value >>> shift);
+    }
+
+    /**
+     * Gets the largest value in a bucket
+     *
+     * @param index the index of the bucket
+     * @return the largest value in the bucket
+     */
+    private static long highestValueOf(int index) {
+        int shift = Math.max(0, (index >>> PRECISION) - 1);
+        long mantissa = index - ((long) shift << PRECISION);
+        long highest = ((mantissa + 1) << shift) - 1;
+        //the last bucket ends at the largest long
+        return highest < 0 ? Long.MAX_VALUE : highest;
+    }
+
+    /**
+     * Gets the number of recorded values
+     *
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the sum of the recorded values
+     *
+     * @return the sum of the recorded values
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Gets the mean of the recorded values
+     *
+     * @return the mean of the recorded values. NaN if no values are recorded
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? Double.NaN : (double) sum.sum() / n;
+    }
+
+    /**
+     * Gets the smallest recorded value
+     *
+     * @return the smallest recorded value. 0 if no values are recorded
+     */
+    public long getMin() {
+        return count.sum() == 0 ? 0 : min.get();
+    }
+
+    /**
+     * Gets the largest recorded value
+     *
+     * @return the largest recorded value. 0 if no values are recorded
+     */
+    public long getMax() {
+        return count.sum() == 0 ? 0 : max.get();
+    }
+
+    /**
+     * Gets the value below which the given percentage of the recorded values
+     * fall
+     *
+     * @param percentile the percentile in [0, 100]
+     * @return the percentile, within 1% of the exact value. 0 if no values
+     * are recorded
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException(String.format("Percentile %f is not in [0, 100]", percentile));
+        }
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            n += counts.get(i);
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Removes every recorded value
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        min.reset();
+        max.reset();
+    }
+}
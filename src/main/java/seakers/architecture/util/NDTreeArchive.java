@@ -0,0 +1,909 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.moeaframework.core.Population;
+import org.moeaframework.core.Solution;
+
+/**
+ * An archive of mutually non-dominated solutions indexed by an ND-tree
+ * (Jaszkiewicz and Lust, 2018). Each node of the tree keeps an approximation
+ * of the ideal and nadir points of the solutions below it, so a new solution
+ * is compared only against the nodes whose bounding box it can dominate or be
+ * dominated by. Whole subtrees are accepted, rejected or removed without
+ * visiting their solutions, which makes updates sub-linear in the size of the
+ * archive for the typical case. All objective vectors are stored in flat
+ * primitive arrays and all objectives are minimized.
+ *
+ * With epsilons, solutions are compared by their epsilon boxes as in
+ * {@link org.moeaframework.core.EpsilonBoxDominanceArchive}: at most one
+ * solution is kept per non-dominated box, the one closest to the corner of the
+ * box. With a capacity, the archive removes the most crowded solution of the
+ * leaf that received the newest solution whenever it grows beyond its
+ * capacity. Infeasible solutions are never added. The archive is not
+ * thread-safe.
+ *
+ * @author nozomihitomi
+ */
+public class NDTreeArchive implements Iterable<Solution> {
+
+    /**
+     * The default maximum number of solutions in a leaf
+     */
+    private static final int DEFAULT_LEAF_SIZE = 20;
+
+    /**
+     * A node of the tree. A leaf holds the slots of its solutions and an
+     * internal node holds at least two children.
+     */
+    private static final class Node {
+
+        /**
+         * A lower bound of the boxes of the solutions below this node
+         */
+        private final double[] ideal;
+
+        /**
+         * An upper bound of the boxes of the solutions below this node
+         */
+        private final double[] nadir;
+
+        private Node parent;
+
+        /**
+         * The slots of the solutions of a leaf. Null for internal nodes
+         */
+        private int[] points;
+
+        private int nPoints;
+
+        /**
+         * The children of an internal node. Null for leaves
+         */
+        private Node[] children;
+
+        private int nChildren;
+
+        private Node(Node parent, int nObj, int leafSize) {
+            this.parent = parent;
+            this.ideal = new double[nObj];
+            this.nadir = new double[nObj];
+            this.points = new int[leafSize + 1];
+        }
+
+        private boolean isLeaf() {
+            return children == null;
+        }
+
+        private boolean isEmpty() {
+            return isLeaf() ? nPoints == 0 : nChildren == 0;
+        }
+
+        private void removeChild(Node child) {
+            for (int i = 0; i < nChildren; i++) {
+                if (children[i] == child) {
+                    children[i] = children[--nChildren];
+                    children[nChildren] = null;
+                    return;
+                }
+            }
+        }
+    }
+
+    private final int nObj;
+
+    /**
+     * The size of the epsilon boxes of each objective. Null if solutions are
+     * compared by their objectives
+     */
+    private final double[] epsilons;
+
+    /**
+     * The maximum number of solutions
+     */
+    private final int capacity;
+
+    /**
+     * The maximum number of solutions in a leaf
+     */
+    private final int leafSize;
+
+    /**
+     * The number of children created when a leaf is split
+     */
+    private final int branching;
+
+    /**
+     * The objectives of the solution in each slot
+     */
+    private double[] objectives;
+
+    /**
+     * The epsilon boxes of the solution in each slot. The same array as the
+     * objectives if there are no epsilons
+     */
+    private double[] boxes;
+
+    /**
+     * The solution in each slot. Null for free slots
+     */
+    private Solution[] solutions;
+
+    /**
+     * The free slots below the high water mark
+     */
+    private int[] freeSlots;
+
+    private int nFree;
+
+    /**
+     * One past the highest slot ever used
+     */
+    private int nSlots;
+
+    private int size;
+
+    private Node root;
+
+    /**
+     * The leaf that received the most recently inserted solution
+     */
+    private Node lastLeaf;
+
+    /**
+     * Scratch space for the box of a new solution
+     */
+    private final double[] box;
+
+    /**
+     * Creates an unbounded archive that compares solutions by their
+     * objectives
+     *
+     * @param numberOfObjectives the number of objectives
+     */
+    public NDTreeArchive(int numberOfObjectives) {
+        this(numberOfObjectives, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates an archive
+     *
+     * @param numberOfObjectives the number of objectives
+     * @param epsilons the size of the epsilon boxes of each objective, or one
+     * size for all objectives. Null to compare solutions by their objectives
+     * @param capacity the maximum number of solutions
+     */
+    public NDTreeArchive(int numberOfObjectives, double[] epsilons, int capacity) {
+        this(numberOfObjectives, epsilons, capacity, DEFAULT_LEAF_SIZE, numberOfObjectives + 1);
+    }
+
+    /**
+     * Creates an archive with a given tree shape
+     *
+     * @param numberOfObjectives the number of objectives
+     * @param epsilons the size of the epsilon boxes of each objective, or one
+     * size for all objectives. Null to compare solutions by their objectives
+     * @param capacity the maximum number of solutions
+     * @param leafSize the maximum number of solutions in a leaf
+     * @param branching the number of children created when a leaf is split
+     */
+    public NDTreeArchive(int numberOfObjectives, double[] epsilons, int capacity, int leafSize, int branching) {
+        if (numberOfObjectives <= 0) {
+            throw new IllegalArgumentException("The number of objectives must be positive");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity of the archive must be positive");
+        }
+        if (branching < 2 || leafSize < branching) {
+            throw new IllegalArgumentException(String.format("Invalid tree shape with %d solutions per leaf and %d children per split", leafSize, branching));
+        }
+        this.nObj = numberOfObjectives;
+        if (epsilons == null) {
+            this.epsilons = null;
+        } else {
+            if (epsilons.length != 1 && epsilons.length != numberOfObjectives) {
+                throw new IllegalArgumentException(String.format("Expected 1 or %d epsilons. Found %d", numberOfObjectives, epsilons.length));
+            }
+            this.epsilons = new double[numberOfObjectives];
+            for (int i = 0; i < numberOfObjectives; i++) {
+                double eps = epsilons[Math.min(i, epsilons.length - 1)];
+                if (!(eps > 0)) {
+                    throw new IllegalArgumentException("Epsilons must be positive");
+                }
+                this.epsilons[i] = eps;
+            }
+        }
+        this.capacity = capacity;
+        this.leafSize = leafSize;
+        this.branching = branching;
+        this.box = new double[numberOfObjectives];
+        clear();
+    }
+
+    /**
+     * Removes every solution
+     */
+    public final void clear() {
+        int initial = 64;
+        this.objectives = new double[initial * nObj];
+        this.boxes = epsilons == null ? objectives : new double[initial * nObj];
+        this.solutions = new Solution[initial];
+        this.freeSlots = new int[16];
+        this.nFree = 0;
+        this.nSlots = 0;
+        this.size = 0;
+        this.root = null;
+        this.lastLeaf = null;
+    }
+
+    /**
+     * Adds a solution if it is not dominated by any solution in the archive,
+     * and removes the solutions it dominates. The solution is stored, not
+     * copied.
+     *
+     * @param solution the solution to add
+     * @return true if the solution is in the archive after the call
+     */
+    public boolean add(Solution solution) {
+        if (solution.getNumberOfObjectives() != nObj) {
+            throw new IllegalArgumentException(String.format("Expected %d objectives. Found %d", nObj, solution.getNumberOfObjectives()));
+        }
+        if (solution.violatesConstraints()) {
+            return false;
+        }
+        double[] y = solution.getObjectives();
+        boxOf(y, box);
+        if (root != null) {
+            if (!update(root, box, y)) {
+                return false;
+            }
+            if (root.isEmpty()) {
+                root = null;
+            }
+        }
+        int slot = allocate(y, solution);
+        if (root == null) {
+            root = new Node(null, nObj, leafSize);
+            System.arraycopy(box, 0, root.ideal, 0, nObj);
+            System.arraycopy(box, 0, root.nadir, 0, nObj);
+        }
+        insert(root, slot);
+        size++;
+        if (size > capacity) {
+            return truncate(lastLeaf) != slot;
+        }
+        return true;
+    }
+
+    /**
+     * Adds each solution in turn
+     *
+     * @param solutions the solutions to add
+     * @return true if any solution was added
+     */
+    public boolean addAll(Iterable<? extends Solution> solutions) {
+        boolean out = false;
+        for (Solution solution : solutions) {
+            out |= add(solution);
+        }
+        return out;
+    }
+
+    /**
+     * Checks if a solution with the given objectives would be rejected by
+     * {@link #add(Solution)} without changing the archive. Used to skip
+     * decoding or copying solutions that cannot enter the archive.
+     *
+     * @param objectives the objectives of the solution
+     * @return true if a solution in the archive dominates the objectives, or
+     * holds the same box and is closer to its corner
+     */
+    public boolean isDominated(double[] objectives) {
+        if (objectives.length != nObj) {
+            throw new IllegalArgumentException(String.format("Expected %d objectives. Found %d", nObj, objectives.length));
+        }
+        if (root == null) {
+            return false;
+        }
+        boxOf(objectives, box);
+        return isDominated(root, box, objectives);
+    }
+
+    private boolean isDominated(Node node, double[] ybox, double[] y) {
+        if (dominates(node.nadir, 0, ybox)) {
+            return true;
+        }
+        if (!weaklyDominates(node.ideal, 0, ybox)) {
+            return false;
+        }
+        if (node.isLeaf()) {
+            for (int i = 0; i < node.nPoints; i++) {
+                if (compare(node.points[i], ybox, y) == REJECT) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (int i = 0; i < node.nChildren; i++) {
+            if (isDominated(node.children[i], ybox, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The outcome of comparing a solution in the archive with a new solution
+     */
+    private static final int KEEP = 0;
+    private static final int REJECT = 1;
+    private static final int REMOVE = 2;
+
+    /**
+     * Compares a solution in the archive with a new solution
+     *
+     * @param slot the slot of the solution in the archive
+     * @param ybox the box of the new solution
+     * @param y the objectives of the new solution
+     * @return REJECT if the new solution must be rejected, REMOVE if the
+     * solution in the archive must be removed and KEEP otherwise
+     */
+    private int compare(int slot, double[] ybox, double[] y) {
+        int base = slot * nObj;
+        boolean pWeak = true;
+        boolean yWeak = true;
+        for (int k = 0; k < nObj; k++) {
+            double p = boxes[base + k];
+            if (p < ybox[k]) {
+                yWeak = false;
+            } else if (p > ybox[k]) {
+                pWeak = false;
+            }
+            if (!pWeak && !yWeak) {
+                return KEEP;
+            }
+        }
+        if (pWeak && yWeak) {
+            //same box. Keep the solution closest to the corner of the box
+            if (epsilons != null && cornerDistance(y, 0, ybox) < cornerDistance(objectives, base, ybox)) {
+                return REMOVE;
+            }
+            return REJECT;
+        }
+        return pWeak ? REJECT : REMOVE;
+    }
+
+    /**
+     * Removes the solutions of a subtree dominated by a new solution
+     *
+     * @param node the root of the subtree
+     * @param ybox the box of the new solution
+     * @param y the objectives of the new solution
+     * @return false if the new solution is dominated by a solution in the
+     * subtree
+     */
+    private boolean update(Node node, double[] ybox, double[] y) {
+        if (dominates(node.nadir, 0, ybox)) {
+            return false;
+        }
+        if (dominates(ybox, 0, node.ideal)) {
+            releaseAll(node);
+            return true;
+        }
+        if (!weaklyDominates(node.ideal, 0, ybox) && !weaklyDominates(ybox, 0, node.nadir)) {
+            //the new solution is incomparable to every solution in the subtree
+            return true;
+        }
+        if (node.isLeaf()) {
+            for (int i = 0; i < node.nPoints;) {
+                int slot = node.points[i];
+                int cmp = compare(slot, ybox, y);
+                if (cmp == REJECT) {
+                    return false;
+                } else if (cmp == REMOVE) {
+                    release(slot);
+                    node.points[i] = node.points[--node.nPoints];
+                } else {
+                    i++;
+                }
+            }
+        } else {
+            for (int i = 0; i < node.nChildren;) {
+                Node child = node.children[i];
+                if (!update(child, ybox, y)) {
+                    return false;
+                }
+                if (child.isEmpty()) {
+                    node.children[i] = node.children[--node.nChildren];
+                    node.children[node.nChildren] = null;
+                } else {
+                    i++;
+                }
+            }
+            if (node.nChildren == 1) {
+                collapse(node);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Inserts a solution below a node that may dominate it or be dominated by
+     * it
+     *
+     * @param node the node
+     * @param slot the slot of the solution
+     */
+    private void insert(Node node, int slot) {
+        int base = slot * nObj;
+        while (true) {
+            for (int k = 0; k < nObj; k++) {
+                double v = boxes[base + k];
+                if (v < node.ideal[k]) {
+                    node.ideal[k] = v;
+                }
+                if (v > node.nadir[k]) {
+                    node.nadir[k] = v;
+                }
+            }
+            if (node.isLeaf()) {
+                node.points[node.nPoints++] = slot;
+                lastLeaf = node;
+                if (node.nPoints > leafSize) {
+                    split(node);
+                }
+                return;
+            }
+            Node closest = null;
+            double best = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < node.nChildren; i++) {
+                double d = midpointDistance(node.children[i], base);
+                if (d < best) {
+                    best = d;
+                    closest = node.children[i];
+                }
+            }
+            node = closest;
+        }
+    }
+
+    /**
+     * Splits a full leaf into new leaves. The solutions farthest from each
+     * other seed the new leaves and each remaining solution joins the leaf
+     * with the closest midpoint.
+     *
+     * @param leaf the leaf to split
+     */
+    private void split(Node leaf) {
+        int n = leaf.nPoints;
+        int[] points = leaf.points;
+        int newest = points[n - 1];
+        Node[] children = new Node[branching];
+        boolean[] used = new boolean[n];
+
+        //the first seed is the solution with the largest mean distance to the others
+        int first = 0;
+        double best = -1;
+        for (int i = 0; i < n; i++) {
+            double sum = 0;
+            for (int j = 0; j < n; j++) {
+                sum += boxDistance(points[i], points[j]);
+            }
+            if (sum > best) {
+                best = sum;
+                first = i;
+            }
+        }
+        int[] seeds = new int[branching];
+        seeds[0] = first;
+        used[first] = true;
+        for (int c = 1; c < branching; c++) {
+            int next = -1;
+            best = -1;
+            for (int i = 0; i < n; i++) {
+                if (used[i]) {
+                    continue;
+                }
+                double sum = 0;
+                for (int s = 0; s < c; s++) {
+                    sum += boxDistance(points[i], points[seeds[s]]);
+                }
+                if (sum > best) {
+                    best = sum;
+                    next = i;
+                }
+            }
+            seeds[c] = next;
+            used[next] = true;
+        }
+        for (int c = 0; c < branching; c++) {
+            Node child = new Node(leaf, nObj, leafSize);
+            int base = points[seeds[c]] * nObj;
+            System.arraycopy(boxes, base, child.ideal, 0, nObj);
+            System.arraycopy(boxes, base, child.nadir, 0, nObj);
+            child.points[child.nPoints++] = points[seeds[c]];
+            children[c] = child;
+        }
+        for (int i = 0; i < n; i++) {
+            if (used[i]) {
+                continue;
+            }
+            int base = points[i] * nObj;
+            Node closest = children[0];
+            best = Double.POSITIVE_INFINITY;
+            for (Node child : children) {
+                double d = midpointDistance(child, base);
+                if (d < best) {
+                    best = d;
+                    closest = child;
+                }
+            }
+            for (int k = 0; k < nObj; k++) {
+                closest.ideal[k] = Math.min(closest.ideal[k], boxes[base + k]);
+                closest.nadir[k] = Math.max(closest.nadir[k], boxes[base + k]);
+            }
+            closest.points[closest.nPoints++] = points[i];
+        }
+        for (Node child : children) {
+            for (int i = 0; i < child.nPoints; i++) {
+                if (child.points[i] == newest) {
+                    lastLeaf = child;
+                }
+            }
+        }
+        leaf.points = null;
+        leaf.nPoints = 0;
+        leaf.children = children;
+        leaf.nChildren = branching;
+    }
+
+    /**
+     * Replaces an internal node with one child by that child
+     *
+     * @param node the internal node
+     */
+    private void collapse(Node node) {
+        Node child = node.children[0];
+        System.arraycopy(child.ideal, 0, node.ideal, 0, nObj);
+        System.arraycopy(child.nadir, 0, node.nadir, 0, nObj);
+        node.points = child.points;
+        node.nPoints = child.nPoints;
+        node.children = child.children;
+        node.nChildren = child.nChildren;
+        if (node.children != null) {
+            for (int i = 0; i < node.nChildren; i++) {
+                node.children[i].parent = node;
+            }
+        }
+        if (lastLeaf == child) {
+            lastLeaf = node;
+        }
+    }
+
+    /**
+     * Removes the solution with the closest neighbor to bring the archive back
+     * to its capacity. The solution is searched in the leaf that received the
+     * last solution, or, if that leaf holds only the new solution, in the
+     * smallest subtree above it with two solutions, so a new solution in a
+     * sparse region is not evicted just because it starts a leaf
+     *
+     * @param last the leaf that received the last solution
+     * @return the slot of the removed solution
+     */
+    private int truncate(Node last) {
+        List<Node> leaves = new ArrayList<>();
+        Node subtree = last;
+        while (true) {
+            leaves.clear();
+            collectLeaves(subtree, leaves);
+            int n = 0;
+            for (Node leaf : leaves) {
+                n += leaf.nPoints;
+            }
+            if (n >= 2 || subtree.parent == null) {
+                break;
+            }
+            subtree = subtree.parent;
+        }
+        Node leaf = leaves.get(0);
+        int victim = 0;
+        double best = Double.POSITIVE_INFINITY;
+        for (int a = 0; a < leaves.size(); a++) {
+            Node la = leaves.get(a);
+            for (int i = 0; i < la.nPoints; i++) {
+                for (int b = a; b < leaves.size(); b++) {
+                    Node lb = leaves.get(b);
+                    for (int j = b == a ? i + 1 : 0; j < lb.nPoints; j++) {
+                        double d = boxDistance(la.points[i], lb.points[j]);
+                        if (d < best) {
+                            best = d;
+                            leaf = lb;
+                            victim = j;
+                        }
+                    }
+                }
+            }
+        }
+        int slot = leaf.points[victim];
+        leaf.points[victim] = leaf.points[--leaf.nPoints];
+        release(slot);
+        Node node = leaf;
+        while (node.isEmpty() && node.parent != null) {
+            Node parent = node.parent;
+            parent.removeChild(node);
+            node = parent;
+        }
+        if (node.isEmpty()) {
+            root = null;
+        } else if (!node.isLeaf() && node.nChildren == 1) {
+            collapse(node);
+        }
+        return slot;
+    }
+
+    /**
+     * Adds the leaves of a subtree to a list
+     *
+     * @param node the root of the subtree
+     * @param leaves the list to add to
+     */
+    private static void collectLeaves(Node node, List<Node> leaves) {
+        if (node.isLeaf()) {
+            leaves.add(node);
+        } else {
+            for (int i = 0; i < node.nChildren; i++) {
+                collectLeaves(node.children[i], leaves);
+            }
+        }
+    }
+
+    /**
+     * Stores a solution in a free slot
+     *
+     * @param y the objectives of the solution
+     * @param solution the solution
+     * @return the slot of the solution
+     */
+    private int allocate(double[] y, Solution solution) {
+        int slot;
+        if (nFree > 0) {
+            slot = freeSlots[--nFree];
+        } else {
+            if (nSlots == solutions.length) {
+                int length = solutions.length * 2;
+                solutions = Arrays.copyOf(solutions, length);
+                objectives = Arrays.copyOf(objectives, length * nObj);
+                boxes = epsilons == null ? objectives : Arrays.copyOf(boxes, length * nObj);
+            }
+            slot = nSlots++;
+        }
+        solutions[slot] = solution;
+        System.arraycopy(y, 0, objectives, slot * nObj, nObj);
+        if (epsilons != null) {
+            System.arraycopy(box, 0, boxes, slot * nObj, nObj);
+        }
+        return slot;
+    }
+
+    /**
+     * Frees the slot of a removed solution
+     *
+     * @param slot the slot
+     */
+    private void release(int slot) {
+        solutions[slot] = null;
+        if (nFree == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, nFree * 2);
+        }
+        freeSlots[nFree++] = slot;
+        size--;
+    }
+
+    /**
+     * Frees every solution of a subtree and turns it into an empty leaf
+     *
+     * @param node the root of the subtree
+     */
+    private void releaseAll(Node node) {
+        if (node.isLeaf()) {
+            for (int i = 0; i < node.nPoints; i++) {
+                release(node.points[i]);
+            }
+        } else {
+            for (int i = 0; i < node.nChildren; i++) {
+                releaseAll(node.children[i]);
+            }
+            node.children = null;
+            node.nChildren = 0;
+            node.points = new int[leafSize + 1];
+        }
+        node.nPoints = 0;
+    }
+
+    /**
+     * Computes the epsilon box of an objective vector
+     *
+     * @param y the objectives
+     * @param out the array to write the box to
+     */
+    private void boxOf(double[] y, double[] out) {
+        if (epsilons == null) {
+            System.arraycopy(y, 0, out, 0, nObj);
+        } else {
+            for (int k = 0; k < nObj; k++) {
+                out[k] = Math.floor(y[k] / epsilons[k]);
+            }
+        }
+    }
+
+    /**
+     * Checks if a point is no worse than another in every objective
+     */
+    private boolean weaklyDominates(double[] a, int aBase, double[] b) {
+        for (int k = 0; k < nObj; k++) {
+            if (a[aBase + k] > b[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a point is no worse than another in every objective and
+     * better in at least one
+     */
+    private boolean dominates(double[] a, int aBase, double[] b) {
+        boolean better = false;
+        for (int k = 0; k < nObj; k++) {
+            if (a[aBase + k] > b[k]) {
+                return false;
+            } else if (a[aBase + k] < b[k]) {
+                better = true;
+            }
+        }
+        return better;
+    }
+
+    /**
+     * Computes the squared distance between the boxes of two solutions
+     */
+    private double boxDistance(int slot1, int slot2) {
+        int a = slot1 * nObj;
+        int b = slot2 * nObj;
+        double sum = 0;
+        for (int k = 0; k < nObj; k++) {
+            double d = boxes[a + k] - boxes[b + k];
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    /**
+     * Computes the squared distance between a box and the midpoint of the
+     * bounds of a node
+     */
+    private double midpointDistance(Node node, int base) {
+        double sum = 0;
+        for (int k = 0; k < nObj; k++) {
+            double d = boxes[base + k] - 0.5 * (node.ideal[k] + node.nadir[k]);
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    /**
+     * Computes the squared distance between objectives and the corner of
+     * their epsilon box
+     */
+    private double cornerDistance(double[] y, int base, double[] ybox) {
+        double sum = 0;
+        for (int k = 0; k < nObj; k++) {
+            double d = y[base + k] - ybox[k] * epsilons[k];
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    /**
+     * Gets the number of solutions in the archive
+     *
+     * @return the number of solutions in the archive
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the archive is empty
+     *
+     * @return true if the archive holds no solutions
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the number of objectives
+     *
+     * @return the number of objectives
+     */
+    public int getNumberOfObjectives() {
+        return nObj;
+    }
+
+    /**
+     * Copies the objectives of every solution into one array, row by row in
+     * the order of {@link #iterator()}
+     *
+     * @return the objectives of solution i at indices i * nObj to
+     * (i + 1) * nObj - 1
+     */
+    public double[] getObjectives() {
+        double[] out = new double[size * nObj];
+        int row = 0;
+        for (int slot = 0; slot < nSlots; slot++) {
+            if (solutions[slot] != null) {
+                System.arraycopy(objectives, slot * nObj, out, row * nObj, nObj);
+                row++;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Copies the solutions into a population
+     *
+     * @return a population of the solutions in the archive
+     */
+    public Population toPopulation() {
+        Population out = new Population();
+        for (Solution solution : this) {
+            out.add(solution);
+        }
+        return out;
+    }
+
+    /**
+     * Iterates over the solutions in the order of their slots. The archive
+     * must not be modified during the iteration.
+     *
+     * @return an iterator over the solutions
+     */
+    @Override
+    public Iterator<Solution> iterator() {
+        return new Iterator<Solution>() {
+
+            private int slot = advance(0);
+
+            private int advance(int from) {
+                while (from < nSlots && solutions[from] == null) {
+                    from++;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return slot < nSlots;
+            }
+
+            @Override
+            public Solution next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Solution out = solutions[slot];
+                slot = advance(slot + 1);
+                return out;
+            }
+        };
+    }
+}
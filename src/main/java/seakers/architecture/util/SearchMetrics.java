@@ -0,0 +1,306 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package seakers.architecture.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import seakers.architecture.Architecture;
+
+/**
+ * A registry of named counters, latency histograms and gauges that shows
+ * where the time of a search goes. Counters and histograms are lock-free and
+ * can be updated from any thread on hot paths. Gauges are read when the
+ * metrics are read.
+ *
+ * The metrics are exposed as the attributes of a dynamic MBean once
+ * {@link #register(String)} is called, and can be written next to the
+ * results of a search with {@link #write(Path)}. Each histogram appears as
+ * its count, mean, percentiles and maximum in nanoseconds. Every registry
+ * includes the number of {@link Architecture} copies, the garbage collection
+ * count and time, and the elapsed time since it was created, so a slow run
+ * can be attributed to the evaluations, the operators or the garbage
+ * collector.
+ *
+ * The classes of this library record into a registry when given one, for
+ * instance {@link seakers.architecture.problem.InstrumentedProblem},
+ * {@link seakers.architecture.operators.InstrumentedVariation} and
+ * {@link seakers.architecture.enumeration.ExhaustiveSearch}. Other queues
+ * are added as gauges, for instance
+ * {@code metrics.gauge("log.queueDepth", log::getQueueDepth)} for an
+ * {@link seakers.architecture.io.EvaluationLog}.
+ *
+ * @author nozomihitomi
+ */
+public class SearchMetrics implements DynamicMBean {
+
+    /**
+     * The domain of the names of registered MBeans
+     */
+    public static final String DOMAIN = "seakers.architecture";
+
+    /**
+     * The percentiles reported for each histogram
+     */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, LongAdder> counters;
+
+    private final Map<String, LatencyHistogram> histograms;
+
+    private final Map<String, DoubleSupplier> gauges;
+
+    /**
+     * The time this registry was created
+     */
+    private final long startNanos;
+
+    /**
+     * The name this registry is registered under. Null if not registered
+     */
+    private ObjectName name;
+
+    /**
+     * Creates a registry with the gauges of the JVM
+     */
+    public SearchMetrics() {
+        this.counters = new ConcurrentHashMap<>();
+        this.histograms = new ConcurrentHashMap<>();
+        this.gauges = new ConcurrentHashMap<>();
+        this.startNanos = System.nanoTime();
+        long copies = Architecture.getCopyCount();
+        gauge("architecture.copies", () -> Architecture.getCopyCount() - copies);
+        gauge("gc.count", () -> {
+            long sum = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                sum += Math.max(0, gc.getCollectionCount());
+            }
+            return sum;
+        });
+        gauge("gc.timeMillis", () -> {
+            long sum = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                sum += Math.max(0, gc.getCollectionTime());
+            }
+            return sum;
+        });
+        gauge("elapsedMillis", () -> (System.nanoTime() - startNanos) / 1e6);
+    }
+
+    /**
+     * Gets or creates a counter
+     *
+     * @param name the name of the counter
+     * @return the counter
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    /**
+     * Gets or creates a latency histogram
+     *
+     * @param name the name of the histogram
+     * @return the histogram
+     */
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    /**
+     * Adds or replaces a gauge
+     *
+     * @param name the name of the gauge
+     * @param gauge reads the value of the gauge. Must be thread-safe
+     */
+    public void gauge(String name, DoubleSupplier gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * Removes a gauge, for instance when the object it reads is closed
+     *
+     * @param name the name of the gauge
+     */
+    public void removeGauge(String name) {
+        gauges.remove(name);
+    }
+
+    /**
+     * Resets every counter and histogram. Gauges are not changed
+     */
+    public void reset() {
+        for (LongAdder counter : counters.values()) {
+            counter.reset();
+        }
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Reads every metric
+     *
+     * @return the value of each metric by name, in alphabetical order
+     */
+    public Map<String, Number> snapshot() {
+        Map<String, Number> out = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            out.put(entry.getKey(), entry.getValue().sum());
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            String key = entry.getKey();
+            LatencyHistogram histogram = entry.getValue();
+            out.put(key + ".count", histogram.getCount());
+            out.put(key + ".meanNanos", histogram.getMean());
+            for (double percentile : PERCENTILES) {
+                out.put(key + ".p" + formatPercentile(percentile) + "Nanos", histogram.getPercentile(percentile));
+            }
+            out.put(key + ".maxNanos", histogram.getMax());
+        }
+        for (Map.Entry<String, DoubleSupplier> entry : gauges.entrySet()) {
+            out.put(entry.getKey(), entry.getValue().getAsDouble());
+        }
+        return out;
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile)
+                ? Long.toString((long) percentile)
+                : Double.toString(percentile).replace(".", "");
+    }
+
+    /**
+     * Writes every metric to a file with one "name,value" line per metric,
+     * like the metrics of {@link seakers.architecture.io.ResultIO#saveSearchMetrics}
+     *
+     * @param path the path of the file
+     * @throws IOException if an I/O exception occurred
+     */
+    public void write(Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Number> entry : snapshot().entrySet()) {
+                writer.append(entry.getKey()).append(',').append(format(entry.getValue())).append('\n');
+            }
+        }
+    }
+
+    private static String format(Number value) {
+        double d = value.doubleValue();
+        if (value instanceof Long || (d == Math.rint(d) && Math.abs(d) < 1e15)) {
+            return Long.toString(value.longValue());
+        }
+        return Double.toString(d);
+    }
+
+    /**
+     * Registers this registry with the platform MBean server
+     *
+     * @param name the value of the name key of the MBean
+     * @throws JMException if the MBean could not be registered
+     */
+    public synchronized void register(String name) throws JMException {
+        if (this.name != null) {
+            throw new IllegalStateException(String.format("Metrics are already registered as %s", this.name));
+        }
+        ObjectName objectName = new ObjectName(DOMAIN, "name", ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        this.name = objectName;
+    }
+
+    /**
+     * Removes this registry from the platform MBean server. Does nothing if
+     * it is not registered
+     *
+     * @throws JMException if the MBean could not be removed
+     */
+    public synchronized void unregister() throws JMException {
+        if (name != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            name = null;
+        }
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Number value = snapshot().get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return value.doubleValue();
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(String.format("Metric %s is read-only", attribute.getName()));
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Number> values = snapshot();
+        AttributeList out = new AttributeList();
+        for (String attribute : attributes) {
+            Number value = values.get(attribute);
+            if (value != null) {
+                out.add(new Attribute(attribute, value.doubleValue()));
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        if ("reset".equals(actionName) && (params == null || params.length == 0)) {
+            reset();
+            return null;
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (String key : snapshot().keySet()) {
+            attributes.add(new MBeanAttributeInfo(key, Double.class.getName(), key, true, false, false));
+        }
+        MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Resets every counter and histogram",
+                new MBeanParameterInfo[0], void.class.getName(), MBeanOperationInfo.ACTION);
+        return new MBeanInfo(SearchMetrics.class.getName(), "Counters, latency histograms and gauges of a search",
+                attributes.toArray(new MBeanAttributeInfo[attributes.size()]), null,
+                new MBeanOperationInfo[]{reset}, null);
+    }
+}